@@ -0,0 +1,88 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.benchmark;
+
+import io.netty.channel.Channel;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.util.HashedWheelTimer;
+import org.asynchttpclient.netty.channel.DefaultChannelPool;
+import org.asynchttpclient.netty.channel.DefaultChannelPool.PoolLeaseStrategy;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.time.Duration;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Leases a channel from a pool holding many idle channels over many partitions, then gives it back.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class ChannelPoolBenchmark {
+
+    @Param({"1", "1000"})
+    public int partitions;
+
+    @Param("10")
+    public int channelsPerPartition;
+
+    private HashedWheelTimer timer;
+    private DefaultChannelPool pool;
+    private String[] partitionKeys;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        timer = new HashedWheelTimer();
+        pool = new DefaultChannelPool(Duration.ofMinutes(1), Duration.ofMinutes(5), PoolLeaseStrategy.LIFO, timer, Duration.ofMillis(100));
+        partitionKeys = new String[partitions];
+        for (int i = 0; i < partitions; i++) {
+            partitionKeys[i] = "http://host" + i + ":80";
+            for (int j = 0; j < channelsPerPartition; j++) {
+                pool.offer(new EmbeddedChannel(), partitionKeys[i]);
+            }
+        }
+    }
+
+    @TearDown(Level.Trial)
+    public void tearDown() {
+        pool.destroy();
+        timer.stop();
+    }
+
+    @Benchmark
+    public Channel pollAndOffer() {
+        String partitionKey = partitionKeys[ThreadLocalRandom.current().nextInt(partitions)];
+        Channel channel = pool.poll(partitionKey);
+        pool.offer(channel, partitionKey);
+        return channel;
+    }
+}
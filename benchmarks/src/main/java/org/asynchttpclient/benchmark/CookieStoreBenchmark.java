@@ -0,0 +1,73 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.benchmark;
+
+import io.netty.handler.codec.http.cookie.Cookie;
+import io.netty.handler.codec.http.cookie.DefaultCookie;
+import org.asynchttpclient.cookie.ThreadSafeCookieStore;
+import org.asynchttpclient.uri.Uri;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class CookieStoreBenchmark {
+
+    @Param({"10", "1000"})
+    public int domains;
+
+    @Param("5")
+    public int cookiesPerDomain;
+
+    private ThreadSafeCookieStore cookieStore;
+    private Uri uri;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        cookieStore = new ThreadSafeCookieStore();
+        for (int i = 0; i < domains; i++) {
+            Uri domainUri = Uri.create("https://www" + i + ".example.com/a/b");
+            for (int j = 0; j < cookiesPerDomain; j++) {
+                DefaultCookie cookie = new DefaultCookie("cookie" + j, "value" + j);
+                cookie.setPath(j % 2 == 0 ? "/" : "/a");
+                cookieStore.add(domainUri, cookie);
+            }
+        }
+        uri = Uri.create("https://www" + domains / 2 + ".example.com/a/b/c");
+    }
+
+    @Benchmark
+    public List<Cookie> get() {
+        return cookieStore.get(uri);
+    }
+}
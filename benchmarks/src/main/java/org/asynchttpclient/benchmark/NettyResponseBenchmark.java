@@ -0,0 +1,80 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.benchmark;
+
+import io.netty.buffer.Unpooled;
+import io.netty.channel.embedded.EmbeddedChannel;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.netty.EagerResponseBodyPart;
+import org.asynchttpclient.netty.NettyResponse;
+import org.asynchttpclient.netty.NettyResponseStatus;
+import org.asynchttpclient.uri.Uri;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Level;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Aggregates a response body received in chunks.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NettyResponseBenchmark {
+
+    @Param({"1024", "1048576"})
+    public int bodySize;
+
+    @Param("8192")
+    public int chunkSize;
+
+    private NettyResponseStatus status;
+    private List<HttpResponseBodyPart> bodyParts;
+
+    @Setup(Level.Trial)
+    public void setUp() {
+        status = new NettyResponseStatus(Uri.create("http://localhost/"), new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK), new EmbeddedChannel());
+        bodyParts = new ArrayList<>();
+        for (int offset = 0; offset < bodySize; offset += chunkSize) {
+            int length = Math.min(chunkSize, bodySize - offset);
+            bodyParts.add(new EagerResponseBodyPart(Unpooled.wrappedBuffer(new byte[length]), offset + length == bodySize));
+        }
+    }
+
+    @Benchmark
+    public byte[] getResponseBodyAsBytes() {
+        return new NettyResponse(status, new DefaultHttpHeaders(), bodyParts).getResponseBodyAsBytes();
+    }
+}
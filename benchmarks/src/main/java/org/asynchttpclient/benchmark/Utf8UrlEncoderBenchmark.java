@@ -0,0 +1,61 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.benchmark;
+
+import org.asynchttpclient.util.Utf8UrlEncoder;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class Utf8UrlEncoderBenchmark {
+
+    @Param({
+            "nothing-to-encode",
+            "a query value with spaces & reserved = characters",
+            "héllo wörld 你好",
+    })
+    public String input;
+
+    @Benchmark
+    public String encodeQueryElement() {
+        return Utf8UrlEncoder.encodeQueryElement(input);
+    }
+
+    @Benchmark
+    public String encodePath() {
+        return Utf8UrlEncoder.encodePath(input);
+    }
+
+    @Benchmark
+    public StringBuilder encodeFormElement() {
+        return Utf8UrlEncoder.encodeAndAppendFormElement(new StringBuilder(input.length() * 3), input);
+    }
+}
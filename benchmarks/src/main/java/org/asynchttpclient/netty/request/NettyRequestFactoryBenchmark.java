@@ -0,0 +1,68 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.request;
+
+import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.Request;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.asynchttpclient.Dsl.get;
+import static org.asynchttpclient.Dsl.post;
+
+/**
+ * Lives in the factory's package as its constructor isn't public.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.NANOSECONDS)
+@Warmup(iterations = 5, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class NettyRequestFactoryBenchmark {
+
+    private final NettyRequestFactory factory = new NettyRequestFactory(new DefaultAsyncHttpClientConfig.Builder().build());
+
+    private final Request getRequest = get("https://www.example.com/search?q=async+http+client&page=2")
+            .addHeader("Accept", "application/json")
+            .addHeader("X-Request-Id", "5f1c0f5e-5d4b-4a0e-9d1e-0c6b8a8f3b1a")
+            .addQueryParam("lang", "en")
+            .build();
+
+    private final Request postRequest = post("https://www.example.com/api/items")
+            .addHeader("Content-Type", "application/json")
+            .setBody("{\"name\":\"item\",\"tags\":[\"a\",\"b\",\"c\"]}")
+            .build();
+
+    @Benchmark
+    public NettyRequest newGetRequest() {
+        return factory.newNettyRequest(getRequest, false, null, null, null);
+    }
+
+    @Benchmark
+    public NettyRequest newPostRequest() {
+        return factory.newNettyRequest(postRequest, false, null, null, null);
+    }
+}
@@ -71,8 +71,12 @@ public abstract class AsyncCompletionHandler<T> implements ProgressAsyncHandler<
         return onCompleted(builder.build());
     }
 
+    /**
+     * Releases the body parts retained so far (see {@link Response.ResponseBuilder}), so overriding methods should call it.
+     */
     @Override
     public void onThrowable(Throwable t) {
+        builder.reset();
         LOGGER.debug(t.getMessage(), t);
     }
 
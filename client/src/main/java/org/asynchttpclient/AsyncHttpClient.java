@@ -293,6 +293,34 @@ public interface AsyncHttpClient extends Closeable {
      */
     void flushChannelPoolPartitions(Predicate<Object> predicate);
 
+    /**
+     * Open a connection to the host of an url ahead of the first request to it, and keep it in the pool.
+     * <p>
+     * For secured urls, the TLS handshake is performed as well, so that the session is cached and later connections to the same host can resume it.
+     * Nothing is sent to the server.
+     *
+     * @param url the url of the remote host, only its scheme, host and port matter
+     * @return a future completed once the connection is pooled
+     */
+    default ListenableFuture<Void> prewarm(String url) {
+        return prewarm(url, 1);
+    }
+
+    /**
+     * Open connections to the host of an url ahead of the first burst of requests to it, and keep them in the pool.
+     * <p>
+     * The first connection is opened alone, so that the other ones can resume its TLS session. When
+     * {@link AsyncHttpClientConfig#getMinIdleConnectionsPerHost()} is set, the host is then kept with at least that many idle connections.
+     * With HTTP/2 enabled, a single connection is opened to secured hosts, as requests get multiplexed over it.
+     *
+     * @param url         the url of the remote host, only its scheme, host and port matter
+     * @param connections the number of connections to open
+     * @return a future completed once every connection is pooled, or failed with the first failure
+     */
+    default ListenableFuture<Void> prewarm(String url, int connections) {
+        return new ListenableFuture.CompletedFailure<>(new UnsupportedOperationException(getClass().getSimpleName() + " doesn't support pre-warming"));
+    }
+
     /**
      * Return the config associated to this client.
      *
@@ -23,15 +23,20 @@ import io.netty.channel.EventLoopGroup;
 import io.netty.handler.ssl.SslContext;
 import io.netty.util.HashedWheelTimer;
 import io.netty.util.Timer;
+import org.asynchttpclient.cache.HttpCache;
 import org.asynchttpclient.channel.ChannelPool;
 import org.asynchttpclient.channel.KeepAliveStrategy;
 import org.asynchttpclient.cookie.CookieStore;
 import org.asynchttpclient.filter.IOExceptionFilter;
 import org.asynchttpclient.filter.RequestFilter;
 import org.asynchttpclient.filter.ResponseFilter;
+import org.asynchttpclient.hedging.HedgingPolicy;
+import org.asynchttpclient.metrics.MetricsListener;
 import org.asynchttpclient.netty.EagerResponseBodyPart;
 import org.asynchttpclient.netty.LazyResponseBodyPart;
+import org.asynchttpclient.netty.RetainedResponseBodyPart;
 import org.asynchttpclient.netty.channel.ConnectionSemaphoreFactory;
+import org.asynchttpclient.netty.future.FailureClassifier;
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.proxy.ProxyServerSelector;
 import org.jetbrains.annotations.Nullable;
@@ -40,6 +45,7 @@ import java.io.IOException;
 import java.time.Duration;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 
@@ -71,6 +77,22 @@ public interface AsyncHttpClientConfig {
      */
     int getMaxConnectionsPerHost();
 
+    /**
+     * Return the number of idle connections kept open to the hosts pre-warmed with {@link AsyncHttpClient#prewarm(String, int)}.
+     * Connections closed or leased are replaced in the background, every {@link #getConnectionPoolCleanerPeriod()}.
+     *
+     * @return the minimum number of idle connections per pre-warmed host, 0 to not refill
+     */
+    int getMinIdleConnectionsPerHost();
+
+    /**
+     * Return the maximum number of idle connections the pool keeps across all hosts. Once reached, offering a connection closes the one that
+     * has been idle for the longest, whatever its host.
+     *
+     * @return the maximum number of idle connections, -1 for no limit
+     */
+    int getMaxIdleConnections();
+
     /**
      * Return the maximum duration in milliseconds an {@link AsyncHttpClient} can wait to acquire a free channel
      *
@@ -78,6 +100,14 @@ public interface AsyncHttpClientConfig {
      */
     int getAcquireFreeChannelTimeout();
 
+    /**
+     * Return true if requests that can't get a free channel right away should wait in a queue instead of parking the calling thread.
+     * They're then started as soon as a channel is released, or fail after {@link #getAcquireFreeChannelTimeout()}.
+     *
+     * @return true if free channels are acquired without blocking
+     */
+    boolean isAsyncAcquireFreeChannel();
+
 
     /**
      * Return the maximum time an {@link AsyncHttpClient} can wait when connecting to a remote host
@@ -86,6 +116,30 @@ public interface AsyncHttpClientConfig {
      */
     Duration getConnectTimeout();
 
+    /**
+     * Return the delay after which a new connection attempt to the next address of a host is started while the previous ones are still pending,
+     * following Happy Eyeballs (RFC 8305), in which case addresses are also tried in turns of alternating families.
+     * The first attempt to succeed wins. 250 ms is the recommended value, zero or negative disables it and addresses are tried one after another.
+     *
+     * @return the connection attempt delay
+     */
+    Duration getConnectionAttemptDelay();
+
+    /**
+     * Return true if hostnames of requests that don't set their own {@link io.netty.resolver.NameResolver} should be resolved asynchronously
+     * with a caching DNS resolver, instead of blocking on {@link java.net.InetAddress#getAllByName(String)} for every new connection.
+     *
+     * @return true if the client resolves hostnames with its own caching DNS resolver
+     */
+    boolean isUseDnsCache();
+
+    /**
+     * Return how long failed DNS lookups are cached.
+     *
+     * @return how long failed DNS lookups are cached when {@link #isUseDnsCache()} is enabled
+     */
+    Duration getDnsCacheNegativeTtl();
+
     /**
      * Return the maximum time an {@link AsyncHttpClient} can stay idle.
      *
@@ -101,10 +155,20 @@ public interface AsyncHttpClientConfig {
     Duration getPooledConnectionIdleTimeout();
 
     /**
-     * @return the period to clean the pool of dead and idle connections.
+     * Return the period to clean the pool of dead and idle connections.
+     *
+     * @return the period to clean the pool of dead and idle connections. Unused by the default pool, which expires each idle connection on its own deadline.
      */
     Duration getConnectionPoolCleanerPeriod();
 
+    /**
+     * Tell if the pool shards its partitions by event loop.
+     *
+     * @return true if the pool should shard each partition by event loop and hand out the channels registered on the caller's loop first,
+     * falling back to the other loops' channels
+     */
+    boolean isConnectionPoolEventLoopAffinity();
+
     /**
      * Return the maximum time an {@link AsyncHttpClient} waits until the response is completed.
      *
@@ -304,6 +368,16 @@ public interface AsyncHttpClientConfig {
 
     int getChunkedFileChunkSize();
 
+    /**
+     * Return the executor request bodies provided as an {@link java.io.InputStream} are read on, so that blocking reads never happen on an event loop.
+     * Chunks are handed to the channel as they're read, and reading pauses while the channel isn't writable.
+     * When null, streams are read on the event loop of their channel.
+     *
+     * @return the executor of blocking request body reads, or null to read them on the event loop
+     */
+    @Nullable
+    Executor getInputStreamBodyExecutor();
+
     int getWebSocketMaxBufferSize();
 
     int getWebSocketMaxFrameSize();
@@ -337,6 +411,56 @@ public interface AsyncHttpClientConfig {
     @Nullable
     ConnectionSemaphoreFactory getConnectionSemaphoreFactory();
 
+    /**
+     * Return the classifier deciding, from the failure of a read, a write or a connect, whether a request can be retried.
+     *
+     * @return the failure classifier
+     */
+    FailureClassifier getFailureClassifier();
+
+    /**
+     * Return the listener notified of the duration of every phase of the requests, e.g. DNS resolution, connect, TLS handshake, request write
+     * or time to first byte, and of pool hits and misses, retries and timeouts.
+     *
+     * @return the metrics listener, or null if metrics aren't recorded
+     */
+    @Nullable
+    MetricsListener getMetricsListener();
+
+    /**
+     * Return the RFC 9111 cache consulted before GET requests are sent: fresh entries are served without touching the network
+     * and stale ones are revalidated with conditional requests.
+     *
+     * @return the response cache, or null if responses aren't cached
+     */
+    @Nullable
+    HttpCache getHttpCache();
+
+    /**
+     * Return true if concurrent identical GET and HEAD requests should share a single exchange with the server, every caller's handler
+     * receiving the same status, headers and body parts. Requests are identical when their method, URI, cookies and
+     * {@link #getCoalescingKeyHeaders() key headers} are.
+     *
+     * @return true if identical in-flight requests are coalesced
+     */
+    boolean isCoalesceRequests();
+
+    /**
+     * Return the names of the request headers whose values must be equal for requests to be coalesced, see {@link #isCoalesceRequests()}.
+     *
+     * @return the coalescing key headers
+     */
+    List<String> getCoalescingKeyHeaders();
+
+    /**
+     * Return the default policy deciding when to send a second attempt of a GET, HEAD or OPTIONS request whose first attempt hasn't
+     * received a status yet, the first attempt to answer being used and the other one cancelled. Can be overridden per request.
+     *
+     * @return the hedging policy, or null if requests aren't hedged by default
+     */
+    @Nullable
+    HedgingPolicy getHedgingPolicy();
+
     @Nullable
     Timer getNettyTimer();
 
@@ -354,6 +478,14 @@ public interface AsyncHttpClientConfig {
 
     boolean isValidateResponseHeaders();
 
+    /**
+     * Tell if HTTP/2 is enabled.
+     *
+     * @return true if HTTP/2 should be negotiated with ALPN on TLS connections, in which case
+     * requests to the same origin are multiplexed as streams over a single connection
+     */
+    boolean isEnableHttp2();
+
     boolean isAggregateWebSocketFrameFragments();
 
     boolean isEnableWebSocketCompression();
@@ -389,6 +521,18 @@ public interface AsyncHttpClientConfig {
             public HttpResponseBodyPart newResponseBodyPart(ByteBuf buf, boolean last) {
                 return new LazyResponseBodyPart(buf, last);
             }
+        },
+
+        /**
+         * Like {@link #LAZY}, but {@link Response.ResponseBuilder} retains the buffers instead of copying them, and builds a
+         * {@link org.asynchttpclient.netty.NettyCompositeResponse} that must be released once consumed. Handlers that fail must call
+         * {@link Response.ResponseBuilder#reset()}, as {@link AsyncCompletionHandler#onThrowable(Throwable)} does.
+         */
+        RETAINED {
+            @Override
+            public HttpResponseBodyPart newResponseBodyPart(ByteBuf buf, boolean last) {
+                return new RetainedResponseBodyPart(buf, last);
+            }
         };
 
         public abstract HttpResponseBodyPart newResponseBodyPart(ByteBuf buf, boolean last);
@@ -72,6 +72,32 @@ public class ClientStats {
                 .sum();
     }
 
+    /**
+     * Return the number of requests waiting for a connection permit.
+     *
+     * @return A long representing the number of requests waiting for a connection permit.
+     */
+    public long getTotalPendingPermitCount() {
+        return statsPerHost
+                .values()
+                .stream()
+                .mapToLong(HostStats::getHostPendingPermitCount)
+                .sum();
+    }
+
+    /**
+     * Return the number of connection attempts in flight.
+     *
+     * @return A long representing the number of connection attempts in flight.
+     */
+    public long getTotalConnectAttemptCount() {
+        return statsPerHost
+                .values()
+                .stream()
+                .mapToLong(HostStats::getHostConnectAttemptCount)
+                .sum();
+    }
+
     @Override
     public String toString() {
         return "There are " + getTotalConnectionCount() +
@@ -0,0 +1,258 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient;
+
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import org.asynchttpclient.channel.ChannelPool;
+import org.asynchttpclient.netty.request.NettyRequestSender;
+import org.asynchttpclient.uri.Uri;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.asynchttpclient.util.DateUtils.unpreciseMillisTime;
+import static org.asynchttpclient.util.ProxyUtils.getProxyServer;
+
+/**
+ * Opens connections ahead of the requests that will need them, and keeps a minimum of idle connections to the pre-warmed hosts
+ * by periodically replacing the ones that were closed or leased.
+ * <p>
+ * Refilling is skipped for hosts that might negotiate HTTP/2, as requests are multiplexed over a single connection,
+ * and for pools that don't count their idle channels.
+ */
+final class ConnectionPrewarmer implements TimerTask {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(ConnectionPrewarmer.class);
+
+    private final AsyncHttpClientConfig config;
+    private final NettyRequestSender requestSender;
+    private final ChannelPool channelPool;
+    private final Timer nettyTimer;
+    private final int minIdleConnections;
+    private final long refillPeriod;
+    private final long failureBackoff;
+    private final ConcurrentHashMap<Object, Target> targets = new ConcurrentHashMap<>();
+    private final AtomicBoolean refillScheduled = new AtomicBoolean();
+
+    ConnectionPrewarmer(AsyncHttpClientConfig config, NettyRequestSender requestSender, ChannelPool channelPool, Timer nettyTimer) {
+        this.config = config;
+        this.requestSender = requestSender;
+        this.channelPool = channelPool;
+        this.nettyTimer = nettyTimer;
+        minIdleConnections = config.getMinIdleConnectionsPerHost();
+        refillPeriod = Math.max(config.getConnectionPoolCleanerPeriod().toMillis(), 1);
+        failureBackoff = Math.max(config.getConnectTimeout().toMillis(), refillPeriod);
+    }
+
+    /**
+     * Open connections to the host of a request. The first one is opened alone, so that the others can resume its TLS session.
+     */
+    ListenableFuture<Void> open(Request request, int connections) {
+        Target target = target(request);
+        int count = target.multiplexed ? 1 : connections;
+        ListenableFuture<Void> first = target.open();
+        if (count <= 1) {
+            return first;
+        }
+        CompletableFuture<Void> all = first.toCompletableFuture().thenCompose(ignored -> {
+            CompletableFuture<?>[] others = new CompletableFuture<?>[count - 1];
+            for (int i = 0; i < others.length; i++) {
+                others[i] = target.open().toCompletableFuture();
+            }
+            return CompletableFuture.allOf(others);
+        });
+        return new PrewarmFuture(first, all);
+    }
+
+    private Target target(Request request) {
+        Uri uri = request.getUri();
+        Object partitionKey = request.getChannelPoolPartitioning().getPartitionKey(uri, request.getVirtualHost(), getProxyServer(config, request));
+        boolean multiplexed = config.isEnableHttp2() && uri.isSecured();
+        if (minIdleConnections <= 0 || multiplexed) {
+            return new Target(request, multiplexed);
+        }
+
+        Target target = targets.computeIfAbsent(partitionKey, key -> new Target(request, false));
+        if (refillScheduled.compareAndSet(false, true)) {
+            nettyTimer.newTimeout(this, refillPeriod, TimeUnit.MILLISECONDS);
+        }
+        return target;
+    }
+
+    @Override
+    public void run(Timeout timeout) {
+        if (requestSender.isClosed()) {
+            return;
+        }
+
+        long now = unpreciseMillisTime();
+        targets.forEach((partitionKey, target) -> {
+            int idle = channelPool.getIdleChannelCount(partitionKey);
+            if (idle >= 0 && target.retryAfter <= now) {
+                for (int missing = minIdleConnections - idle - target.opening.get(); missing > 0; missing--) {
+                    target.open();
+                }
+            }
+        });
+
+        if (!requestSender.isClosed()) {
+            nettyTimer.newTimeout(this, refillPeriod, TimeUnit.MILLISECONDS);
+        }
+    }
+
+    private final class Target {
+
+        private final Request request;
+        private final boolean multiplexed;
+        private final AtomicInteger opening = new AtomicInteger();
+        private volatile long retryAfter;
+
+        Target(Request request, boolean multiplexed) {
+            this.request = request;
+            this.multiplexed = multiplexed;
+        }
+
+        ListenableFuture<Void> open() {
+            opening.incrementAndGet();
+            ListenableFuture<Void> future;
+            try {
+                future = requestSender.openConnection(request, new OpenConnectionHandler());
+            } catch (Exception e) {
+                opening.decrementAndGet();
+                return new ListenableFuture.CompletedFailure<>(e);
+            }
+            future.toCompletableFuture().whenComplete((ignored, cause) -> {
+                if (cause != null) {
+                    // don't hammer a host that can't be reached
+                    retryAfter = unpreciseMillisTime() + failureBackoff;
+                }
+                opening.decrementAndGet();
+            });
+            return future;
+        }
+    }
+
+    /**
+     * The future of the connections opened to a host, cancelling it stops opening the ones that weren't yet.
+     */
+    private static final class PrewarmFuture implements ListenableFuture<Void> {
+
+        private final ListenableFuture<Void> first;
+        private final CompletableFuture<Void> all;
+
+        PrewarmFuture(ListenableFuture<Void> first, CompletableFuture<Void> all) {
+            this.first = first;
+            this.all = all;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            first.cancel(mayInterruptIfRunning);
+            return all.cancel(mayInterruptIfRunning);
+        }
+
+        @Override
+        public boolean isCancelled() {
+            return all.isCancelled();
+        }
+
+        @Override
+        public boolean isDone() {
+            return all.isDone();
+        }
+
+        @Override
+        public @Nullable Void get() throws InterruptedException, ExecutionException {
+            return all.get();
+        }
+
+        @Override
+        public @Nullable Void get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+            return all.get(timeout, unit);
+        }
+
+        @Override
+        public void done() {
+        }
+
+        @Override
+        public void abort(Throwable t) {
+            first.abort(t);
+            all.completeExceptionally(t);
+        }
+
+        @Override
+        public void touch() {
+        }
+
+        @Override
+        public ListenableFuture<Void> addListener(Runnable listener, Executor exec) {
+            if (exec == null) {
+                exec = Runnable::run;
+            }
+            all.whenCompleteAsync((r, t) -> listener.run(), exec);
+            return this;
+        }
+
+        @Override
+        public CompletableFuture<Void> toCompletableFuture() {
+            return all;
+        }
+    }
+
+    /**
+     * The handler of the requests that only open a connection, it's never notified of any response.
+     */
+    private static final class OpenConnectionHandler implements AsyncHandler<Void> {
+
+        @Override
+        public State onStatusReceived(HttpResponseStatus responseStatus) {
+            return State.ABORT;
+        }
+
+        @Override
+        public State onHeadersReceived(HttpHeaders headers) {
+            return State.ABORT;
+        }
+
+        @Override
+        public State onBodyPartReceived(HttpResponseBodyPart bodyPart) {
+            return State.ABORT;
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            LOGGER.debug("Failed to open connection", t);
+        }
+
+        @Override
+        public @Nullable Void onCompleted() {
+            return null;
+        }
+    }
+}
@@ -21,13 +21,17 @@ import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.util.HashedWheelTimer;
 import io.netty.util.Timer;
 import io.netty.util.concurrent.DefaultThreadFactory;
+import org.asynchttpclient.cache.CachingRequestExecutor;
+import org.asynchttpclient.cache.HttpCache;
 import org.asynchttpclient.channel.ChannelPool;
+import org.asynchttpclient.coalescing.CoalescingRequestExecutor;
 import org.asynchttpclient.cookie.CookieEvictionTask;
 import org.asynchttpclient.cookie.CookieStore;
 import org.asynchttpclient.exception.FilterException;
 import org.asynchttpclient.filter.FilterContext;
 import org.asynchttpclient.filter.RequestFilter;
 import org.asynchttpclient.handler.resumable.ResumableAsyncHandler;
+import org.asynchttpclient.hedging.HedgingRequestExecutor;
 import org.asynchttpclient.netty.channel.ChannelManager;
 import org.asynchttpclient.netty.request.NettyRequestSender;
 import org.jetbrains.annotations.Nullable;
@@ -35,6 +39,9 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.util.List;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
@@ -64,6 +71,8 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
     private final NettyRequestSender requestSender;
     private final boolean allowStopNettyTimer;
     private final Timer nettyTimer;
+    private final RequestExecutor requestExecutor;
+    private final ConnectionPrewarmer connectionPrewarmer;
 
     /**
      * Default signature calculator to use for all requests constructed by this
@@ -109,6 +118,17 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
         requestSender = new NettyRequestSender(config, channelManager, nettyTimer, new AsyncHttpClientState(closed));
         channelManager.configureBootstraps(requestSender);
 
+        RequestExecutor requestExecutor = new HedgingRequestExecutor(nettyTimer, config.getHedgingPolicy(), this::execute);
+        if (config.isCoalesceRequests()) {
+            requestExecutor = new CoalescingRequestExecutor(config.getCoalescingKeyHeaders(), requestExecutor);
+        }
+        HttpCache httpCache = config.getHttpCache();
+        if (httpCache != null) {
+            requestExecutor = new CachingRequestExecutor(httpCache, config.getResponseBodyPartFactory(), requestExecutor);
+        }
+        this.requestExecutor = requestExecutor;
+        connectionPrewarmer = new ConnectionPrewarmer(config, requestSender, channelManager.getChannelPool(), nettyTimer);
+
         CookieStore cookieStore = config.getCookieStore();
         if (cookieStore != null) {
             int cookieStoreCount = config.getCookieStore().incrementAndGet();
@@ -246,7 +266,7 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
         }
 
         if (noRequestFilters) {
-            return execute(request, handler);
+            return requestExecutor.execute(request, handler);
         } else {
             FilterContext<T> fc = new FilterContext.FilterContextBuilder<>(handler, request).build();
             try {
@@ -256,7 +276,11 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
                 return new ListenableFuture.CompletedFailure<>("preProcessRequest failed", e);
             }
 
-            return execute(fc.getRequest(), fc.getAsyncHandler());
+            CompletionStage<?> executeAfter = fc.getExecuteAfter();
+            if (executeAfter != null) {
+                return executeAfter(executeAfter.toCompletableFuture(), fc.getRequest(), fc.getAsyncHandler());
+            }
+            return requestExecutor.execute(fc.getRequest(), fc.getAsyncHandler());
         }
     }
 
@@ -275,6 +299,18 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
         return executeRequest(requestBuilder.build());
     }
 
+    private <T> ListenableFuture<T> executeAfter(CompletableFuture<?> executeAfter, Request request, AsyncHandler<T> asyncHandler) {
+        DeferredResponseFuture<T> future = new DeferredResponseFuture<>(asyncHandler, executeAfter);
+        executeAfter.whenComplete((ignored, t) -> {
+            if (t == null) {
+                future.execute(requestExecutor, request);
+            } else {
+                future.fail(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+            }
+        });
+        return future;
+    }
+
     private <T> ListenableFuture<T> execute(Request request, final AsyncHandler<T> asyncHandler) {
         try {
             return requestSender.sendRequest(request, asyncHandler, null);
@@ -329,6 +365,15 @@ public class DefaultAsyncHttpClient implements AsyncHttpClient {
         getChannelPool().flushPartitions(predicate);
     }
 
+    @Override
+    public ListenableFuture<Void> prewarm(String url, int connections) {
+        try {
+            return connectionPrewarmer.open(new RequestBuilder(GET).setUrl(url).build(), connections);
+        } catch (Exception e) {
+            return new ListenableFuture.CompletedFailure<>(e);
+        }
+    }
+
     protected BoundRequestBuilder requestBuilder(String method, String url) {
         return new BoundRequestBuilder(this, method, config.isDisableUrlEncodingForBoundRequests()).setUrl(url).setSignatureCalculator(signatureCalculator);
     }
@@ -21,16 +21,21 @@ import io.netty.channel.ChannelOption;
 import io.netty.channel.EventLoopGroup;
 import io.netty.handler.ssl.SslContext;
 import io.netty.util.Timer;
+import org.asynchttpclient.cache.HttpCache;
 import org.asynchttpclient.channel.ChannelPool;
 import org.asynchttpclient.channel.DefaultKeepAliveStrategy;
 import org.asynchttpclient.channel.KeepAliveStrategy;
+import org.asynchttpclient.coalescing.CoalescingRequestExecutor;
 import org.asynchttpclient.config.AsyncHttpClientConfigDefaults;
 import org.asynchttpclient.cookie.CookieStore;
 import org.asynchttpclient.cookie.ThreadSafeCookieStore;
 import org.asynchttpclient.filter.IOExceptionFilter;
 import org.asynchttpclient.filter.RequestFilter;
 import org.asynchttpclient.filter.ResponseFilter;
+import org.asynchttpclient.hedging.HedgingPolicy;
+import org.asynchttpclient.metrics.MetricsListener;
 import org.asynchttpclient.netty.channel.ConnectionSemaphoreFactory;
+import org.asynchttpclient.netty.future.FailureClassifier;
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.proxy.ProxyServerSelector;
 import org.asynchttpclient.util.ProxyUtils;
@@ -42,20 +47,27 @@ import java.util.HashMap;
 import java.util.LinkedList;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Executor;
 import java.util.concurrent.ThreadFactory;
 import java.util.function.Consumer;
 
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultAcquireFreeChannelTimeout;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultAggregateWebSocketFrameFragments;
+import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultAsyncAcquireFreeChannel;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultChunkedFileChunkSize;
+import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultCoalesceRequests;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultCompressionEnforced;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultConnectTimeout;
+import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultConnectionAttemptDelay;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultConnectionPoolCleanerPeriod;
+import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultConnectionPoolEventLoopAffinity;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultConnectionTtl;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultDisableHttpsEndpointIdentificationAlgorithm;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultDisableUrlEncodingForBoundRequests;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultDisableZeroCopy;
+import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultDnsCacheNegativeTtl;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultEnableAutomaticDecompression;
+import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultEnableHttp2;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultEnableWebSocketCompression;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultEnabledCipherSuites;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultEnabledProtocols;
@@ -74,8 +86,10 @@ import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultKe
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultKeepEncodingHeader;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultMaxConnections;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultMaxConnectionsPerHost;
+import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultMaxIdleConnections;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultMaxRedirects;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultMaxRequestRetry;
+import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultMinIdleConnectionsPerHost;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultPooledConnectionIdleTimeout;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultReadTimeout;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultRequestTimeout;
@@ -91,6 +105,7 @@ import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultSs
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultStrict302Handling;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultTcpNoDelay;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultThreadPoolName;
+import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultUseDnsCache;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultUseInsecureTrustManager;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultUseLaxCookieEncoder;
 import static org.asynchttpclient.config.AsyncHttpClientConfigDefaults.defaultUseNativeTransport;
@@ -127,6 +142,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
     private final boolean keepEncodingHeader;
     private final ProxyServerSelector proxyServerSelector;
     private final boolean validateResponseHeaders;
+    private final boolean enableHttp2;
 
     // websockets
     private final boolean aggregateWebSocketFrameFragments;
@@ -136,6 +152,9 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
     // timeouts
     private final Duration connectTimeout;
+    private final Duration connectionAttemptDelay;
+    private final boolean useDnsCache;
+    private final Duration dnsCacheNegativeTtl;
     private final Duration requestTimeout;
     private final Duration readTimeout;
     private final Duration shutdownQuietPeriod;
@@ -145,12 +164,22 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
     private final boolean keepAlive;
     private final Duration pooledConnectionIdleTimeout;
     private final Duration connectionPoolCleanerPeriod;
+    private final boolean connectionPoolEventLoopAffinity;
     private final Duration connectionTtl;
     private final int maxConnections;
     private final int maxConnectionsPerHost;
+    private final int minIdleConnectionsPerHost;
+    private final int maxIdleConnections;
     private final int acquireFreeChannelTimeout;
+    private final boolean asyncAcquireFreeChannel;
     private final @Nullable ChannelPool channelPool;
     private final @Nullable ConnectionSemaphoreFactory connectionSemaphoreFactory;
+    private final FailureClassifier failureClassifier;
+    private final @Nullable MetricsListener metricsListener;
+    private final @Nullable HttpCache httpCache;
+    private final boolean coalesceRequests;
+    private final List<String> coalescingKeyHeaders;
+    private final @Nullable HedgingPolicy hedgingPolicy;
     private final KeepAliveStrategy keepAliveStrategy;
 
     // ssl
@@ -182,6 +211,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
     private final int httpClientCodecMaxChunkSize;
     private final int httpClientCodecInitialBufferSize;
     private final int chunkedFileChunkSize;
+    private final @Nullable Executor inputStreamBodyExecutor;
     private final Map<ChannelOption<Object>, Object> channelOptions;
     private final @Nullable EventLoopGroup eventLoopGroup;
     private final boolean useNativeTransport;
@@ -217,11 +247,15 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
                                          boolean keepEncodingHeader,
                                          ProxyServerSelector proxyServerSelector,
                                          boolean validateResponseHeaders,
+                                         boolean enableHttp2,
                                          boolean aggregateWebSocketFrameFragments,
                                          boolean enablewebSocketCompression,
 
                                          // timeouts
                                          Duration connectTimeout,
+                                         Duration connectionAttemptDelay,
+                                         boolean useDnsCache,
+                                         Duration dnsCacheNegativeTtl,
                                          Duration requestTimeout,
                                          Duration readTimeout,
                                          Duration shutdownQuietPeriod,
@@ -231,12 +265,22 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
                                          boolean keepAlive,
                                          Duration pooledConnectionIdleTimeout,
                                          Duration connectionPoolCleanerPeriod,
+                                         boolean connectionPoolEventLoopAffinity,
                                          Duration connectionTtl,
                                          int maxConnections,
                                          int maxConnectionsPerHost,
+                                         int minIdleConnectionsPerHost,
+                                         int maxIdleConnections,
                                          int acquireFreeChannelTimeout,
+                                         boolean asyncAcquireFreeChannel,
                                          @Nullable ChannelPool channelPool,
                                          @Nullable ConnectionSemaphoreFactory connectionSemaphoreFactory,
+                                         FailureClassifier failureClassifier,
+                                         @Nullable MetricsListener metricsListener,
+                                         @Nullable HttpCache httpCache,
+                                         boolean coalesceRequests,
+                                         List<String> coalescingKeyHeaders,
+                                         @Nullable HedgingPolicy hedgingPolicy,
                                          KeepAliveStrategy keepAliveStrategy,
 
                                          // ssl
@@ -276,6 +320,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
                                          int httpClientCodecMaxChunkSize,
                                          int httpClientCodecInitialBufferSize,
                                          int chunkedFileChunkSize,
+                                         @Nullable Executor inputStreamBodyExecutor,
                                          int webSocketMaxBufferSize,
                                          int webSocketMaxFrameSize,
                                          Map<ChannelOption<Object>, Object> channelOptions,
@@ -307,6 +352,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         this.keepEncodingHeader = keepEncodingHeader;
         this.proxyServerSelector = proxyServerSelector;
         this.validateResponseHeaders = validateResponseHeaders;
+        this.enableHttp2 = enableHttp2;
 
         // websocket
         this.aggregateWebSocketFrameFragments = aggregateWebSocketFrameFragments;
@@ -316,6 +362,9 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
         // timeouts
         this.connectTimeout = connectTimeout;
+        this.connectionAttemptDelay = connectionAttemptDelay;
+        this.useDnsCache = useDnsCache;
+        this.dnsCacheNegativeTtl = dnsCacheNegativeTtl;
         this.requestTimeout = requestTimeout;
         this.readTimeout = readTimeout;
         this.shutdownQuietPeriod = shutdownQuietPeriod;
@@ -325,12 +374,22 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         this.keepAlive = keepAlive;
         this.pooledConnectionIdleTimeout = pooledConnectionIdleTimeout;
         this.connectionPoolCleanerPeriod = connectionPoolCleanerPeriod;
+        this.connectionPoolEventLoopAffinity = connectionPoolEventLoopAffinity;
         this.connectionTtl = connectionTtl;
         this.maxConnections = maxConnections;
         this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.minIdleConnectionsPerHost = minIdleConnectionsPerHost;
+        this.maxIdleConnections = maxIdleConnections;
         this.acquireFreeChannelTimeout = acquireFreeChannelTimeout;
+        this.asyncAcquireFreeChannel = asyncAcquireFreeChannel;
         this.channelPool = channelPool;
         this.connectionSemaphoreFactory = connectionSemaphoreFactory;
+        this.failureClassifier = failureClassifier;
+        this.metricsListener = metricsListener;
+        this.httpCache = httpCache;
+        this.coalesceRequests = coalesceRequests;
+        this.coalescingKeyHeaders = coalescingKeyHeaders;
+        this.hedgingPolicy = hedgingPolicy;
         this.keepAliveStrategy = keepAliveStrategy;
 
         // ssl
@@ -370,6 +429,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         this.httpClientCodecMaxChunkSize = httpClientCodecMaxChunkSize;
         this.httpClientCodecInitialBufferSize = httpClientCodecInitialBufferSize;
         this.chunkedFileChunkSize = chunkedFileChunkSize;
+        this.inputStreamBodyExecutor = inputStreamBodyExecutor;
         this.channelOptions = channelOptions;
         this.eventLoopGroup = eventLoopGroup;
         this.useNativeTransport = useNativeTransport;
@@ -488,6 +548,21 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         return connectTimeout;
     }
 
+    @Override
+    public Duration getConnectionAttemptDelay() {
+        return connectionAttemptDelay;
+    }
+
+    @Override
+    public boolean isUseDnsCache() {
+        return useDnsCache;
+    }
+
+    @Override
+    public Duration getDnsCacheNegativeTtl() {
+        return dnsCacheNegativeTtl;
+    }
+
     @Override
     public Duration getRequestTimeout() {
         return requestTimeout;
@@ -524,6 +599,11 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         return connectionPoolCleanerPeriod;
     }
 
+    @Override
+    public boolean isConnectionPoolEventLoopAffinity() {
+        return connectionPoolEventLoopAffinity;
+    }
+
     @Override
     public Duration getConnectionTtl() {
         return connectionTtl;
@@ -539,11 +619,26 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         return maxConnectionsPerHost;
     }
 
+    @Override
+    public int getMinIdleConnectionsPerHost() {
+        return minIdleConnectionsPerHost;
+    }
+
+    @Override
+    public int getMaxIdleConnections() {
+        return maxIdleConnections;
+    }
+
     @Override
     public int getAcquireFreeChannelTimeout() {
         return acquireFreeChannelTimeout;
     }
 
+    @Override
+    public boolean isAsyncAcquireFreeChannel() {
+        return asyncAcquireFreeChannel;
+    }
+
     @Override
     public @Nullable ChannelPool getChannelPool() {
         return channelPool;
@@ -554,6 +649,36 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         return connectionSemaphoreFactory;
     }
 
+    @Override
+    public FailureClassifier getFailureClassifier() {
+        return failureClassifier;
+    }
+
+    @Override
+    public @Nullable MetricsListener getMetricsListener() {
+        return metricsListener;
+    }
+
+    @Override
+    public @Nullable HttpCache getHttpCache() {
+        return httpCache;
+    }
+
+    @Override
+    public boolean isCoalesceRequests() {
+        return coalesceRequests;
+    }
+
+    @Override
+    public List<String> getCoalescingKeyHeaders() {
+        return coalescingKeyHeaders;
+    }
+
+    @Override
+    public @Nullable HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
     @Override
     public KeepAliveStrategy getKeepAliveStrategy() {
         return keepAliveStrategy;
@@ -564,6 +689,11 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         return validateResponseHeaders;
     }
 
+    @Override
+    public boolean isEnableHttp2() {
+        return enableHttp2;
+    }
+
     // ssl
     @Override
     public boolean isUseOpenSsl() {
@@ -709,6 +839,11 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         return chunkedFileChunkSize;
     }
 
+    @Override
+    public @Nullable Executor getInputStreamBodyExecutor() {
+        return inputStreamBodyExecutor;
+    }
+
     @Override
     public Map<ChannelOption<Object>, Object> getChannelOptions() {
         return channelOptions;
@@ -800,6 +935,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         private boolean useProxySelector = defaultUseProxySelector();
         private boolean useProxyProperties = defaultUseProxyProperties();
         private boolean validateResponseHeaders = defaultValidateResponseHeaders();
+        private boolean enableHttp2 = defaultEnableHttp2();
 
         // websocket
         private boolean aggregateWebSocketFrameFragments = defaultAggregateWebSocketFrameFragments();
@@ -809,6 +945,9 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
         // timeouts
         private Duration connectTimeout = defaultConnectTimeout();
+        private Duration connectionAttemptDelay = defaultConnectionAttemptDelay();
+        private boolean useDnsCache = defaultUseDnsCache();
+        private Duration dnsCacheNegativeTtl = defaultDnsCacheNegativeTtl();
         private Duration requestTimeout = defaultRequestTimeout();
         private Duration readTimeout = defaultReadTimeout();
         private Duration shutdownQuietPeriod = defaultShutdownQuietPeriod();
@@ -818,12 +957,22 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         private boolean keepAlive = defaultKeepAlive();
         private Duration pooledConnectionIdleTimeout = defaultPooledConnectionIdleTimeout();
         private Duration connectionPoolCleanerPeriod = defaultConnectionPoolCleanerPeriod();
+        private boolean connectionPoolEventLoopAffinity = defaultConnectionPoolEventLoopAffinity();
         private Duration connectionTtl = defaultConnectionTtl();
         private int maxConnections = defaultMaxConnections();
         private int maxConnectionsPerHost = defaultMaxConnectionsPerHost();
+        private int minIdleConnectionsPerHost = defaultMinIdleConnectionsPerHost();
+        private int maxIdleConnections = defaultMaxIdleConnections();
         private int acquireFreeChannelTimeout = defaultAcquireFreeChannelTimeout();
+        private boolean asyncAcquireFreeChannel = defaultAsyncAcquireFreeChannel();
         private @Nullable ChannelPool channelPool;
         private @Nullable ConnectionSemaphoreFactory connectionSemaphoreFactory;
+        private FailureClassifier failureClassifier = FailureClassifier.DEFAULT;
+        private @Nullable MetricsListener metricsListener;
+        private @Nullable HttpCache httpCache;
+        private boolean coalesceRequests = defaultCoalesceRequests();
+        private List<String> coalescingKeyHeaders = CoalescingRequestExecutor.DEFAULT_KEY_HEADERS;
+        private @Nullable HedgingPolicy hedgingPolicy;
         private KeepAliveStrategy keepAliveStrategy = new DefaultKeepAliveStrategy();
 
         // ssl
@@ -858,6 +1007,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
         private int httpClientCodecMaxChunkSize = defaultHttpClientCodecMaxChunkSize();
         private int httpClientCodecInitialBufferSize = defaultHttpClientCodecInitialBufferSize();
         private int chunkedFileChunkSize = defaultChunkedFileChunkSize();
+        private @Nullable Executor inputStreamBodyExecutor;
         private boolean useNativeTransport = defaultUseNativeTransport();
         private boolean useOnlyEpollNativeTransport = defaultUseOnlyEpollNativeTransport();
         private @Nullable ByteBufAllocator allocator;
@@ -891,6 +1041,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             keepEncodingHeader = config.isKeepEncodingHeader();
             proxyServerSelector = config.getProxyServerSelector();
             validateResponseHeaders = config.isValidateResponseHeaders();
+            enableHttp2 = config.isEnableHttp2();
 
             // websocket
             aggregateWebSocketFrameFragments = config.isAggregateWebSocketFrameFragments();
@@ -900,6 +1051,9 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
 
             // timeouts
             connectTimeout = config.getConnectTimeout();
+            connectionAttemptDelay = config.getConnectionAttemptDelay();
+            useDnsCache = config.isUseDnsCache();
+            dnsCacheNegativeTtl = config.getDnsCacheNegativeTtl();
             requestTimeout = config.getRequestTimeout();
             readTimeout = config.getReadTimeout();
             shutdownQuietPeriod = config.getShutdownQuietPeriod();
@@ -909,13 +1063,23 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             keepAlive = config.isKeepAlive();
             pooledConnectionIdleTimeout = config.getPooledConnectionIdleTimeout();
             connectionPoolCleanerPeriod = config.getConnectionPoolCleanerPeriod();
+            connectionPoolEventLoopAffinity = config.isConnectionPoolEventLoopAffinity();
             connectionTtl = config.getConnectionTtl();
             maxConnections = config.getMaxConnections();
             maxConnectionsPerHost = config.getMaxConnectionsPerHost();
+            minIdleConnectionsPerHost = config.getMinIdleConnectionsPerHost();
+            maxIdleConnections = config.getMaxIdleConnections();
             channelPool = config.getChannelPool();
             connectionSemaphoreFactory = config.getConnectionSemaphoreFactory();
+            failureClassifier = config.getFailureClassifier();
+            metricsListener = config.getMetricsListener();
+            httpCache = config.getHttpCache();
+            coalesceRequests = config.isCoalesceRequests();
+            coalescingKeyHeaders = config.getCoalescingKeyHeaders();
+            hedgingPolicy = config.getHedgingPolicy();
             keepAliveStrategy = config.getKeepAliveStrategy();
             acquireFreeChannelTimeout = config.getAcquireFreeChannelTimeout();
+            asyncAcquireFreeChannel = config.isAsyncAcquireFreeChannel();
 
             // ssl
             useOpenSsl = config.isUseOpenSsl();
@@ -954,6 +1118,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             httpClientCodecMaxChunkSize = config.getHttpClientCodecMaxChunkSize();
             httpClientCodecInitialBufferSize = config.getHttpClientCodecInitialBufferSize();
             chunkedFileChunkSize = config.getChunkedFileChunkSize();
+            inputStreamBodyExecutor = config.getInputStreamBodyExecutor();
             channelOptions.putAll(config.getChannelOptions());
             eventLoopGroup = config.getEventLoopGroup();
             useNativeTransport = config.isUseNativeTransport();
@@ -1060,6 +1225,11 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             return this;
         }
 
+        public Builder setEnableHttp2(boolean enableHttp2) {
+            this.enableHttp2 = enableHttp2;
+            return this;
+        }
+
         public Builder setProxyServer(ProxyServer proxyServer) {
             proxyServerSelector = uri -> proxyServer;
             return this;
@@ -1106,6 +1276,39 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             return this;
         }
 
+        /**
+         * Sets the delay after which a connection attempt to the next address of a host is started in parallel, zero to disable it
+         *
+         * @param connectionAttemptDelay the connection attempt delay
+         * @return the same builder instance
+         */
+        public Builder setConnectionAttemptDelay(Duration connectionAttemptDelay) {
+            this.connectionAttemptDelay = connectionAttemptDelay;
+            return this;
+        }
+
+        /**
+         * Sets whether hostnames should be resolved with an asynchronous caching DNS resolver honoring record TTLs
+         *
+         * @param useDnsCache true to resolve hostnames with a caching DNS resolver
+         * @return the same builder instance
+         */
+        public Builder setUseDnsCache(boolean useDnsCache) {
+            this.useDnsCache = useDnsCache;
+            return this;
+        }
+
+        /**
+         * Sets how long failed DNS lookups are cached
+         *
+         * @param dnsCacheNegativeTtl the negative TTL
+         * @return the same builder instance
+         */
+        public Builder setDnsCacheNegativeTtl(Duration dnsCacheNegativeTtl) {
+            this.dnsCacheNegativeTtl = dnsCacheNegativeTtl;
+            return this;
+        }
+
         public Builder setRequestTimeout(Duration requestTimeout) {
             this.requestTimeout = requestTimeout;
             return this;
@@ -1142,6 +1345,11 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             return this;
         }
 
+        public Builder setConnectionPoolEventLoopAffinity(boolean connectionPoolEventLoopAffinity) {
+            this.connectionPoolEventLoopAffinity = connectionPoolEventLoopAffinity;
+            return this;
+        }
+
         public Builder setConnectionTtl(Duration connectionTtl) {
             this.connectionTtl = connectionTtl;
             return this;
@@ -1157,6 +1365,16 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             return this;
         }
 
+        public Builder setMinIdleConnectionsPerHost(int minIdleConnectionsPerHost) {
+            this.minIdleConnectionsPerHost = minIdleConnectionsPerHost;
+            return this;
+        }
+
+        public Builder setMaxIdleConnections(int maxIdleConnections) {
+            this.maxIdleConnections = maxIdleConnections;
+            return this;
+        }
+
         /**
          * Sets the maximum duration in milliseconds to acquire a free channel to send a request
          *
@@ -1168,6 +1386,17 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             return this;
         }
 
+        /**
+         * Sets whether requests that can't get a free channel right away should be queued instead of blocking the calling thread
+         *
+         * @param asyncAcquireFreeChannel true to acquire free channels without blocking
+         * @return the same builder instance
+         */
+        public Builder setAsyncAcquireFreeChannel(boolean asyncAcquireFreeChannel) {
+            this.asyncAcquireFreeChannel = asyncAcquireFreeChannel;
+            return this;
+        }
+
         public Builder setChannelPool(ChannelPool channelPool) {
             this.channelPool = channelPool;
             return this;
@@ -1178,6 +1407,73 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             return this;
         }
 
+        /**
+         * Sets the classifier deciding which I/O failures requests are retried on, to recognize failures the default one doesn't know about.
+         *
+         * @param failureClassifier the failure classifier
+         * @return the same builder instance
+         */
+        public Builder setFailureClassifier(FailureClassifier failureClassifier) {
+            this.failureClassifier = failureClassifier;
+            return this;
+        }
+
+        /**
+         * Sets the listener notified of the duration of every phase of the requests, see {@link org.asynchttpclient.metrics.HistogramMetricsListener}
+         *
+         * @param metricsListener the metrics listener
+         * @return the same builder instance
+         */
+        public Builder setMetricsListener(MetricsListener metricsListener) {
+            this.metricsListener = metricsListener;
+            return this;
+        }
+
+        /**
+         * Sets the response cache, see {@link HttpCache.Builder}. The cache can be shared by several clients.
+         *
+         * @param httpCache the response cache
+         * @return the same builder instance
+         */
+        public Builder setHttpCache(HttpCache httpCache) {
+            this.httpCache = httpCache;
+            return this;
+        }
+
+        /**
+         * Sets whether concurrent identical GET and HEAD requests should share a single exchange with the server
+         *
+         * @param coalesceRequests true to coalesce identical in-flight requests
+         * @return the same builder instance
+         */
+        public Builder setCoalesceRequests(boolean coalesceRequests) {
+            this.coalesceRequests = coalesceRequests;
+            return this;
+        }
+
+        /**
+         * Sets the names of the request headers whose values must be equal for requests to be coalesced, by default
+         * Accept, Accept-Encoding, Accept-Language and Authorization
+         *
+         * @param coalescingKeyHeaders the coalescing key headers
+         * @return the same builder instance
+         */
+        public Builder setCoalescingKeyHeaders(List<String> coalescingKeyHeaders) {
+            this.coalescingKeyHeaders = coalescingKeyHeaders;
+            return this;
+        }
+
+        /**
+         * Sets the default hedging policy of the requests, see {@link HedgingPolicy#percentileDelay(double, java.time.Duration)}
+         *
+         * @param hedgingPolicy the hedging policy
+         * @return the same builder instance
+         */
+        public Builder setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+            this.hedgingPolicy = hedgingPolicy;
+            return this;
+        }
+
         public Builder setKeepAliveStrategy(KeepAliveStrategy keepAliveStrategy) {
             this.keepAliveStrategy = keepAliveStrategy;
             return this;
@@ -1343,6 +1639,17 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
             return this;
         }
 
+        /**
+         * Sets the executor request bodies provided as an {@link java.io.InputStream} are read on, e.g. a cached thread pool, or virtual threads on Java 21+
+         *
+         * @param inputStreamBodyExecutor the executor of blocking request body reads
+         * @return the same builder instance
+         */
+        public Builder setInputStreamBodyExecutor(Executor inputStreamBodyExecutor) {
+            this.inputStreamBodyExecutor = inputStreamBodyExecutor;
+            return this;
+        }
+
         public Builder setHashedWheelTickDuration(long hashedWheelTickDuration) {
             this.hashedWheelTickDuration = hashedWheelTickDuration;
             return this;
@@ -1442,9 +1749,13 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
                     keepEncodingHeader,
                     resolveProxyServerSelector(),
                     validateResponseHeaders,
+                    enableHttp2,
                     aggregateWebSocketFrameFragments,
                     enablewebSocketCompression,
                     connectTimeout,
+                    connectionAttemptDelay,
+                    useDnsCache,
+                    dnsCacheNegativeTtl,
                     requestTimeout,
                     readTimeout,
                     shutdownQuietPeriod,
@@ -1452,12 +1763,22 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
                     keepAlive,
                     pooledConnectionIdleTimeout,
                     connectionPoolCleanerPeriod,
+                    connectionPoolEventLoopAffinity,
                     connectionTtl,
                     maxConnections,
                     maxConnectionsPerHost,
+                    minIdleConnectionsPerHost,
+                    maxIdleConnections,
                     acquireFreeChannelTimeout,
+                    asyncAcquireFreeChannel,
                     channelPool,
                     connectionSemaphoreFactory,
+                    failureClassifier,
+                    metricsListener,
+                    httpCache,
+                    coalesceRequests,
+                    coalescingKeyHeaders,
+                    hedgingPolicy,
                     keepAliveStrategy,
                     useOpenSsl,
                     useInsecureTrustManager,
@@ -1487,6 +1808,7 @@ public class DefaultAsyncHttpClientConfig implements AsyncHttpClientConfig {
                     httpClientCodecMaxChunkSize,
                     httpClientCodecInitialBufferSize,
                     chunkedFileChunkSize,
+                    inputStreamBodyExecutor,
                     webSocketMaxBufferSize,
                     webSocketMaxFrameSize,
                     channelOptions.isEmpty() ? Collections.emptyMap() : Collections.unmodifiableMap(channelOptions),
@@ -20,6 +20,7 @@ import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.resolver.NameResolver;
 import org.asynchttpclient.channel.ChannelPoolPartitioning;
+import org.asynchttpclient.hedging.HedgingPolicy;
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.request.body.generator.BodyGenerator;
 import org.asynchttpclient.request.body.multipart.Part;
@@ -67,6 +68,7 @@ public class DefaultRequest implements Request {
     private final @Nullable Charset charset;
     private final ChannelPoolPartitioning channelPoolPartitioning;
     private final NameResolver<InetAddress> nameResolver;
+    private final @Nullable HedgingPolicy hedgingPolicy;
 
     // lazily loaded
     private @Nullable List<Param> queryParams;
@@ -96,7 +98,8 @@ public class DefaultRequest implements Request {
                           long rangeOffset,
                           @Nullable Charset charset,
                           ChannelPoolPartitioning channelPoolPartitioning,
-                          NameResolver<InetAddress> nameResolver) {
+                          NameResolver<InetAddress> nameResolver,
+                          @Nullable HedgingPolicy hedgingPolicy) {
         this.method = method;
         this.uri = uri;
         this.address = address;
@@ -123,6 +126,7 @@ public class DefaultRequest implements Request {
         this.charset = charset;
         this.channelPoolPartitioning = channelPoolPartitioning;
         this.nameResolver = nameResolver;
+        this.hedgingPolicy = hedgingPolicy;
     }
 
     @Override
@@ -260,6 +264,11 @@ public class DefaultRequest implements Request {
         return nameResolver;
     }
 
+    @Override
+    public @Nullable HedgingPolicy getHedgingPolicy() {
+        return hedgingPolicy;
+    }
+
     @Override
     public List<Param> getQueryParams() {
         // lazy load
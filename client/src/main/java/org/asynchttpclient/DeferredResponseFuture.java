@@ -0,0 +1,182 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The future of a request whose execution was delayed by a {@link org.asynchttpclient.filter.RequestFilter}, which is bound to the
+ * future of the actual execution once it starts.
+ */
+final class DeferredResponseFuture<T> implements ListenableFuture<T> {
+
+    private final AsyncHandler<T> handler;
+    private final CompletableFuture<?> executeAfter;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+    // guarded by this
+    private @Nullable ListenableFuture<T> delegate;
+    private boolean cancelled;
+    private boolean failed;
+
+    DeferredResponseFuture(AsyncHandler<T> handler, CompletableFuture<?> executeAfter) {
+        this.handler = handler;
+        this.executeAfter = executeAfter;
+    }
+
+    void execute(RequestExecutor requestExecutor, Request request) {
+        synchronized (this) {
+            if (cancelled) {
+                return;
+            }
+        }
+
+        ListenableFuture<T> delegate = requestExecutor.execute(request, handler);
+        boolean cancel;
+        synchronized (this) {
+            this.delegate = delegate;
+            cancel = cancelled;
+        }
+        if (cancel) {
+            delegate.cancel(true);
+        }
+        delegate.toCompletableFuture().whenComplete((value, t) -> {
+            if (t == null) {
+                future.complete(value);
+            } else {
+                future.completeExceptionally(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+            }
+        });
+    }
+
+    void fail(Throwable t) {
+        synchronized (this) {
+            if (cancelled || failed) {
+                // cancelling the stage notifies the handler already
+                return;
+            }
+            failed = true;
+        }
+        notifyFailure(t);
+    }
+
+    private void notifyFailure(Throwable t) {
+        try {
+            handler.onThrowable(t);
+        } finally {
+            future.completeExceptionally(t);
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        ListenableFuture<T> delegate;
+        synchronized (this) {
+            if (cancelled || failed || future.isDone()) {
+                return false;
+            }
+            cancelled = true;
+            delegate = this.delegate;
+        }
+
+        if (delegate != null) {
+            delegate.cancel(mayInterruptIfRunning);
+        } else {
+            // still waiting, let the filter know
+            executeAfter.cancel(false);
+            try {
+                handler.onThrowable(new CancellationException());
+            } catch (Throwable ignored) {
+                // the future is cancelled anyway
+            }
+        }
+        return future.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return future.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        return future.get();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return future.get(timeout, unit);
+    }
+
+    @Override
+    public void done() {
+    }
+
+    @Override
+    public void abort(Throwable t) {
+        ListenableFuture<T> delegate;
+        synchronized (this) {
+            delegate = this.delegate;
+            if (delegate == null) {
+                if (cancelled || failed) {
+                    return;
+                }
+                cancelled = true;
+            }
+        }
+
+        if (delegate != null) {
+            delegate.abort(t);
+        } else {
+            executeAfter.cancel(false);
+            notifyFailure(t);
+        }
+    }
+
+    @Override
+    public void touch() {
+        ListenableFuture<T> delegate;
+        synchronized (this) {
+            delegate = this.delegate;
+        }
+        if (delegate != null) {
+            delegate.touch();
+        }
+    }
+
+    @Override
+    public ListenableFuture<T> addListener(Runnable listener, Executor exec) {
+        future.whenCompleteAsync((r, t) -> listener.run(), exec != null ? exec : Runnable::run);
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<T> toCompletableFuture() {
+        return future;
+    }
+}
@@ -24,10 +24,18 @@ public class HostStats {
 
     private final long activeConnectionCount;
     private final long idleConnectionCount;
+    private final long pendingPermitCount;
+    private final long connectAttemptCount;
 
     public HostStats(long activeConnectionCount, long idleConnectionCount) {
+        this(activeConnectionCount, idleConnectionCount, 0, 0);
+    }
+
+    public HostStats(long activeConnectionCount, long idleConnectionCount, long pendingPermitCount, long connectAttemptCount) {
         this.activeConnectionCount = activeConnectionCount;
         this.idleConnectionCount = idleConnectionCount;
+        this.pendingPermitCount = pendingPermitCount;
+        this.connectAttemptCount = connectAttemptCount;
     }
 
     /**
@@ -52,6 +60,24 @@ public class HostStats {
         return idleConnectionCount;
     }
 
+    /**
+     * Return the number of requests waiting for a connection permit.
+     *
+     * @return A long representing the number of requests waiting for a connection permit to the host.
+     */
+    public long getHostPendingPermitCount() {
+        return pendingPermitCount;
+    }
+
+    /**
+     * Return the number of connection attempts in flight.
+     *
+     * @return A long representing the number of connection attempts in flight to the host.
+     */
+    public long getHostConnectAttemptCount() {
+        return connectAttemptCount;
+    }
+
     @Override
     public String toString() {
         return "There are " + getHostConnectionCount() +
@@ -68,11 +94,12 @@ public class HostStats {
             return false;
         }
         final HostStats hostStats = (HostStats) o;
-        return activeConnectionCount == hostStats.activeConnectionCount && idleConnectionCount == hostStats.idleConnectionCount;
+        return activeConnectionCount == hostStats.activeConnectionCount && idleConnectionCount == hostStats.idleConnectionCount
+                && pendingPermitCount == hostStats.pendingPermitCount && connectAttemptCount == hostStats.connectAttemptCount;
     }
 
     @Override
     public int hashCode() {
-        return Objects.hash(activeConnectionCount, idleConnectionCount);
+        return Objects.hash(activeConnectionCount, idleConnectionCount, pendingPermitCount, connectAttemptCount);
     }
 }
@@ -21,6 +21,7 @@ import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.cookie.Cookie;
 import io.netty.resolver.NameResolver;
 import org.asynchttpclient.channel.ChannelPoolPartitioning;
+import org.asynchttpclient.hedging.HedgingPolicy;
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.request.body.generator.BodyGenerator;
 import org.asynchttpclient.request.body.multipart.Part;
@@ -203,6 +204,15 @@ public interface Request {
      */
     NameResolver<InetAddress> getNameResolver();
 
+    /**
+     * Return the hedging policy of this request.
+     *
+     * @return the policy deciding when to send a second attempt of this request if the first one is slow to answer, null means
+     * "use config value"
+     */
+    @Nullable
+    HedgingPolicy getHedgingPolicy();
+
     /**
      * @return a new request builder using this request as a prototype
      */
@@ -23,8 +23,10 @@ import io.netty.resolver.DefaultNameResolver;
 import io.netty.resolver.NameResolver;
 import io.netty.util.concurrent.ImmediateEventExecutor;
 import org.asynchttpclient.channel.ChannelPoolPartitioning;
+import org.asynchttpclient.hedging.HedgingPolicy;
 import org.asynchttpclient.proxy.ProxyServer;
 import org.asynchttpclient.request.body.generator.BodyGenerator;
+import org.asynchttpclient.request.body.generator.PublisherBodyGenerator;
 import org.asynchttpclient.request.body.multipart.Part;
 import org.asynchttpclient.uri.Uri;
 import org.asynchttpclient.util.EnsuresNonNull;
@@ -44,6 +46,7 @@ import java.util.Collection;
 import java.util.Collections;
 import java.util.List;
 import java.util.Map;
+import java.util.concurrent.Flow;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_TYPE;
 import static java.nio.charset.StandardCharsets.UTF_8;
@@ -93,6 +96,7 @@ public abstract class RequestBuilderBase<T extends RequestBuilderBase<T>> {
     protected @Nullable Charset charset;
     protected ChannelPoolPartitioning channelPoolPartitioning = ChannelPoolPartitioning.PerHostChannelPoolPartitioning.INSTANCE;
     protected NameResolver<InetAddress> nameResolver = DEFAULT_NAME_RESOLVER;
+    protected @Nullable HedgingPolicy hedgingPolicy;
 
     protected RequestBuilderBase(String method, boolean disableUrlEncoding) {
         this(method, disableUrlEncoding, true);
@@ -143,6 +147,7 @@ public abstract class RequestBuilderBase<T extends RequestBuilderBase<T>> {
         charset = prototype.getCharset();
         channelPoolPartitioning = prototype.getChannelPoolPartitioning();
         nameResolver = prototype.getNameResolver();
+        hedgingPolicy = prototype.getHedgingPolicy();
     }
 
     @SuppressWarnings("unchecked")
@@ -441,6 +446,14 @@ public abstract class RequestBuilderBase<T extends RequestBuilderBase<T>> {
         return asDerivedType();
     }
 
+    public T setBody(Flow.Publisher<ByteBuf> publisher) {
+        return setBody(new PublisherBodyGenerator(publisher));
+    }
+
+    public T setBody(Flow.Publisher<ByteBuf> publisher, long contentLength) {
+        return setBody(new PublisherBodyGenerator(publisher, contentLength));
+    }
+
     @EnsuresNonNull("queryParams")
     public T addQueryParam(String name, String value) {
         if (queryParams == null) {
@@ -572,6 +585,17 @@ public abstract class RequestBuilderBase<T extends RequestBuilderBase<T>> {
         return asDerivedType();
     }
 
+    /**
+     * Overrides {@link AsyncHttpClientConfig#getHedgingPolicy()} for this request, only GET, HEAD and OPTIONS requests without a body are hedged.
+     *
+     * @param hedgingPolicy the hedging policy, or {@link HedgingPolicy#NONE} to disable hedging
+     * @return this builder
+     */
+    public T setHedgingPolicy(HedgingPolicy hedgingPolicy) {
+        this.hedgingPolicy = hedgingPolicy;
+        return asDerivedType();
+    }
+
     public T setSignatureCalculator(@Nullable SignatureCalculator signatureCalculator) {
         this.signatureCalculator = signatureCalculator;
         return asDerivedType();
@@ -688,6 +712,7 @@ public abstract class RequestBuilderBase<T extends RequestBuilderBase<T>> {
                 rb.rangeOffset,
                 rb.charset,
                 rb.channelPoolPartitioning,
-                rb.nameResolver);
+                rb.nameResolver,
+                rb.hedgingPolicy);
     }
 }
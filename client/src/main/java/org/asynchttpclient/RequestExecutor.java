@@ -0,0 +1,33 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient;
+
+/**
+ * A stage of the execution chain of a {@link DefaultAsyncHttpClient}, e.g. the {@link org.asynchttpclient.cache.HttpCache}, that either
+ * handles a request itself or passes it to the next stage, the last one sending it to the network.
+ */
+public interface RequestExecutor {
+
+    /**
+     * Execute a request.
+     *
+     * @param request the request, after the request filters have been applied
+     * @param handler the handler of the response
+     * @param <T> the type of the value computed by the handler
+     * @return the future of the value computed by the handler
+     */
+    <T> ListenableFuture<T> execute(Request request, AsyncHandler<T> handler);
+}
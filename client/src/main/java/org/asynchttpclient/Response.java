@@ -17,9 +17,12 @@
 package org.asynchttpclient;
 
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.cookie.Cookie;
+import org.asynchttpclient.netty.NettyCompositeResponse;
 import org.asynchttpclient.netty.NettyResponse;
+import org.asynchttpclient.netty.RetainedResponseBodyPart;
 import org.asynchttpclient.uri.Uri;
 import org.jetbrains.annotations.Nullable;
 
@@ -183,8 +186,16 @@ public interface Response {
      */
     SocketAddress getLocalAddress();
 
+    /**
+     * Accumulates the parts of a response.
+     * <p>
+     * {@link RetainedResponseBodyPart}s (see {@link AsyncHttpClientConfig.ResponseBodyPartFactory#RETAINED}) are only valid during the
+     * {@link AsyncHandler#onBodyPartReceived(HttpResponseBodyPart)} callback, so their buffers are retained into a {@link CompositeByteBuf}
+     * without being copied, and the built response is a {@link NettyCompositeResponse} that must be released once consumed.
+     */
     class ResponseBuilder {
         private final List<HttpResponseBodyPart> bodyParts = new ArrayList<>(1);
+        private @Nullable CompositeByteBuf retainedBody;
         private @Nullable HttpResponseStatus status;
         private @Nullable HttpHeaders headers;
 
@@ -201,24 +212,47 @@ public interface Response {
          */
         public void accumulate(HttpResponseBodyPart bodyPart) {
             if (bodyPart.length() > 0) {
-                bodyParts.add(bodyPart);
+                if (bodyPart instanceof RetainedResponseBodyPart) {
+                    ByteBuf buf = bodyPart.getBodyByteBuf();
+                    if (retainedBody == null) {
+                        // never consolidate, that would defeat the purpose of not copying
+                        retainedBody = buf.alloc().compositeBuffer(Integer.MAX_VALUE);
+                    }
+                    retainedBody.addComponent(true, buf.retainedSlice());
+                } else {
+                    bodyParts.add(bodyPart);
+                }
             }
         }
 
         /**
          * Build a {@link Response} instance
+         * <p>
+         * When body parts were retained, their ownership is transferred to the returned {@link NettyCompositeResponse}.
          *
          * @return a {@link Response} instance
          */
         public @Nullable Response build() {
-            return status == null ? null : new NettyResponse(status, headers, bodyParts);
+            if (status == null) {
+                return null;
+            }
+            if (retainedBody != null) {
+                CompositeByteBuf body = retainedBody;
+                retainedBody = null;
+                return new NettyCompositeResponse(status, headers, body);
+            }
+            return new NettyResponse(status, headers, bodyParts);
         }
 
         /**
-         * Reset the internal state of this builder.
+         * Reset the internal state of this builder, releasing the body parts that might have been retained.
          */
         public void reset() {
             bodyParts.clear();
+            if (retainedBody != null) {
+                retainedBody.release();
+                retainedBody = null;
+            }
             status = null;
             headers = null;
         }
@@ -31,6 +31,19 @@ public interface SslEngineFactory {
      */
     SSLEngine newSslEngine(AsyncHttpClientConfig config, String peerHost, int peerPort);
 
+    /**
+     * Creates a new {@link SSLEngine} that offers HTTP/2 through ALPN. Only used when {@link AsyncHttpClientConfig#isEnableHttp2()} is set.
+     * Factories that don't support HTTP/2 fall back to {@link #newSslEngine(AsyncHttpClientConfig, String, int)} and connections stay on HTTP/1.1.
+     *
+     * @param config   the client config
+     * @param peerHost the peer hostname
+     * @param peerPort the peer port
+     * @return new engine
+     */
+    default SSLEngine newHttp2SslEngine(AsyncHttpClientConfig config, String peerHost, int peerPort) {
+        return newSslEngine(config, peerHost, peerPort);
+    }
+
     /**
      * Perform any necessary one-time configuration. This will be called just once before {@code newSslEngine} is called
      * for the first time.
@@ -0,0 +1,116 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.cache;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+
+/**
+ * The directives of the <code>Cache-Control</code> header fields of a request or a response, see RFC 9111 section 5.2.
+ */
+final class CacheControl {
+
+    static final CacheControl EMPTY = new CacheControl(Collections.emptyMap());
+
+    private final Map<String, String> directives;
+
+    private CacheControl(Map<String, String> directives) {
+        this.directives = directives;
+    }
+
+    static CacheControl parse(List<String> headerValues) {
+        if (headerValues.isEmpty()) {
+            return EMPTY;
+        }
+        Map<String, String> directives = new HashMap<>();
+        for (String value : headerValues) {
+            int i = 0;
+            int length = value.length();
+            while (i < length) {
+                int end = nextSeparator(value, i);
+                String directive = value.substring(i, end).trim();
+                i = end + 1;
+                if (directive.isEmpty()) {
+                    continue;
+                }
+                int eq = directive.indexOf('=');
+                String name;
+                String argument;
+                if (eq < 0) {
+                    name = directive;
+                    argument = "";
+                } else {
+                    name = directive.substring(0, eq).trim();
+                    argument = directive.substring(eq + 1).trim();
+                    if (argument.length() >= 2 && argument.charAt(0) == '"' && argument.charAt(argument.length() - 1) == '"') {
+                        argument = argument.substring(1, argument.length() - 1);
+                    }
+                }
+                // first occurrence wins, duplicated directives are invalid anyway
+                directives.putIfAbsent(name.toLowerCase(Locale.ROOT), argument);
+            }
+        }
+        return new CacheControl(directives);
+    }
+
+    // commas inside quoted strings, e.g. no-cache="Set-Cookie, Foo", don't separate directives
+    private static int nextSeparator(String value, int from) {
+        boolean quoted = false;
+        for (int i = from; i < value.length(); i++) {
+            char c = value.charAt(i);
+            if (c == '"') {
+                quoted = !quoted;
+            } else if (c == ',' && !quoted) {
+                return i;
+            }
+        }
+        return value.length();
+    }
+
+    boolean has(String directive) {
+        return directives.containsKey(directive);
+    }
+
+    /**
+     * Parse the argument of a directive.
+     *
+     * @param directive a directive with a delta-seconds argument, e.g. <code>max-age</code>
+     * @return the argument, or -1 if the directive is absent or malformed
+     */
+    long seconds(String directive) {
+        @Nullable String argument = directives.get(directive);
+        if (argument == null || argument.isEmpty()) {
+            return -1;
+        }
+        try {
+            long seconds = Long.parseLong(argument);
+            return seconds < 0 ? -1 : seconds;
+        } catch (NumberFormatException e) {
+            // delta-seconds that overflow must be treated as 2^31, see RFC 9111 section 1.2.2
+            return argument.chars().allMatch(Character::isDigit) ? Integer.MAX_VALUE : -1;
+        }
+    }
+
+    @Override
+    public String toString() {
+        return "CacheControl" + directives;
+    }
+}
@@ -0,0 +1,251 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.util.AbstractReferenceCounted;
+import io.netty.util.ReferenceCounted;
+import org.asynchttpclient.Request;
+import org.jetbrains.annotations.Nullable;
+
+import java.time.ZonedDateTime;
+import java.time.format.DateTimeFormatter;
+import java.time.format.DateTimeParseException;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Locale;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.AGE;
+import static io.netty.handler.codec.http.HttpHeaderNames.CACHE_CONTROL;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
+import static io.netty.handler.codec.http.HttpHeaderNames.DATE;
+import static io.netty.handler.codec.http.HttpHeaderNames.ETAG;
+import static io.netty.handler.codec.http.HttpHeaderNames.EXPIRES;
+import static io.netty.handler.codec.http.HttpHeaderNames.LAST_MODIFIED;
+import static io.netty.handler.codec.http.HttpHeaderNames.VARY;
+
+/**
+ * A stored response: status, header fields, the request header fields it varies on, and an off-heap body.
+ * <p>
+ * The freshness lifetime and the age are computed as described in RFC 9111 section 4.2. The entry is reference counted, the body is released
+ * when the last reference is.
+ */
+final class CacheEntry extends AbstractReferenceCounted {
+
+    private static final long MAX_HEURISTIC_LIFETIME = TimeUnit.DAYS.toMillis(1);
+
+    final String key;
+    final int statusCode;
+    final String statusText;
+    final String protocolText;
+    final HttpHeaders headers;
+    final Map<String, String> varyHeaders;
+    final long requestTime;
+    final long responseTime;
+    final ByteBuf body;
+
+    private final CacheControl cacheControl;
+    private final long freshnessLifetime;
+    private final long correctedInitialAge;
+
+    CacheEntry(String key, int statusCode, String statusText, String protocolText, HttpHeaders headers, Map<String, String> varyHeaders,
+               long requestTime, long responseTime, ByteBuf body) {
+        this.key = key;
+        this.statusCode = statusCode;
+        this.statusText = statusText;
+        this.protocolText = protocolText;
+        this.headers = headers;
+        this.varyHeaders = varyHeaders;
+        this.requestTime = requestTime;
+        this.responseTime = responseTime;
+        this.body = body;
+        cacheControl = CacheControl.parse(headers.getAll(CACHE_CONTROL));
+
+        long date = dateHeader(headers, DATE, responseTime);
+        freshnessLifetime = freshnessLifetime(date);
+
+        long apparentAge = Math.max(0, responseTime - date);
+        long ageValue = ageHeader(headers);
+        long responseDelay = responseTime - requestTime;
+        correctedInitialAge = Math.max(apparentAge, TimeUnit.SECONDS.toMillis(ageValue) + responseDelay);
+    }
+
+    private long freshnessLifetime(long date) {
+        // a private cache ignores s-maxage
+        long maxAge = cacheControl.seconds("max-age");
+        if (maxAge >= 0) {
+            return TimeUnit.SECONDS.toMillis(maxAge);
+        }
+        @Nullable String expires = headers.get(EXPIRES);
+        if (expires != null) {
+            // an invalid date, e.g. "0", means already expired
+            return Math.max(0, dateHeader(headers, EXPIRES, 0) - date);
+        }
+        long lastModified = dateHeader(headers, LAST_MODIFIED, -1);
+        if (lastModified >= 0 && lastModified <= date) {
+            return Math.min((date - lastModified) / 10, MAX_HEURISTIC_LIFETIME);
+        }
+        return 0;
+    }
+
+    private static long dateHeader(HttpHeaders headers, CharSequence name, long defaultValue) {
+        @Nullable String value = headers.get(name);
+        if (value == null) {
+            return defaultValue;
+        }
+        try {
+            return ZonedDateTime.parse(value.trim(), DateTimeFormatter.RFC_1123_DATE_TIME).toInstant().toEpochMilli();
+        } catch (DateTimeParseException e) {
+            return defaultValue;
+        }
+    }
+
+    private static long ageHeader(HttpHeaders headers) {
+        @Nullable String value = headers.get(AGE);
+        if (value != null) {
+            try {
+                return Math.max(0, Long.parseLong(value.trim()));
+            } catch (NumberFormatException e) {
+                // ignored, see RFC 9111 section 5.1
+            }
+        }
+        return 0;
+    }
+
+    long currentAge(long now) {
+        return correctedInitialAge + now - responseTime;
+    }
+
+    /**
+     * Tell if this entry is fresh.
+     *
+     * @param now the current time in millis
+     * @return true if this entry can be served without being validated with the origin server
+     */
+    boolean isFresh(long now) {
+        return !cacheControl.has("no-cache") && freshnessLifetime > currentAge(now);
+    }
+
+    /**
+     * Tell if this entry can be served stale.
+     *
+     * @param now the current time in millis
+     * @return true if this entry is stale but can still be served while being revalidated in the background
+     */
+    boolean isWithinStaleWhileRevalidate(long now) {
+        long staleWhileRevalidate = cacheControl.seconds("stale-while-revalidate");
+        return staleWhileRevalidate > 0
+                && !cacheControl.has("no-cache")
+                && !cacheControl.has("must-revalidate")
+                && currentAge(now) < freshnessLifetime + TimeUnit.SECONDS.toMillis(staleWhileRevalidate);
+    }
+
+    @Nullable
+    String etag() {
+        return headers.get(ETAG);
+    }
+
+    @Nullable
+    String lastModified() {
+        return headers.get(LAST_MODIFIED);
+    }
+
+    boolean hasValidators() {
+        return headers.contains(ETAG) || headers.contains(LAST_MODIFIED);
+    }
+
+    boolean matchesVary(Request request) {
+        for (Map.Entry<String, String> varyHeader : varyHeaders.entrySet()) {
+            if (!varyHeader.getValue().equals(joinedValues(request.getHeaders().getAll(varyHeader.getKey())))) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Return the size of this entry.
+     *
+     * @return the approximate memory footprint of this entry
+     */
+    int size() {
+        return body.readableBytes() + 32 * (headers.size() + varyHeaders.size()) + key.length();
+    }
+
+    /**
+     * Builds the entry that replaces this one after a <code>304 Not Modified</code> response, see RFC 9111 section 4.3.4.
+     * The body is shared with this entry.
+     */
+    CacheEntry withValidatedHeaders(HttpHeaders notModifiedHeaders, long requestTime, long responseTime) {
+        HttpHeaders merged = new DefaultHttpHeaders().set(headers);
+        for (String name : notModifiedHeaders.names()) {
+            if (!CONTENT_LENGTH.contentEqualsIgnoreCase(name)) {
+                merged.set(name, notModifiedHeaders.getAll(name));
+            }
+        }
+        return new CacheEntry(key, statusCode, statusText, protocolText, merged, varyHeaders, requestTime, responseTime, body.retain());
+    }
+
+    /**
+     * Capture the request headers selected by the <code>Vary</code> header of a response.
+     *
+     * @return the request header values a response varies on, or null if it varies on everything (<code>Vary: *</code>) and can't be stored
+     */
+    static @Nullable Map<String, String> varyHeaders(Request request, HttpHeaders responseHeaders) {
+        List<String> vary = responseHeaders.getAll(VARY);
+        if (vary.isEmpty()) {
+            return Collections.emptyMap();
+        }
+        Map<String, String> varyHeaders = new LinkedHashMap<>();
+        for (String value : vary) {
+            for (String name : value.split(",", -1)) {
+                name = name.trim().toLowerCase(Locale.ROOT);
+                if ("*".equals(name)) {
+                    return null;
+                }
+                if (!name.isEmpty()) {
+                    varyHeaders.put(name, joinedValues(request.getHeaders().getAll(name)));
+                }
+            }
+        }
+        return Collections.unmodifiableMap(varyHeaders);
+    }
+
+    private static String joinedValues(List<String> values) {
+        return values.size() == 1 ? values.get(0).trim() : String.join(",", values);
+    }
+
+    @Override
+    public ReferenceCounted touch(Object hint) {
+        body.touch(hint);
+        return this;
+    }
+
+    @Override
+    protected void deallocate() {
+        body.release();
+    }
+
+    @Override
+    public String toString() {
+        return "CacheEntry{key=" + key + ", status=" + statusCode + ", freshnessLifetime=" + freshnessLifetime + ", size=" + size() + '}';
+    }
+}
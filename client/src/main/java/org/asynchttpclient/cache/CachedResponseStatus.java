@@ -0,0 +1,89 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.cache;
+
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.uri.Uri;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+
+/**
+ * The status of a response served from a {@link HttpCache}. As no connection is involved, the remote address is the unresolved origin
+ * and the local address is the wildcard one.
+ */
+final class CachedResponseStatus extends HttpResponseStatus {
+
+    private static final SocketAddress LOCAL_ADDRESS = new InetSocketAddress(0);
+
+    private final CacheEntry entry;
+
+    CachedResponseStatus(Uri uri, CacheEntry entry) {
+        super(uri);
+        this.entry = entry;
+    }
+
+    @Override
+    public int getStatusCode() {
+        return entry.statusCode;
+    }
+
+    @Override
+    public String getStatusText() {
+        return entry.statusText;
+    }
+
+    @Override
+    public String getProtocolName() {
+        int slash = entry.protocolText.indexOf('/');
+        return slash < 0 ? entry.protocolText : entry.protocolText.substring(0, slash);
+    }
+
+    @Override
+    public int getProtocolMajorVersion() {
+        return version(0);
+    }
+
+    @Override
+    public int getProtocolMinorVersion() {
+        return version(1);
+    }
+
+    private int version(int index) {
+        int slash = entry.protocolText.indexOf('/');
+        String[] version = entry.protocolText.substring(slash + 1).split("\\.", -1);
+        try {
+            return index < version.length ? Integer.parseInt(version[index]) : 0;
+        } catch (NumberFormatException e) {
+            return 0;
+        }
+    }
+
+    @Override
+    public String getProtocolText() {
+        return entry.protocolText;
+    }
+
+    @Override
+    public SocketAddress getRemoteAddress() {
+        return InetSocketAddress.createUnresolved(getUri().getHost(), getUri().getExplicitPort());
+    }
+
+    @Override
+    public SocketAddress getLocalAddress() {
+        return LOCAL_ADDRESS;
+    }
+}
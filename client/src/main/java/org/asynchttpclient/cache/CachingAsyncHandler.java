@@ -0,0 +1,319 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.EmptyHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.AsyncHttpClientConfig.ResponseBodyPartFactory;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.handler.ProgressAsyncHandler;
+import org.asynchttpclient.netty.request.NettyRequest;
+import org.jetbrains.annotations.Nullable;
+
+import javax.net.ssl.SSLSession;
+import java.net.InetSocketAddress;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CACHE_CONTROL;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
+import static io.netty.handler.codec.http.HttpHeaderNames.ETAG;
+import static io.netty.handler.codec.http.HttpHeaderNames.EXPIRES;
+import static io.netty.handler.codec.http.HttpHeaderNames.LAST_MODIFIED;
+
+/**
+ * Decorates the {@link AsyncHandler} of a request that goes to the network: stores the response if it's cacheable, and when the request
+ * revalidates a stored response, swallows the <code>304 Not Modified</code> and replays the refreshed stored response instead.
+ * <p>
+ * The captured body is copied off-heap part by part, as the parts are only valid during the callback.
+ */
+final class CachingAsyncHandler<T> implements ProgressAsyncHandler<T> {
+
+    // the status codes that are cacheable by default, see RFC 9110 section 15.1
+    private static final int[] CACHEABLE_STATUS_CODES = {200, 203, 204, 300, 301, 308, 404, 405, 410, 414, 501};
+
+    private final HttpCache cache;
+    private final String key;
+    private final Request request;
+    private final AsyncHandler<T> delegate;
+    private final ResponseBodyPartFactory bodyPartFactory;
+    private final boolean replayOnNotModified;
+    private @Nullable CacheEntry validatedEntry;
+    private long requestTime = System.currentTimeMillis();
+    private long responseTime;
+
+    private @Nullable HttpResponseStatus status;
+    private boolean notModified;
+    private @Nullable HttpHeaders notModifiedHeaders;
+    private @Nullable HttpHeaders headers;
+    private @Nullable Map<String, String> varyHeaders;
+    private @Nullable CompositeByteBuf capturedBody;
+
+    /**
+     * @param validatedEntry the retained stale entry the request revalidates, owned by this handler, or null
+     * @param replayOnNotModified if the refreshed entry must be replayed to the delegate on <code>304 Not Modified</code>
+     */
+    CachingAsyncHandler(HttpCache cache, String key, Request request, AsyncHandler<T> delegate, ResponseBodyPartFactory bodyPartFactory,
+                        @Nullable CacheEntry validatedEntry, boolean replayOnNotModified) {
+        this.cache = cache;
+        this.key = key;
+        this.request = request;
+        this.delegate = delegate;
+        this.bodyPartFactory = bodyPartFactory;
+        this.validatedEntry = validatedEntry;
+        this.replayOnNotModified = replayOnNotModified;
+    }
+
+    @Override
+    public State onStatusReceived(HttpResponseStatus responseStatus) throws Exception {
+        responseTime = System.currentTimeMillis();
+        if (validatedEntry != null && responseStatus.getStatusCode() == 304) {
+            notModified = true;
+            return State.CONTINUE;
+        }
+        status = responseStatus;
+        State state = delegate.onStatusReceived(responseStatus);
+        if (state == State.ABORT) {
+            status = null;
+        }
+        return state;
+    }
+
+    @Override
+    public State onHeadersReceived(HttpHeaders headers) throws Exception {
+        if (notModified) {
+            notModifiedHeaders = headers;
+            return State.CONTINUE;
+        }
+        HttpResponseStatus status = this.status;
+        if (status != null && isStorable(status, headers)) {
+            this.headers = headers;
+            capturedBody = UnpooledByteBufAllocator.DEFAULT.compositeDirectBuffer(Integer.MAX_VALUE);
+        }
+        return abortCaptureIfAborted(delegate.onHeadersReceived(headers));
+    }
+
+    private boolean isStorable(HttpResponseStatus status, HttpHeaders headers) {
+        if (Arrays.stream(CACHEABLE_STATUS_CODES).noneMatch(code -> code == status.getStatusCode())
+                // redirects followed by the client are stored as the response of the original URI otherwise
+                || !key.equals(status.getUri().toUrl())) {
+            return false;
+        }
+        CacheControl cacheControl = CacheControl.parse(headers.getAll(CACHE_CONTROL));
+        if (cacheControl.has("no-store")) {
+            return false;
+        }
+        if (!cacheControl.has("max-age") && !headers.contains(EXPIRES) && !headers.contains(ETAG) && !headers.contains(LAST_MODIFIED)) {
+            // neither fresh nor validatable
+            return false;
+        }
+        if (headers.getInt(CONTENT_LENGTH, 0) > cache.maxEntrySize()) {
+            return false;
+        }
+        varyHeaders = CacheEntry.varyHeaders(request, headers);
+        return varyHeaders != null;
+    }
+
+    @Override
+    public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+        if (notModified) {
+            return State.CONTINUE;
+        }
+        CompositeByteBuf capturedBody = this.capturedBody;
+        if (capturedBody != null) {
+            ByteBuf buf = bodyPart.getBodyByteBuf();
+            if (capturedBody.readableBytes() + buf.readableBytes() > cache.maxEntrySize()) {
+                releaseCapture();
+            } else if (buf.isReadable()) {
+                capturedBody.addComponent(true, UnpooledByteBufAllocator.DEFAULT.directBuffer(buf.readableBytes()).writeBytes(buf, buf.readerIndex(), buf.readableBytes()));
+            }
+        }
+        return abortCaptureIfAborted(delegate.onBodyPartReceived(bodyPart));
+    }
+
+    @Override
+    public State onTrailingHeadersReceived(HttpHeaders headers) throws Exception {
+        return notModified ? State.CONTINUE : abortCaptureIfAborted(delegate.onTrailingHeadersReceived(headers));
+    }
+
+    private State abortCaptureIfAborted(State state) {
+        if (state == State.ABORT) {
+            releaseCapture();
+        }
+        return state;
+    }
+
+    private void releaseCapture() {
+        if (capturedBody != null) {
+            capturedBody.release();
+            capturedBody = null;
+        }
+    }
+
+    private void releaseValidatedEntry() {
+        if (validatedEntry != null) {
+            validatedEntry.release();
+            validatedEntry = null;
+        }
+    }
+
+    @Override
+    public void onThrowable(Throwable t) {
+        releaseCapture();
+        releaseValidatedEntry();
+        delegate.onThrowable(t);
+    }
+
+    @Override
+    public @Nullable T onCompleted() throws Exception {
+        CacheEntry validatedEntry = this.validatedEntry;
+        HttpHeaders notModifiedHeaders = this.notModifiedHeaders;
+        if (notModified && validatedEntry != null) {
+            this.validatedEntry = null;
+            CacheEntry refreshed = validatedEntry.withValidatedHeaders(notModifiedHeaders != null ? notModifiedHeaders : EmptyHttpHeaders.INSTANCE,
+                    requestTime, responseTime);
+            validatedEntry.release();
+            cache.getMetrics().onNotModified();
+            // one reference for the cache, one for the replay
+            refreshed.retain();
+            cache.put(refreshed);
+            try {
+                return replayOnNotModified
+                        ? CachingRequestExecutor.replay(refreshed, request.getUri(), delegate, bodyPartFactory, System.currentTimeMillis())
+                        : delegate.onCompleted();
+            } finally {
+                refreshed.release();
+            }
+        }
+
+        releaseValidatedEntry();
+        HttpResponseStatus status = this.status;
+        HttpHeaders headers = this.headers;
+        Map<String, String> varyHeaders = this.varyHeaders;
+        CompositeByteBuf capturedBody = this.capturedBody;
+        if (status != null && headers != null && varyHeaders != null && capturedBody != null) {
+            this.capturedBody = null;
+            cache.put(new CacheEntry(key, status.getStatusCode(), status.getStatusText(), status.getProtocolText(), headers, varyHeaders,
+                    requestTime, responseTime, capturedBody));
+        } else if (status != null) {
+            // a new response that can't be stored replaces the stored one
+            cache.remove(key);
+        }
+        return delegate.onCompleted();
+    }
+
+    @Override
+    public void onHostnameResolutionAttempt(String name) {
+        delegate.onHostnameResolutionAttempt(name);
+    }
+
+    @Override
+    public void onHostnameResolutionSuccess(String name, List<InetSocketAddress> addresses) {
+        delegate.onHostnameResolutionSuccess(name, addresses);
+    }
+
+    @Override
+    public void onHostnameResolutionFailure(String name, Throwable cause) {
+        delegate.onHostnameResolutionFailure(name, cause);
+    }
+
+    @Override
+    public void onTcpConnectAttempt(InetSocketAddress remoteAddress) {
+        delegate.onTcpConnectAttempt(remoteAddress);
+    }
+
+    @Override
+    public void onTcpConnectSuccess(InetSocketAddress remoteAddress, Channel connection) {
+        delegate.onTcpConnectSuccess(remoteAddress, connection);
+    }
+
+    @Override
+    public void onTcpConnectFailure(InetSocketAddress remoteAddress, Throwable cause) {
+        delegate.onTcpConnectFailure(remoteAddress, cause);
+    }
+
+    @Override
+    public void onTlsHandshakeAttempt() {
+        delegate.onTlsHandshakeAttempt();
+    }
+
+    @Override
+    public void onTlsHandshakeSuccess(SSLSession sslSession) {
+        delegate.onTlsHandshakeSuccess(sslSession);
+    }
+
+    @Override
+    public void onTlsHandshakeFailure(Throwable cause) {
+        delegate.onTlsHandshakeFailure(cause);
+    }
+
+    @Override
+    public void onConnectionPoolAttempt() {
+        delegate.onConnectionPoolAttempt();
+    }
+
+    @Override
+    public void onConnectionPooled(Channel connection) {
+        delegate.onConnectionPooled(connection);
+    }
+
+    @Override
+    public void onConnectionOffer(Channel connection) {
+        delegate.onConnectionOffer(connection);
+    }
+
+    @Override
+    public void onRequestSend(NettyRequest request) {
+        requestTime = System.currentTimeMillis();
+        delegate.onRequestSend(request);
+    }
+
+    @Override
+    public void onRetry() {
+        // the response of the previous attempt is discarded
+        releaseCapture();
+        status = null;
+        headers = null;
+        notModified = false;
+        notModifiedHeaders = null;
+        delegate.onRetry();
+    }
+
+    @Override
+    public State onHeadersWritten() {
+        return delegate instanceof ProgressAsyncHandler ? ((ProgressAsyncHandler<T>) delegate).onHeadersWritten() : State.CONTINUE;
+    }
+
+    @Override
+    public State onContentWritten() {
+        return delegate instanceof ProgressAsyncHandler ? ((ProgressAsyncHandler<T>) delegate).onContentWritten() : State.CONTINUE;
+    }
+
+    @Override
+    public State onContentWriteProgress(long amount, long current, long total) {
+        return delegate instanceof ProgressAsyncHandler
+                ? ((ProgressAsyncHandler<T>) delegate).onContentWriteProgress(amount, current, total)
+                : State.CONTINUE;
+    }
+}
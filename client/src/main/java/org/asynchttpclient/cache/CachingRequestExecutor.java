@@ -0,0 +1,214 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.AsyncHttpClientConfig.ResponseBodyPartFactory;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestExecutor;
+import org.asynchttpclient.handler.StreamedAsyncHandler;
+import org.asynchttpclient.handler.TransferCompletionHandler;
+import org.asynchttpclient.uri.Uri;
+import org.asynchttpclient.ws.WebSocketUpgradeHandler;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.AGE;
+import static io.netty.handler.codec.http.HttpHeaderNames.CACHE_CONTROL;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_MATCH;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_MODIFIED_SINCE;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_NONE_MATCH;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_RANGE;
+import static io.netty.handler.codec.http.HttpHeaderNames.IF_UNMODIFIED_SINCE;
+import static io.netty.handler.codec.http.HttpHeaderNames.PRAGMA;
+import static io.netty.handler.codec.http.HttpHeaderNames.RANGE;
+import static org.asynchttpclient.util.HttpConstants.Methods.GET;
+import static org.asynchttpclient.util.HttpConstants.Methods.HEAD;
+import static org.asynchttpclient.util.HttpConstants.Methods.OPTIONS;
+import static org.asynchttpclient.util.HttpConstants.Methods.TRACE;
+
+/**
+ * Sits in front of the request sender of a client and applies the {@link HttpCache} policy to each request: serves fresh hits, revalidates
+ * stale entries, stores cacheable responses and invalidates on unsafe methods.
+ */
+public final class CachingRequestExecutor implements RequestExecutor {
+
+    private final HttpCache cache;
+    private final ResponseBodyPartFactory bodyPartFactory;
+    private final RequestExecutor next;
+    private final Set<String> backgroundRevalidations = ConcurrentHashMap.newKeySet();
+
+    public CachingRequestExecutor(HttpCache cache, ResponseBodyPartFactory bodyPartFactory, RequestExecutor next) {
+        this.cache = cache;
+        this.bodyPartFactory = bodyPartFactory;
+        this.next = next;
+    }
+
+    @Override
+    public <T> ListenableFuture<T> execute(Request request, AsyncHandler<T> handler) {
+        String method = request.getMethod();
+        if (!GET.equals(method)) {
+            if (!HEAD.equals(method) && !OPTIONS.equals(method) && !TRACE.equals(method)) {
+                // unsafe methods invalidate the stored response of the target URI, see RFC 9111 section 4.4
+                cache.remove(request.getUri().toUrl());
+            }
+            return next.execute(request, handler);
+        }
+
+        HttpHeaders requestHeaders = request.getHeaders();
+        CacheControl requestCacheControl = CacheControl.parse(requestHeaders.getAll(CACHE_CONTROL));
+        if (handler instanceof StreamedAsyncHandler
+                || handler instanceof WebSocketUpgradeHandler
+                || handler instanceof TransferCompletionHandler
+                || request.getUri().isWebSocket()
+                || requestCacheControl.has("no-store")
+                || requestHeaders.contains(RANGE)
+                || requestHeaders.contains(IF_NONE_MATCH)
+                || requestHeaders.contains(IF_MODIFIED_SINCE)
+                || requestHeaders.contains(IF_MATCH)
+                || requestHeaders.contains(IF_UNMODIFIED_SINCE)
+                || requestHeaders.contains(IF_RANGE)) {
+            return next.execute(request, handler);
+        }
+
+        String key = request.getUri().toUrl();
+        CacheEntry entry = cache.get(key);
+        if (entry != null && !entry.matchesVary(request)) {
+            entry.release();
+            entry = null;
+        }
+        if (entry == null) {
+            cache.getMetrics().onMiss();
+            return next.execute(request, new CachingAsyncHandler<>(cache, key, request, handler, bodyPartFactory, null, true));
+        }
+
+        long now = System.currentTimeMillis();
+        boolean noCache = requestCacheControl.has("no-cache") || (!requestHeaders.contains(CACHE_CONTROL) && requestHeaders.contains(PRAGMA, "no-cache", true));
+        long requestMaxAge = requestCacheControl.seconds("max-age");
+        if (!noCache && entry.isFresh(now) && (requestMaxAge < 0 || entry.currentAge(now) <= TimeUnit.SECONDS.toMillis(requestMaxAge))) {
+            cache.getMetrics().onHit();
+            return serve(entry, request, handler, now);
+        }
+
+        if (!noCache && requestMaxAge < 0 && entry.isWithinStaleWhileRevalidate(now)) {
+            cache.getMetrics().onStaleHit();
+            if (backgroundRevalidations.add(key)) {
+                revalidateInBackground(key, request, entry.hasValidators() ? (CacheEntry) entry.retain() : null);
+            }
+            return serve(entry, request, handler, now);
+        }
+
+        if (entry.hasValidators()) {
+            cache.getMetrics().onRevalidation();
+            return next.execute(conditionalRequest(request, entry), new CachingAsyncHandler<>(cache, key, request, handler, bodyPartFactory, entry, true));
+        }
+
+        entry.release();
+        cache.getMetrics().onMiss();
+        return next.execute(request, new CachingAsyncHandler<>(cache, key, request, handler, bodyPartFactory, null, true));
+    }
+
+    /**
+     * @param entry the retained entry to validate, or null if it has no validator and must be fetched again
+     */
+    private void revalidateInBackground(String key, Request request, @Nullable CacheEntry entry) {
+        cache.getMetrics().onRevalidation();
+        next.execute(entry != null ? conditionalRequest(request, entry) : request,
+                        new CachingAsyncHandler<>(cache, key, request, DiscardingAsyncHandler.INSTANCE, bodyPartFactory, entry, false))
+                .toCompletableFuture()
+                .whenComplete((result, t) -> backgroundRevalidations.remove(key));
+    }
+
+    private static Request conditionalRequest(Request request, CacheEntry entry) {
+        String etag = entry.etag();
+        String lastModified = entry.lastModified();
+        HttpHeaders headers = new DefaultHttpHeaders().set(request.getHeaders());
+        if (etag != null) {
+            headers.set(IF_NONE_MATCH, etag);
+        }
+        if (lastModified != null) {
+            headers.set(IF_MODIFIED_SINCE, lastModified);
+        }
+        return request.toBuilder().setHeaders(headers).build();
+    }
+
+    private <T> ListenableFuture<T> serve(CacheEntry entry, Request request, AsyncHandler<T> handler, long now) {
+        try {
+            return new ListenableFuture.CompletedSuccess<>(replay(entry, request.getUri(), handler, bodyPartFactory, now));
+        } catch (Throwable t) {
+            handler.onThrowable(t);
+            return new ListenableFuture.CompletedFailure<>(t);
+        } finally {
+            entry.release();
+        }
+    }
+
+    /**
+     * Invokes the callbacks of a handler with a stored response, as if it had just been received.
+     */
+    static <T> @Nullable T replay(CacheEntry entry, Uri uri, AsyncHandler<T> handler, ResponseBodyPartFactory bodyPartFactory, long now) throws Exception {
+        if (handler.onStatusReceived(new CachedResponseStatus(uri, entry)) != AsyncHandler.State.ABORT) {
+            HttpHeaders headers = new DefaultHttpHeaders().set(entry.headers).set(AGE, TimeUnit.MILLISECONDS.toSeconds(Math.max(0, entry.currentAge(now))));
+            if (handler.onHeadersReceived(headers) != AsyncHandler.State.ABORT) {
+                ByteBuf body = entry.body.retainedDuplicate();
+                try {
+                    handler.onBodyPartReceived(bodyPartFactory.newResponseBodyPart(body, true));
+                } finally {
+                    body.release();
+                }
+            }
+        }
+        return handler.onCompleted();
+    }
+
+    private static final class DiscardingAsyncHandler implements AsyncHandler<Void> {
+
+        static final DiscardingAsyncHandler INSTANCE = new DiscardingAsyncHandler();
+
+        @Override
+        public State onStatusReceived(HttpResponseStatus responseStatus) {
+            return State.CONTINUE;
+        }
+
+        @Override
+        public State onHeadersReceived(HttpHeaders headers) {
+            return State.CONTINUE;
+        }
+
+        @Override
+        public State onBodyPartReceived(HttpResponseBodyPart bodyPart) {
+            return State.CONTINUE;
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+        }
+
+        @Override
+        public @Nullable Void onCompleted() {
+            return null;
+        }
+    }
+}
@@ -0,0 +1,374 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.cache;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.BufferedOutputStream;
+import java.io.DataInput;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.channels.FileChannel;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.DirectoryStream;
+import java.nio.file.Files;
+import java.nio.file.NoSuchFileException;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * The disk tier of the {@link HttpCache}: one file per entry, named after the SHA-256 of the key, bounded by the sum of the file sizes.
+ * <p>
+ * Entries are written to a temporary file then atomically moved, so that a crash never leaves a truncated entry behind. The index is rebuilt
+ * from the directory content when the tier is created, so entries survive restarts.
+ * <p>
+ * Reads are blocking and happen on the thread that misses the memory tier. Writes and deletions are run in order by a dedicated thread, so
+ * that demotions never block the I/O thread that stores a response: the index is updated as soon as a removal is requested, and a write
+ * that was superseded or removed before running is dropped.
+ */
+final class DiskCacheTier {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(DiskCacheTier.class);
+
+    private static final int MAGIC = 0x41484331;
+    private static final String SUFFIX = ".entry";
+
+    private final Path directory;
+    private final long maxSize;
+    // file name -> file size, in access order
+    private final LinkedHashMap<String, Long> index = new LinkedHashMap<>(16, 0.75f, true);
+    // file name -> latest entry waiting to be written
+    private final Map<String, CacheEntry> pendingWrites = new HashMap<>();
+    private final ExecutorService writer = Executors.newSingleThreadExecutor(new DefaultThreadFactory("AsyncHttpClient-cache", true));
+    private long size;
+
+    DiskCacheTier(Path directory, long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        try {
+            Files.createDirectories(directory);
+            List<Path> files = new ArrayList<>();
+            try (DirectoryStream<Path> stream = Files.newDirectoryStream(directory, "*" + SUFFIX)) {
+                stream.forEach(files::add);
+            }
+            files.sort(Comparator.comparingLong(DiskCacheTier::lastModified));
+            for (Path file : files) {
+                long fileSize = Files.size(file);
+                index.put(file.getFileName().toString(), fileSize);
+                size += fileSize;
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Failed to open cache directory " + directory, e);
+        }
+        evict();
+    }
+
+    private static long lastModified(Path file) {
+        try {
+            return Files.getLastModifiedTime(file).toMillis();
+        } catch (IOException e) {
+            return 0;
+        }
+    }
+
+    /**
+     * Load an entry from its file.
+     *
+     * @return an entry whose reference is owned by the caller, or null if there's none for this key
+     */
+    @Nullable
+    CacheEntry get(String key) {
+        String fileName = fileName(key);
+        synchronized (this) {
+            if (index.get(fileName) == null) {
+                return null;
+            }
+        }
+        Path file = directory.resolve(fileName);
+        ByteBuf buf = null;
+        try (FileChannel channel = FileChannel.open(file, StandardOpenOption.READ)) {
+            int length = (int) channel.size();
+            buf = Unpooled.directBuffer(length);
+            while (buf.writableBytes() > 0 && buf.writeBytes(channel, buf.writableBytes()) >= 0) {
+                // read fully
+            }
+            CacheEntry entry = read(new DataInputStream(new ByteBufInputStream(buf)), buf);
+            buf = null;
+            if (entry.key.equals(key)) {
+                return entry;
+            }
+            entry.release();
+        } catch (NoSuchFileException e) {
+            // concurrently evicted
+        } catch (IOException | RuntimeException e) {
+            LOGGER.debug("Failed to read cache entry {}", file, e);
+            remove(key);
+        } finally {
+            if (buf != null) {
+                buf.release();
+            }
+        }
+        return null;
+    }
+
+    /**
+     * Schedules the write of an entry, the caller keeps its reference.
+     */
+    void put(CacheEntry entry) {
+        String fileName = fileName(entry.key);
+        entry.retain();
+        synchronized (this) {
+            pendingWrites.put(fileName, entry);
+        }
+        try {
+            writer.execute(() -> write(fileName, entry));
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                pendingWrites.remove(fileName, entry);
+            }
+            entry.release();
+        }
+    }
+
+    private void write(String fileName, CacheEntry entry) {
+        Path file = directory.resolve(fileName);
+        Path tmp = null;
+        try {
+            synchronized (this) {
+                if (pendingWrites.get(fileName) != entry) {
+                    return;
+                }
+            }
+            tmp = Files.createTempFile(directory, fileName, ".tmp");
+            try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(Files.newOutputStream(tmp)))) {
+                write(entry, out);
+            }
+            long fileSize = Files.size(tmp);
+            Files.move(tmp, file, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+            tmp = null;
+            boolean indexed;
+            synchronized (this) {
+                indexed = pendingWrites.remove(fileName, entry);
+                if (indexed) {
+                    Long previous = index.put(fileName, fileSize);
+                    size += fileSize - (previous != null ? previous : 0);
+                }
+            }
+            if (indexed) {
+                evict();
+            } else {
+                // removed while being written
+                delete(fileName);
+            }
+        } catch (IOException e) {
+            LOGGER.debug("Failed to write cache entry {}", file, e);
+            synchronized (this) {
+                pendingWrites.remove(fileName, entry);
+            }
+            if (tmp != null) {
+                delete(tmp.getFileName().toString());
+            }
+        } finally {
+            entry.release();
+        }
+    }
+
+    boolean remove(String key) {
+        String fileName = fileName(key);
+        Long fileSize;
+        boolean pending;
+        synchronized (this) {
+            pending = pendingWrites.remove(fileName) != null;
+            fileSize = index.remove(fileName);
+            if (fileSize != null) {
+                size -= fileSize;
+            }
+        }
+        if (fileSize != null) {
+            scheduleDelete(fileName);
+        }
+        return pending || fileSize != null;
+    }
+
+    void clear() {
+        List<String> fileNames;
+        synchronized (this) {
+            fileNames = new ArrayList<>(index.keySet());
+            index.clear();
+            pendingWrites.clear();
+            size = 0;
+        }
+        fileNames.forEach(this::scheduleDelete);
+    }
+
+    /**
+     * Waits for the pending writes and deletions, then stops the writer thread.
+     */
+    void close() {
+        writer.shutdown();
+        try {
+            writer.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Visible for testing
+    void awaitPendingWrites() throws Exception {
+        writer.submit(() -> {
+        }).get();
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    synchronized int count() {
+        return index.size();
+    }
+
+    private void evict() {
+        List<String> evicted = new ArrayList<>(0);
+        synchronized (this) {
+            Iterator<Map.Entry<String, Long>> it = index.entrySet().iterator();
+            while (size > maxSize && it.hasNext()) {
+                Map.Entry<String, Long> eldest = it.next();
+                it.remove();
+                size -= eldest.getValue();
+                evicted.add(eldest.getKey());
+            }
+        }
+        evicted.forEach(this::delete);
+    }
+
+    private void scheduleDelete(String fileName) {
+        try {
+            writer.execute(() -> delete(fileName));
+        } catch (RejectedExecutionException e) {
+            delete(fileName);
+        }
+    }
+
+    private void delete(String fileName) {
+        try {
+            Files.deleteIfExists(directory.resolve(fileName));
+        } catch (IOException e) {
+            LOGGER.debug("Failed to delete cache entry {}", fileName, e);
+        }
+    }
+
+    private static void write(CacheEntry entry, DataOutputStream out) throws IOException {
+        out.writeInt(MAGIC);
+        writeString(out, entry.key);
+        out.writeInt(entry.statusCode);
+        writeString(out, entry.statusText);
+        writeString(out, entry.protocolText);
+        out.writeLong(entry.requestTime);
+        out.writeLong(entry.responseTime);
+        out.writeInt(entry.varyHeaders.size());
+        for (Map.Entry<String, String> varyHeader : entry.varyHeaders.entrySet()) {
+            writeString(out, varyHeader.getKey());
+            writeString(out, varyHeader.getValue());
+        }
+        out.writeInt(entry.headers.size());
+        for (Map.Entry<String, String> header : entry.headers) {
+            writeString(out, header.getKey());
+            writeString(out, header.getValue());
+        }
+        ByteBuf body = entry.body;
+        out.writeInt(body.readableBytes());
+        body.getBytes(body.readerIndex(), out, body.readableBytes());
+    }
+
+    // the body of the entry is a slice of the buffer whose ownership is transferred to the entry
+    private static CacheEntry read(DataInput in, ByteBuf buf) throws IOException {
+        if (in.readInt() != MAGIC) {
+            throw new IOException("Not a cache entry");
+        }
+        String key = readString(in);
+        int statusCode = in.readInt();
+        String statusText = readString(in);
+        String protocolText = readString(in);
+        long requestTime = in.readLong();
+        long responseTime = in.readLong();
+        int varyCount = in.readInt();
+        Map<String, String> varyHeaders = new LinkedHashMap<>();
+        for (int i = 0; i < varyCount; i++) {
+            varyHeaders.put(readString(in), readString(in));
+        }
+        int headerCount = in.readInt();
+        HttpHeaders headers = new DefaultHttpHeaders();
+        for (int i = 0; i < headerCount; i++) {
+            headers.add(readString(in), readString(in));
+        }
+        int bodyLength = in.readInt();
+        if (bodyLength != buf.readableBytes()) {
+            throw new IOException("Truncated cache entry");
+        }
+        ByteBuf body = buf.slice();
+        return new CacheEntry(key, statusCode, statusText, protocolText, headers, varyHeaders, requestTime, responseTime, body);
+    }
+
+    // DataOutput#writeUTF is limited to 64KiB
+    private static void writeString(DataOutputStream out, String s) throws IOException {
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    private static String fileName(String key) {
+        try {
+            byte[] digest = MessageDigest.getInstance("SHA-256").digest(key.getBytes(StandardCharsets.UTF_8));
+            StringBuilder sb = new StringBuilder(digest.length * 2 + SUFFIX.length());
+            for (byte b : digest) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.append(SUFFIX).toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+}
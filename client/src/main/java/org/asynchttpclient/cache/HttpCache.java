@@ -0,0 +1,254 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.cache;
+
+import org.asynchttpclient.uri.Uri;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.nio.file.Path;
+import java.util.List;
+
+/**
+ * A private HTTP cache, as specified by RFC 9111, for the responses to GET requests.
+ * <p>
+ * Responses are stored in a size-bounded LRU memory tier whose bodies live off-heap. When a disk directory is configured, entries evicted from
+ * memory are demoted to a disk tier, written by a dedicated thread, and promoted back on their next hit.
+ * <p>
+ * When configured with {@link org.asynchttpclient.DefaultAsyncHttpClientConfig.Builder#setHttpCache(HttpCache)}, the client:
+ * <ul>
+ * <li>serves fresh stored responses without sending anything, the {@link org.asynchttpclient.AsyncHandler} callbacks being invoked on the
+ * calling thread,</li>
+ * <li>revalidates stale stored responses with <code>If-None-Match</code> and <code>If-Modified-Since</code>, and replays the stored body
+ * when the server answers with <code>304 Not Modified</code>,</li>
+ * <li>serves stale stored responses within their <code>stale-while-revalidate</code> window while revalidating them in the background,</li>
+ * <li>invalidates the stored response of a URI when an unsafe request, e.g. POST, is sent to it.</li>
+ * </ul>
+ * Requests carrying their own conditional or <code>Range</code> headers, WebSocket requests, and requests handled by a
+ * {@link org.asynchttpclient.handler.StreamedAsyncHandler} or a {@link org.asynchttpclient.handler.TransferCompletionHandler}, bypass the
+ * cache.
+ */
+public final class HttpCache implements Closeable {
+
+    private final MemoryCacheTier memoryTier;
+    private final @Nullable DiskCacheTier diskTier;
+    private final int maxEntrySize;
+    private final HttpCacheMetrics metrics = new HttpCacheMetrics();
+
+    private HttpCache(long maxMemorySize, int maxEntrySize, @Nullable DiskCacheTier diskTier) {
+        memoryTier = new MemoryCacheTier(maxMemorySize);
+        this.diskTier = diskTier;
+        this.maxEntrySize = maxEntrySize;
+    }
+
+    public HttpCacheMetrics getMetrics() {
+        return metrics;
+    }
+
+    /**
+     * Return the size of the memory tier.
+     *
+     * @return the sum of the sizes of the entries of the memory tier
+     */
+    public long getMemorySize() {
+        return memoryTier.size();
+    }
+
+    public int getMemoryEntryCount() {
+        return memoryTier.count();
+    }
+
+    /**
+     * Return the size of the disk tier.
+     *
+     * @return the sum of the sizes of the files of the disk tier, 0 if there's none
+     */
+    public long getDiskSize() {
+        return diskTier != null ? diskTier.size() : 0;
+    }
+
+    public int getDiskEntryCount() {
+        return diskTier != null ? diskTier.count() : 0;
+    }
+
+    /**
+     * Removes the stored response of a URI from both tiers.
+     *
+     * @param uri the request URI
+     * @return true if a response was stored
+     */
+    public boolean invalidate(Uri uri) {
+        return remove(uri.toUrl());
+    }
+
+    /**
+     * Removes all the stored responses from both tiers.
+     */
+    public void clear() {
+        memoryTier.clear();
+        if (diskTier != null) {
+            diskTier.clear();
+        }
+    }
+
+    /**
+     * Releases the memory tier, demoting its entries to the disk tier if any so that they survive restarts, and waits for the disk writes.
+     */
+    @Override
+    public void close() {
+        for (CacheEntry entry : memoryTier.drain()) {
+            if (diskTier != null) {
+                diskTier.put(entry);
+            }
+            entry.release();
+        }
+        if (diskTier != null) {
+            diskTier.close();
+        }
+    }
+
+    /**
+     * Look up a stored response, promoting it to the memory tier when it's found on disk.
+     *
+     * @return a retained entry, to be released by the caller, or null if there's none for this key
+     */
+    @Nullable
+    CacheEntry get(String key) {
+        CacheEntry entry = memoryTier.get(key);
+        if (entry == null && diskTier != null) {
+            entry = diskTier.get(key);
+            if (entry != null) {
+                entry.retain();
+                addToMemory(entry);
+            }
+        }
+        return entry;
+    }
+
+    /**
+     * Stores an entry, taking ownership of the caller's reference.
+     */
+    void put(CacheEntry entry) {
+        if (entry.size() > maxEntrySize) {
+            entry.release();
+            return;
+        }
+        metrics.onStore();
+        if (diskTier != null) {
+            // the previous version would be promoted back otherwise
+            diskTier.remove(entry.key);
+        }
+        addToMemory(entry);
+    }
+
+    private void addToMemory(CacheEntry entry) {
+        List<CacheEntry> evicted = memoryTier.put(entry);
+        for (CacheEntry eldest : evicted) {
+            metrics.onEviction();
+            if (diskTier != null) {
+                diskTier.put(eldest);
+            }
+            eldest.release();
+        }
+    }
+
+    boolean remove(String key) {
+        boolean removed = memoryTier.remove(key);
+        if (diskTier != null) {
+            removed |= diskTier.remove(key);
+        }
+        return removed;
+    }
+
+    int maxEntrySize() {
+        return maxEntrySize;
+    }
+
+    @Override
+    public String toString() {
+        return "HttpCache{memorySize=" + getMemorySize() +
+                ", memoryEntryCount=" + getMemoryEntryCount() +
+                ", diskSize=" + getDiskSize() +
+                ", diskEntryCount=" + getDiskEntryCount() +
+                ", metrics=" + metrics +
+                '}';
+    }
+
+    public static class Builder {
+
+        private long maxMemorySize = 32 * 1024 * 1024;
+        private int maxEntrySize = 4 * 1024 * 1024;
+        private @Nullable Path diskDirectory;
+        private long maxDiskSize = 256 * 1024 * 1024;
+
+        /**
+         * Set the maximum size of the memory tier.
+         *
+         * @param maxMemorySize the maximum sum of the sizes of the entries of the memory tier, 32MiB by default
+         * @return the same builder instance
+         */
+        public Builder setMaxMemorySize(long maxMemorySize) {
+            this.maxMemorySize = maxMemorySize;
+            return this;
+        }
+
+        /**
+         * Set the maximum size of a stored response.
+         *
+         * @param maxEntrySize the maximum size of a stored response, larger ones aren't stored, 4MiB by default
+         * @return the same builder instance
+         */
+        public Builder setMaxEntrySize(int maxEntrySize) {
+            this.maxEntrySize = maxEntrySize;
+            return this;
+        }
+
+        /**
+         * Set the directory of the disk tier.
+         *
+         * @param diskDirectory the directory of the disk tier, which is disabled by default
+         * @return the same builder instance
+         */
+        public Builder setDiskDirectory(@Nullable Path diskDirectory) {
+            this.diskDirectory = diskDirectory;
+            return this;
+        }
+
+        /**
+         * Set the maximum size of the disk tier.
+         *
+         * @param maxDiskSize the maximum sum of the sizes of the files of the disk tier, 256MiB by default
+         * @return the same builder instance
+         */
+        public Builder setMaxDiskSize(long maxDiskSize) {
+            this.maxDiskSize = maxDiskSize;
+            return this;
+        }
+
+        /**
+         * Build the cache.
+         *
+         * @return a new cache, whose disk tier is loaded from the disk directory if any
+         * @throws java.io.UncheckedIOException if the disk directory can't be created or listed
+         */
+        public HttpCache build() {
+            if (maxMemorySize <= 0 || maxEntrySize <= 0 || maxDiskSize <= 0) {
+                throw new IllegalArgumentException("Cache sizes must be positive");
+            }
+            return new HttpCache(maxMemorySize, maxEntrySize, diskDirectory != null ? new DiskCacheTier(diskDirectory, maxDiskSize) : null);
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.cache;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of a {@link HttpCache}.
+ */
+public final class HttpCacheMetrics {
+
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder staleHits = new LongAdder();
+    private final LongAdder misses = new LongAdder();
+    private final LongAdder revalidations = new LongAdder();
+    private final LongAdder notModified = new LongAdder();
+    private final LongAdder stores = new LongAdder();
+    private final LongAdder evictions = new LongAdder();
+
+    HttpCacheMetrics() {
+    }
+
+    /**
+     * Return the number of fresh hits.
+     *
+     * @return the number of requests served with a fresh stored response, without touching the network
+     */
+    public long getHits() {
+        return hits.sum();
+    }
+
+    /**
+     * Return the number of stale hits.
+     *
+     * @return the number of requests served with a stale stored response while it was revalidated in the background,
+     * see <code>stale-while-revalidate</code>
+     */
+    public long getStaleHits() {
+        return staleHits.sum();
+    }
+
+    /**
+     * Return the number of misses.
+     *
+     * @return the number of cacheable requests that found no usable stored response
+     */
+    public long getMisses() {
+        return misses.sum();
+    }
+
+    /**
+     * Return the number of revalidations.
+     *
+     * @return the number of conditional requests sent to validate a stale stored response
+     */
+    public long getRevalidations() {
+        return revalidations.sum();
+    }
+
+    /**
+     * Return the number of successful revalidations.
+     *
+     * @return the number of revalidations answered with <code>304 Not Modified</code>, i.e. whose stored body could be reused
+     */
+    public long getNotModified() {
+        return notModified.sum();
+    }
+
+    /**
+     * Return the number of stored responses.
+     *
+     * @return the number of responses stored
+     */
+    public long getStores() {
+        return stores.sum();
+    }
+
+    /**
+     * Return the number of evictions.
+     *
+     * @return the number of entries evicted from the memory tier, either demoted to the disk tier or dropped
+     */
+    public long getEvictions() {
+        return evictions.sum();
+    }
+
+    void onHit() {
+        hits.increment();
+    }
+
+    void onStaleHit() {
+        staleHits.increment();
+    }
+
+    void onMiss() {
+        misses.increment();
+    }
+
+    void onRevalidation() {
+        revalidations.increment();
+    }
+
+    void onNotModified() {
+        notModified.increment();
+    }
+
+    void onStore() {
+        stores.increment();
+    }
+
+    void onEviction() {
+        evictions.increment();
+    }
+
+    @Override
+    public String toString() {
+        return "HttpCacheMetrics{hits=" + getHits() +
+                ", staleHits=" + getStaleHits() +
+                ", misses=" + getMisses() +
+                ", revalidations=" + getRevalidations() +
+                ", notModified=" + getNotModified() +
+                ", stores=" + getStores() +
+                ", evictions=" + getEvictions() +
+                '}';
+    }
+}
@@ -0,0 +1,109 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.cache;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+
+/**
+ * The in-memory tier of the {@link HttpCache}: a LRU map of entries whose bodies live off-heap, bounded by the sum of the entry sizes.
+ */
+final class MemoryCacheTier {
+
+    private final long maxSize;
+    private final LinkedHashMap<String, CacheEntry> entries = new LinkedHashMap<>(16, 0.75f, true);
+    private long size;
+
+    MemoryCacheTier(long maxSize) {
+        this.maxSize = maxSize;
+    }
+
+    /**
+     * Look up an entry.
+     *
+     * @return a retained entry, to be released by the caller, or null if there's none for this key
+     */
+    synchronized @Nullable CacheEntry get(String key) {
+        CacheEntry entry = entries.get(key);
+        if (entry != null) {
+            entry.retain();
+        }
+        return entry;
+    }
+
+    /**
+     * Stores an entry, taking ownership of the caller's reference.
+     *
+     * @return the entries evicted to make room for it, whose references are now owned by the caller
+     */
+    synchronized List<CacheEntry> put(CacheEntry entry) {
+        CacheEntry previous = entries.put(entry.key, entry);
+        size += entry.size();
+        List<CacheEntry> evicted = new ArrayList<>(1);
+        if (previous != null) {
+            size -= previous.size();
+            previous.release();
+        }
+        Iterator<CacheEntry> it = entries.values().iterator();
+        while (size > maxSize && it.hasNext()) {
+            CacheEntry eldest = it.next();
+            it.remove();
+            size -= eldest.size();
+            evicted.add(eldest);
+        }
+        return evicted;
+    }
+
+    synchronized boolean remove(String key) {
+        CacheEntry entry = entries.remove(key);
+        if (entry != null) {
+            size -= entry.size();
+            entry.release();
+            return true;
+        }
+        return false;
+    }
+
+    synchronized void clear() {
+        entries.values().forEach(CacheEntry::release);
+        entries.clear();
+        size = 0;
+    }
+
+    synchronized long size() {
+        return size;
+    }
+
+    synchronized int count() {
+        return entries.size();
+    }
+
+    /**
+     * Removes all the entries, from the least to the most recently used.
+     *
+     * @return the removed entries, whose references are now owned by the caller
+     */
+    synchronized List<CacheEntry> drain() {
+        List<CacheEntry> drained = new ArrayList<>(entries.values());
+        entries.clear();
+        size = 0;
+        return drained;
+    }
+}
@@ -75,4 +75,14 @@ public interface ChannelPool {
      * @return The number of idle channels per host.
      */
     Map<String, Long> getIdleChannelCountPerHost();
+
+    /**
+     * Return the number of idle channels of a partition.
+     *
+     * @param partitionKey a partition key
+     * @return the number of idle channels of this partition, or -1 if this pool doesn't keep track of it
+     */
+    default int getIdleChannelCount(Object partitionKey) {
+        return -1;
+    }
 }
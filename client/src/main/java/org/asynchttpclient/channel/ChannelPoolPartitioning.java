@@ -25,7 +25,7 @@ import java.util.Objects;
 @FunctionalInterface
 public interface ChannelPoolPartitioning {
 
-    Object getPartitionKey(Uri uri, String virtualHost, ProxyServer proxyServer);
+    Object getPartitionKey(Uri uri, @Nullable String virtualHost, @Nullable ProxyServer proxyServer);
 
     enum PerHostChannelPoolPartitioning implements ChannelPoolPartitioning {
 
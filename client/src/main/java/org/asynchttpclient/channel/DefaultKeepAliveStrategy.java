@@ -21,6 +21,7 @@ import io.netty.handler.codec.http.HttpUtil;
 import org.asynchttpclient.Request;
 
 import java.net.InetSocketAddress;
+import java.util.concurrent.TimeUnit;
 
 import static io.netty.handler.codec.http.HttpHeaderValues.CLOSE;
 
@@ -39,4 +40,28 @@ public class DefaultKeepAliveStrategy implements KeepAliveStrategy {
                 // support non-standard Proxy-Connection
                 !response.headers().contains("Proxy-Connection", CLOSE, true);
     }
+
+    /**
+     * Read from the timeout parameter of the non-standard but widespread Keep-Alive header, e.g. {@code Keep-Alive: timeout=5, max=100}.
+     */
+    @Override
+    public long idleTimeout(InetSocketAddress remoteAddress, Request ahcRequest, HttpRequest request, HttpResponse response) {
+        String keepAlive = response.headers().get("Keep-Alive");
+        return keepAlive != null ? parseTimeout(keepAlive) : -1;
+    }
+
+    static long parseTimeout(String keepAlive) {
+        for (String parameter : keepAlive.split(",", -1)) {
+            int equals = parameter.indexOf('=');
+            if (equals != -1 && "timeout".equalsIgnoreCase(parameter.substring(0, equals).trim())) {
+                try {
+                    long seconds = Long.parseLong(parameter.substring(equals + 1).trim());
+                    return seconds >= 0 ? TimeUnit.SECONDS.toMillis(seconds) : -1;
+                } catch (NumberFormatException e) {
+                    return -1;
+                }
+            }
+        }
+        return -1;
+    }
 }
@@ -34,4 +34,18 @@ public interface KeepAliveStrategy {
      * @return true if the connection should be kept alive, false if it should be closed.
      */
     boolean keepAlive(InetSocketAddress remoteAddress, Request ahcRequest, HttpRequest nettyRequest, HttpResponse nettyResponse);
+
+    /**
+     * Determines how long the connection can stay idle after this HTTP message exchange before the server closes it, when kept alive.
+     * The pool stops handing out the connection a bit before, instead of only relying on its own idle timeout.
+     *
+     * @param remoteAddress the remote InetSocketAddress associated with the request
+     * @param ahcRequest    the Request, as built by AHC
+     * @param nettyRequest  the HTTP request sent to Netty
+     * @param nettyResponse the HTTP response received from Netty
+     * @return the idle timeout of the connection in milliseconds, or -1 if unknown
+     */
+    default long idleTimeout(InetSocketAddress remoteAddress, Request ahcRequest, HttpRequest nettyRequest, HttpResponse nettyResponse) {
+        return -1;
+    }
 }
@@ -0,0 +1,128 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.coalescing;
+
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.ListenableFuture;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The future of a caller of a {@link SharedExchange}, that also delivers the fanned out callbacks to the caller's handler.
+ */
+final class CoalescedResponseFuture<T> implements ListenableFuture<T> {
+
+    final AsyncHandler<T> handler;
+    private final SharedExchange exchange;
+    private final CompletableFuture<T> future = new CompletableFuture<>();
+
+    CoalescedResponseFuture(SharedExchange exchange, AsyncHandler<T> handler) {
+        this.exchange = exchange;
+        this.handler = handler;
+    }
+
+    /**
+     * Hand a callback of the shared exchange over to the handler.
+     *
+     * @return true if the handler is still interested in the response
+     */
+    boolean deliver(SharedExchange.Callback callback) {
+        try {
+            if (callback.apply(handler) == AsyncHandler.State.ABORT) {
+                complete();
+                return false;
+            }
+            return true;
+        } catch (Throwable t) {
+            fail(t);
+            return false;
+        }
+    }
+
+    void complete() {
+        try {
+            future.complete(handler.onCompleted());
+        } catch (Throwable t) {
+            fail(t);
+        }
+    }
+
+    void fail(Throwable t) {
+        try {
+            handler.onThrowable(t);
+        } finally {
+            future.completeExceptionally(t);
+        }
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (future.isDone()) {
+            return false;
+        }
+        exchange.cancel(this);
+        return future.cancel(mayInterruptIfRunning);
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return future.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return future.isDone();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        return future.get();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return future.get(timeout, unit);
+    }
+
+    @Override
+    public void done() {
+    }
+
+    @Override
+    public void abort(Throwable t) {
+        exchange.abort(this, t);
+    }
+
+    @Override
+    public void touch() {
+        exchange.touch();
+    }
+
+    @Override
+    public ListenableFuture<T> addListener(Runnable listener, Executor exec) {
+        future.whenCompleteAsync((r, t) -> listener.run(), exec != null ? exec : Runnable::run);
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<T> toCompletableFuture() {
+        return future;
+    }
+}
@@ -0,0 +1,140 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.coalescing;
+
+import io.netty.handler.codec.http.cookie.Cookie;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Realm;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestExecutor;
+import org.asynchttpclient.handler.StreamedAsyncHandler;
+import org.asynchttpclient.handler.TransferCompletionHandler;
+import org.asynchttpclient.proxy.ProxyServer;
+import org.asynchttpclient.ws.WebSocketUpgradeHandler;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.COOKIE;
+import static org.asynchttpclient.util.HttpConstants.Methods.GET;
+import static org.asynchttpclient.util.HttpConstants.Methods.HEAD;
+import static org.asynchttpclient.util.HttpUtils.hasBody;
+
+/**
+ * Coalesces concurrent identical GET and HEAD requests into a single exchange with the server, see
+ * {@link org.asynchttpclient.AsyncHttpClientConfig#isCoalesceRequests()}.
+ * <p>
+ * The first request of a key is sent, and the identical requests executed before it has received its first body part join it: they get the
+ * status and header fields received so far replayed, then every callback is fanned out to all the handlers. Body parts share the same
+ * reference-counted buffer, each handler getting its own indexes. Once the body has started, identical requests start a new exchange.
+ * <p>
+ * The exchange is governed by the settings of the first request, e.g. its timeouts, and is only cancelled when all the callers cancel.
+ * Requests with a body, requests carrying their own {@link org.asynchttpclient.Realm}, whose credentials are only turned into header fields
+ * once sent, WebSocket requests, and requests handled by a {@link StreamedAsyncHandler} or a {@link TransferCompletionHandler} are never
+ * coalesced.
+ */
+public final class CoalescingRequestExecutor implements RequestExecutor {
+
+    public static final List<String> DEFAULT_KEY_HEADERS = Collections.unmodifiableList(Arrays.asList("Accept", "Accept-Encoding", "Accept-Language",
+            "Authorization"));
+
+    private final List<String> keyHeaders;
+    private final RequestExecutor next;
+    private final ConcurrentHashMap<String, SharedExchange> exchanges = new ConcurrentHashMap<>();
+
+    public CoalescingRequestExecutor(List<String> keyHeaders, RequestExecutor next) {
+        this.keyHeaders = keyHeaders;
+        this.next = next;
+    }
+
+    @Override
+    public <T> ListenableFuture<T> execute(Request request, AsyncHandler<T> handler) {
+        if (!isCoalesceable(request, handler)) {
+            return next.execute(request, handler);
+        }
+
+        String key = key(request);
+        while (true) {
+            SharedExchange exchange = exchanges.get(key);
+            if (exchange != null) {
+                ListenableFuture<T> future = exchange.join(handler);
+                if (future != null) {
+                    return future;
+                }
+                exchanges.remove(key, exchange);
+            } else {
+                exchange = new SharedExchange(key, this);
+                if (exchanges.putIfAbsent(key, exchange) == null) {
+                    ListenableFuture<T> future = exchange.join(handler);
+                    if (future != null) {
+                        exchange.start(next.execute(request, exchange));
+                        return future;
+                    }
+                }
+            }
+        }
+    }
+
+    private static boolean isCoalesceable(Request request, AsyncHandler<?> handler) {
+        String method = request.getMethod();
+        return (GET.equals(method) || HEAD.equals(method))
+                && !hasBody(request)
+                && request.getRealm() == null
+                && !request.getUri().isWebSocket()
+                && !(handler instanceof StreamedAsyncHandler)
+                && !(handler instanceof WebSocketUpgradeHandler)
+                && !(handler instanceof TransferCompletionHandler);
+    }
+
+    void onExchangeClosed(SharedExchange exchange) {
+        exchanges.remove(exchange.key, exchange);
+    }
+
+    // Visible for testing
+    int inFlightExchangeCount() {
+        return exchanges.size();
+    }
+
+    private String key(Request request) {
+        StringBuilder sb = new StringBuilder(request.getMethod()).append(' ').append(request.getUri().toUrl());
+        if (request.getVirtualHost() != null) {
+            sb.append("\nvirtual-host: ").append(request.getVirtualHost());
+        }
+        for (String name : keyHeaders) {
+            for (String value : request.getHeaders().getAll(name)) {
+                sb.append('\n').append(name).append(": ").append(value);
+            }
+        }
+        for (String value : request.getHeaders().getAll(COOKIE)) {
+            sb.append("\ncookie-header: ").append(value);
+        }
+        for (Cookie cookie : request.getCookies()) {
+            sb.append("\ncookie: ").append(cookie.name()).append('=').append(cookie.value());
+        }
+        ProxyServer proxyServer = request.getProxyServer();
+        if (proxyServer != null) {
+            sb.append("\nproxy: ").append(proxyServer.getProxyType()).append(' ').append(proxyServer.getHost()).append(':').append(proxyServer.getPort());
+            Realm proxyRealm = proxyServer.getRealm();
+            if (proxyRealm != null) {
+                sb.append(' ').append(proxyRealm.getScheme()).append(' ').append(proxyRealm.getPrincipal());
+            }
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,260 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.coalescing;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.netty.LazyResponseBodyPart;
+import org.asynchttpclient.netty.RetainedResponseBodyPart;
+import org.asynchttpclient.netty.request.NettyRequest;
+import org.jetbrains.annotations.Nullable;
+
+import javax.net.ssl.SSLSession;
+import java.net.InetSocketAddress;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.function.Consumer;
+
+/**
+ * The single exchange shared by coalesced requests: the {@link AsyncHandler} of the upstream request, that fans every callback out to the
+ * handlers of the callers.
+ * <p>
+ * Callbacks and joins are serialized on this object's monitor, so a caller either joins before a callback and receives it, or after it and
+ * gets it replayed.
+ */
+final class SharedExchange implements AsyncHandler<Void> {
+
+    final String key;
+    private final CoalescingRequestExecutor executor;
+    private final List<CoalescedResponseFuture<?>> subscribers = new ArrayList<>();
+    private boolean joinable = true;
+    private @Nullable ListenableFuture<Void> upstream;
+    private @Nullable HttpResponseStatus status;
+    private @Nullable HttpHeaders headers;
+
+    SharedExchange(String key, CoalescingRequestExecutor executor) {
+        this.key = key;
+        this.executor = executor;
+    }
+
+    /**
+     * Add a caller to this exchange, replaying what was received so far.
+     *
+     * @return the future of the caller, or null if the body has already started and the caller must start a new exchange
+     */
+    synchronized <T> @Nullable ListenableFuture<T> join(AsyncHandler<T> handler) {
+        if (!joinable) {
+            return null;
+        }
+        CoalescedResponseFuture<T> subscriber = new CoalescedResponseFuture<>(this, handler);
+        HttpResponseStatus status = this.status;
+        HttpHeaders headers = this.headers;
+        if ((status == null || subscriber.deliver(h -> h.onStatusReceived(status)))
+                && (headers == null || subscriber.deliver(h -> h.onHeadersReceived(headers)))) {
+            subscribers.add(subscriber);
+        }
+        return subscriber;
+    }
+
+    synchronized void start(ListenableFuture<Void> upstream) {
+        this.upstream = upstream;
+        if (subscribers.isEmpty()) {
+            // every caller cancelled before the request was even sent
+            upstream.cancel(true);
+        }
+    }
+
+    synchronized void cancel(CoalescedResponseFuture<?> subscriber) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.handler.onThrowable(new CancellationException());
+            cancelIfAbandoned();
+        }
+    }
+
+    synchronized void abort(CoalescedResponseFuture<?> subscriber, Throwable t) {
+        if (subscribers.remove(subscriber)) {
+            subscriber.fail(t);
+            cancelIfAbandoned();
+        }
+    }
+
+    synchronized void touch() {
+        if (upstream != null) {
+            upstream.touch();
+        }
+    }
+
+    private void cancelIfAbandoned() {
+        if (subscribers.isEmpty()) {
+            close();
+            if (upstream != null) {
+                upstream.cancel(true);
+            }
+        }
+    }
+
+    private void close() {
+        if (joinable) {
+            joinable = false;
+            executor.onExchangeClosed(this);
+        }
+    }
+
+    private State fanOut(Callback callback) {
+        subscribers.removeIf(subscriber -> !subscriber.deliver(callback));
+        if (subscribers.isEmpty()) {
+            close();
+            return State.ABORT;
+        }
+        return State.CONTINUE;
+    }
+
+    private void forEachSubscriber(Consumer<AsyncHandler<?>> consumer) {
+        for (CoalescedResponseFuture<?> subscriber : subscribers) {
+            consumer.accept(subscriber.handler);
+        }
+    }
+
+    @Override
+    public synchronized State onStatusReceived(HttpResponseStatus responseStatus) {
+        status = responseStatus;
+        return fanOut(h -> h.onStatusReceived(responseStatus));
+    }
+
+    @Override
+    public synchronized State onHeadersReceived(HttpHeaders headers) {
+        this.headers = headers;
+        return fanOut(h -> h.onHeadersReceived(headers));
+    }
+
+    @Override
+    public synchronized State onBodyPartReceived(HttpResponseBodyPart bodyPart) {
+        // late joiners would miss this part
+        close();
+        if (bodyPart instanceof RetainedResponseBodyPart) {
+            // one buffer, independent indexes
+            return fanOut(h -> h.onBodyPartReceived(new RetainedResponseBodyPart(bodyPart.getBodyByteBuf().duplicate(), bodyPart.isLast())));
+        }
+        if (bodyPart instanceof LazyResponseBodyPart) {
+            return fanOut(h -> h.onBodyPartReceived(new LazyResponseBodyPart(bodyPart.getBodyByteBuf().duplicate(), bodyPart.isLast())));
+        }
+        return fanOut(h -> h.onBodyPartReceived(bodyPart));
+    }
+
+    @Override
+    public synchronized State onTrailingHeadersReceived(HttpHeaders headers) {
+        return fanOut(h -> h.onTrailingHeadersReceived(headers));
+    }
+
+    @Override
+    public synchronized void onThrowable(Throwable t) {
+        close();
+        for (CoalescedResponseFuture<?> subscriber : subscribers) {
+            subscriber.fail(t);
+        }
+        subscribers.clear();
+    }
+
+    @Override
+    public synchronized @Nullable Void onCompleted() {
+        close();
+        for (CoalescedResponseFuture<?> subscriber : subscribers) {
+            subscriber.complete();
+        }
+        subscribers.clear();
+        return null;
+    }
+
+    @Override
+    public synchronized void onHostnameResolutionAttempt(String name) {
+        forEachSubscriber(h -> h.onHostnameResolutionAttempt(name));
+    }
+
+    @Override
+    public synchronized void onHostnameResolutionSuccess(String name, List<InetSocketAddress> addresses) {
+        forEachSubscriber(h -> h.onHostnameResolutionSuccess(name, addresses));
+    }
+
+    @Override
+    public synchronized void onHostnameResolutionFailure(String name, Throwable cause) {
+        forEachSubscriber(h -> h.onHostnameResolutionFailure(name, cause));
+    }
+
+    @Override
+    public synchronized void onTcpConnectAttempt(InetSocketAddress remoteAddress) {
+        forEachSubscriber(h -> h.onTcpConnectAttempt(remoteAddress));
+    }
+
+    @Override
+    public synchronized void onTcpConnectSuccess(InetSocketAddress remoteAddress, Channel connection) {
+        forEachSubscriber(h -> h.onTcpConnectSuccess(remoteAddress, connection));
+    }
+
+    @Override
+    public synchronized void onTcpConnectFailure(InetSocketAddress remoteAddress, Throwable cause) {
+        forEachSubscriber(h -> h.onTcpConnectFailure(remoteAddress, cause));
+    }
+
+    @Override
+    public synchronized void onTlsHandshakeAttempt() {
+        forEachSubscriber(AsyncHandler::onTlsHandshakeAttempt);
+    }
+
+    @Override
+    public synchronized void onTlsHandshakeSuccess(SSLSession sslSession) {
+        forEachSubscriber(h -> h.onTlsHandshakeSuccess(sslSession));
+    }
+
+    @Override
+    public synchronized void onTlsHandshakeFailure(Throwable cause) {
+        forEachSubscriber(h -> h.onTlsHandshakeFailure(cause));
+    }
+
+    @Override
+    public synchronized void onConnectionPoolAttempt() {
+        forEachSubscriber(AsyncHandler::onConnectionPoolAttempt);
+    }
+
+    @Override
+    public synchronized void onConnectionPooled(Channel connection) {
+        forEachSubscriber(h -> h.onConnectionPooled(connection));
+    }
+
+    @Override
+    public synchronized void onConnectionOffer(Channel connection) {
+        forEachSubscriber(h -> h.onConnectionOffer(connection));
+    }
+
+    @Override
+    public synchronized void onRequestSend(NettyRequest request) {
+        forEachSubscriber(h -> h.onRequestSend(request));
+    }
+
+    @Override
+    public synchronized void onRetry() {
+        forEachSubscriber(AsyncHandler::onRetry);
+    }
+
+    @FunctionalInterface
+    interface Callback {
+        State apply(AsyncHandler<?> handler) throws Exception;
+    }
+}
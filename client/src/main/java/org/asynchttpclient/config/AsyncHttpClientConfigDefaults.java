@@ -28,10 +28,17 @@ public final class AsyncHttpClientConfigDefaults {
     public static final String THREAD_POOL_NAME_CONFIG = "threadPoolName";
     public static final String MAX_CONNECTIONS_CONFIG = "maxConnections";
     public static final String MAX_CONNECTIONS_PER_HOST_CONFIG = "maxConnectionsPerHost";
+    public static final String MIN_IDLE_CONNECTIONS_PER_HOST_CONFIG = "minIdleConnectionsPerHost";
+    public static final String MAX_IDLE_CONNECTIONS_CONFIG = "maxIdleConnections";
     public static final String ACQUIRE_FREE_CHANNEL_TIMEOUT = "acquireFreeChannelTimeout";
+    public static final String ASYNC_ACQUIRE_FREE_CHANNEL_CONFIG = "asyncAcquireFreeChannel";
     public static final String CONNECTION_TIMEOUT_CONFIG = "connectTimeout";
+    public static final String CONNECTION_ATTEMPT_DELAY_CONFIG = "connectionAttemptDelay";
+    public static final String USE_DNS_CACHE_CONFIG = "useDnsCache";
+    public static final String DNS_CACHE_NEGATIVE_TTL_CONFIG = "dnsCacheNegativeTtl";
     public static final String POOLED_CONNECTION_IDLE_TIMEOUT_CONFIG = "pooledConnectionIdleTimeout";
     public static final String CONNECTION_POOL_CLEANER_PERIOD_CONFIG = "connectionPoolCleanerPeriod";
+    public static final String CONNECTION_POOL_EVENT_LOOP_AFFINITY_CONFIG = "connectionPoolEventLoopAffinity";
     public static final String READ_TIMEOUT_CONFIG = "readTimeout";
     public static final String REQUEST_TIMEOUT_CONFIG = "requestTimeout";
     public static final String CONNECTION_TTL_CONFIG = "connectionTtl";
@@ -47,6 +54,7 @@ public final class AsyncHttpClientConfigDefaults {
     public static final String USE_PROXY_SELECTOR_CONFIG = "useProxySelector";
     public static final String USE_PROXY_PROPERTIES_CONFIG = "useProxyProperties";
     public static final String VALIDATE_RESPONSE_HEADERS_CONFIG = "validateResponseHeaders";
+    public static final String ENABLE_HTTP2_CONFIG = "enableHttp2";
     public static final String AGGREGATE_WEBSOCKET_FRAME_FRAGMENTS_CONFIG = "aggregateWebSocketFrameFragments";
     public static final String ENABLE_WEBSOCKET_COMPRESSION_CONFIG = "enableWebSocketCompression";
     public static final String STRICT_302_HANDLING_CONFIG = "strict302Handling";
@@ -83,6 +91,7 @@ public final class AsyncHttpClientConfigDefaults {
     public static final String HASHED_WHEEL_TIMER_TICK_DURATION = "hashedWheelTimerTickDuration";
     public static final String HASHED_WHEEL_TIMER_SIZE = "hashedWheelTimerSize";
     public static final String EXPIRED_COOKIE_EVICTION_DELAY = "expiredCookieEvictionDelay";
+    public static final String COALESCE_REQUESTS_CONFIG = "coalesceRequests";
 
     public static final String AHC_VERSION;
 
@@ -332,4 +341,40 @@ public final class AsyncHttpClientConfigDefaults {
     public static int defaultExpiredCookieEvictionDelay() {
         return AsyncHttpClientConfigHelper.getAsyncHttpClientConfig().getInt(ASYNC_CLIENT_CONFIG_ROOT + EXPIRED_COOKIE_EVICTION_DELAY);
     }
+
+    public static boolean defaultEnableHttp2() {
+        return AsyncHttpClientConfigHelper.getAsyncHttpClientConfig().getBoolean(ASYNC_CLIENT_CONFIG_ROOT + ENABLE_HTTP2_CONFIG);
+    }
+
+    public static boolean defaultAsyncAcquireFreeChannel() {
+        return AsyncHttpClientConfigHelper.getAsyncHttpClientConfig().getBoolean(ASYNC_CLIENT_CONFIG_ROOT + ASYNC_ACQUIRE_FREE_CHANNEL_CONFIG);
+    }
+
+    public static boolean defaultConnectionPoolEventLoopAffinity() {
+        return AsyncHttpClientConfigHelper.getAsyncHttpClientConfig().getBoolean(ASYNC_CLIENT_CONFIG_ROOT + CONNECTION_POOL_EVENT_LOOP_AFFINITY_CONFIG);
+    }
+
+    public static boolean defaultUseDnsCache() {
+        return AsyncHttpClientConfigHelper.getAsyncHttpClientConfig().getBoolean(ASYNC_CLIENT_CONFIG_ROOT + USE_DNS_CACHE_CONFIG);
+    }
+
+    public static Duration defaultDnsCacheNegativeTtl() {
+        return AsyncHttpClientConfigHelper.getAsyncHttpClientConfig().getDuration(ASYNC_CLIENT_CONFIG_ROOT + DNS_CACHE_NEGATIVE_TTL_CONFIG);
+    }
+
+    public static Duration defaultConnectionAttemptDelay() {
+        return AsyncHttpClientConfigHelper.getAsyncHttpClientConfig().getDuration(ASYNC_CLIENT_CONFIG_ROOT + CONNECTION_ATTEMPT_DELAY_CONFIG);
+    }
+
+    public static boolean defaultCoalesceRequests() {
+        return AsyncHttpClientConfigHelper.getAsyncHttpClientConfig().getBoolean(ASYNC_CLIENT_CONFIG_ROOT + COALESCE_REQUESTS_CONFIG);
+    }
+
+    public static int defaultMinIdleConnectionsPerHost() {
+        return AsyncHttpClientConfigHelper.getAsyncHttpClientConfig().getInt(ASYNC_CLIENT_CONFIG_ROOT + MIN_IDLE_CONNECTIONS_PER_HOST_CONFIG);
+    }
+
+    public static int defaultMaxIdleConnections() {
+        return AsyncHttpClientConfigHelper.getAsyncHttpClientConfig().getInt(ASYNC_CLIENT_CONFIG_ROOT + MAX_IDLE_CONNECTIONS_CONFIG);
+    }
 }
@@ -20,6 +20,9 @@ import org.asynchttpclient.Request;
 import org.jetbrains.annotations.Nullable;
 
 import java.io.IOException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.CompletionStage;
 
 /**
  * A {@link FilterContext} can be used to decorate {@link Request} and {@link AsyncHandler} from a list of {@link RequestFilter}.
@@ -90,6 +93,15 @@ public class FilterContext<T> {
         return builder.ioException;
     }
 
+    /**
+     * Return the stage the request waits for.
+     *
+     * @return the stage the execution of the request waits for, without blocking, if any
+     */
+    public @Nullable CompletionStage<?> getExecuteAfter() {
+        return builder.executeAfter;
+    }
+
     public static class FilterContextBuilder<T> {
         private AsyncHandler<T> asyncHandler;
         private Request request;
@@ -97,6 +109,7 @@ public class FilterContext<T> {
         private boolean replayRequest;
         private @Nullable IOException ioException;
         private @Nullable HttpHeaders headers;
+        private @Nullable CompletionStage<?> executeAfter;
 
         public FilterContextBuilder(AsyncHandler<T> asyncHandler, Request request) {
             this.asyncHandler = asyncHandler;
@@ -109,6 +122,7 @@ public class FilterContext<T> {
             responseStatus = clone.getResponseStatus();
             replayRequest = clone.replayRequest();
             ioException = clone.getIOException();
+            executeAfter = clone.getExecuteAfter();
         }
 
         public AsyncHandler<T> getAsyncHandler() {
@@ -149,8 +163,63 @@ public class FilterContext<T> {
             return this;
         }
 
+        /**
+         * Delays the execution of the request until the stage completes, or fails the request if the stage fails.
+         * When several filters delay the request, it waits for all of them, and cancelling the request cancels all their stages.
+         *
+         * @param executeAfter the stage to wait for
+         * @return the same builder instance
+         */
+        public FilterContextBuilder<T> executeAfter(CompletionStage<?> executeAfter) {
+            CompletionStage<?> previous = this.executeAfter;
+            this.executeAfter = previous == null ? executeAfter : new CombinedStage(previous.toCompletableFuture(), executeAfter.toCompletableFuture());
+            return this;
+        }
+
         public FilterContext<T> build() {
             return new FilterContext<>(this);
         }
     }
+
+    /**
+     * Completes once both stages completed. Unlike {@link CompletionStage#thenCombine}, cancelling it, or the failure of one of the stages,
+     * cancels the other ones, so that the filters stop holding the request.
+     */
+    private static final class CombinedStage extends CompletableFuture<Void> {
+
+        private final CompletableFuture<?> first;
+        private final CompletableFuture<?> second;
+
+        CombinedStage(CompletableFuture<?> first, CompletableFuture<?> second) {
+            this.first = first;
+            this.second = second;
+            first.whenComplete(this::onStageCompleted);
+            second.whenComplete(this::onStageCompleted);
+        }
+
+        private void onStageCompleted(@Nullable Object ignored, @Nullable Throwable t) {
+            if (t != null) {
+                cancelStages();
+                completeExceptionally(t instanceof CompletionException && t.getCause() != null ? t.getCause() : t);
+            } else if (succeeded(first) && succeeded(second)) {
+                complete(null);
+            }
+        }
+
+        private static boolean succeeded(CompletableFuture<?> stage) {
+            return stage.isDone() && !stage.isCompletedExceptionally();
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            cancelStages();
+            return cancelled;
+        }
+
+        private void cancelStages() {
+            first.cancel(false);
+            second.cancel(false);
+        }
+    }
 }
@@ -0,0 +1,345 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.filter;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.TimerTask;
+import io.netty.util.concurrent.DefaultThreadFactory;
+import org.asynchttpclient.exception.FilterException;
+import org.asynchttpclient.uri.Uri;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.Closeable;
+import java.time.Duration;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.Map;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * A {@link RequestFilter} that caps the rate of the requests, per host and globally, with token buckets.
+ * <p>
+ * Unlike {@link ThrottleRequestFilter}, it never blocks the calling thread: a request that exceeds the rate is delayed on a Netty
+ * {@link Timer} until its tokens are available, then sent from an executor. A bucket holds up to its burst size of tokens and refills evenly at its rate, so that the
+ * requests beyond a burst are smoothly spread. A request takes a token from the bucket of its host and one from the global bucket, and
+ * is sent once it has both; the global rate may then be briefly exceeded by requests held back by the limit of their host.
+ * <p>
+ * Requests that would wait longer than the max wait are rejected with a {@link FilterException}.
+ */
+public class RateLimitRequestFilter implements RequestFilter, Closeable {
+
+    private static final int MAX_IDLE_HOST_BUCKETS = 1024;
+
+    private final long hostIntervalNanos;
+    private final long hostToleranceNanos;
+    private final long maxWaitNanos;
+    private final Timer timer;
+    private final boolean ownTimer;
+    private final Executor executor;
+
+    // guarded by this
+    private final Bucket globalBucket;
+    private final Map<String, Bucket> hostBuckets = new HashMap<>();
+    private int queueDepth;
+
+    private RateLimitRequestFilter(Builder builder) {
+        hostIntervalNanos = intervalNanos(builder.hostRate);
+        hostToleranceNanos = (builder.hostBurst - 1) * hostIntervalNanos;
+        long globalIntervalNanos = intervalNanos(builder.globalRate);
+        globalBucket = new Bucket(globalIntervalNanos, (builder.globalBurst - 1) * globalIntervalNanos, System.nanoTime());
+        maxWaitNanos = builder.maxWait.toNanos();
+        Timer timer = builder.timer;
+        ownTimer = timer == null;
+        this.timer = timer != null ? timer : new HashedWheelTimer(new DefaultThreadFactory("rate-limit-timer", true), 10, TimeUnit.MILLISECONDS);
+        executor = builder.executor != null ? builder.executor : ForkJoinPool.commonPool();
+    }
+
+    private static long intervalNanos(double rate) {
+        return rate > 0 ? (long) (TimeUnit.SECONDS.toNanos(1) / rate) : 0;
+    }
+
+    @Override
+    public <T> FilterContext<T> filter(FilterContext<T> ctx) throws FilterException {
+        String host = ctx.getRequest().getUri().getBaseUrl();
+        long now = System.nanoTime();
+        long delayNanos;
+        Bucket hostBucket;
+
+        synchronized (this) {
+            hostBucket = hostBuckets.get(host);
+            if (hostBucket == null) {
+                if (hostBuckets.size() >= MAX_IDLE_HOST_BUCKETS) {
+                    removeIdleHostBuckets(now);
+                }
+                hostBucket = new Bucket(hostIntervalNanos, hostToleranceNanos, now);
+                hostBuckets.put(host, hostBucket);
+            }
+
+            long sendAt = Math.max(hostBucket.availableAt(now), globalBucket.availableAt(now));
+            delayNanos = sendAt - now;
+            if (delayNanos > maxWaitNanos) {
+                throw new FilterException(String.format("Rate limit exceeded for Request %s with AsyncHandler %s", ctx.getRequest(), ctx.getAsyncHandler()));
+            }
+            // the host bucket is consumed when the request is sent, so that the host rate is exact, but the global one isn't,
+            // so that the requests of the other hosts aren't held back behind this one
+            hostBucket.take(sendAt);
+            globalBucket.take(now);
+
+            if (delayNanos <= 0) {
+                return ctx;
+            }
+            hostBucket.queued++;
+            queueDepth++;
+        }
+
+        Release release = new Release(hostBucket);
+        try {
+            release.timeout = timer.newTimeout(release, delayNanos, TimeUnit.NANOSECONDS);
+        } catch (IllegalStateException e) {
+            dequeue(release);
+            throw new FilterException("Rate limit timer is stopped", e);
+        }
+        return new FilterContext.FilterContextBuilder<>(ctx).executeAfter(release).build();
+    }
+
+    private synchronized void dequeue(Release release) {
+        if (!release.dequeued) {
+            release.dequeued = true;
+            release.hostBucket.queued--;
+            queueDepth--;
+        }
+    }
+
+    private void removeIdleHostBuckets(long now) {
+        for (Iterator<Bucket> it = hostBuckets.values().iterator(); it.hasNext(); ) {
+            if (it.next().isIdle(now)) {
+                it.remove();
+            }
+        }
+    }
+
+    /**
+     * Return the number of queued requests.
+     *
+     * @return the number of requests waiting for their tokens
+     */
+    public synchronized int getQueueDepth() {
+        return queueDepth;
+    }
+
+    /**
+     * Return the number of queued requests to a host.
+     *
+     * @param uri a URI of the host
+     * @return the number of requests to the host waiting for their tokens
+     */
+    public synchronized int getQueueDepth(Uri uri) {
+        Bucket bucket = hostBuckets.get(uri.getBaseUrl());
+        return bucket != null ? bucket.queued : 0;
+    }
+
+    /**
+     * Stops the timer of the filter, unless it was provided, and fails the requests still waiting.
+     */
+    @Override
+    public void close() {
+        if (ownTimer) {
+            for (Timeout timeout : timer.stop()) {
+                ((Release) timeout.task()).completeExceptionally(new FilterException("Rate limit filter closed"));
+            }
+        }
+    }
+
+    @Override
+    public synchronized String toString() {
+        return "RateLimitRequestFilter{queueDepth=" + queueDepth + ", hosts=" + hostBuckets.size() + '}';
+    }
+
+    /**
+     * A token bucket, as a generic cell rate algorithm: instead of tokens, it tracks the time at which the bucket is full again.
+     */
+    private static final class Bucket {
+
+        private final long intervalNanos;
+        private final long toleranceNanos;
+        private long theoreticalArrivalNanos;
+        private int queued;
+
+        private Bucket(long intervalNanos, long toleranceNanos, long now) {
+            this.intervalNanos = intervalNanos;
+            this.toleranceNanos = toleranceNanos;
+            theoreticalArrivalNanos = now;
+        }
+
+        private long availableAt(long now) {
+            return intervalNanos == 0 ? now : Math.max(now, theoreticalArrivalNanos - toleranceNanos);
+        }
+
+        private void take(long at) {
+            theoreticalArrivalNanos = Math.max(theoreticalArrivalNanos, at) + intervalNanos;
+        }
+
+        private boolean isIdle(long now) {
+            return queued == 0 && theoreticalArrivalNanos - now <= 0;
+        }
+    }
+
+    /**
+     * The stage the request waits for: completed once the timer fires, or failed or cancelled along with the request.
+     */
+    private final class Release extends CompletableFuture<Void> implements TimerTask {
+
+        private final Bucket hostBucket;
+        private volatile @Nullable Timeout timeout;
+        // guarded by RateLimitRequestFilter.this
+        private boolean dequeued;
+
+        private Release(Bucket hostBucket) {
+            this.hostBucket = hostBucket;
+        }
+
+        @Override
+        public void run(Timeout timeout) {
+            // dequeued before the request can complete, and sent off the timer thread so that it never waits for a connection permit
+            dequeue(this);
+            completeAsync(() -> null, executor);
+        }
+
+        @Override
+        public boolean completeExceptionally(Throwable ex) {
+            boolean completed = super.completeExceptionally(ex);
+            release();
+            return completed;
+        }
+
+        @Override
+        public boolean cancel(boolean mayInterruptIfRunning) {
+            boolean cancelled = super.cancel(mayInterruptIfRunning);
+            release();
+            return cancelled;
+        }
+
+        private void release() {
+            Timeout timeout = this.timeout;
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            dequeue(this);
+        }
+    }
+
+    public static class Builder {
+
+        private double hostRate;
+        private int hostBurst = 1;
+        private double globalRate;
+        private int globalBurst = 1;
+        private Duration maxWait = Duration.ofNanos(Long.MAX_VALUE);
+        private @Nullable Timer timer;
+        private @Nullable Executor executor;
+
+        /**
+         * Set the rate of the requests to each host.
+         *
+         * @param hostRate the max number of requests per second to a host, unlimited by default
+         * @return the same builder instance
+         */
+        public Builder setHostRate(double hostRate) {
+            this.hostRate = hostRate;
+            return this;
+        }
+
+        /**
+         * Set the burst of the requests to each host.
+         *
+         * @param hostBurst the number of requests to a host that can be sent at once after a quiet period, 1 by default
+         * @return the same builder instance
+         */
+        public Builder setHostBurst(int hostBurst) {
+            this.hostBurst = hostBurst;
+            return this;
+        }
+
+        /**
+         * Set the rate of all the requests.
+         *
+         * @param globalRate the max number of requests per second, unlimited by default
+         * @return the same builder instance
+         */
+        public Builder setGlobalRate(double globalRate) {
+            this.globalRate = globalRate;
+            return this;
+        }
+
+        /**
+         * Set the burst of all the requests.
+         *
+         * @param globalBurst the number of requests that can be sent at once after a quiet period, 1 by default
+         * @return the same builder instance
+         */
+        public Builder setGlobalBurst(int globalBurst) {
+            this.globalBurst = globalBurst;
+            return this;
+        }
+
+        /**
+         * Set how long a request may wait.
+         *
+         * @param maxWait how long a request may wait for its tokens before being rejected, unlimited by default
+         * @return the same builder instance
+         */
+        public Builder setMaxWait(Duration maxWait) {
+            this.maxWait = maxWait;
+            return this;
+        }
+
+        /**
+         * Set the timer of the filter.
+         *
+         * @param timer the timer delaying the requests, such as the one of the client config. By default, the filter has its own,
+         *              which is stopped when the filter is closed.
+         * @return the same builder instance
+         */
+        public Builder setTimer(Timer timer) {
+            this.timer = timer;
+            return this;
+        }
+
+        /**
+         * Set the executor the delayed requests are sent from.
+         *
+         * @param executor the executor sending the requests once their tokens are available, so that the timer thread never does,
+         *                 {@link ForkJoinPool#commonPool()} by default
+         * @return the same builder instance
+         */
+        public Builder setExecutor(Executor executor) {
+            this.executor = executor;
+            return this;
+        }
+
+        public RateLimitRequestFilter build() {
+            if (hostBurst < 1 || globalBurst < 1) {
+                throw new IllegalArgumentException("Burst sizes must be at least 1");
+            }
+            return new RateLimitRequestFilter(this);
+        }
+    }
+}
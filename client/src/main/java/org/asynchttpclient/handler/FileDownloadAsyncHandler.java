@@ -0,0 +1,380 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.handler.resumable.ResumableAsyncHandler;
+import org.asynchttpclient.handler.resumable.ResumableListener;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.IOException;
+import java.net.InetSocketAddress;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.util.Queue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_LENGTH;
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_RANGE;
+import static java.nio.file.StandardOpenOption.CREATE;
+import static java.nio.file.StandardOpenOption.WRITE;
+import static org.asynchttpclient.netty.channel.ChannelManager.HTTP2_MULTIPLEX_HANDLER;
+
+/**
+ * An {@link AsyncHandler} that streams the response body into a file, writing the received buffers with gathering
+ * {@link FileChannel} writes instead of copying them into byte arrays first.
+ * <p>
+ * File writes can be offloaded to an {@link Executor} so that they don't block the event loop. In that case, when more than
+ * {@link #PENDING_BYTES_HIGH_WATERMARK} bytes are waiting to be written, reading from the connection is suspended (auto-read is
+ * disabled) until the backlog falls under {@link #PENDING_BYTES_LOW_WATERMARK}. This is skipped on multiplexed HTTP/2 connections
+ * where pausing the connection would stall the other streams.
+ * <p>
+ * A {@code 200} response overwrites the file, while a {@code 206} response is written at the offset of its {@code Content-Range}.
+ * This lets the handler be decorated with a {@link ResumableAsyncHandler}, using {@link #resumableListener()} so that an interrupted
+ * download is resumed from the last offset that was actually written:
+ * <pre>
+ *     FileDownloadAsyncHandler download = new FileDownloadAsyncHandler(path, executor, true);
+ *     ResumableAsyncHandler handler = new ResumableAsyncHandler(download).setResumableListener(download.resumableListener());
+ *     client.executeRequest(handler.adjustRequestRange(request), handler);
+ * </pre>
+ * Other status codes abort the request without touching the file. The returned {@link Response} only holds the status and headers.
+ * <p>
+ * The request's future completes once the whole body has been received, while some writes might still be pending on the executor.
+ * {@link #downloaded()} completes once they are all done and the file is closed:
+ * <pre>
+ *     client.executeRequest(request, download);
+ *     Response response = download.downloaded().get();
+ * </pre>
+ */
+public class FileDownloadAsyncHandler implements AsyncHandler<Response> {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(FileDownloadAsyncHandler.class);
+
+    public static final int PENDING_BYTES_HIGH_WATERMARK = 1024 * 1024;
+    public static final int PENDING_BYTES_LOW_WATERMARK = 256 * 1024;
+
+    private final Path file;
+    private final Executor executor;
+    private final boolean preallocate;
+    private final Response.ResponseBuilder responseBuilder = new Response.ResponseBuilder();
+    private final Queue<Runnable> writes = new ConcurrentLinkedQueue<>();
+    private final AtomicBoolean draining = new AtomicBoolean();
+    private final AtomicLong pendingBytes = new AtomicLong();
+    private final CompletableFuture<Response> downloaded = new CompletableFuture<>();
+    private volatile long writtenOffset;
+    private volatile @Nullable IOException writeFailure;
+    private volatile @Nullable Channel channel;
+    private boolean readsPaused;
+    private boolean transferring;
+    private int statusCode;
+
+    // only accessed by the writes
+    private @Nullable FileChannel fileChannel;
+
+    /**
+     * Create a handler that writes to the file on the I/O thread
+     *
+     * @param file the target file
+     */
+    public FileDownloadAsyncHandler(Path file) {
+        this(file, null, false);
+    }
+
+    /**
+     * @param file        the target file
+     * @param executor    the executor the file writes run on, or {@code null} to write on the I/O thread
+     * @param preallocate whether the file should be extended to its final size, based on {@code Content-Length}, before writing
+     */
+    public FileDownloadAsyncHandler(Path file, @Nullable Executor executor, boolean preallocate) {
+        this.file = file;
+        this.executor = executor != null ? executor : Runnable::run;
+        this.preallocate = preallocate;
+    }
+
+    /**
+     * Return the offset up to which the file has been written.
+     *
+     * @return the offset up to which the file has been written
+     */
+    public long getWrittenOffset() {
+        return writtenOffset;
+    }
+
+    /**
+     * Return a future that completes once every received byte has been written and the file is closed, or exceptionally when the
+     * request or a write failed.
+     *
+     * @return the future of the download
+     */
+    public CompletableFuture<Response> downloaded() {
+        return downloaded;
+    }
+
+    /**
+     * A {@link ResumableListener} to register on a decorating {@link ResumableAsyncHandler}, reporting the offset up to which
+     * the file has been written. It doesn't write anything itself as this handler takes care of it.
+     *
+     * @return a listener exposing this handler's progress
+     */
+    public ResumableListener resumableListener() {
+        return new ResumableListener() {
+            @Override
+            public void onBytesReceived(ByteBuffer byteBuffer) {
+            }
+
+            @Override
+            public void onAllBytesReceived() {
+            }
+
+            @Override
+            public long length() {
+                return writtenOffset;
+            }
+        };
+    }
+
+    @Override
+    public void onTcpConnectSuccess(InetSocketAddress remoteAddress, Channel connection) {
+        channel = connection;
+    }
+
+    @Override
+    public void onConnectionPooled(Channel connection) {
+        channel = connection;
+    }
+
+    @Override
+    public State onStatusReceived(HttpResponseStatus responseStatus) {
+        responseBuilder.reset();
+        responseBuilder.accumulate(responseStatus);
+        statusCode = responseStatus.getStatusCode();
+        transferring = statusCode == 200 || statusCode == 206;
+        return transferring ? State.CONTINUE : State.ABORT;
+    }
+
+    @Override
+    public State onHeadersReceived(HttpHeaders headers) throws Exception {
+        responseBuilder.accumulate(headers);
+
+        long offset = 0;
+        if (statusCode == 206) {
+            offset = rangeStart(headers.get(CONTENT_RANGE));
+        }
+        String contentLengthHeader = headers.get(CONTENT_LENGTH);
+        long contentLength = contentLengthHeader != null ? Long.parseLong(contentLengthHeader) : -1L;
+
+        final long startOffset = offset;
+        final boolean truncate = statusCode == 200;
+        schedule(() -> open(startOffset, truncate, contentLength));
+        return State.CONTINUE;
+    }
+
+    @Override
+    public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+        IOException failure = writeFailure;
+        if (failure != null) {
+            throw failure;
+        }
+
+        int length = bodyPart.length();
+        if (length > 0) {
+            ByteBuf buf = bodyPart.getBodyByteBuf().retainedDuplicate();
+            if (pendingBytes.addAndGet(length) > PENDING_BYTES_HIGH_WATERMARK && !bodyPart.isLast()) {
+                pauseReads();
+            }
+            schedule(() -> write(buf, length));
+        }
+
+        if (bodyPart.isLast()) {
+            // make sure the connection is readable before it goes back to the pool
+            resumeReads();
+        }
+        return State.CONTINUE;
+    }
+
+    @Override
+    public void onThrowable(Throwable t) {
+        Channel channel = this.channel;
+        if (channel != null) {
+            channel.eventLoop().execute(this::resumeReads);
+        }
+        schedule(() -> {
+            close();
+            downloaded.completeExceptionally(t);
+        });
+        LOGGER.debug("Download to {} failed", file, t);
+    }
+
+    @Override
+    public @Nullable Response onCompleted() throws Exception {
+        IOException failure = writeFailure;
+        if (failure != null) {
+            throw failure;
+        }
+
+        Response response = responseBuilder.build();
+        // completed after the pending writes, without waiting for them here as this runs on the event loop
+        schedule(() -> {
+            close();
+            IOException closeFailure = writeFailure;
+            if (closeFailure != null) {
+                downloaded.completeExceptionally(closeFailure);
+            } else {
+                downloaded.complete(response);
+            }
+        });
+        return response;
+    }
+
+    private void pauseReads() {
+        Channel channel = this.channel;
+        if (channel != null && !readsPaused && channel.pipeline().get(HTTP2_MULTIPLEX_HANDLER) == null) {
+            readsPaused = true;
+            channel.config().setAutoRead(false);
+        }
+    }
+
+    // always called on the event loop, like pauseReads
+    private void resumeReads() {
+        Channel channel = this.channel;
+        if (channel != null && readsPaused) {
+            readsPaused = false;
+            channel.config().setAutoRead(true);
+        }
+    }
+
+    private void writeCompleted(long length) {
+        long pending = pendingBytes.addAndGet(-length);
+        Channel channel = this.channel;
+        if (channel != null && pending < PENDING_BYTES_LOW_WATERMARK && pending + length >= PENDING_BYTES_LOW_WATERMARK) {
+            channel.eventLoop().execute(() -> {
+                if (pendingBytes.get() < PENDING_BYTES_LOW_WATERMARK) {
+                    resumeReads();
+                }
+            });
+        }
+    }
+
+    private void schedule(Runnable write) {
+        writes.offer(write);
+        if (draining.compareAndSet(false, true)) {
+            try {
+                executor.execute(this::drain);
+            } catch (RejectedExecutionException e) {
+                draining.set(false);
+                writeFailure = new IOException("Can't schedule file write", e);
+                // run the pending writes here so that buffers get released and completion isn't lost
+                drain();
+            }
+        }
+    }
+
+    private void drain() {
+        do {
+            Runnable write;
+            while ((write = writes.poll()) != null) {
+                write.run();
+            }
+            draining.set(false);
+        } while (!writes.isEmpty() && draining.compareAndSet(false, true));
+    }
+
+    private void open(long offset, boolean truncate, long contentLength) {
+        if (writeFailure != null) {
+            return;
+        }
+        try {
+            FileChannel fileChannel = this.fileChannel;
+            if (fileChannel == null) {
+                fileChannel = FileChannel.open(file, CREATE, WRITE);
+                this.fileChannel = fileChannel;
+            }
+            if (truncate) {
+                fileChannel.truncate(0);
+            }
+            if (preallocate && contentLength > 0 && fileChannel.size() < offset + contentLength) {
+                // extend the file to its final size, the last byte will be overwritten with the actual content
+                fileChannel.write(ByteBuffer.allocate(1), offset + contentLength - 1);
+            }
+            fileChannel.position(offset);
+            writtenOffset = offset;
+        } catch (IOException e) {
+            writeFailure = e;
+        }
+    }
+
+    private void write(ByteBuf buf, int length) {
+        try {
+            FileChannel fileChannel = this.fileChannel;
+            if (writeFailure == null && fileChannel != null) {
+                ByteBuffer[] buffers = buf.nioBuffers();
+                long remaining = length;
+                while (remaining > 0) {
+                    remaining -= fileChannel.write(buffers);
+                }
+                writtenOffset = fileChannel.position();
+            }
+        } catch (IOException e) {
+            writeFailure = e;
+        } finally {
+            buf.release();
+            writeCompleted(length);
+        }
+    }
+
+    private void close() {
+        FileChannel fileChannel = this.fileChannel;
+        if (fileChannel != null) {
+            this.fileChannel = null;
+            try {
+                fileChannel.close();
+            } catch (IOException e) {
+                if (writeFailure == null) {
+                    writeFailure = e;
+                }
+            }
+        }
+    }
+
+    private static long rangeStart(@Nullable String contentRange) throws IOException {
+        // e.g. bytes 500-999/1234
+        if (contentRange != null && contentRange.startsWith("bytes ")) {
+            int dash = contentRange.indexOf('-');
+            if (dash > 6) {
+                try {
+                    return Long.parseLong(contentRange.substring(6, dash).trim());
+                } catch (NumberFormatException e) {
+                    // handled below
+                }
+            }
+        }
+        throw new IOException("Invalid Content-Range for a partial response: " + contentRange);
+    }
+}
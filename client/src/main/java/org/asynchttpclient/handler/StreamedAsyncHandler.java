@@ -0,0 +1,60 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.handler;
+
+import io.netty.buffer.ByteBuf;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.HttpResponseBodyPart;
+
+import java.util.concurrent.Flow;
+
+/**
+ * An {@link AsyncHandler} that consumes the response body as a {@link Flow.Publisher} of {@link ByteBuf}s instead of
+ * {@link #onBodyPartReceived(HttpResponseBodyPart)} callbacks.
+ * <p>
+ * Reading from the connection is driven by the subscriber's demand: a chunk is only read from the socket once the previous ones have
+ * been requested, so a slow subscriber applies TCP backpressure instead of having the body buffered in memory. Beware that a
+ * subscriber that doesn't request more chunks within the read timeout fails the request.
+ * <p>
+ * The subscriber owns the {@link ByteBuf}s it receives and must release them. Cancelling the subscription cancels the request and
+ * closes the connection, unless the body has already been fully received.
+ * <p>
+ * {@link #onCompleted()} is invoked once the body has been fully received, possibly before the subscriber has consumed it.
+ * If the request fails after {@link #onStream(Flow.Publisher)}, the subscriber is notified with {@link Flow.Subscriber#onError(Throwable)}
+ * in addition to {@link #onThrowable(Throwable)}.
+ *
+ * @param <T> Type of object returned by the {@link java.util.concurrent.Future#get}
+ */
+public interface StreamedAsyncHandler<T> extends AsyncHandler<T> {
+
+    /**
+     * Invoked once the status and headers have been received, instead of {@link #onBodyPartReceived(HttpResponseBodyPart)}.
+     * The publisher only supports a single subscriber.
+     *
+     * @param publisher the publisher of the response body chunks
+     * @return a {@link State} telling to CONTINUE or ABORT the current processing.
+     * @throws Exception if something wrong happens
+     */
+    State onStream(Flow.Publisher<ByteBuf> publisher) throws Exception;
+
+    /**
+     * Not invoked, the body is published by the {@link Flow.Publisher} passed to {@link #onStream(Flow.Publisher)}.
+     */
+    @Override
+    default State onBodyPartReceived(HttpResponseBodyPart bodyPart) {
+        throw new IllegalStateException("The body of a streamed response is only published through onStream");
+    }
+}
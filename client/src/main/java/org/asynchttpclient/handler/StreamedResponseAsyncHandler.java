@@ -0,0 +1,113 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Response;
+import org.jetbrains.annotations.Nullable;
+
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.Flow;
+
+/**
+ * A {@link StreamedAsyncHandler} exposing the streamed response as futures, for callers that don't want to implement the callbacks:
+ * <pre>
+ *     StreamedResponseAsyncHandler handler = new StreamedResponseAsyncHandler();
+ *     client.prepareGet("http://foo.com/aResource").execute(handler);
+ *     handler.getResponse().thenAccept(response -&gt; ...);  // status and headers
+ *     handler.getBodyPublisher().subscribe(subscriber);
+ * </pre>
+ * The future returned by {@code execute} completes once the body has been fully received, with the same {@link Response}, that
+ * doesn't hold the body.
+ */
+public class StreamedResponseAsyncHandler implements StreamedAsyncHandler<Response> {
+
+    private final Response.ResponseBuilder responseBuilder = new Response.ResponseBuilder();
+    private final CompletableFuture<Response> response = new CompletableFuture<>();
+    private final CompletableFuture<Flow.Publisher<ByteBuf>> publisher = new CompletableFuture<>();
+
+    /**
+     * Return the response, without its body.
+     *
+     * @return a future completed with the status and headers as soon as they are received
+     */
+    public CompletableFuture<Response> getResponse() {
+        return response;
+    }
+
+    /**
+     * The publisher can be subscribed to before the response is received. If the request fails before that, the subscriber is
+     * notified with {@link Flow.Subscriber#onError(Throwable)}.
+     *
+     * @return the publisher of the body chunks, that only supports a single subscriber
+     */
+    public Flow.Publisher<ByteBuf> getBodyPublisher() {
+        return subscriber -> publisher.whenComplete((p, t) -> {
+            if (t != null) {
+                subscriber.onSubscribe(new Flow.Subscription() {
+                    @Override
+                    public void request(long n) {
+                    }
+
+                    @Override
+                    public void cancel() {
+                    }
+                });
+                subscriber.onError(t);
+            } else {
+                p.subscribe(subscriber);
+            }
+        });
+    }
+
+    @Override
+    public State onStatusReceived(HttpResponseStatus responseStatus) {
+        responseBuilder.reset();
+        responseBuilder.accumulate(responseStatus);
+        return State.CONTINUE;
+    }
+
+    @Override
+    public State onHeadersReceived(HttpHeaders headers) {
+        responseBuilder.accumulate(headers);
+        return State.CONTINUE;
+    }
+
+    @Override
+    public State onStream(Flow.Publisher<ByteBuf> publisher) {
+        response.complete(responseBuilder.build());
+        this.publisher.complete(publisher);
+        return State.CONTINUE;
+    }
+
+    @Override
+    public void onThrowable(Throwable t) {
+        response.completeExceptionally(t);
+        publisher.completeExceptionally(t);
+    }
+
+    @Override
+    public @Nullable Response onCompleted() {
+        Response built = responseBuilder.build();
+        if (built != null) {
+            response.complete(built);
+        }
+        publisher.completeExceptionally(new IllegalStateException("The response body wasn't streamed"));
+        return response.getNow(built);
+    }
+}
@@ -12,6 +12,7 @@
  */
 package org.asynchttpclient.handler.resumable;
 
+import io.netty.channel.Channel;
 import io.netty.handler.codec.http.HttpHeaders;
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.HttpResponseBodyPart;
@@ -26,6 +27,7 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
+import java.net.InetSocketAddress;
 import java.nio.ByteBuffer;
 import java.util.Collections;
 import java.util.HashMap;
@@ -147,7 +149,7 @@ public class ResumableAsyncHandler implements AsyncHandler<Response> {
             state = decoratedAsyncHandler.onBodyPartReceived(bodyPart);
         }
 
-        byteTransferred.addAndGet(bodyPart.getBodyPartBytes().length);
+        byteTransferred.addAndGet(bodyPart.length());
         resumableProcessor.put(url, byteTransferred.get());
 
         return state;
@@ -187,6 +189,20 @@ public class ResumableAsyncHandler implements AsyncHandler<Response> {
         return State.CONTINUE;
     }
 
+    @Override
+    public void onTcpConnectSuccess(InetSocketAddress remoteAddress, Channel connection) {
+        if (decoratedAsyncHandler != null) {
+            decoratedAsyncHandler.onTcpConnectSuccess(remoteAddress, connection);
+        }
+    }
+
+    @Override
+    public void onConnectionPooled(Channel connection) {
+        if (decoratedAsyncHandler != null) {
+            decoratedAsyncHandler.onConnectionPooled(connection);
+        }
+    }
+
     /**
      * Invoke this API if you want to set the Range header on your {@link Request} based on the last valid bytes
      * position.
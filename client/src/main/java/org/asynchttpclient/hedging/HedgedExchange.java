@@ -0,0 +1,437 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.hedging;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestExecutor;
+import org.asynchttpclient.netty.request.NettyRequest;
+import org.jetbrains.annotations.Nullable;
+
+import javax.net.ssl.SSLSession;
+import java.net.InetSocketAddress;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * The attempts of a hedged request, and the future of its caller.
+ * <p>
+ * The first attempt to receive a status wins: its callbacks are forwarded to the handler, while the other one is cancelled and its
+ * callbacks are dropped. Until then, the connection events of both attempts are forwarded. A failed attempt is only reported to the
+ * handler if the other one has failed too or was never sent.
+ */
+final class HedgedExchange<T> implements ListenableFuture<T> {
+
+    private final Request request;
+    private final AsyncHandler<T> handler;
+    private final HedgingPolicy policy;
+    private final RequestExecutor next;
+    private final CompletableFuture<T> result = new CompletableFuture<>();
+    private final Attempt first = new Attempt(false);
+    private @Nullable Attempt second;
+    private volatile @Nullable Attempt winner;
+    private @Nullable Timeout hedgeTimeout;
+    private boolean finished;
+
+    HedgedExchange(Request request, AsyncHandler<T> handler, HedgingPolicy policy, RequestExecutor next) {
+        this.request = request;
+        this.handler = handler;
+        this.policy = policy;
+        this.next = next;
+    }
+
+    /**
+     * @param hedgeDelayMillis the delay after which the second attempt is sent, or -1 if it mustn't be
+     */
+    void start(Timer timer, long hedgeDelayMillis) {
+        first.send();
+        if (hedgeDelayMillis >= 0) {
+            synchronized (this) {
+                if (winner == null && !finished) {
+                    hedgeTimeout = timer.newTimeout(timeout -> sendHedge(), hedgeDelayMillis, TimeUnit.MILLISECONDS);
+                }
+            }
+        }
+    }
+
+    private void sendHedge() {
+        Attempt hedge;
+        synchronized (this) {
+            hedgeTimeout = null;
+            if (winner != null || finished || first.failed) {
+                return;
+            }
+            hedge = second = new Attempt(true);
+        }
+        policy.getMetrics().onHedgeSent();
+        hedge.send();
+    }
+
+    private synchronized @Nullable Timeout takeHedgeTimeout() {
+        Timeout timeout = hedgeTimeout;
+        hedgeTimeout = null;
+        return timeout;
+    }
+
+    private void cancelAttempts() {
+        Timeout timeout = takeHedgeTimeout();
+        if (timeout != null) {
+            timeout.cancel();
+        }
+        first.cancel();
+        Attempt second;
+        synchronized (this) {
+            second = this.second;
+        }
+        if (second != null) {
+            second.cancel();
+        }
+    }
+
+    private synchronized boolean finish() {
+        if (finished) {
+            return false;
+        }
+        finished = true;
+        return true;
+    }
+
+    @Override
+    public boolean cancel(boolean mayInterruptIfRunning) {
+        if (!finish()) {
+            return false;
+        }
+        cancelAttempts();
+        try {
+            handler.onThrowable(new CancellationException());
+        } finally {
+            result.cancel(false);
+        }
+        return true;
+    }
+
+    @Override
+    public void abort(Throwable t) {
+        if (finish()) {
+            cancelAttempts();
+            try {
+                handler.onThrowable(t);
+            } finally {
+                result.completeExceptionally(t);
+            }
+        }
+    }
+
+    @Override
+    public boolean isCancelled() {
+        return result.isCancelled();
+    }
+
+    @Override
+    public boolean isDone() {
+        return result.isDone();
+    }
+
+    @Override
+    public T get() throws InterruptedException, ExecutionException {
+        return result.get();
+    }
+
+    @Override
+    public T get(long timeout, TimeUnit unit) throws InterruptedException, ExecutionException, TimeoutException {
+        return result.get(timeout, unit);
+    }
+
+    @Override
+    public void done() {
+    }
+
+    @Override
+    public void touch() {
+        Attempt winner = this.winner;
+        if (winner != null) {
+            winner.touch();
+        } else {
+            first.touch();
+        }
+    }
+
+    @Override
+    public ListenableFuture<T> addListener(Runnable listener, Executor exec) {
+        result.whenCompleteAsync((r, t) -> listener.run(), exec != null ? exec : Runnable::run);
+        return this;
+    }
+
+    @Override
+    public CompletableFuture<T> toCompletableFuture() {
+        return result;
+    }
+
+    private final class Attempt implements AsyncHandler<T> {
+
+        private final boolean hedge;
+        private final long startNanos = System.nanoTime();
+        private volatile @Nullable ListenableFuture<T> future;
+        // guarded by the exchange
+        private boolean failed;
+
+        private Attempt(boolean hedge) {
+            this.hedge = hedge;
+        }
+
+        void send() {
+            ListenableFuture<T> future = next.execute(request, this);
+            this.future = future;
+            Attempt winner = HedgedExchange.this.winner;
+            if ((winner != null && winner != this) || (winner == null && isFinished())) {
+                // lost or cancelled before its future was known
+                future.cancel(true);
+            }
+        }
+
+        void cancel() {
+            ListenableFuture<T> future = this.future;
+            if (future != null) {
+                future.cancel(true);
+            }
+        }
+
+        void touch() {
+            ListenableFuture<T> future = this.future;
+            if (future != null) {
+                future.touch();
+            }
+        }
+
+        private boolean isFinished() {
+            synchronized (HedgedExchange.this) {
+                return finished;
+            }
+        }
+
+        private boolean isWinner() {
+            return winner == this;
+        }
+
+        private boolean isCandidate() {
+            Attempt winner = HedgedExchange.this.winner;
+            return winner == null || winner == this;
+        }
+
+        @Override
+        public State onStatusReceived(HttpResponseStatus responseStatus) throws Exception {
+            Attempt loser;
+            synchronized (HedgedExchange.this) {
+                if (winner != null || finished) {
+                    return State.ABORT;
+                }
+                winner = this;
+                loser = hedge ? first : second;
+            }
+            Timeout timeout = takeHedgeTimeout();
+            if (timeout != null) {
+                timeout.cancel();
+            }
+            policy.getTimeToStatus().record(System.nanoTime() - startNanos);
+            if (hedge) {
+                policy.getMetrics().onHedgeWon();
+            }
+            if (loser != null) {
+                loser.cancel();
+            }
+            return handler.onStatusReceived(responseStatus);
+        }
+
+        @Override
+        public State onHeadersReceived(HttpHeaders headers) throws Exception {
+            return isWinner() ? handler.onHeadersReceived(headers) : State.ABORT;
+        }
+
+        @Override
+        public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws Exception {
+            return isWinner() ? handler.onBodyPartReceived(bodyPart) : State.ABORT;
+        }
+
+        @Override
+        public State onTrailingHeadersReceived(HttpHeaders headers) throws Exception {
+            return isWinner() ? handler.onTrailingHeadersReceived(headers) : State.ABORT;
+        }
+
+        @Override
+        public @Nullable T onCompleted() throws Exception {
+            if (!isWinner() || !finish()) {
+                return null;
+            }
+            T value;
+            try {
+                value = handler.onCompleted();
+            } catch (Throwable e) {
+                // this exchange is finished, so the failure of the attempt won't be reported by onThrowable
+                try {
+                    handler.onThrowable(e);
+                } finally {
+                    result.completeExceptionally(e);
+                }
+                throw e;
+            }
+            result.complete(value);
+            return value;
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+            boolean report;
+            synchronized (HedgedExchange.this) {
+                failed = true;
+                if (finished || (winner != null && winner != this)) {
+                    report = false;
+                } else if (winner == this) {
+                    report = true;
+                } else {
+                    if (hedge) {
+                        policy.getMetrics().onHedgeFailed();
+                    }
+                    Attempt other = hedge ? first : second;
+                    report = other == null || other.failed;
+                }
+                if (report) {
+                    finished = true;
+                }
+            }
+            if (report) {
+                Timeout timeout = takeHedgeTimeout();
+                if (timeout != null) {
+                    timeout.cancel();
+                }
+                try {
+                    handler.onThrowable(t);
+                } finally {
+                    result.completeExceptionally(t);
+                }
+            }
+        }
+
+        @Override
+        public void onHostnameResolutionAttempt(String name) {
+            if (isCandidate()) {
+                handler.onHostnameResolutionAttempt(name);
+            }
+        }
+
+        @Override
+        public void onHostnameResolutionSuccess(String name, List<InetSocketAddress> addresses) {
+            if (isCandidate()) {
+                handler.onHostnameResolutionSuccess(name, addresses);
+            }
+        }
+
+        @Override
+        public void onHostnameResolutionFailure(String name, Throwable cause) {
+            if (isCandidate()) {
+                handler.onHostnameResolutionFailure(name, cause);
+            }
+        }
+
+        @Override
+        public void onTcpConnectAttempt(InetSocketAddress remoteAddress) {
+            if (isCandidate()) {
+                handler.onTcpConnectAttempt(remoteAddress);
+            }
+        }
+
+        @Override
+        public void onTcpConnectSuccess(InetSocketAddress remoteAddress, Channel connection) {
+            if (isCandidate()) {
+                handler.onTcpConnectSuccess(remoteAddress, connection);
+            }
+        }
+
+        @Override
+        public void onTcpConnectFailure(InetSocketAddress remoteAddress, Throwable cause) {
+            if (isCandidate()) {
+                handler.onTcpConnectFailure(remoteAddress, cause);
+            }
+        }
+
+        @Override
+        public void onTlsHandshakeAttempt() {
+            if (isCandidate()) {
+                handler.onTlsHandshakeAttempt();
+            }
+        }
+
+        @Override
+        public void onTlsHandshakeSuccess(SSLSession sslSession) {
+            if (isCandidate()) {
+                handler.onTlsHandshakeSuccess(sslSession);
+            }
+        }
+
+        @Override
+        public void onTlsHandshakeFailure(Throwable cause) {
+            if (isCandidate()) {
+                handler.onTlsHandshakeFailure(cause);
+            }
+        }
+
+        @Override
+        public void onConnectionPoolAttempt() {
+            if (isCandidate()) {
+                handler.onConnectionPoolAttempt();
+            }
+        }
+
+        @Override
+        public void onConnectionPooled(Channel connection) {
+            if (isCandidate()) {
+                handler.onConnectionPooled(connection);
+            }
+        }
+
+        @Override
+        public void onConnectionOffer(Channel connection) {
+            if (isCandidate()) {
+                handler.onConnectionOffer(connection);
+            }
+        }
+
+        @Override
+        public void onRequestSend(NettyRequest request) {
+            if (isCandidate()) {
+                handler.onRequestSend(request);
+            }
+        }
+
+        @Override
+        public void onRetry() {
+            if (isCandidate()) {
+                handler.onRetry();
+            }
+        }
+    }
+}
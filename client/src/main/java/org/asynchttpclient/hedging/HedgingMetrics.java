@@ -0,0 +1,93 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.hedging;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The counters of a {@link HedgingPolicy}.
+ */
+public final class HedgingMetrics {
+
+    private final LongAdder requests = new LongAdder();
+    private final LongAdder hedgesSent = new LongAdder();
+    private final LongAdder hedgesWon = new LongAdder();
+    private final LongAdder hedgesFailed = new LongAdder();
+
+    HedgingMetrics() {
+    }
+
+    /**
+     * Return the number of requests.
+     *
+     * @return the number of hedgeable requests executed with this policy
+     */
+    public long getRequests() {
+        return requests.sum();
+    }
+
+    /**
+     * Return the number of hedges sent.
+     *
+     * @return the number of second attempts sent
+     */
+    public long getHedgesSent() {
+        return hedgesSent.sum();
+    }
+
+    /**
+     * Return the number of hedges that won.
+     *
+     * @return the number of second attempts that answered first, the first attempt being cancelled
+     */
+    public long getHedgesWon() {
+        return hedgesWon.sum();
+    }
+
+    /**
+     * Return the number of hedges that failed.
+     *
+     * @return the number of second attempts that failed before any attempt answered, e.g. because of the connection limits
+     */
+    public long getHedgesFailed() {
+        return hedgesFailed.sum();
+    }
+
+    void onRequest() {
+        requests.increment();
+    }
+
+    void onHedgeSent() {
+        hedgesSent.increment();
+    }
+
+    void onHedgeWon() {
+        hedgesWon.increment();
+    }
+
+    void onHedgeFailed() {
+        hedgesFailed.increment();
+    }
+
+    @Override
+    public String toString() {
+        return "HedgingMetrics{requests=" + getRequests() +
+                ", hedgesSent=" + getHedgesSent() +
+                ", hedgesWon=" + getHedgesWon() +
+                ", hedgesFailed=" + getHedgesFailed() +
+                '}';
+    }
+}
@@ -0,0 +1,122 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.hedging;
+
+import org.asynchttpclient.metrics.LatencyHistogram;
+
+import java.time.Duration;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Decides when a second attempt of a slow request is sent, see {@link org.asynchttpclient.AsyncHttpClientConfig#getHedgingPolicy()}.
+ * <p>
+ * The delay is either fixed, or a percentile of the time to status of the requests of this policy, so that only the slowest requests are
+ * hedged, e.g. with the 95th percentile, about 5% of the requests get a second attempt. A percentile based policy doesn't hedge until it
+ * has observed {@value #MIN_SAMPLES} requests.
+ * <p>
+ * A policy is meant to be shared by requests with similar latencies, e.g. the requests to a given service, and records their time to
+ * status and its own counters.
+ */
+public final class HedgingPolicy {
+
+    /**
+     * A policy that never hedges, to disable hedging for a given request.
+     */
+    public static final HedgingPolicy NONE = new HedgingPolicy(Double.NaN, -1);
+
+    public static final int MIN_SAMPLES = 20;
+
+    private final double percentile;
+    private final long delayMillis;
+    private final LatencyHistogram timeToStatus = new LatencyHistogram();
+    private final HedgingMetrics metrics = new HedgingMetrics();
+
+    private HedgingPolicy(double percentile, long delayMillis) {
+        this.percentile = percentile;
+        this.delayMillis = delayMillis;
+    }
+
+    /**
+     * Create a policy hedging requests after a fixed delay.
+     *
+     * @param delay the delay after which a request that hasn't received a status is hedged
+     * @return a new policy
+     */
+    public static HedgingPolicy fixedDelay(Duration delay) {
+        if (delay.isNegative()) {
+            throw new IllegalArgumentException("Hedging delay must be positive: " + delay);
+        }
+        return new HedgingPolicy(Double.NaN, delay.toMillis());
+    }
+
+    /**
+     * Create a policy hedging requests after a percentile of the time to status observed so far.
+     *
+     * @param percentile the percentile of the observed time to status after which a request is hedged, e.g. 95
+     * @param minDelay the lower bound of the delay, so that a fast service isn't hammered with hedges
+     * @return a new policy
+     */
+    public static HedgingPolicy percentileDelay(double percentile, Duration minDelay) {
+        if (!(percentile > 0 && percentile < 100)) {
+            throw new IllegalArgumentException("Percentile must be between 0 and 100: " + percentile);
+        }
+        if (minDelay.isNegative()) {
+            throw new IllegalArgumentException("Minimum hedging delay must be positive: " + minDelay);
+        }
+        return new HedgingPolicy(percentile, minDelay.toMillis());
+    }
+
+    /**
+     * Return the time to status histogram.
+     *
+     * @return the histogram of the time to status of the requests of this policy, in nanoseconds
+     */
+    public LatencyHistogram getTimeToStatus() {
+        return timeToStatus;
+    }
+
+    public HedgingMetrics getMetrics() {
+        return metrics;
+    }
+
+    boolean isEnabled() {
+        return delayMillis >= 0;
+    }
+
+    /**
+     * Compute the hedging delay of the next request.
+     *
+     * @return the delay after which the next request is hedged, or -1 if it mustn't be
+     */
+    long hedgeDelayMillis() {
+        if (!isEnabled() || Double.isNaN(percentile)) {
+            return delayMillis;
+        }
+        if (timeToStatus.getCount() < MIN_SAMPLES) {
+            return -1;
+        }
+        return Math.max(delayMillis, TimeUnit.NANOSECONDS.toMillis(timeToStatus.getValueAtPercentile(percentile)));
+    }
+
+    @Override
+    public String toString() {
+        if (!isEnabled()) {
+            return "HedgingPolicy{NONE}";
+        }
+        return "HedgingPolicy{" + (Double.isNaN(percentile) ? "delay=" + delayMillis : "percentile=" + percentile + ", minDelay=" + delayMillis) +
+                "ms, metrics=" + metrics + '}';
+    }
+}
@@ -0,0 +1,77 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.hedging;
+
+import io.netty.util.Timer;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestExecutor;
+import org.asynchttpclient.handler.StreamedAsyncHandler;
+import org.asynchttpclient.handler.TransferCompletionHandler;
+import org.asynchttpclient.ws.WebSocketUpgradeHandler;
+import org.jetbrains.annotations.Nullable;
+
+import static org.asynchttpclient.util.HttpConstants.Methods.GET;
+import static org.asynchttpclient.util.HttpConstants.Methods.HEAD;
+import static org.asynchttpclient.util.HttpConstants.Methods.OPTIONS;
+import static org.asynchttpclient.util.HttpUtils.hasBody;
+
+/**
+ * Hedges the GET, HEAD and OPTIONS requests without a body that have a {@link HedgingPolicy}: once the policy delay has elapsed on the client
+ * {@link Timer} without the first attempt having received a status, a second attempt is sent. The first attempt to receive a status is handed
+ * to the handler, the other one is cancelled.
+ * <p>
+ * Both attempts go through the request sender, so the second one needs a connection permit like any other request: when none can be
+ * acquired, it fails and the first attempt carries on. With a blocking connection semaphore, the timer thread waits for the permit, so
+ * {@link org.asynchttpclient.AsyncHttpClientConfig#isAsyncAcquireFreeChannel()} is advised.
+ * <p>
+ * WebSocket requests, and requests handled by a {@link StreamedAsyncHandler} or a {@link TransferCompletionHandler}, are never hedged.
+ */
+public final class HedgingRequestExecutor implements RequestExecutor {
+
+    private final Timer timer;
+    private final @Nullable HedgingPolicy defaultPolicy;
+    private final RequestExecutor next;
+
+    public HedgingRequestExecutor(Timer timer, @Nullable HedgingPolicy defaultPolicy, RequestExecutor next) {
+        this.timer = timer;
+        this.defaultPolicy = defaultPolicy;
+        this.next = next;
+    }
+
+    @Override
+    public <T> ListenableFuture<T> execute(Request request, AsyncHandler<T> handler) {
+        HedgingPolicy policy = request.getHedgingPolicy() != null ? request.getHedgingPolicy() : defaultPolicy;
+        if (policy == null || !policy.isEnabled() || !isHedgeable(request, handler)) {
+            return next.execute(request, handler);
+        }
+        policy.getMetrics().onRequest();
+        HedgedExchange<T> exchange = new HedgedExchange<>(request, handler, policy, next);
+        exchange.start(timer, policy.hedgeDelayMillis());
+        return exchange;
+    }
+
+    private static boolean isHedgeable(Request request, AsyncHandler<?> handler) {
+        String method = request.getMethod();
+        return (GET.equals(method) || HEAD.equals(method) || OPTIONS.equals(method))
+                && !hasBody(request)
+                && !request.getUri().isWebSocket()
+                && !(handler instanceof StreamedAsyncHandler)
+                && !(handler instanceof WebSocketUpgradeHandler)
+                && !(handler instanceof TransferCompletionHandler);
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.metrics;
+
+import org.jetbrains.annotations.Nullable;
+
+import java.util.Collections;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * A {@link MetricsListener} recording the durations of the phases of the requests into a {@link LatencyHistogram} per phase and per partition,
+ * along with counters of pool hits and misses, retries, timeouts and TLS session resumptions.
+ * <p>
+ * Recording is lock-free and doesn't allocate once a partition has been seen. Each partition takes about 60 kB, and is kept until
+ * {@link #clear()} is called.
+ */
+public class HistogramMetricsListener implements MetricsListener {
+
+    private final ConcurrentHashMap<Object, PartitionMetrics> partitions = new ConcurrentHashMap<>();
+
+    private PartitionMetrics partition(Object partitionKey) {
+        // get first, computeIfAbsent locks the bin even when the key is present
+        PartitionMetrics metrics = partitions.get(partitionKey);
+        return metrics != null ? metrics : partitions.computeIfAbsent(partitionKey, key -> new PartitionMetrics());
+    }
+
+    @Override
+    public void onPhaseCompleted(Object partitionKey, RequestPhase phase, long durationNanos) {
+        partition(partitionKey).getHistogram(phase).record(durationNanos);
+    }
+
+    @Override
+    public void onPoolHit(Object partitionKey) {
+        partition(partitionKey).onPoolHit();
+    }
+
+    @Override
+    public void onPoolMiss(Object partitionKey) {
+        partition(partitionKey).onPoolMiss();
+    }
+
+    @Override
+    public void onRetry(Object partitionKey) {
+        partition(partitionKey).onRetry();
+    }
+
+    @Override
+    public void onTimeout(Object partitionKey) {
+        partition(partitionKey).onTimeout();
+    }
+
+    @Override
+    public void onTlsHandshake(Object partitionKey, boolean resumed) {
+        partition(partitionKey).onTlsHandshake(resumed);
+    }
+
+    /**
+     * Return the metrics of a partition.
+     *
+     * @param partitionKey a partition key
+     * @return the metrics of this partition, or null if no request was recorded for it
+     */
+    public @Nullable PartitionMetrics getPartitionMetrics(Object partitionKey) {
+        return partitions.get(partitionKey);
+    }
+
+    /**
+     * Return the metrics of all the partitions.
+     *
+     * @return a live view of the metrics of every partition that was recorded
+     */
+    public Map<Object, PartitionMetrics> getPartitionMetrics() {
+        return Collections.unmodifiableMap(partitions);
+    }
+
+    /**
+     * Forget the metrics of every partition.
+     */
+    public void clear() {
+        partitions.clear();
+    }
+}
@@ -0,0 +1,80 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.metrics;
+
+/**
+ * A listener notified by the client of the duration of every phase of the requests it sends, and of the events that affect their latency.
+ * <p>
+ * Callbacks are invoked from I/O threads on the hot path of every request, so implementations must be thread-safe, never block, and be as cheap as possible.
+ * Partition keys are the ones of the request's {@link org.asynchttpclient.channel.ChannelPoolPartitioning}, e.g. the base url of the remote host by default.
+ *
+ * @see HistogramMetricsListener
+ */
+public interface MetricsListener {
+
+    /**
+     * Notify that a phase of a request completed.
+     *
+     * @param partitionKey  the partition key of the request
+     * @param phase         the phase that completed
+     * @param durationNanos the duration of the phase, in nanoseconds
+     */
+    void onPhaseCompleted(Object partitionKey, RequestPhase phase, long durationNanos);
+
+    /**
+     * Notify that a request was sent on a connection taken from the pool.
+     *
+     * @param partitionKey the partition key of the request
+     */
+    default void onPoolHit(Object partitionKey) {
+    }
+
+    /**
+     * Notify that the pool had no idle connection for a request, so that a new one has to be opened.
+     *
+     * @param partitionKey the partition key of the request
+     */
+    default void onPoolMiss(Object partitionKey) {
+    }
+
+    /**
+     * Notify that a request is being retried, or replayed by an {@link org.asynchttpclient.filter.IOExceptionFilter}.
+     *
+     * @param partitionKey the partition key of the request
+     */
+    default void onRetry(Object partitionKey) {
+    }
+
+    /**
+     * Notify that a request failed because of a connect, read or request timeout.
+     *
+     * @param partitionKey the partition key of the request
+     */
+    default void onTimeout(Object partitionKey) {
+    }
+
+    /**
+     * Notify that the TLS handshake of a new connection completed.
+     * <p>
+     * A resumed handshake reused a session cached by the SSL provider for the same host and port, and skipped the key exchange and the
+     * certificate verification of a full handshake.
+     *
+     * @param partitionKey the partition key of the request that opened the connection
+     * @param resumed      if the handshake resumed a previous session
+     */
+    default void onTlsHandshake(Object partitionKey, boolean resumed) {
+    }
+}
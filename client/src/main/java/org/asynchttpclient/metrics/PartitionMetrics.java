@@ -0,0 +1,155 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.metrics;
+
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * The latency histograms and counters of the requests of a partition, as recorded by a {@link HistogramMetricsListener}.
+ */
+public final class PartitionMetrics {
+
+    private static final RequestPhase[] PHASES = RequestPhase.values();
+
+    private final LatencyHistogram[] histograms = new LatencyHistogram[PHASES.length];
+    private final LongAdder poolHits = new LongAdder();
+    private final LongAdder poolMisses = new LongAdder();
+    private final LongAdder retries = new LongAdder();
+    private final LongAdder timeouts = new LongAdder();
+    private final LongAdder tlsHandshakes = new LongAdder();
+    private final LongAdder tlsResumptions = new LongAdder();
+
+    PartitionMetrics() {
+        for (int i = 0; i < histograms.length; i++) {
+            histograms[i] = new LatencyHistogram();
+        }
+    }
+
+    /**
+     * Return the latency histogram of a phase.
+     *
+     * @param phase a request phase
+     * @return the histogram of the durations of this phase, in nanoseconds
+     */
+    // indexed by ordinal rather than an EnumMap, this is called on every recorded phase
+    @SuppressWarnings("EnumOrdinal")
+    public LatencyHistogram getHistogram(RequestPhase phase) {
+        return histograms[phase.ordinal()];
+    }
+
+    /**
+     * Return the number of pool hits.
+     *
+     * @return the number of requests sent on a pooled connection
+     */
+    public long getPoolHits() {
+        return poolHits.sum();
+    }
+
+    /**
+     * Return the number of pool misses.
+     *
+     * @return the number of requests that found no idle connection in the pool
+     */
+    public long getPoolMisses() {
+        return poolMisses.sum();
+    }
+
+    /**
+     * Return the number of retries.
+     *
+     * @return the number of retried or replayed requests
+     */
+    public long getRetries() {
+        return retries.sum();
+    }
+
+    /**
+     * Return the number of timeouts.
+     *
+     * @return the number of requests that timed out
+     */
+    public long getTimeouts() {
+        return timeouts.sum();
+    }
+
+    /**
+     * Return the number of TLS handshakes.
+     *
+     * @return the number of TLS handshakes of new connections
+     */
+    public long getTlsHandshakes() {
+        return tlsHandshakes.sum();
+    }
+
+    /**
+     * Return the number of TLS session resumptions.
+     *
+     * @return the number of TLS handshakes that resumed a previous session
+     */
+    public long getTlsResumptions() {
+        return tlsResumptions.sum();
+    }
+
+    /**
+     * Return the TLS session resumption ratio.
+     *
+     * @return the ratio of TLS handshakes that resumed a previous session, 0 if no handshake was recorded
+     */
+    public double getTlsResumptionRatio() {
+        long handshakes = getTlsHandshakes();
+        return handshakes == 0 ? 0 : (double) getTlsResumptions() / handshakes;
+    }
+
+    void onPoolHit() {
+        poolHits.increment();
+    }
+
+    void onPoolMiss() {
+        poolMisses.increment();
+    }
+
+    void onRetry() {
+        retries.increment();
+    }
+
+    void onTimeout() {
+        timeouts.increment();
+    }
+
+    void onTlsHandshake(boolean resumed) {
+        // resumptions first, so that a concurrent reader never sees more resumptions than handshakes
+        if (resumed) {
+            tlsResumptions.increment();
+        }
+        tlsHandshakes.increment();
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("PartitionMetrics{");
+        for (RequestPhase phase : PHASES) {
+            sb.append(phase).append('=').append(getHistogram(phase)).append(", ");
+        }
+        return sb.append("poolHits=").append(getPoolHits())
+                .append(", poolMisses=").append(getPoolMisses())
+                .append(", retries=").append(getRetries())
+                .append(", timeouts=").append(getTimeouts())
+                .append(", tlsHandshakes=").append(getTlsHandshakes())
+                .append(", tlsResumptions=").append(getTlsResumptions())
+                .append('}').toString();
+    }
+}
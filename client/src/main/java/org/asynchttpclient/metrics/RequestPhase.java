@@ -0,0 +1,57 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.metrics;
+
+/**
+ * The phases of a request's lifecycle whose durations are reported to a {@link MetricsListener}.
+ */
+public enum RequestPhase {
+
+    /**
+     * From the start to the end of the resolution of the remote host name, when a new connection is needed.
+     */
+    DNS,
+
+    /**
+     * From the start of the first connection attempt to the establishment of the TCP connection.
+     */
+    CONNECT,
+
+    /**
+     * From the start to the end of the TLS handshake of a new connection.
+     */
+    TLS,
+
+    /**
+     * Time spent waiting for a connection permit when the number of connections is capped.
+     */
+    POOL_WAIT,
+
+    /**
+     * From the start of the write of the request to the moment it's been entirely flushed to the socket.
+     */
+    REQUEST_WRITE,
+
+    /**
+     * From the start of the write of the request to the reception of the response status line.
+     */
+    TIME_TO_FIRST_BYTE,
+
+    /**
+     * From the submission of the request to its completion, whether it succeeded or failed, including redirects and retries.
+     */
+    TOTAL
+}
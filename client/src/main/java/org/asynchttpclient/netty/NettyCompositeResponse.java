@@ -0,0 +1,135 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufInputStream;
+import io.netty.buffer.ByteBufUtil;
+import io.netty.buffer.CompositeByteBuf;
+import io.netty.handler.codec.http.HttpHeaders;
+import io.netty.util.ReferenceCounted;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.Response;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.InputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+import java.util.Collections;
+
+/**
+ * A {@link Response} whose body is the aggregation of the received (pooled) chunks, retained as-is in a {@link CompositeByteBuf} instead of
+ * being copied into a heap array.
+ * <p>
+ * The response owns the composite buffer: it must be released with {@link #release()} (or
+ * {@link io.netty.util.ReferenceCountUtil#release(Object)}) once the body has been consumed. Body accessors throw an
+ * {@link io.netty.util.IllegalReferenceCountException} after the response has been released, except for the byte array view if it was
+ * computed before.
+ */
+public class NettyCompositeResponse extends NettyResponse implements ReferenceCounted {
+
+    private final CompositeByteBuf body;
+    private byte @Nullable [] bodyBytes;
+
+    public NettyCompositeResponse(HttpResponseStatus status, @Nullable HttpHeaders headers, CompositeByteBuf body) {
+        super(status, headers, Collections.emptyList());
+        this.body = body;
+    }
+
+    @Override
+    public boolean hasResponseBody() {
+        return bodyBytes != null ? bodyBytes.length > 0 : body.isReadable();
+    }
+
+    /**
+     * The byte array is only computed on first access, with a single copy out of the composite buffer.
+     */
+    @Override
+    public byte[] getResponseBodyAsBytes() {
+        if (bodyBytes == null) {
+            bodyBytes = ByteBufUtil.getBytes(body);
+        }
+        return bodyBytes;
+    }
+
+    @Override
+    public ByteBuffer getResponseBodyAsByteBuffer() {
+        return bodyBytes != null ? ByteBuffer.wrap(bodyBytes) : body.nioBuffer();
+    }
+
+    /**
+     * @return a retained view of the composite buffer that the caller is responsible for releasing
+     */
+    @Override
+    public ByteBuf getResponseBodyAsByteBuf() {
+        return body.retainedDuplicate();
+    }
+
+    /**
+     * Decodes the body straight from the composite buffer, without materializing the byte array view.
+     */
+    @Override
+    public String getResponseBody(Charset charset) {
+        return bodyBytes != null ? new String(bodyBytes, charset) : body.toString(charset);
+    }
+
+    /**
+     * @return a stream reading the composite buffer without copying it, that closes its own reference
+     */
+    @Override
+    public InputStream getResponseBodyAsStream() {
+        return new ByteBufInputStream(body.retainedDuplicate(), true);
+    }
+
+    @Override
+    public int refCnt() {
+        return body.refCnt();
+    }
+
+    @Override
+    public NettyCompositeResponse retain() {
+        body.retain();
+        return this;
+    }
+
+    @Override
+    public NettyCompositeResponse retain(int increment) {
+        body.retain(increment);
+        return this;
+    }
+
+    @Override
+    public NettyCompositeResponse touch() {
+        body.touch();
+        return this;
+    }
+
+    @Override
+    public NettyCompositeResponse touch(Object hint) {
+        body.touch(hint);
+        return this;
+    }
+
+    @Override
+    public boolean release() {
+        return body.release();
+    }
+
+    @Override
+    public boolean release(int decrement) {
+        return body.release(decrement);
+    }
+}
@@ -16,14 +16,21 @@
 package org.asynchttpclient.netty;
 
 import io.netty.channel.Channel;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.ListenableFuture;
 import org.asynchttpclient.Realm;
 import org.asynchttpclient.Request;
 import org.asynchttpclient.channel.ChannelPoolPartitioning;
+import org.asynchttpclient.metrics.MetricsListener;
+import org.asynchttpclient.metrics.RequestPhase;
 import org.asynchttpclient.netty.channel.ChannelState;
 import org.asynchttpclient.netty.channel.Channels;
 import org.asynchttpclient.netty.channel.ConnectionSemaphore;
+import org.asynchttpclient.netty.future.FailureClassifier;
+import org.asynchttpclient.netty.handler.StreamedResponsePublisher;
 import org.asynchttpclient.netty.request.NettyRequest;
 import org.asynchttpclient.netty.timeout.TimeoutsHolder;
 import org.asynchttpclient.proxy.ProxyServer;
@@ -36,7 +43,6 @@ import java.util.concurrent.CancellationException;
 import java.util.concurrent.CompletableFuture;
 import java.util.concurrent.ExecutionException;
 import java.util.concurrent.Executor;
-import java.util.concurrent.Future;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.TimeoutException;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
@@ -45,7 +51,7 @@ import java.util.concurrent.atomic.AtomicReferenceFieldUpdater;
 import static org.asynchttpclient.util.DateUtils.unpreciseMillisTime;
 
 /**
- * A {@link Future} that can be used to track when an asynchronous HTTP request
+ * A {@link java.util.concurrent.Future} that can be used to track when an asynchronous HTTP request
  * has been fully processed.
  *
  * @param <V> the result type
@@ -86,10 +92,13 @@ public final class NettyResponseFuture<V> implements ListenableFuture<V> {
             .newUpdater(NettyResponseFuture.class, Object.class, "partitionKeyLock");
 
     private final long start = unpreciseMillisTime();
+    private final long startNanos = System.nanoTime();
     private final ChannelPoolPartitioning connectionPoolPartitioning;
     private final ConnectionSemaphore connectionSemaphore;
     private final ProxyServer proxyServer;
     private final int maxRetry;
+    private final MetricsListener metricsListener;
+    private final FailureClassifier failureClassifier;
     private final CompletableFuture<V> future = new CompletableFuture<>();
     public Throwable pendingException;
     // state mutated from outside the event loop
@@ -124,8 +133,13 @@ public final class NettyResponseFuture<V> implements ListenableFuture<V> {
     private boolean headersAlreadyWrittenOnContinue;
     private boolean dontWriteBodyBecauseExpectContinue;
     private boolean allowConnect;
+    private boolean connectOnly;
     private Realm realm;
     private Realm proxyRealm;
+    private long requestSendNanos;
+    private StreamedResponsePublisher streamedResponsePublisher;
+    // partition key of the target request reported to the metrics listener, computed lazily
+    private Object metricsPartitionKey;
 
     public NettyResponseFuture(Request originalRequest,
                                AsyncHandler<V> asyncHandler,
@@ -134,6 +148,19 @@ public final class NettyResponseFuture<V> implements ListenableFuture<V> {
                                ChannelPoolPartitioning connectionPoolPartitioning,
                                ConnectionSemaphore connectionSemaphore,
                                ProxyServer proxyServer) {
+        this(originalRequest, asyncHandler, nettyRequest, maxRetry, connectionPoolPartitioning, connectionSemaphore, proxyServer, null,
+                FailureClassifier.DEFAULT);
+    }
+
+    public NettyResponseFuture(Request originalRequest,
+                               AsyncHandler<V> asyncHandler,
+                               NettyRequest nettyRequest,
+                               int maxRetry,
+                               ChannelPoolPartitioning connectionPoolPartitioning,
+                               ConnectionSemaphore connectionSemaphore,
+                               ProxyServer proxyServer,
+                               MetricsListener metricsListener,
+                               FailureClassifier failureClassifier) {
 
         this.asyncHandler = asyncHandler;
         targetRequest = currentRequest = originalRequest;
@@ -142,6 +169,8 @@ public final class NettyResponseFuture<V> implements ListenableFuture<V> {
         this.connectionSemaphore = connectionSemaphore;
         this.proxyServer = proxyServer;
         this.maxRetry = maxRetry;
+        this.metricsListener = metricsListener;
+        this.failureClassifier = failureClassifier;
     }
 
     private void releasePartitionKeyLock() {
@@ -264,6 +293,10 @@ public final class NettyResponseFuture<V> implements ListenableFuture<V> {
             return;
         }
 
+        recordPhase(RequestPhase.TOTAL, startNanos);
+        if (connectionSemaphore != null) {
+            connectionSemaphore.onRequestDone(this, null);
+        }
         try {
             loadContent();
         } catch (ExecutionException ignored) {
@@ -283,6 +316,10 @@ public final class NettyResponseFuture<V> implements ListenableFuture<V> {
             return;
         }
 
+        recordPhase(RequestPhase.TOTAL, startNanos);
+        if (connectionSemaphore != null) {
+            connectionSemaphore.onRequestDone(this, t);
+        }
         future.completeExceptionally(t);
 
         if (ON_THROWABLE_CALLED_FIELD.compareAndSet(this, 0, 1)) {
@@ -336,6 +373,7 @@ public final class NettyResponseFuture<V> implements ListenableFuture<V> {
 
     public void setTargetRequest(Request targetRequest) {
         this.targetRequest = targetRequest;
+        metricsPartitionKey = null;
     }
 
     public Request getCurrentRequest() {
@@ -453,6 +491,19 @@ public final class NettyResponseFuture<V> implements ListenableFuture<V> {
         this.allowConnect = allowConnect;
     }
 
+    /**
+     * Tell if the request is a connection pre-warming.
+     *
+     * @return if the request only opens a connection and offers it to the pool, without being sent
+     */
+    public boolean isConnectOnly() {
+        return connectOnly;
+    }
+
+    public void setConnectOnly(boolean connectOnly) {
+        this.connectOnly = connectOnly;
+    }
+
     public void attachChannel(Channel channel, boolean reuseChannel) {
 
         // future could have been cancelled first
@@ -481,11 +532,11 @@ public final class NettyResponseFuture<V> implements ListenableFuture<V> {
     }
 
     /**
-     * Return true if the {@link Future} can be recovered. There is some scenario
+     * Return true if the {@link java.util.concurrent.Future} can be recovered. There is some scenario
      * where a connection can be closed by an unexpected IOException, and in some
      * situation we can recover from that exception.
      *
-     * @return true if that {@link Future} cannot be recovered.
+     * @return true if that {@link java.util.concurrent.Future} cannot be recovered.
      */
     public boolean isReplayPossible() {
         return !isDone() && !(Channels.isChannelActive(channel) && !"https".equalsIgnoreCase(getUri().getScheme()))
@@ -508,6 +559,37 @@ public final class NettyResponseFuture<V> implements ListenableFuture<V> {
 
         Object partitionKey = getPartitionKey();
         connectionSemaphore.acquireChannelLock(partitionKey);
+        onPartitionLockAcquired(partitionKey);
+    }
+
+    /**
+     * Same as {@link #acquirePartitionLockLazily()}, but the calling thread is never parked when no permit is available right away.
+     *
+     * @return a future completed once the partition lock is held, or failed if it couldn't be acquired
+     */
+    public Future<Void> acquirePartitionLockLazilyAsync() {
+        if (connectionSemaphore == null || partitionKeyLock != null) {
+            return ImmediateEventExecutor.INSTANCE.newSucceededFuture(null);
+        }
+
+        Object partitionKey = getPartitionKey();
+        Promise<Void> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+        connectionSemaphore.acquireChannelLockAsync(partitionKey).addListener(whenAcquired -> {
+            if (!whenAcquired.isSuccess()) {
+                promise.setFailure(whenAcquired.cause());
+                return;
+            }
+            try {
+                onPartitionLockAcquired(partitionKey);
+                promise.setSuccess(null);
+            } catch (IllegalStateException e) {
+                promise.setFailure(e);
+            }
+        });
+        return promise;
+    }
+
+    private void onPartitionLockAcquired(Object partitionKey) {
         Object prevKey = PARTITION_KEY_LOCK_FIELD.getAndSet(this, partitionKey);
         if (prevKey != null) {
             // self-check
@@ -524,6 +606,64 @@ public final class NettyResponseFuture<V> implements ListenableFuture<V> {
         }
     }
 
+    public FailureClassifier getFailureClassifier() {
+        return failureClassifier;
+    }
+
+    public long getRequestSendNanos() {
+        return requestSendNanos;
+    }
+
+    public void setRequestSendNanos(long requestSendNanos) {
+        this.requestSendNanos = requestSendNanos;
+    }
+
+    public StreamedResponsePublisher getStreamedResponsePublisher() {
+        return streamedResponsePublisher;
+    }
+
+    public void setStreamedResponsePublisher(StreamedResponsePublisher streamedResponsePublisher) {
+        this.streamedResponsePublisher = streamedResponsePublisher;
+    }
+
+    private Object metricsPartitionKey() {
+        Object partitionKey = metricsPartitionKey;
+        if (partitionKey == null) {
+            partitionKey = metricsPartitionKey = getPartitionKey();
+        }
+        return partitionKey;
+    }
+
+    /**
+     * Report the duration of a phase of this request to the metrics listener, if any.
+     *
+     * @param phase      the phase that just completed
+     * @param startNanos the {@link System#nanoTime()} when the phase started
+     */
+    public void recordPhase(RequestPhase phase, long startNanos) {
+        if (metricsListener != null) {
+            metricsListener.onPhaseCompleted(metricsPartitionKey(), phase, System.nanoTime() - startNanos);
+        }
+    }
+
+    public void recordRetry() {
+        if (metricsListener != null) {
+            metricsListener.onRetry(metricsPartitionKey());
+        }
+    }
+
+    public void recordTimeout() {
+        if (metricsListener != null) {
+            metricsListener.onTimeout(metricsPartitionKey());
+        }
+    }
+
+    public void recordTlsHandshake(boolean resumed) {
+        if (metricsListener != null) {
+            metricsListener.onTlsHandshake(metricsPartitionKey(), resumed);
+        }
+    }
+
     public Realm getRealm() {
         return realm;
     }
@@ -0,0 +1,29 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty;
+
+import io.netty.buffer.ByteBuf;
+
+/**
+ * A {@link LazyResponseBodyPart} that {@link org.asynchttpclient.Response.ResponseBuilder} retains instead of copying, see
+ * {@link org.asynchttpclient.AsyncHttpClientConfig.ResponseBodyPartFactory#RETAINED}.
+ */
+public class RetainedResponseBodyPart extends LazyResponseBodyPart {
+
+    public RetainedResponseBodyPart(ByteBuf buf, boolean last) {
+        super(buf, last);
+    }
+}
@@ -0,0 +1,160 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.util.Timer;
+import org.asynchttpclient.netty.NettyResponseFuture;
+
+import java.io.IOException;
+import java.util.LinkedHashMap;
+import java.util.Map;
+import java.util.concurrent.TimeoutException;
+
+/**
+ * A {@link NonBlockingConnectionSemaphore} whose per-host limit isn't fixed, but adapts to the latency and the failures of the requests of
+ * each partition.
+ * <p>
+ * The limit follows a gradient algorithm: it grows while the recent latency stays close to the long term one, and shrinks in proportion
+ * when the recent latency rises, which is the sign that requests queue up on the remote host. A request that fails on a timeout or an I/O
+ * error cuts the limit multiplicatively. Requests beyond the limit wait in line, without parking the calling thread, until a connection
+ * is released or the acquire timeout expires.
+ * <p>
+ * As permits are held by connections, a lowered limit takes effect as connections get closed, for example by the pool idle timeout.
+ */
+public class AdaptiveConnectionSemaphore extends NonBlockingConnectionSemaphore {
+
+    // about the last 10 samples
+    private static final double SHORT_RTT_WEIGHT = 0.1;
+    // about the last 500 samples
+    private static final double LONG_RTT_WEIGHT = 0.002;
+    private static final int MAX_TRACKED_PARTITIONS = 4096;
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+
+    // guarded by this, the least recently used partitions are forgotten first
+    private final Map<Object, Limit> limits = new LinkedHashMap<Object, Limit>(16, 0.75f, true) {
+        @Override
+        protected boolean removeEldestEntry(Map.Entry<Object, Limit> eldest) {
+            return size() > MAX_TRACKED_PARTITIONS;
+        }
+    };
+
+    AdaptiveConnectionSemaphore(int maxConnections, int initialLimit, int minLimit, int maxLimit, double tolerance, double smoothing,
+                                double backoffRatio, int acquireTimeout, Timer nettyTimer) {
+        super(maxConnections, maxLimit, acquireTimeout, nettyTimer);
+        this.minLimit = minLimit;
+        this.maxLimit = maxLimit;
+        this.initialLimit = Math.max(minLimit, Math.min(maxLimit, initialLimit));
+        this.tolerance = tolerance;
+        this.smoothing = smoothing;
+        this.backoffRatio = backoffRatio;
+    }
+
+    @Override
+    protected int partitionLimit(Object partitionKey) {
+        Limit limit = limits.get(partitionKey);
+        return limit != null ? (int) limit.value : initialLimit;
+    }
+
+    /**
+     * Return the connection limit of a partition.
+     *
+     * @param partitionKey the partition
+     * @return the current connection limit of the partition
+     */
+    public synchronized int getLimit(Object partitionKey) {
+        return partitionLimit(partitionKey);
+    }
+
+    @Override
+    public void onRequestDone(NettyResponseFuture<?> future, Throwable cause) {
+        long requestSendNanos = future.getRequestSendNanos();
+        onRequestDone(future.getPartitionKey(), requestSendNanos != 0 ? System.nanoTime() - requestSendNanos : -1, cause);
+    }
+
+    /**
+     * @param partitionKey the partition of the request
+     * @param latencyNanos from the start of the write of the request to its completion, or -1 if it was never written
+     * @param cause        why the request failed, or {@code null} if it completed
+     */
+    void onRequestDone(Object partitionKey, long latencyNanos, Throwable cause) {
+        boolean dropped = cause instanceof IOException || cause instanceof TimeoutException;
+        if ((cause != null && !dropped) || (cause == null && latencyNanos < 0)) {
+            // failed for a reason that says nothing about the load of the remote host
+            return;
+        }
+
+        boolean raised;
+        synchronized (this) {
+            Limit limit = limits.computeIfAbsent(partitionKey, key -> new Limit(initialLimit));
+            int previous = (int) limit.value;
+            if (dropped) {
+                limit.onDrop();
+            } else {
+                limit.onSample(latencyNanos, acquiredCount(partitionKey));
+            }
+            raised = (int) limit.value > previous;
+        }
+
+        if (raised) {
+            onPartitionLimitRaised(partitionKey);
+        }
+    }
+
+    private final class Limit {
+
+        private double value;
+        private double shortRtt;
+        private double longRtt;
+
+        private Limit(int value) {
+            this.value = value;
+        }
+
+        private void onDrop() {
+            value = Math.max(minLimit, value * backoffRatio);
+        }
+
+        private void onSample(long rtt, int inFlight) {
+            if (longRtt == 0) {
+                shortRtt = longRtt = rtt;
+            } else {
+                shortRtt += (rtt - shortRtt) * SHORT_RTT_WEIGHT;
+                longRtt += (rtt - longRtt) * LONG_RTT_WEIGHT;
+            }
+            if (longRtt > 2 * shortRtt) {
+                // the latency dropped for good, don't wait for the long term average to catch up
+                longRtt *= 0.95;
+            }
+
+            // 1 while the latency is within the tolerance, down to 0.5 when it's rising
+            double gradient = Math.max(0.5, Math.min(1.0, tolerance * longRtt / Math.max(1, shortRtt)));
+            // leave room for a few requests to queue up on the remote host, so that it's never starving
+            double newValue = value * gradient + Math.sqrt(value);
+            double smoothed = Math.max(minLimit, Math.min(maxLimit, value * (1 - smoothing) + newValue * smoothing));
+            if (smoothed > value && inFlight < value / 2) {
+                // the limit isn't what holds requests back, so there's no telling whether a higher one would do
+                return;
+            }
+            value = smoothed;
+        }
+    }
+}
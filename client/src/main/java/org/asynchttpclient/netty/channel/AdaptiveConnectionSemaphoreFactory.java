@@ -0,0 +1,156 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.util.Timer;
+import org.asynchttpclient.AsyncHttpClientConfig;
+
+/**
+ * Creates {@link AdaptiveConnectionSemaphore}s, which find the best number of connections of each host by themselves.
+ * <p>
+ * {@link AsyncHttpClientConfig#getMaxConnectionsPerHost()}, when set, caps the adaptive limit, and {@link AsyncHttpClientConfig#getMaxConnections()}
+ * still bounds the total number of connections. Requests wait in line for {@link AsyncHttpClientConfig#getAcquireFreeChannelTimeout()},
+ * or for the request timeout when it isn't set.
+ */
+public class AdaptiveConnectionSemaphoreFactory implements ConnectionSemaphoreFactory {
+
+    private final int initialLimit;
+    private final int minLimit;
+    private final int maxLimit;
+    private final double tolerance;
+    private final double smoothing;
+    private final double backoffRatio;
+
+    public AdaptiveConnectionSemaphoreFactory() {
+        this(new Builder());
+    }
+
+    private AdaptiveConnectionSemaphoreFactory(Builder builder) {
+        initialLimit = builder.initialLimit;
+        minLimit = builder.minLimit;
+        maxLimit = builder.maxLimit;
+        tolerance = builder.tolerance;
+        smoothing = builder.smoothing;
+        backoffRatio = builder.backoffRatio;
+    }
+
+    /**
+     * Without a timer, requests can't wait in line without parking a thread, so the static limits of the config apply.
+     */
+    @Override
+    public ConnectionSemaphore newConnectionSemaphore(AsyncHttpClientConfig config) {
+        return new DefaultConnectionSemaphoreFactory().newConnectionSemaphore(config);
+    }
+
+    @Override
+    public ConnectionSemaphore newConnectionSemaphore(AsyncHttpClientConfig config, Timer nettyTimer) {
+        int maxConnectionsPerHost = config.getMaxConnectionsPerHost();
+        int acquireTimeout = config.getAcquireFreeChannelTimeout();
+        if (acquireTimeout <= 0) {
+            long requestTimeout = config.getRequestTimeout().toMillis();
+            acquireTimeout = requestTimeout > 0 ? (int) Math.min(Integer.MAX_VALUE, requestTimeout) : Integer.MAX_VALUE;
+        }
+        return new AdaptiveConnectionSemaphore(config.getMaxConnections(), initialLimit, minLimit,
+                maxConnectionsPerHost > 0 ? Math.min(maxLimit, maxConnectionsPerHost) : maxLimit,
+                tolerance, smoothing, backoffRatio, acquireTimeout, nettyTimer);
+    }
+
+    public static class Builder {
+
+        private int initialLimit = 20;
+        private int minLimit = 1;
+        private int maxLimit = 200;
+        private double tolerance = 1.5;
+        private double smoothing = 0.2;
+        private double backoffRatio = 0.9;
+
+        /**
+         * Set the initial limit of a host.
+         *
+         * @param initialLimit the limit of a host before any request completed, 20 by default
+         * @return the same builder instance
+         */
+        public Builder setInitialLimit(int initialLimit) {
+            this.initialLimit = initialLimit;
+            return this;
+        }
+
+        /**
+         * Set the lowest limit of a host.
+         *
+         * @param minLimit the lowest limit, 1 by default
+         * @return the same builder instance
+         */
+        public Builder setMinLimit(int minLimit) {
+            this.minLimit = minLimit;
+            return this;
+        }
+
+        /**
+         * Set the highest limit of a host.
+         *
+         * @param maxLimit the highest limit, 200 by default, or the max number of connections per host if it's lower
+         * @return the same builder instance
+         */
+        public Builder setMaxLimit(int maxLimit) {
+            this.maxLimit = maxLimit;
+            return this;
+        }
+
+        /**
+         * Set the latency tolerance.
+         *
+         * @param tolerance how much the recent latency may exceed the long term one before the limit shrinks, 1.5 by default
+         * @return the same builder instance
+         */
+        public Builder setTolerance(double tolerance) {
+            this.tolerance = tolerance;
+            return this;
+        }
+
+        /**
+         * Set the smoothing of the limit updates.
+         *
+         * @param smoothing the weight of each update of the limit, between 0 excluded and 1, 0.2 by default
+         * @return the same builder instance
+         */
+        public Builder setSmoothing(double smoothing) {
+            this.smoothing = smoothing;
+            return this;
+        }
+
+        /**
+         * Set the backoff ratio.
+         *
+         * @param backoffRatio the factor applied to the limit when a request times out or fails on an I/O error, 0.9 by default
+         * @return the same builder instance
+         */
+        public Builder setBackoffRatio(double backoffRatio) {
+            this.backoffRatio = backoffRatio;
+            return this;
+        }
+
+        public AdaptiveConnectionSemaphoreFactory build() {
+            if (minLimit < 1 || maxLimit < minLimit) {
+                throw new IllegalArgumentException("Limits must satisfy 1 <= minLimit <= maxLimit");
+            }
+            if (tolerance < 1 || smoothing <= 0 || smoothing > 1 || backoffRatio <= 0 || backoffRatio >= 1) {
+                throw new IllegalArgumentException("Invalid tolerance, smoothing or backoff ratio");
+            }
+            return new AdaptiveConnectionSemaphoreFactory(this);
+        }
+    }
+}
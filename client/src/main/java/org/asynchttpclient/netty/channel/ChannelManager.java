@@ -35,11 +35,19 @@ import io.netty.handler.codec.http.websocketx.WebSocket08FrameDecoder;
 import io.netty.handler.codec.http.websocketx.WebSocket08FrameEncoder;
 import io.netty.handler.codec.http.websocketx.WebSocketFrameAggregator;
 import io.netty.handler.codec.http.websocketx.extensions.compression.WebSocketClientCompressionHandler;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+import io.netty.handler.codec.http2.Http2FrameCodecBuilder;
+import io.netty.handler.codec.http2.Http2MultiplexHandler;
+import io.netty.handler.codec.http2.Http2Settings;
+import io.netty.handler.codec.http2.Http2StreamChannel;
+import io.netty.handler.codec.http2.Http2StreamChannelBootstrap;
+import io.netty.handler.codec.http2.Http2StreamFrameToHttpObjectCodec;
 import io.netty.handler.logging.LogLevel;
 import io.netty.handler.logging.LoggingHandler;
 import io.netty.handler.proxy.ProxyHandler;
 import io.netty.handler.proxy.Socks4ProxyHandler;
 import io.netty.handler.proxy.Socks5ProxyHandler;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.SslHandler;
 import io.netty.handler.stream.ChunkedWriteHandler;
 import io.netty.resolver.NameResolver;
@@ -53,8 +61,9 @@ import io.netty.util.internal.PlatformDependent;
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.AsyncHttpClientConfig;
 import org.asynchttpclient.ClientStats;
-import org.asynchttpclient.HostStats;
 import org.asynchttpclient.Realm;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.RequestBuilderBase;
 import org.asynchttpclient.SslEngineFactory;
 import org.asynchttpclient.channel.ChannelPool;
 import org.asynchttpclient.channel.ChannelPoolPartitioning;
@@ -67,6 +76,7 @@ import org.asynchttpclient.netty.handler.WebSocketHandler;
 import org.asynchttpclient.netty.request.NettyRequestSender;
 import org.asynchttpclient.netty.ssl.DefaultSslEngineFactory;
 import org.asynchttpclient.proxy.ProxyServer;
+import org.asynchttpclient.resolver.CachingDnsNameResolver;
 import org.asynchttpclient.uri.Uri;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
@@ -75,12 +85,9 @@ import javax.net.ssl.SSLEngine;
 import javax.net.ssl.SSLException;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
-import java.util.Map;
 import java.util.Map.Entry;
 import java.util.concurrent.ThreadFactory;
 import java.util.concurrent.TimeUnit;
-import java.util.function.Function;
-import java.util.stream.Collectors;
 
 public class ChannelManager {
 
@@ -96,7 +103,19 @@ public class ChannelManager {
     public static final String AHC_HTTP_HANDLER = "ahc-http";
     public static final String AHC_WS_HANDLER = "ahc-ws";
     public static final String LOGGING_HANDLER = "logging";
+    public static final String HTTP2_IDLE_HANDLER = "http2-idle";
+    public static final String HTTP2_FRAME_CODEC = "http2-frame-codec";
+    public static final String HTTP2_MULTIPLEX_HANDLER = "http2-multiplex";
+    public static final String HTTP2_STREAM_CODEC = "http2-stream-codec";
+    public static final String HTTP2_STREAM_ADAPTER = "http2-stream-adapter";
     private static final Logger LOGGER = LoggerFactory.getLogger(ChannelManager.class);
+    // push is disabled in our settings, so any stream opened by the server is a protocol violation
+    private static final ChannelHandler REJECT_PUSHED_STREAMS = new ChannelInitializer<Channel>() {
+        @Override
+        protected void initChannel(Channel ch) {
+            Channels.silentlyCloseChannel(ch);
+        }
+    };
     private final AsyncHttpClientConfig config;
     private final SslEngineFactory sslEngineFactory;
     private final EventLoopGroup eventLoopGroup;
@@ -107,8 +126,12 @@ public class ChannelManager {
 
     private final ChannelPool channelPool;
     private final ChannelGroup openChannels;
+    private final ConnectionStats connectionStats = new ConnectionStats();
+    private final Http2ConnectionPool http2ConnectionPool = new Http2ConnectionPool();
+    private final NameResolver<InetAddress> dnsNameResolver;
 
     private AsyncHttpClientHandler wsHandler;
+    private ChannelHandler http2StreamInitializer;
 
     private boolean isInstanceof(Object object, String name) {
         final Class<?> clazz;
@@ -173,6 +196,10 @@ public class ChannelManager {
 
         httpBootstrap = newBootstrap(transportFactory, eventLoopGroup, config);
         wsBootstrap = newBootstrap(transportFactory, eventLoopGroup, config);
+
+        dnsNameResolver = config.isUseDnsCache()
+                ? new CachingDnsNameResolver(eventLoopGroup.next(), transportFactory.datagramChannelFactory(), config.getDnsCacheNegativeTtl())
+                : null;
     }
 
     private static TransportFactory<? extends Channel, ? extends EventLoopGroup> getNativeTransportFactory(AsyncHttpClientConfig config) {
@@ -200,7 +227,16 @@ public class ChannelManager {
     }
 
     public static boolean isSslHandlerConfigured(ChannelPipeline pipeline) {
-        return pipeline.get(SSL_HANDLER) != null;
+        if (pipeline.get(SSL_HANDLER) != null) {
+            return true;
+        }
+        // HTTP/2 streams don't own a socket, TLS is done on their parent connection
+        Channel parent = pipeline.channel().parent();
+        return parent != null && parent.pipeline().get(SSL_HANDLER) != null;
+    }
+
+    public boolean isHttp2Negotiated(SslHandler sslHandler) {
+        return config.isEnableHttp2() && ApplicationProtocolNames.HTTP_2.equals(sslHandler.applicationProtocol());
     }
 
     private static Bootstrap newBootstrap(ChannelFactory<? extends Channel> channelFactory, EventLoopGroup eventLoopGroup, AsyncHttpClientConfig config) {
@@ -285,6 +321,27 @@ public class ChannelManager {
                 }
             }
         });
+
+        http2StreamInitializer = new ChannelInitializer<Channel>() {
+            @Override
+            protected void initChannel(Channel ch) {
+                ChannelPipeline pipeline = ch.pipeline()
+                        .addLast(HTTP2_STREAM_CODEC, new Http2StreamFrameToHttpObjectCodec(false, config.isValidateResponseHeaders()))
+                        .addLast(HTTP2_STREAM_ADAPTER, Http2StreamAdapter.INSTANCE);
+
+                if (config.isEnableAutomaticDecompression()) {
+                    pipeline = pipeline.addLast(INFLATER_HANDLER, newHttpContentDecompressor());
+                }
+
+                pipeline = pipeline
+                        .addLast(CHUNKED_WRITER_HANDLER, new ChunkedWriteHandler())
+                        .addLast(AHC_HTTP_HANDLER, httpHandler);
+
+                if (LOGGER.isTraceEnabled()) {
+                    pipeline.addFirst(LOGGING_HANDLER, new LoggingHandler(LogLevel.TRACE));
+                }
+            }
+        };
     }
 
     private HttpContentDecompressor newHttpContentDecompressor() {
@@ -301,7 +358,11 @@ public class ChannelManager {
     }
 
     public final void tryToOfferChannelToPool(Channel channel, AsyncHandler<?> asyncHandler, boolean keepAlive, Object partitionKey) {
-        if (channel.isActive() && keepAlive) {
+        if (channel instanceof Http2StreamChannel) {
+            // streams can't be reused, the connection they belong to stays in the HTTP/2 pool
+            closeChannel(channel);
+
+        } else if (channel.isActive() && keepAlive) {
             LOGGER.debug("Adding key: {} for channel {}", partitionKey, channel);
             Channels.setDiscard(channel);
 
@@ -311,8 +372,10 @@ public class ChannelManager {
                 LOGGER.error("onConnectionOffer crashed", e);
             }
 
+            connectionStats.channelIdle(channel);
             if (!channelPool.offer(channel, partitionKey)) {
                 // rejected by pool
+                connectionStats.channelActive(channel);
                 closeChannel(channel);
             }
         } else {
@@ -323,7 +386,20 @@ public class ChannelManager {
 
     public Channel poll(Uri uri, String virtualHost, ProxyServer proxy, ChannelPoolPartitioning connectionPoolPartitioning) {
         Object partitionKey = connectionPoolPartitioning.getPartitionKey(uri, virtualHost, proxy);
-        return channelPool.poll(partitionKey);
+        Channel channel = channelPool.poll(partitionKey);
+        if (channel != null) {
+            connectionStats.channelActive(channel);
+        }
+        return channel;
+    }
+
+    public Channel pollHttp2Connection(Uri uri, String virtualHost, ProxyServer proxy, ChannelPoolPartitioning connectionPoolPartitioning) {
+        Object partitionKey = connectionPoolPartitioning.getPartitionKey(uri, virtualHost, proxy);
+        return http2ConnectionPool.poll(partitionKey);
+    }
+
+    public Future<Http2StreamChannel> openHttp2Stream(Channel connection) {
+        return new Http2StreamChannelBootstrap(connection).handler(http2StreamInitializer).open();
     }
 
     public void removeAll(Channel connection) {
@@ -333,10 +409,14 @@ public class ChannelManager {
     private void doClose() {
         ChannelGroupFuture groupFuture = openChannels.close();
         channelPool.destroy();
+        http2ConnectionPool.destroy();
         groupFuture.addListener(future -> sslEngineFactory.destroy());
     }
 
     public void close() {
+        if (dnsNameResolver != null) {
+            dnsNameResolver.close();
+        }
         if (allowReleaseEventLoopGroup) {
             final long shutdownQuietPeriod = config.getShutdownQuietPeriod().toMillis();
             final long shutdownTimeout = config.getShutdownTimeout().toMillis();
@@ -357,6 +437,7 @@ public class ChannelManager {
 
     public void registerOpenChannel(Channel channel) {
         openChannels.add(channel);
+        connectionStats.channelOpened(channel);
     }
 
     private HttpClientCodec newHttpClientCodec() {
@@ -369,8 +450,8 @@ public class ChannelManager {
                 config.getHttpClientCodecInitialBufferSize());
     }
 
-    private SslHandler createSslHandler(String peerHost, int peerPort) {
-        SSLEngine sslEngine = sslEngineFactory.newSslEngine(config, peerHost, peerPort);
+    private SslHandler createSslHandler(String peerHost, int peerPort, boolean http2) {
+        SSLEngine sslEngine = http2 ? sslEngineFactory.newHttp2SslEngine(config, peerHost, peerPort) : sslEngineFactory.newSslEngine(config, peerHost, peerPort);
         SslHandler sslHandler = new SslHandler(sslEngine);
         if (handshakeTimeout > 0) {
             sslHandler.setHandshakeTimeoutMillis(handshakeTimeout);
@@ -387,7 +468,7 @@ public class ChannelManager {
 
         if (requestUri.isSecured()) {
             if (!isSslHandlerConfigured(pipeline)) {
-                SslHandler sslHandler = createSslHandler(requestUri.getHost(), requestUri.getExplicitPort());
+                SslHandler sslHandler = createSslHandler(requestUri.getHost(), requestUri.getExplicitPort(), false);
                 whenHandshaked = sslHandler.handshakeFuture();
                 pipeline.addBefore(INFLATER_HANDLER, SSL_HANDLER, sslHandler);
             }
@@ -428,7 +509,8 @@ public class ChannelManager {
             peerPort = uri.getExplicitPort();
         }
 
-        SslHandler sslHandler = createSslHandler(peerHost, peerPort);
+        // WebSockets over HTTP/2 aren't supported, so don't let the server pick it
+        SslHandler sslHandler = createSslHandler(peerHost, peerPort, config.isEnableHttp2() && !uri.isWebSocket());
         if (hasSocksProxyHandler) {
             pipeline.addAfter(SOCKS_HANDLER, SSL_HANDLER, sslHandler);
         } else {
@@ -437,6 +519,17 @@ public class ChannelManager {
         return sslHandler;
     }
 
+    /**
+     * Return the resolver of a request.
+     *
+     * @param request the request
+     * @return the resolver to use for the request, the client's caching DNS resolver when enabled and the request doesn't set its own
+     */
+    public NameResolver<InetAddress> getNameResolver(Request request) {
+        NameResolver<InetAddress> nameResolver = request.getNameResolver();
+        return dnsNameResolver != null && nameResolver == RequestBuilderBase.DEFAULT_NAME_RESOLVER ? dnsNameResolver : nameResolver;
+    }
+
     public Future<Bootstrap> getBootstrap(Uri uri, NameResolver<InetAddress> nameResolver, ProxyServer proxy) {
         final Promise<Bootstrap> promise = ImmediateEventExecutor.INSTANCE.newPromise();
 
@@ -505,6 +598,41 @@ public class ChannelManager {
         pipeline.remove(HTTP_CLIENT_CODEC);
     }
 
+    /**
+     * Turns a connection that negotiated h2 with ALPN into an HTTP/2 connection that requests are multiplexed over,
+     * and makes it available to other requests to the same partition.
+     *
+     * @param channel      the connection, right after its TLS handshake
+     * @param partitionKey the partition the connection belongs to
+     */
+    public void upgradePipelineForHttp2(Channel channel, Object partitionKey) {
+        ChannelPipeline pipeline = channel.pipeline();
+        pipeline.remove(HTTP_CLIENT_CODEC);
+        if (pipeline.get(INFLATER_HANDLER) != null) {
+            pipeline.remove(INFLATER_HANDLER);
+        }
+        pipeline.remove(CHUNKED_WRITER_HANDLER);
+        pipeline.remove(AHC_HTTP_HANDLER);
+
+        Http2FrameCodec frameCodec = Http2FrameCodecBuilder.forClient()
+                .initialSettings(Http2Settings.defaultSettings()
+                        .pushEnabled(false)
+                        .maxHeaderListSize(config.getHttpClientCodecMaxHeaderSize()))
+                .validateHeaders(config.isValidateResponseHeaders())
+                .encoderEnforceMaxConcurrentStreams(true)
+                .build();
+        pipeline.addLast(HTTP2_FRAME_CODEC, frameCodec)
+                .addLast(HTTP2_MULTIPLEX_HANDLER, new Http2MultiplexHandler(REJECT_PUSHED_STREAMS));
+
+        long idleTimeout = config.getPooledConnectionIdleTimeout().toMillis();
+        if (idleTimeout > 0) {
+            pipeline.addBefore(HTTP2_FRAME_CODEC, HTTP2_IDLE_HANDLER, new Http2IdleConnectionHandler(idleTimeout));
+        }
+
+        Channels.setDiscard(channel);
+        http2ConnectionPool.offer(channel, partitionKey);
+    }
+
     private OnLastHttpContentCallback newDrainCallback(final NettyResponseFuture<?> future, final Channel channel, final boolean keepAlive, final Object partitionKey) {
         return new OnLastHttpContentCallback(future) {
             @Override
@@ -530,25 +658,12 @@ public class ChannelManager {
         return eventLoopGroup;
     }
 
+    public ConnectionStats getConnectionStats() {
+        return connectionStats;
+    }
+
     public ClientStats getClientStats() {
-        Map<String, Long> totalConnectionsPerHost = openChannels.stream()
-                .map(Channel::remoteAddress)
-                .filter(a -> a instanceof InetSocketAddress)
-                .map(a -> (InetSocketAddress) a)
-                .map(InetSocketAddress::getHostString)
-                .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
-
-        Map<String, Long> idleConnectionsPerHost = channelPool.getIdleChannelCountPerHost();
-
-        Map<String, HostStats> statsPerHost = totalConnectionsPerHost.entrySet()
-                .stream()
-                .collect(Collectors.toMap(Entry::getKey, entry -> {
-                    final long totalConnectionCount = entry.getValue();
-                    final long idleConnectionCount = idleConnectionsPerHost.getOrDefault(entry.getKey(), 0L);
-                    final long activeConnectionCount = totalConnectionCount - idleConnectionCount;
-                    return new HostStats(activeConnectionCount, idleConnectionCount);
-                }));
-        return new ClientStats(statsPerHost);
+        return connectionStats.getClientStats();
     }
 
     public boolean isOpen() {
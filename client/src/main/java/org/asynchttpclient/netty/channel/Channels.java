@@ -28,6 +28,7 @@ public final class Channels {
 
     private static final AttributeKey<Object> DEFAULT_ATTRIBUTE = AttributeKey.valueOf("default");
     private static final AttributeKey<Active> ACTIVE_TOKEN_ATTRIBUTE = AttributeKey.valueOf("activeToken");
+    private static final AttributeKey<Long> IDLE_TIMEOUT_ATTRIBUTE = AttributeKey.valueOf("idleTimeout");
 
     private Channels() {
         // Prevent outside initialization
@@ -58,6 +59,27 @@ public final class Channels {
         return channel != null && channel.attr(ACTIVE_TOKEN_ATTRIBUTE).getAndSet(null) != null;
     }
 
+    /**
+     * Record how long the server keeps a channel open once idle, as announced in its last response.
+     *
+     * @param channel     a channel
+     * @param idleTimeout how long the server keeps the channel open once idle, in milliseconds, or -1 if unknown
+     */
+    public static void setIdleTimeout(Channel channel, long idleTimeout) {
+        channel.attr(IDLE_TIMEOUT_ATTRIBUTE).set(idleTimeout >= 0 ? idleTimeout : null);
+    }
+
+    /**
+     * Return how long the server keeps a channel open once idle.
+     *
+     * @param channel a channel
+     * @return how long the server keeps the channel open once idle, in milliseconds, or -1 if unknown
+     */
+    public static long getIdleTimeout(Channel channel) {
+        Long idleTimeout = channel.attr(IDLE_TIMEOUT_ATTRIBUTE).get();
+        return idleTimeout != null ? idleTimeout : -1;
+    }
+
     public static void silentlyCloseChannel(Channel channel) {
         try {
             if (channel != null && channel.isActive()) {
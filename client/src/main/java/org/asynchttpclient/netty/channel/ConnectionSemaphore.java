@@ -15,6 +15,10 @@
  */
 package org.asynchttpclient.netty.channel;
 
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import org.asynchttpclient.netty.NettyResponseFuture;
+
 import java.io.IOException;
 
 /**
@@ -24,5 +28,31 @@ public interface ConnectionSemaphore {
 
     void acquireChannelLock(Object partitionKey) throws IOException;
 
+    /**
+     * Acquires a permit without parking the calling thread. Implementations that can't do better block in
+     * {@link #acquireChannelLock(Object)} and return a completed future.
+     *
+     * @param partitionKey the partition
+     * @return a future that's completed once the permit is acquired, or failed if it couldn't be
+     */
+    default Future<Void> acquireChannelLockAsync(Object partitionKey) {
+        try {
+            acquireChannelLock(partitionKey);
+            return ImmediateEventExecutor.INSTANCE.newSucceededFuture(null);
+        } catch (IOException e) {
+            return ImmediateEventExecutor.INSTANCE.newFailedFuture(e);
+        }
+    }
+
     void releaseChannelLock(Object partitionKey);
+
+    /**
+     * Notified once a request is done, for implementations that adapt their limits to the latency and the failures of the requests.
+     * Cancelled requests aren't notified. Does nothing by default.
+     *
+     * @param future the request
+     * @param cause  why the request failed, or {@code null} if it completed
+     */
+    default void onRequestDone(NettyResponseFuture<?> future, Throwable cause) {
+    }
 }
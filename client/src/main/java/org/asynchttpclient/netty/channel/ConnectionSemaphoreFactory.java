@@ -15,10 +15,22 @@
  */
 package org.asynchttpclient.netty.channel;
 
+import io.netty.util.Timer;
 import org.asynchttpclient.AsyncHttpClientConfig;
 
 @FunctionalInterface
 public interface ConnectionSemaphoreFactory {
 
     ConnectionSemaphore newConnectionSemaphore(AsyncHttpClientConfig config);
+
+    /**
+     * Create the semaphore of a client, given its timer.
+     *
+     * @param config     the client config
+     * @param nettyTimer the client timer, for semaphores that schedule their acquire timeouts instead of blocking
+     * @return a new semaphore
+     */
+    default ConnectionSemaphore newConnectionSemaphore(AsyncHttpClientConfig config, Timer nettyTimer) {
+        return newConnectionSemaphore(config);
+    }
 }
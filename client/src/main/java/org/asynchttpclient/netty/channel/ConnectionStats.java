@@ -0,0 +1,206 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.channel.ChannelFutureListener;
+import io.netty.util.AttributeKey;
+import org.asynchttpclient.ClientStats;
+import org.asynchttpclient.HostStats;
+import org.asynchttpclient.proxy.ProxyServer;
+import org.asynchttpclient.uri.Uri;
+
+import java.net.InetSocketAddress;
+import java.net.SocketAddress;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Per host counters of the connections of a client, updated as connections are opened, offered to and polled from the pool and closed,
+ * and as requests wait for a connection permit or a connection, so that {@link ClientStats} are computed without iterating over the connections.
+ * <p>
+ * A host stays tracked for as long as it has open connections, pending permit waiters or connection attempts in flight.
+ */
+public final class ConnectionStats {
+
+    private static final AttributeKey<TrackedChannel> TRACKED_CHANNEL_ATTRIBUTE = AttributeKey.valueOf("trackedChannel");
+    private static final AtomicIntegerFieldUpdater<TrackedChannel> IDLE_FIELD = AtomicIntegerFieldUpdater.newUpdater(TrackedChannel.class, "idle");
+
+    private final ConcurrentHashMap<String, HostCounters> hosts = new ConcurrentHashMap<>();
+
+    /**
+     * Return the host the connections of a request are opened to.
+     *
+     * @param uri   the uri of a request
+     * @param proxy the proxy the request goes through, if any
+     * @return the host the connections of this request are opened to
+     */
+    public static String connectionHost(Uri uri, ProxyServer proxy) {
+        return proxy != null ? proxy.getHost() : uri.getHost();
+    }
+
+    private HostCounters retain(String host) {
+        return hosts.compute(host, (key, counters) -> (counters != null ? counters : new HostCounters()).retain());
+    }
+
+    private void release(String host) {
+        hosts.computeIfPresent(host, (key, counters) -> counters.release() ? null : counters);
+    }
+
+    /**
+     * Start tracking a newly connected channel until it's closed.
+     *
+     * @param channel a connected channel
+     */
+    void channelOpened(Channel channel) {
+        SocketAddress remoteAddress = channel.remoteAddress();
+        if (!(remoteAddress instanceof InetSocketAddress) || channel.hasAttr(TRACKED_CHANNEL_ATTRIBUTE)) {
+            return;
+        }
+
+        String host = ((InetSocketAddress) remoteAddress).getHostString();
+        TrackedChannel trackedChannel = new TrackedChannel(host, retain(host));
+        channel.attr(TRACKED_CHANNEL_ATTRIBUTE).set(trackedChannel);
+        trackedChannel.counters.open.increment();
+        channel.closeFuture().addListener(trackedChannel);
+    }
+
+    /**
+     * Flag a channel as idle, must be called before it's offered to the pool so that it can't be polled in-between.
+     *
+     * @param channel a channel about to be offered to the pool
+     */
+    void channelIdle(Channel channel) {
+        TrackedChannel trackedChannel = channel.attr(TRACKED_CHANNEL_ATTRIBUTE).get();
+        if (trackedChannel != null && IDLE_FIELD.compareAndSet(trackedChannel, 0, 1)) {
+            trackedChannel.counters.idle.increment();
+            if (!channel.isActive()) {
+                // closed in-between, the close listener might already have run
+                trackedChannel.active();
+            }
+        }
+    }
+
+    /**
+     * Flag a channel as active, once polled from the pool or rejected by it.
+     *
+     * @param channel a channel that's no longer in the pool
+     */
+    void channelActive(Channel channel) {
+        TrackedChannel trackedChannel = channel.attr(TRACKED_CHANNEL_ATTRIBUTE).get();
+        if (trackedChannel != null) {
+            trackedChannel.active();
+        }
+    }
+
+    /**
+     * Count a request waiting for a connection permit, until {@link #permitWaitDone(String)} is called.
+     *
+     * @param host the host the request will connect to
+     */
+    public void permitWaitStarted(String host) {
+        retain(host).pendingPermits.increment();
+    }
+
+    public void permitWaitDone(String host) {
+        HostCounters counters = hosts.get(host);
+        if (counters != null) {
+            counters.pendingPermits.decrement();
+            release(host);
+        }
+    }
+
+    /**
+     * Count a connection attempt in flight, until {@link #connectAttemptDone(String)} is called.
+     *
+     * @param host the host being connected to
+     */
+    public void connectAttemptStarted(String host) {
+        retain(host).connectAttempts.increment();
+    }
+
+    public void connectAttemptDone(String host) {
+        HostCounters counters = hosts.get(host);
+        if (counters != null) {
+            counters.connectAttempts.decrement();
+            release(host);
+        }
+    }
+
+    ClientStats getClientStats() {
+        Map<String, HostStats> statsPerHost = new HashMap<>();
+        hosts.forEach((host, counters) -> {
+            long open = counters.open.sum();
+            long idle = counters.idle.sum();
+            long pendingPermits = counters.pendingPermits.sum();
+            long connectAttempts = counters.connectAttempts.sum();
+            if (open > 0 || pendingPermits > 0 || connectAttempts > 0) {
+                statsPerHost.put(host, new HostStats(open - idle, idle, pendingPermits, connectAttempts));
+            }
+        });
+        return new ClientStats(statsPerHost);
+    }
+
+    private static final class HostCounters {
+
+        private final LongAdder open = new LongAdder();
+        private final LongAdder idle = new LongAdder();
+        private final LongAdder pendingPermits = new LongAdder();
+        private final LongAdder connectAttempts = new LongAdder();
+        // number of open channels, permit waiters and connection attempts, only mutated while computing the host's mapping
+        private int refs;
+
+        HostCounters retain() {
+            refs++;
+            return this;
+        }
+
+        boolean release() {
+            return --refs == 0;
+        }
+    }
+
+    private final class TrackedChannel implements ChannelFutureListener {
+
+        private final String host;
+        private final HostCounters counters;
+        @SuppressWarnings("unused")
+        volatile int idle;
+
+        TrackedChannel(String host, HostCounters counters) {
+            this.host = host;
+            this.counters = counters;
+        }
+
+        void active() {
+            if (IDLE_FIELD.compareAndSet(this, 1, 0)) {
+                counters.idle.decrement();
+            }
+        }
+
+        @Override
+        public void operationComplete(ChannelFuture future) {
+            // channel closed
+            active();
+            counters.open.decrement();
+            release(host);
+        }
+    }
+}
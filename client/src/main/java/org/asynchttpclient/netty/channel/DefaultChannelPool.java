@@ -16,6 +16,7 @@
 package org.asynchttpclient.netty.channel;
 
 import io.netty.channel.Channel;
+import io.netty.channel.EventLoop;
 import io.netty.util.Attribute;
 import io.netty.util.AttributeKey;
 import io.netty.util.Timeout;
@@ -29,43 +30,63 @@ import org.slf4j.LoggerFactory;
 import java.net.InetSocketAddress;
 import java.time.Duration;
 import java.util.ArrayList;
-import java.util.Collections;
-import java.util.Deque;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.concurrent.ConcurrentHashMap;
-import java.util.concurrent.ConcurrentLinkedDeque;
+import java.util.concurrent.ThreadLocalRandom;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicInteger;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 import java.util.function.Function;
 import java.util.function.Predicate;
 import java.util.stream.Collectors;
+import java.util.stream.Stream;
 
 import static java.util.Objects.requireNonNull;
 import static org.asynchttpclient.util.DateUtils.unpreciseMillisTime;
 
 /**
- * A simple implementation of {@link ChannelPool} based on a {@link ConcurrentHashMap}
+ * A simple implementation of {@link ChannelPool} based on a {@link ConcurrentHashMap}.
+ * <p>
+ * Idle channels are kept in intrusive linked lists, and each channel holds a handle to its node so it can be removed in constant time.
+ * Instead of periodically scanning every idle channel, each one gets its own expiry timeout on the timer wheel.
+ * <p>
+ * A channel expires at the earliest of the pool idle timeout, of its TTL, and of the idle timeout the server announced for it,
+ * see {@link org.asynchttpclient.channel.KeepAliveStrategy#idleTimeout}.
+ * <p>
+ * When the number of idle channels is capped, they are also linked across partitions in offering order, and offering a channel beyond the
+ * cap closes the one that has been idle for the longest.
  */
 public final class DefaultChannelPool implements ChannelPool {
 
     private static final Logger LOGGER = LoggerFactory.getLogger(DefaultChannelPool.class);
     private static final AttributeKey<ChannelCreation> CHANNEL_CREATION_ATTRIBUTE_KEY = AttributeKey.valueOf("channelCreation");
+    private static final AttributeKey<IdleChannel> IDLE_CHANNEL_ATTRIBUTE_KEY = AttributeKey.valueOf("idleChannel");
+    private static final AtomicIntegerFieldUpdater<IdleChannel> OWNED_FIELD = AtomicIntegerFieldUpdater.newUpdater(IdleChannel.class, "owned");
+    // how long before the server announced it would close an idle channel we stop handing it out, so requests don't race the close
+    private static final long SERVER_IDLE_TIMEOUT_MARGIN = 1000;
 
-    private final ConcurrentHashMap<Object, ConcurrentLinkedDeque<IdleChannel>> partitions = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<Object, Partition> partitions = new ConcurrentHashMap<>();
     private final AtomicBoolean isClosed = new AtomicBoolean(false);
     private final Timer nettyTimer;
     private final long connectionTtl;
     private final boolean connectionTtlEnabled;
     private final long maxIdleTime;
     private final boolean maxIdleTimeEnabled;
-    private final long cleanerPeriod;
     private final PoolLeaseStrategy poolLeaseStrategy;
+    private final boolean eventLoopAffinity;
+    private final int maxIdleChannels;
+    // null when the number of idle channels isn't capped
+    private final RecencyList recencyList;
 
     public DefaultChannelPool(AsyncHttpClientConfig config, Timer hashedWheelTimer) {
         this(config.getPooledConnectionIdleTimeout(),
                 config.getConnectionTtl(),
+                PoolLeaseStrategy.LIFO,
+                config.isConnectionPoolEventLoopAffinity(),
+                config.getMaxIdleConnections(),
                 hashedWheelTimer,
                 config.getConnectionPoolCleanerPeriod());
     }
@@ -75,35 +96,56 @@ public final class DefaultChannelPool implements ChannelPool {
     }
 
     public DefaultChannelPool(Duration maxIdleTime, Duration connectionTtl, PoolLeaseStrategy poolLeaseStrategy, Timer nettyTimer, Duration cleanerPeriod) {
+        this(maxIdleTime, connectionTtl, poolLeaseStrategy, false, nettyTimer, cleanerPeriod);
+    }
+
+    public DefaultChannelPool(Duration maxIdleTime, Duration connectionTtl, PoolLeaseStrategy poolLeaseStrategy, boolean eventLoopAffinity,
+                              Timer nettyTimer, Duration cleanerPeriod) {
+        this(maxIdleTime, connectionTtl, poolLeaseStrategy, eventLoopAffinity, -1, nettyTimer, cleanerPeriod);
+    }
+
+    /**
+     * @param maxIdleTime       the time a channel can stay idle in the pool
+     * @param connectionTtl     the time a channel can be reused for
+     * @param poolLeaseStrategy the order channels are leased in
+     * @param eventLoopAffinity whether to shard partitions by event loop, so that callers running on an event loop get a channel
+     *                          registered on that same loop when there's one, and other callers spread over the shards
+     * @param maxIdleChannels   the maximum number of idle channels across all partitions, the least recently offered ones being closed
+     *                          beyond it, -1 for no limit
+     * @param nettyTimer        the timer idle channels are expired on
+     * @param cleanerPeriod     unused, idle channels are expired individually when they reach their deadline
+     */
+    public DefaultChannelPool(Duration maxIdleTime, Duration connectionTtl, PoolLeaseStrategy poolLeaseStrategy, boolean eventLoopAffinity,
+                              int maxIdleChannels, Timer nettyTimer, Duration cleanerPeriod) {
         final long maxIdleTimeInMs = maxIdleTime.toMillis();
         final long connectionTtlInMs = connectionTtl.toMillis();
-        final long cleanerPeriodInMs = cleanerPeriod.toMillis();
         this.maxIdleTime = maxIdleTimeInMs;
         this.connectionTtl = connectionTtlInMs;
         connectionTtlEnabled = connectionTtlInMs > 0;
         this.nettyTimer = nettyTimer;
         maxIdleTimeEnabled = maxIdleTimeInMs > 0;
         this.poolLeaseStrategy = poolLeaseStrategy;
-
-        this.cleanerPeriod = Math.min(cleanerPeriodInMs, Math.min(connectionTtlEnabled ? connectionTtlInMs : Integer.MAX_VALUE,
-                maxIdleTimeEnabled ? maxIdleTimeInMs : Integer.MAX_VALUE));
-
-        if (connectionTtlEnabled || maxIdleTimeEnabled) {
-            scheduleNewIdleChannelDetector(new IdleChannelDetector());
-        }
+        this.eventLoopAffinity = eventLoopAffinity;
+        this.maxIdleChannels = maxIdleChannels;
+        recencyList = maxIdleChannels > 0 ? new RecencyList() : null;
     }
 
-    private void scheduleNewIdleChannelDetector(TimerTask task) {
-        nettyTimer.newTimeout(task, cleanerPeriod, TimeUnit.MILLISECONDS);
-    }
-
-    private boolean isTtlExpired(Channel channel, long now) {
-        if (!connectionTtlEnabled) {
-            return false;
+    /**
+     * @return the time at which a channel offered now must be closed, {@link Long#MAX_VALUE} if never
+     */
+    private long expiryDeadline(Channel channel, long now) {
+        long deadline = Long.MAX_VALUE;
+        if (maxIdleTimeEnabled) {
+            deadline = now + maxIdleTime;
         }
-
-        ChannelCreation creation = channel.attr(CHANNEL_CREATION_ATTRIBUTE_KEY).get();
-        return creation != null && now - creation.creationTime >= connectionTtl;
+        long serverIdleTimeout = Channels.getIdleTimeout(channel);
+        if (serverIdleTimeout >= 0) {
+            deadline = Math.min(deadline, now + serverIdleTimeout - Math.min(SERVER_IDLE_TIMEOUT_MARGIN, serverIdleTimeout / 2));
+        }
+        if (connectionTtlEnabled) {
+            deadline = Math.min(deadline, channel.attr(CHANNEL_CREATION_ATTRIBUTE_KEY).get().creationTime + connectionTtl);
+        }
+        return deadline;
     }
 
     @Override
@@ -113,62 +155,109 @@ public final class DefaultChannelPool implements ChannelPool {
         }
 
         long now = unpreciseMillisTime();
+        // the ttl starts on first offer, it has to be known before computing the deadline
+        if (connectionTtlEnabled) {
+            registerChannelCreation(channel, now);
+        }
+        long deadline = expiryDeadline(channel, now);
 
-        if (isTtlExpired(channel, now)) {
+        if (deadline <= now) {
             return false;
         }
 
-        boolean offered = offer0(channel, partitionKey, now);
-        if (connectionTtlEnabled && offered) {
-            registerChannelCreation(channel, partitionKey, now);
+        return offer0(channel, partitionKey, now, deadline);
+    }
+
+    private boolean offer0(Channel channel, Object partitionKey, long now, long deadline) {
+        Partition partition;
+        while (true) {
+            partition = partitions.get(partitionKey);
+            if (partition == null) {
+                partition = partitions.computeIfAbsent(partitionKey, Partition::new);
+            }
+            if (partition.reserve()) {
+                break;
+            }
+            // the partition got empty and is being reclaimed, help removing it
+            partitions.remove(partitionKey, partition);
         }
+        Shard shard = partition.shardFor(eventLoopAffinity ? channel.eventLoop() : null);
+        IdleChannel idleChannel = new IdleChannel(channel, shard, now, deadline);
 
-        return offered;
-    }
+        // the handle has to be set up before the node gets published, see #removeAll
+        channel.attr(IDLE_CHANNEL_ATTRIBUTE_KEY).set(idleChannel);
+        shard.linkFirst(idleChannel);
+        IdleChannel eldest = recencyList != null ? recencyList.linkFirst(idleChannel, maxIdleChannels) : null;
 
-    private boolean offer0(Channel channel, Object partitionKey, long now) {
-        ConcurrentLinkedDeque<IdleChannel> partition = partitions.get(partitionKey);
-        if (partition == null) {
-            partition = partitions.computeIfAbsent(partitionKey, pk -> new ConcurrentLinkedDeque<>());
+        // the expiry is scheduled once linked, if the node got leased in between, it will find it owned and do nothing
+        if (deadline != Long.MAX_VALUE) {
+            idleChannel.timeout = nettyTimer.newTimeout(idleChannel, deadline - now, TimeUnit.MILLISECONDS);
         }
-        return partition.offerFirst(new IdleChannel(channel, now));
+
+        // if the eldest is being leased or expired, it's about to leave anyway
+        if (eldest != null && eldest.takeOwnership()) {
+            LOGGER.debug("Closing idle Channel {} to stay under {} idle channels", eldest.channel, maxIdleChannels);
+            eldest.release();
+            close(eldest.channel);
+        }
+        return true;
     }
 
-    private static void registerChannelCreation(Channel channel, Object partitionKey, long now) {
+    private static void registerChannelCreation(Channel channel, long now) {
         Attribute<ChannelCreation> channelCreationAttribute = channel.attr(CHANNEL_CREATION_ATTRIBUTE_KEY);
         if (channelCreationAttribute.get() == null) {
-            channelCreationAttribute.set(new ChannelCreation(now, partitionKey));
+            channelCreationAttribute.set(new ChannelCreation(now));
         }
     }
 
     @Override
     public Channel poll(Object partitionKey) {
+        Partition partition = partitions.get(partitionKey);
+        IdleChannel idleChannel = partition != null ? partition.lease() : null;
+        return idleChannel != null ? idleChannel.channel : null;
+    }
+
+    private IdleChannel lease(Shard shard) {
         IdleChannel idleChannel = null;
-        ConcurrentLinkedDeque<IdleChannel> partition = partitions.get(partitionKey);
-        if (partition != null) {
-            while (idleChannel == null) {
-                idleChannel = poolLeaseStrategy.lease(partition);
-
-                if (idleChannel == null)
-                // pool is empty
-                {
-                    break;
-                } else if (!Channels.isChannelActive(idleChannel.channel)) {
+        while (idleChannel == null) {
+            idleChannel = poolLeaseStrategy.lease(shard);
+
+            if (idleChannel == null)
+            // pool is empty
+            {
+                break;
+            }
+            shard.partition.onUnlinked();
+            if (!idleChannel.takeOwnership()) {
+                idleChannel = null;
+                LOGGER.trace("Couldn't take ownership of channel, probably in the process of being expired!");
+            } else {
+                idleChannel.release();
+                if (!Channels.isChannelActive(idleChannel.channel)) {
                     idleChannel = null;
                     LOGGER.trace("Channel is inactive, probably remotely closed!");
-                } else if (!idleChannel.takeOwnership()) {
+                } else if (idleChannel.deadline <= unpreciseMillisTime()) {
+                    // the timer wheel hasn't expired it yet, but the server might be closing it
+                    close(idleChannel.channel);
                     idleChannel = null;
-                    LOGGER.trace("Couldn't take ownership of channel, probably in the process of being expired!");
+                    LOGGER.trace("Channel reached its idle deadline");
                 }
             }
         }
-        return idleChannel != null ? idleChannel.channel : null;
+        return idleChannel;
     }
 
     @Override
     public boolean removeAll(Channel channel) {
-        ChannelCreation creation = connectionTtlEnabled ? channel.attr(CHANNEL_CREATION_ATTRIBUTE_KEY).get() : null;
-        return !isClosed.get() && creation != null && partitions.get(creation.partitionKey).remove(new IdleChannel(channel, Long.MIN_VALUE));
+        if (isClosed.get()) {
+            return false;
+        }
+        IdleChannel idleChannel = channel.attr(IDLE_CHANNEL_ATTRIBUTE_KEY).get();
+        if (idleChannel != null && idleChannel.takeOwnership()) {
+            idleChannel.release();
+            return true;
+        }
+        return false;
     }
 
     @Override
@@ -182,7 +271,13 @@ public final class DefaultChannelPool implements ChannelPool {
             return;
         }
 
+        for (Partition partition : partitions.values()) {
+            partition.idleChannels().forEach(IdleChannel::cancelExpiry);
+        }
         partitions.clear();
+        if (recencyList != null) {
+            recencyList.clear();
+        }
     }
 
     private static void close(Channel channel) {
@@ -191,18 +286,21 @@ public final class DefaultChannelPool implements ChannelPool {
         Channels.silentlyCloseChannel(channel);
     }
 
-    private void flushPartition(Object partitionKey, ConcurrentLinkedDeque<IdleChannel> partition) {
+    private void flushPartition(Object partitionKey, Partition partition) {
         if (partition != null) {
             partitions.remove(partitionKey);
-            for (IdleChannel idleChannel : partition) {
-                close(idleChannel.channel);
-            }
+            partition.idleChannels().forEach(idleChannel -> {
+                if (idleChannel.takeOwnership()) {
+                    idleChannel.release();
+                    close(idleChannel.channel);
+                }
+            });
         }
     }
 
     @Override
     public void flushPartitions(Predicate<Object> predicate) {
-        for (Map.Entry<Object, ConcurrentLinkedDeque<IdleChannel>> partitionsEntry : partitions.entrySet()) {
+        for (Map.Entry<Object, Partition> partitionsEntry : partitions.entrySet()) {
             Object partitionKey = partitionsEntry.getKey();
             if (predicate.test(partitionKey)) {
                 flushPartition(partitionKey, partitionsEntry.getValue());
@@ -215,7 +313,7 @@ public final class DefaultChannelPool implements ChannelPool {
         return partitions
                 .values()
                 .stream()
-                .flatMap(ConcurrentLinkedDeque::stream)
+                .flatMap(Partition::idleChannels)
                 .map(idle -> idle.getChannel().remoteAddress())
                 .filter(a -> a.getClass() == InetSocketAddress.class)
                 .map(a -> (InetSocketAddress) a)
@@ -223,166 +321,350 @@ public final class DefaultChannelPool implements ChannelPool {
                 .collect(Collectors.groupingBy(Function.identity(), Collectors.counting()));
     }
 
+    @Override
+    public int getIdleChannelCount(Object partitionKey) {
+        Partition partition = partitions.get(partitionKey);
+        return partition != null ? partition.idleChannelCount() : 0;
+    }
+
+    // Visible for testing
+    int getPartitionCount() {
+        return partitions.size();
+    }
+
     public enum PoolLeaseStrategy {
         LIFO {
             @Override
-            public <E> E lease(Deque<E> d) {
-                return d.pollFirst();
+            IdleChannel lease(Shard shard) {
+                return shard.pollFirst();
             }
         },
         FIFO {
             @Override
-            public <E> E lease(Deque<E> d) {
-                return d.pollLast();
+            IdleChannel lease(Shard shard) {
+                return shard.pollLast();
             }
         };
 
-        abstract <E> E lease(Deque<E> d);
+        abstract IdleChannel lease(Shard shard);
     }
 
-    private static final class ChannelCreation {
-        final long creationTime;
-        final Object partitionKey;
+    /**
+     * The idle channels of a partition. It's made of a single shard, or of one shard per event loop when event loop affinity is enabled.
+     * <p>
+     * A partition with no idle channel left is removed from the map, so that it doesn't grow with every host ever reached.
+     * Its count is then set to {@link #RECLAIMED}, so that concurrent offers know they have to create a new one.
+     */
+    private final class Partition {
 
-        ChannelCreation(long creationTime, Object partitionKey) {
-            this.creationTime = creationTime;
-            this.partitionKey = partitionKey;
-        }
-    }
+        private static final int RECLAIMED = -1;
 
-    private static final class IdleChannel {
+        private final Object key;
+        private final AtomicInteger size = new AtomicInteger();
+        private volatile Shard[] shards = new Shard[0];
 
-        private static final AtomicIntegerFieldUpdater<IdleChannel> ownedField = AtomicIntegerFieldUpdater.newUpdater(IdleChannel.class, "owned");
+        Partition(Object key) {
+            this.key = key;
+        }
 
-        final Channel channel;
-        final long start;
-        @SuppressWarnings("unused")
-        private volatile int owned;
+        /**
+         * Count a channel about to be linked.
+         *
+         * @return false if the partition was reclaimed
+         */
+        boolean reserve() {
+            while (true) {
+                int current = size.get();
+                if (current == RECLAIMED) {
+                    return false;
+                }
+                if (size.compareAndSet(current, current + 1)) {
+                    return true;
+                }
+            }
+        }
 
-        IdleChannel(Channel channel, long start) {
-            this.channel = requireNonNull(channel, "channel");
-            this.start = start;
+        /**
+         * Must be called once for every channel unlinked from one of the shards.
+         */
+        void onUnlinked() {
+            if (size.decrementAndGet() == 0 && size.compareAndSet(0, RECLAIMED)) {
+                partitions.remove(key, this);
+            }
         }
 
-        public boolean takeOwnership() {
-            return ownedField.getAndSet(this, 1) == 0;
+        int idleChannelCount() {
+            return Math.max(size.get(), 0);
         }
 
-        public Channel getChannel() {
-            return channel;
+        IdleChannel lease() {
+            Shard[] shards = this.shards;
+            int shardCount = shards.length;
+            if (shardCount == 0) {
+                return null;
+            }
+
+            int first = 0;
+            if (shardCount > 1) {
+                // start with the caller's loop, so the request doesn't have to hop to another thread,
+                // otherwise with a random shard so that callers don't all contend on the same one
+                first = -1;
+                for (int i = 0; i < shardCount; i++) {
+                    if (shards[i].eventLoop.inEventLoop()) {
+                        first = i;
+                        break;
+                    }
+                }
+                if (first == -1) {
+                    first = ThreadLocalRandom.current().nextInt(shardCount);
+                }
+            }
+
+            // then steal from the other loops
+            for (int i = 0; i < shardCount; i++) {
+                IdleChannel idleChannel = DefaultChannelPool.this.lease(shards[(first + i) % shardCount]);
+                if (idleChannel != null) {
+                    return idleChannel;
+                }
+            }
+            return null;
         }
 
-        @Override
-        // only depends on channel
-        public boolean equals(Object o) {
-            return this == o || o instanceof IdleChannel && channel.equals(((IdleChannel) o).channel);
+        Stream<IdleChannel> idleChannels() {
+            return Stream.of(shards).flatMap(shard -> shard.snapshot().stream());
         }
 
-        @Override
-        public int hashCode() {
-            return channel.hashCode();
+        private Shard shardFor(EventLoop eventLoop) {
+            for (Shard shard : shards) {
+                if (shard.eventLoop == eventLoop) {
+                    return shard;
+                }
+            }
+            synchronized (this) {
+                Shard[] shards = this.shards;
+                for (Shard shard : shards) {
+                    if (shard.eventLoop == eventLoop) {
+                        return shard;
+                    }
+                }
+                Shard shard = new Shard(this, eventLoop);
+                Shard[] newShards = Arrays.copyOf(shards, shards.length + 1);
+                newShards[shards.length] = shard;
+                this.shards = newShards;
+                return shard;
+            }
         }
     }
 
-    private final class IdleChannelDetector implements TimerTask {
-
-        private boolean isIdleTimeoutExpired(IdleChannel idleChannel, long now) {
-            return maxIdleTimeEnabled && now - idleChannel.start >= maxIdleTime;
+    /**
+     * A doubly linked list of idle channels, most recently offered first. All operations are constant time but {@link #snapshot()}.
+     */
+    private static final class Shard {
+        final Partition partition;
+        // null when the partition isn't sharded
+        final EventLoop eventLoop;
+        // guarded by this
+        private IdleChannel head;
+        private IdleChannel tail;
+
+        Shard(Partition partition, EventLoop eventLoop) {
+            this.partition = partition;
+            this.eventLoop = eventLoop;
         }
 
-        private List<IdleChannel> expiredChannels(ConcurrentLinkedDeque<IdleChannel> partition, long now) {
-            // lazy create
-            List<IdleChannel> idleTimeoutChannels = null;
-            for (IdleChannel idleChannel : partition) {
-                boolean isIdleTimeoutExpired = isIdleTimeoutExpired(idleChannel, now);
-                boolean isRemotelyClosed = !Channels.isChannelActive(idleChannel.channel);
-                boolean isTtlExpired = isTtlExpired(idleChannel.channel, now);
-                if (isIdleTimeoutExpired || isRemotelyClosed || isTtlExpired) {
-
-                    LOGGER.debug("Adding Candidate expired Channel {} isIdleTimeoutExpired={} isRemotelyClosed={} isTtlExpired={}",
-                            idleChannel.channel, isIdleTimeoutExpired, isRemotelyClosed, isTtlExpired);
+        synchronized void linkFirst(IdleChannel idleChannel) {
+            idleChannel.next = head;
+            if (head == null) {
+                tail = idleChannel;
+            } else {
+                head.prev = idleChannel;
+            }
+            head = idleChannel;
+            idleChannel.linked = true;
+        }
 
-                    if (idleTimeoutChannels == null) {
-                        idleTimeoutChannels = new ArrayList<>(1);
-                    }
-                    idleTimeoutChannels.add(idleChannel);
-                }
+        synchronized IdleChannel pollFirst() {
+            IdleChannel idleChannel = head;
+            if (idleChannel != null) {
+                unlink0(idleChannel);
             }
+            return idleChannel;
+        }
 
-            return idleTimeoutChannels != null ? idleTimeoutChannels : Collections.emptyList();
+        synchronized IdleChannel pollLast() {
+            IdleChannel idleChannel = tail;
+            if (idleChannel != null) {
+                unlink0(idleChannel);
+            }
+            return idleChannel;
         }
 
-        private List<IdleChannel> closeChannels(List<IdleChannel> candidates) {
-            // lazy create, only if we hit a non-closeable channel
-            List<IdleChannel> closedChannels = null;
-            for (int i = 0; i < candidates.size(); i++) {
-                // We call takeOwnership here to avoid closing a channel that has just been taken out
-                // of the pool, otherwise we risk closing an active connection.
-                IdleChannel idleChannel = candidates.get(i);
-                if (idleChannel.takeOwnership()) {
-                    LOGGER.debug("Closing Idle Channel {}", idleChannel.channel);
-                    close(idleChannel.channel);
-                    if (closedChannels != null) {
-                        closedChannels.add(idleChannel);
-                    }
+        synchronized boolean unlink(IdleChannel idleChannel) {
+            if (idleChannel.linked) {
+                unlink0(idleChannel);
+                return true;
+            }
+            return false;
+        }
 
-                } else if (closedChannels == null) {
-                    // first non-closeable to be skipped, copy all
-                    // previously skipped closeable channels
-                    closedChannels = new ArrayList<>(candidates.size());
-                    for (int j = 0; j < i; j++) {
-                        closedChannels.add(candidates.get(j));
-                    }
-                }
+        private void unlink0(IdleChannel idleChannel) {
+            IdleChannel prev = idleChannel.prev;
+            IdleChannel next = idleChannel.next;
+            if (prev == null) {
+                head = next;
+            } else {
+                prev.next = next;
+            }
+            if (next == null) {
+                tail = prev;
+            } else {
+                next.prev = prev;
             }
+            idleChannel.prev = null;
+            idleChannel.next = null;
+            idleChannel.linked = false;
+        }
 
-            return closedChannels != null ? closedChannels : candidates;
+        synchronized List<IdleChannel> snapshot() {
+            List<IdleChannel> idleChannels = new ArrayList<>();
+            for (IdleChannel idleChannel = head; idleChannel != null; idleChannel = idleChannel.next) {
+                idleChannels.add(idleChannel);
+            }
+            return idleChannels;
         }
+    }
 
-        @Override
-        public void run(Timeout timeout) {
+    /**
+     * The idle channels of every partition, most recently offered first, for evicting the eldest once the pool holds too many.
+     */
+    private static final class RecencyList {
+        // guarded by this
+        private IdleChannel head;
+        private IdleChannel tail;
+        private int size;
+
+        /**
+         * @return the eldest idle channel if there are now more than maxSize ones
+         */
+        synchronized IdleChannel linkFirst(IdleChannel idleChannel, int maxSize) {
+            idleChannel.newer = null;
+            idleChannel.older = head;
+            if (head == null) {
+                tail = idleChannel;
+            } else {
+                head.newer = idleChannel;
+            }
+            head = idleChannel;
+            idleChannel.recent = true;
+            return ++size > maxSize ? tail : null;
+        }
 
-            if (isClosed.get()) {
+        synchronized void unlink(IdleChannel idleChannel) {
+            if (!idleChannel.recent) {
                 return;
             }
-
-            if (LOGGER.isDebugEnabled()) {
-                for (Map.Entry<Object, ConcurrentLinkedDeque<IdleChannel>> entry : partitions.entrySet()) {
-                    int size = entry.getValue().size();
-                    if (size > 0) {
-                        LOGGER.debug("Entry count for : {} : {}", entry.getKey(), size);
-                    }
-                }
+            IdleChannel newer = idleChannel.newer;
+            IdleChannel older = idleChannel.older;
+            if (newer == null) {
+                head = older;
+            } else {
+                newer.older = older;
             }
+            if (older == null) {
+                tail = newer;
+            } else {
+                older.newer = newer;
+            }
+            idleChannel.newer = null;
+            idleChannel.older = null;
+            idleChannel.recent = false;
+            size--;
+        }
 
-            long start = unpreciseMillisTime();
-            int closedCount = 0;
-            int totalCount = 0;
+        synchronized void clear() {
+            head = null;
+            tail = null;
+            size = 0;
+        }
+    }
 
-            for (ConcurrentLinkedDeque<IdleChannel> partition : partitions.values()) {
+    private static final class ChannelCreation {
+        final long creationTime;
 
-                // store in intermediate unsynchronized lists to minimize
-                // the impact on the ConcurrentLinkedDeque
-                if (LOGGER.isDebugEnabled()) {
-                    totalCount += partition.size();
-                }
+        ChannelCreation(long creationTime) {
+            this.creationTime = creationTime;
+        }
+    }
 
-                List<IdleChannel> closedChannels = closeChannels(expiredChannels(partition, start));
+    /**
+     * A node of a {@link Shard}, also the task expiring it.
+     * Whoever takes ownership first, be it a lease, a removal or the expiry, is responsible for releasing it.
+     */
+    private final class IdleChannel implements TimerTask {
 
-                if (!closedChannels.isEmpty()) {
-                    partition.removeAll(closedChannels);
-                    closedCount += closedChannels.size();
-                }
+        final Channel channel;
+        final Shard shard;
+        final long start;
+        final long deadline;
+        // set once published and never changed
+        volatile Timeout timeout;
+        // guarded by the shard
+        IdleChannel prev;
+        IdleChannel next;
+        boolean linked;
+        // guarded by the recency list
+        IdleChannel newer;
+        IdleChannel older;
+        boolean recent;
+        @SuppressWarnings("unused")
+        private volatile int owned;
+
+        IdleChannel(Channel channel, Shard shard, long start, long deadline) {
+            this.channel = requireNonNull(channel, "channel");
+            this.shard = shard;
+            this.start = start;
+            this.deadline = deadline;
+        }
+
+        public boolean takeOwnership() {
+            return OWNED_FIELD.getAndSet(this, 1) == 0;
+        }
+
+        public Channel getChannel() {
+            return channel;
+        }
+
+        /**
+         * Drop this node from the pool, must only be called by the owner.
+         */
+        void release() {
+            if (shard.unlink(this)) {
+                shard.partition.onUnlinked();
+            }
+            if (recencyList != null) {
+                recencyList.unlink(this);
+            }
+            cancelExpiry();
+            channel.attr(IDLE_CHANNEL_ATTRIBUTE_KEY).compareAndSet(this, null);
+        }
+
+        void cancelExpiry() {
+            if (timeout != null) {
+                timeout.cancel();
             }
+        }
 
-            if (LOGGER.isDebugEnabled()) {
-                long duration = unpreciseMillisTime() - start;
-                if (closedCount > 0) {
-                    LOGGER.debug("Closed {} connections out of {} in {} ms", closedCount, totalCount, duration);
-                }
+        @Override
+        public void run(Timeout timeout) {
+            if (isClosed.get()) {
+                return;
             }
 
-            scheduleNewIdleChannelDetector(timeout.task());
+            if (takeOwnership()) {
+                LOGGER.debug("Closing expired idle Channel {} after {} ms", channel, unpreciseMillisTime() - start);
+                release();
+                close(channel);
+            }
         }
     }
 }
@@ -15,6 +15,7 @@
  */
 package org.asynchttpclient.netty.channel;
 
+import io.netty.util.Timer;
 import org.asynchttpclient.AsyncHttpClientConfig;
 
 public class DefaultConnectionSemaphoreFactory implements ConnectionSemaphoreFactory {
@@ -37,4 +38,15 @@ public class DefaultConnectionSemaphoreFactory implements ConnectionSemaphoreFac
 
         return new NoopConnectionSemaphore();
     }
+
+    @Override
+    public ConnectionSemaphore newConnectionSemaphore(AsyncHttpClientConfig config, Timer nettyTimer) {
+        int maxConnections = config.getMaxConnections();
+        int maxConnectionsPerHost = config.getMaxConnectionsPerHost();
+
+        if (config.isAsyncAcquireFreeChannel() && (maxConnections > 0 || maxConnectionsPerHost > 0)) {
+            return new NonBlockingConnectionSemaphore(maxConnections, maxConnectionsPerHost, config.getAcquireFreeChannelTimeout(), nettyTimer);
+        }
+        return newConnectionSemaphore(config);
+    }
 }
@@ -15,9 +15,12 @@
  */
 package org.asynchttpclient.netty.channel;
 
+import io.netty.channel.ChannelFactory;
 import io.netty.channel.epoll.Epoll;
+import io.netty.channel.epoll.EpollDatagramChannel;
 import io.netty.channel.epoll.EpollEventLoopGroup;
 import io.netty.channel.epoll.EpollSocketChannel;
+import io.netty.channel.socket.DatagramChannel;
 
 import java.util.concurrent.ThreadFactory;
 
@@ -41,4 +44,9 @@ class EpollTransportFactory implements TransportFactory<EpollSocketChannel, Epol
     public EpollEventLoopGroup newEventLoopGroup(int ioThreadsCount, ThreadFactory threadFactory) {
         return new EpollEventLoopGroup(ioThreadsCount, threadFactory);
     }
+
+    @Override
+    public ChannelFactory<? extends DatagramChannel> datagramChannelFactory() {
+        return EpollDatagramChannel::new;
+    }
 }
@@ -0,0 +1,72 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.channel.Channel;
+import io.netty.handler.codec.http2.Http2Connection;
+import io.netty.handler.codec.http2.Http2FrameCodec;
+
+import java.util.Deque;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedDeque;
+
+/**
+ * Keeps track of the open HTTP/2 connections per partition so that requests can be sent as streams over them.
+ * Unlike HTTP/1.1 connections, they're never leased exclusively: they stay here for as long as they're open.
+ */
+final class Http2ConnectionPool {
+
+    private final Map<Object, Deque<Channel>> partitions = new ConcurrentHashMap<>();
+
+    void offer(Channel connection, Object partitionKey) {
+        Deque<Channel> partition = partitions.computeIfAbsent(partitionKey, pk -> new ConcurrentLinkedDeque<>());
+        partition.offerFirst(connection);
+        connection.closeFuture().addListener(future -> partition.remove(connection));
+    }
+
+    /**
+     * Find a connection of a partition that can take one more stream.
+     *
+     * @param partitionKey the partition
+     * @return an open connection that can take one more stream, or null if there's none
+     */
+    Channel poll(Object partitionKey) {
+        Deque<Channel> partition = partitions.get(partitionKey);
+        if (partition != null) {
+            for (Channel connection : partition) {
+                if (connection.isActive() && canOpenStream(connection)) {
+                    return connection;
+                }
+            }
+        }
+        return null;
+    }
+
+    private static boolean canOpenStream(Channel connection) {
+        Http2FrameCodec codec = connection.pipeline().get(Http2FrameCodec.class);
+        if (codec == null) {
+            return false;
+        }
+        // read from outside the event loop, so this is only a hint: the frame codec enforces the actual limit
+        Http2Connection http2Connection = codec.connection();
+        return !http2Connection.goAwayReceived() && http2Connection.local().canOpenStream();
+    }
+
+    void destroy() {
+        partitions.clear();
+    }
+}
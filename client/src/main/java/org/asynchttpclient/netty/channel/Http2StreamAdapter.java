@@ -0,0 +1,54 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.ChannelHandler.Sharable;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.codec.MessageToMessageCodec;
+import io.netty.handler.codec.http.DefaultHttpContent;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.DefaultLastHttpContent;
+import io.netty.handler.codec.http.FullHttpResponse;
+
+import java.util.List;
+
+/**
+ * Makes an HTTP/2 stream look like an HTTP/1.1 connection to the handlers above it:
+ * <ul>
+ * <li>responses without a body are decoded as a {@link FullHttpResponse}, they're split into a response and its last content</li>
+ * <li>{@link io.netty.handler.stream.ChunkedWriteHandler} writes raw {@link ByteBuf}s, they're wrapped into http contents</li>
+ * </ul>
+ */
+@Sharable
+final class Http2StreamAdapter extends MessageToMessageCodec<FullHttpResponse, ByteBuf> {
+
+    static final Http2StreamAdapter INSTANCE = new Http2StreamAdapter();
+
+    private Http2StreamAdapter() {
+    }
+
+    @Override
+    protected void encode(ChannelHandlerContext ctx, ByteBuf msg, List<Object> out) {
+        out.add(new DefaultHttpContent(msg.retain()));
+    }
+
+    @Override
+    protected void decode(ChannelHandlerContext ctx, FullHttpResponse msg, List<Object> out) {
+        out.add(new DefaultHttpResponse(msg.protocolVersion(), msg.status(), msg.headers()));
+        out.add(new DefaultLastHttpContent(msg.content().retain(), msg.trailingHeaders()));
+    }
+}
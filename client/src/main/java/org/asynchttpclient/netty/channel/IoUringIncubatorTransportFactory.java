@@ -15,7 +15,10 @@
  */
 package org.asynchttpclient.netty.channel;
 
+import io.netty.channel.ChannelFactory;
+import io.netty.channel.socket.DatagramChannel;
 import io.netty.incubator.channel.uring.IOUring;
+import io.netty.incubator.channel.uring.IOUringDatagramChannel;
 import io.netty.incubator.channel.uring.IOUringEventLoopGroup;
 import io.netty.incubator.channel.uring.IOUringSocketChannel;
 
@@ -41,4 +44,9 @@ class IoUringIncubatorTransportFactory implements TransportFactory<IOUringSocket
     public IOUringEventLoopGroup newEventLoopGroup(int ioThreadsCount, ThreadFactory threadFactory) {
         return new IOUringEventLoopGroup(ioThreadsCount, threadFactory);
     }
+
+    @Override
+    public ChannelFactory<? extends DatagramChannel> datagramChannelFactory() {
+        return IOUringDatagramChannel::new;
+    }
 }
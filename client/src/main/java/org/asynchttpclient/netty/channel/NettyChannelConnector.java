@@ -17,16 +17,22 @@ package org.asynchttpclient.netty.channel;
 
 import io.netty.bootstrap.Bootstrap;
 import io.netty.channel.Channel;
+import io.netty.channel.ChannelFuture;
+import io.netty.util.concurrent.ScheduledFuture;
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.AsyncHttpClientState;
 import org.asynchttpclient.netty.SimpleChannelFutureListener;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import java.net.Inet6Address;
 import java.net.InetAddress;
 import java.net.InetSocketAddress;
+import java.time.Duration;
+import java.util.ArrayList;
 import java.util.List;
 import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicIntegerFieldUpdater;
 
 public class NettyChannelConnector {
@@ -40,21 +46,61 @@ public class NettyChannelConnector {
     private final InetSocketAddress localAddress;
     private final List<InetSocketAddress> remoteAddresses;
     private final AsyncHttpClientState clientState;
+    private final long connectionAttemptDelay;
     private volatile int i;
 
     public NettyChannelConnector(InetAddress localAddress, List<InetSocketAddress> remoteAddresses, AsyncHandler<?> asyncHandler, AsyncHttpClientState clientState) {
+        this(localAddress, remoteAddresses, asyncHandler, clientState, Duration.ZERO);
+    }
+
+    /**
+     * @param connectionAttemptDelay when positive and there are several remote addresses, connect following Happy Eyeballs (RFC 8305):
+     *                               addresses are tried in turns of alternating families, and the next attempt starts after this delay
+     *                               or as soon as the previous one fails, while the previous ones are still pending
+     */
+    public NettyChannelConnector(InetAddress localAddress, List<InetSocketAddress> remoteAddresses, AsyncHandler<?> asyncHandler, AsyncHttpClientState clientState,
+                                 Duration connectionAttemptDelay) {
         this.localAddress = localAddress != null ? new InetSocketAddress(localAddress, 0) : null;
-        this.remoteAddresses = remoteAddresses;
+        this.connectionAttemptDelay = connectionAttemptDelay.toMillis();
+        this.remoteAddresses = this.connectionAttemptDelay > 0 && remoteAddresses.size() > 1 ? interleaveAddressFamilies(remoteAddresses) : remoteAddresses;
         this.asyncHandler = asyncHandler;
         this.clientState = clientState;
     }
 
+    /**
+     * Reorders addresses so that families alternate, starting with the family of the first one, as preferred by the resolver.
+     */
+    static List<InetSocketAddress> interleaveAddressFamilies(List<InetSocketAddress> addresses) {
+        boolean preferIpv6 = addresses.get(0).getAddress() instanceof Inet6Address;
+        List<InetSocketAddress> preferred = new ArrayList<>(addresses.size());
+        List<InetSocketAddress> others = new ArrayList<>(addresses.size());
+        for (InetSocketAddress address : addresses) {
+            (address.getAddress() instanceof Inet6Address == preferIpv6 ? preferred : others).add(address);
+        }
+
+        List<InetSocketAddress> interleaved = new ArrayList<>(addresses.size());
+        for (int i = 0; i < preferred.size() || i < others.size(); i++) {
+            if (i < preferred.size()) {
+                interleaved.add(preferred.get(i));
+            }
+            if (i < others.size()) {
+                interleaved.add(others.get(i));
+            }
+        }
+        return interleaved;
+    }
+
     private boolean pickNextRemoteAddress() {
         I_UPDATER.incrementAndGet(this);
         return i < remoteAddresses.size();
     }
 
     public void connect(final Bootstrap bootstrap, final NettyConnectListener<?> connectListener) {
+        if (connectionAttemptDelay > 0 && remoteAddresses.size() > 1) {
+            new ConnectionRace(bootstrap, connectListener).startNextAttempt();
+            return;
+        }
+
         final InetSocketAddress remoteAddress = remoteAddresses.get(i);
 
         try {
@@ -109,4 +155,152 @@ public class NettyChannelConnector {
                     }
                 });
     }
+
+    /**
+     * Concurrent connection attempts to the remote addresses, the first one to succeed wins and the others get closed.
+     * Only the winner is handed to the {@link NettyConnectListener}, so it alone carries the connection permit of the request.
+     */
+    private final class ConnectionRace {
+
+        private final Bootstrap bootstrap;
+        private final NettyConnectListener<?> connectListener;
+        // guarded by this
+        private final List<ChannelFuture> attempts = new ArrayList<>(remoteAddresses.size());
+        private int nextAddress;
+        private int pendingAttempts;
+        private boolean done;
+        private ScheduledFuture<?> nextAttempt;
+
+        ConnectionRace(Bootstrap bootstrap, NettyConnectListener<?> connectListener) {
+            this.bootstrap = bootstrap;
+            this.connectListener = connectListener;
+        }
+
+        void startNextAttempt() {
+            final InetSocketAddress remoteAddress;
+            synchronized (this) {
+                if (done || nextAddress == remoteAddresses.size()) {
+                    return;
+                }
+                remoteAddress = remoteAddresses.get(nextAddress++);
+                pendingAttempts++;
+            }
+
+            try {
+                asyncHandler.onTcpConnectAttempt(remoteAddress);
+            } catch (Exception e) {
+                LOGGER.error("onTcpConnectAttempt crashed", e);
+                lose(null, e);
+                return;
+            }
+
+            final ChannelFuture attempt;
+            try {
+                attempt = bootstrap.connect(remoteAddress, localAddress);
+            } catch (RejectedExecutionException e) {
+                if (clientState.isClosed()) {
+                    LOGGER.info("Connect crash but engine is shutting down");
+                } else {
+                    lose(null, e);
+                }
+                return;
+            }
+
+            synchronized (this) {
+                if (done) {
+                    Channels.silentlyCloseChannel(attempt.channel());
+                    return;
+                }
+                attempts.add(attempt);
+                if (nextAddress < remoteAddresses.size()) {
+                    nextAttempt = bootstrap.config().group().next().schedule(this::startNextAttempt, connectionAttemptDelay, TimeUnit.MILLISECONDS);
+                }
+            }
+
+            attempt.addListener(new SimpleChannelFutureListener() {
+                @Override
+                public void onSuccess(Channel channel) {
+                    win(channel, remoteAddress);
+                }
+
+                @Override
+                public void onFailure(Channel channel, Throwable t) {
+                    synchronized (ConnectionRace.this) {
+                        if (done) {
+                            // closed because another attempt won
+                            return;
+                        }
+                    }
+                    try {
+                        asyncHandler.onTcpConnectFailure(remoteAddress, t);
+                    } catch (Exception e) {
+                        LOGGER.error("onTcpConnectFailure crashed", e);
+                        lose(channel, e);
+                        return;
+                    }
+                    lose(channel, t);
+                }
+            });
+        }
+
+        private void win(Channel channel, InetSocketAddress remoteAddress) {
+            List<ChannelFuture> losers;
+            synchronized (this) {
+                if (done) {
+                    Channels.silentlyCloseChannel(channel);
+                    return;
+                }
+                done = true;
+                cancelNextAttempt();
+                losers = new ArrayList<>(attempts);
+            }
+
+            for (ChannelFuture loser : losers) {
+                if (loser.channel() != channel) {
+                    Channels.silentlyCloseChannel(loser.channel());
+                }
+            }
+
+            try {
+                asyncHandler.onTcpConnectSuccess(remoteAddress, channel);
+            } catch (Exception e) {
+                LOGGER.error("onTcpConnectSuccess crashed", e);
+                connectListener.onFailure(channel, e);
+                return;
+            }
+            connectListener.onSuccess(channel, remoteAddress);
+        }
+
+        /**
+         * An attempt failed: start the next one right away, or give up when it was the last one.
+         */
+        private void lose(Channel channel, Throwable cause) {
+            boolean lost;
+            synchronized (this) {
+                if (done) {
+                    return;
+                }
+                pendingAttempts--;
+                lost = pendingAttempts == 0 && nextAddress == remoteAddresses.size();
+                if (lost) {
+                    done = true;
+                } else {
+                    cancelNextAttempt();
+                }
+            }
+
+            if (lost) {
+                connectListener.onFailure(channel, cause);
+            } else {
+                startNextAttempt();
+            }
+        }
+
+        private void cancelNextAttempt() {
+            if (nextAttempt != null) {
+                nextAttempt.cancel(false);
+                nextAttempt = null;
+            }
+        }
+    }
 }
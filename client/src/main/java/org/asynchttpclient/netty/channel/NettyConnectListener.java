@@ -16,13 +16,15 @@
 package org.asynchttpclient.netty.channel;
 
 import io.netty.channel.Channel;
+import io.netty.channel.ConnectTimeoutException;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.handler.ssl.SslHandler;
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.Request;
+import org.asynchttpclient.metrics.RequestPhase;
 import org.asynchttpclient.netty.NettyResponseFuture;
 import org.asynchttpclient.netty.SimpleFutureListener;
-import org.asynchttpclient.netty.future.StackTraceInspector;
 import org.asynchttpclient.netty.request.NettyRequestSender;
 import org.asynchttpclient.netty.timeout.TimeoutsHolder;
 import org.asynchttpclient.proxy.ProxyServer;
@@ -30,6 +32,7 @@ import org.asynchttpclient.uri.Uri;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
+import javax.net.ssl.SSLSession;
 import java.net.ConnectException;
 import java.net.InetSocketAddress;
 
@@ -44,6 +47,9 @@ public final class NettyConnectListener<T> {
     private final NettyResponseFuture<T> future;
     private final ChannelManager channelManager;
     private final ConnectionSemaphore connectionSemaphore;
+    private final long connectStart = System.nanoTime();
+    // host the connection attempt in flight is counted for
+    private String connectingHost;
 
     public NettyConnectListener(NettyResponseFuture<T> future, NettyRequestSender requestSender, ChannelManager channelManager, ConnectionSemaphore connectionSemaphore) {
         this.future = future;
@@ -66,6 +72,14 @@ public final class NettyConnectListener<T> {
             return;
         }
 
+        if (future.isConnectOnly()) {
+            LOGGER.debug("Offering new Channel '{}' to the pool", channel);
+            channelManager.registerOpenChannel(channel);
+            channelManager.tryToOfferChannelToPool(channel, future.getAsyncHandler(), true, future.getPartitionKey());
+            future.done();
+            return;
+        }
+
         if (LOGGER.isDebugEnabled()) {
             HttpRequest httpRequest = future.getNettyRequest().getHttpRequest();
             LOGGER.debug("Using new Channel '{}' for '{}' to '{}'", channel, httpRequest.method(), httpRequest.uri());
@@ -78,7 +92,63 @@ public final class NettyConnectListener<T> {
         requestSender.writeRequest(future, channel);
     }
 
+    private void writeRequestOnHttp2Stream(Channel connection) {
+        if (futureIsAlreadyCancelled(connection)) {
+            return;
+        }
+
+        channelManager.registerOpenChannel(connection);
+        channelManager.upgradePipelineForHttp2(connection, future.getPartitionKey());
+        if (future.isConnectOnly()) {
+            // the connection was just made available to the requests of its partition
+            future.done();
+            return;
+        }
+
+        channelManager.openHttp2Stream(connection).addListener(new SimpleFutureListener<Http2StreamChannel>() {
+            @Override
+            protected void onSuccess(Http2StreamChannel stream) {
+                if (futureIsAlreadyCancelled(stream)) {
+                    return;
+                }
+
+                if (LOGGER.isDebugEnabled()) {
+                    HttpRequest httpRequest = future.getNettyRequest().getHttpRequest();
+                    LOGGER.debug("Using new HTTP/2 stream '{}' for '{}' to '{}'", stream, httpRequest.method(), httpRequest.uri());
+                }
+
+                Channels.setActiveToken(stream);
+                Channels.setAttribute(stream, future);
+                future.attachChannel(stream, false);
+                requestSender.writeRequest(future, stream);
+            }
+
+            @Override
+            protected void onFailure(Throwable cause) {
+                NettyConnectListener.this.onFailure(connection, cause);
+            }
+        });
+    }
+
+    /**
+     * Must be called right before connecting, so that the attempt is counted in the stats of its host until it completes.
+     */
+    public void onConnectAttempt() {
+        connectingHost = ConnectionStats.connectionHost(future.getTargetRequest().getUri(), future.getProxyServer());
+        channelManager.getConnectionStats().connectAttemptStarted(connectingHost);
+    }
+
+    private void onConnectAttemptDone() {
+        if (connectingHost != null) {
+            channelManager.getConnectionStats().connectAttemptDone(connectingHost);
+            connectingHost = null;
+        }
+    }
+
     public void onSuccess(Channel channel, InetSocketAddress remoteAddress) {
+        onConnectAttemptDone();
+        future.recordPhase(RequestPhase.CONNECT, connectStart);
+
         if (connectionSemaphore != null) {
             // transfer lock from future to channel
             Object partitionKeyLock = future.takePartitionKeyLock();
@@ -102,6 +172,8 @@ public final class NettyConnectListener<T> {
 
         // in case of proxy tunneling, we'll add the SslHandler later, after the CONNECT request
         if ((proxyServer == null || proxyServer.getProxyType().isSocks()) && uri.isSecured()) {
+            long tlsStart = System.nanoTime();
+            long tlsStartMillis = System.currentTimeMillis();
             SslHandler sslHandler;
             try {
                 sslHandler = channelManager.addSslHandler(channel.pipeline(), uri, request.getVirtualHost(), proxyServer != null);
@@ -123,14 +195,24 @@ public final class NettyConnectListener<T> {
             sslHandler.handshakeFuture().addListener(new SimpleFutureListener<Channel>() {
                 @Override
                 protected void onSuccess(Channel value) {
+                    future.recordPhase(RequestPhase.TLS, tlsStart);
+                    SSLSession session = sslHandler.engine().getSession();
+                    future.recordTlsHandshake(isResumed(session, tlsStartMillis));
                     try {
-                        asyncHandler.onTlsHandshakeSuccess(sslHandler.engine().getSession());
+                        asyncHandler.onTlsHandshakeSuccess(session);
                     } catch (Exception e) {
                         LOGGER.error("onTlsHandshakeSuccess crashed", e);
                         NettyConnectListener.this.onFailure(channel, e);
                         return;
                     }
-                    writeRequest(channel);
+
+                    // requests are only written once the handshake completed, even when resuming a TLS 1.3 session:
+                    // neither the JDK provider nor netty's SslHandler can send early data (0-RTT) from a client
+                    if (channelManager.isHttp2Negotiated(sslHandler)) {
+                        writeRequestOnHttp2Stream(channel);
+                    } else {
+                        writeRequest(channel);
+                    }
                 }
 
                 @Override
@@ -151,16 +233,30 @@ public final class NettyConnectListener<T> {
         }
     }
 
+    /**
+     * Neither the JDK nor OpenSSL tell if a client handshake was abbreviated, but both keep the creation time of a resumed session,
+     * while a full handshake creates a new one.
+     */
+    private static boolean isResumed(SSLSession session, long handshakeStartMillis) {
+        return session.getCreationTime() < handshakeStartMillis;
+    }
+
     public void onFailure(Channel channel, Throwable cause) {
 
+        onConnectAttemptDone();
+
         // beware, channel can be null
         Channels.silentlyCloseChannel(channel);
 
+        if (cause instanceof ConnectTimeoutException) {
+            future.recordTimeout();
+        }
+
         boolean canRetry = future.incrementRetryAndCheck();
         LOGGER.debug("Trying to recover from failing to connect channel {} with a retry value of {} ", channel, canRetry);
         if (canRetry//
                 && cause != null // FIXME when can we have a null cause?
-                && (future.getChannelState() != ChannelState.NEW || StackTraceInspector.recoverOnNettyDisconnectException(cause))) {
+                && (future.getChannelState() != ChannelState.NEW || future.getFailureClassifier().isRetriableConnectFailure(cause))) {
 
             if (requestSender.retry(future)) {
                 return;
@@ -0,0 +1,273 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.util.Timeout;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.asynchttpclient.exception.TooManyConnectionsException;
+import org.asynchttpclient.exception.TooManyConnectionsPerHostException;
+
+import java.io.IOException;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.Iterator;
+import java.util.LinkedHashSet;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.asynchttpclient.util.ThrowableUtil.unknownStackTrace;
+
+/**
+ * A {@link ConnectionSemaphore} with a global limit and a per-host limit that never parks the acquiring thread.
+ * <p>
+ * Requests that can't get a permit right away wait in a FIFO queue per partition and are granted one as soon as
+ * {@link #releaseChannelLock(Object)} frees a slot, or fail once the acquire timeout, scheduled on the Netty timer, expires.
+ * When the global limit is what holds requests back, freed slots are handed to the waiting partitions in a round-robin fashion.
+ */
+public class NonBlockingConnectionSemaphore implements ConnectionSemaphore {
+
+    protected final int maxConnections;
+    protected final int maxConnectionsPerHost;
+    protected final int acquireTimeout;
+    protected final IOException tooManyConnections;
+    protected final IOException tooManyConnectionsPerHost;
+    private final Timer nettyTimer;
+
+    // guarded by this
+    private final Map<Object, Partition> partitions = new HashMap<>();
+    // partitions with waiters, in the order they should be served when a slot frees up, guarded by this
+    private final LinkedHashSet<Partition> waitingPartitions = new LinkedHashSet<>();
+    private int acquired;
+
+    NonBlockingConnectionSemaphore(int maxConnections, int maxConnectionsPerHost, int acquireTimeout, Timer nettyTimer) {
+        tooManyConnections = unknownStackTrace(new TooManyConnectionsException(maxConnections),
+                NonBlockingConnectionSemaphore.class, "acquireChannelLock");
+        tooManyConnectionsPerHost = unknownStackTrace(new TooManyConnectionsPerHostException(maxConnectionsPerHost),
+                NonBlockingConnectionSemaphore.class, "acquireChannelLock");
+        this.maxConnections = maxConnections;
+        this.maxConnectionsPerHost = maxConnectionsPerHost;
+        this.acquireTimeout = Math.max(0, acquireTimeout);
+        this.nettyTimer = nettyTimer;
+    }
+
+    @Override
+    public void acquireChannelLock(Object partitionKey) throws IOException {
+        Future<Void> whenAcquired = acquireChannelLockAsync(partitionKey).awaitUninterruptibly();
+        if (!whenAcquired.isSuccess()) {
+            throw (IOException) whenAcquired.cause();
+        }
+    }
+
+    @Override
+    public Future<Void> acquireChannelLockAsync(Object partitionKey) {
+        Promise<Void> promise = ImmediateEventExecutor.INSTANCE.newPromise();
+        IOException failure = null;
+
+        synchronized (this) {
+            Partition partition = partitions.computeIfAbsent(partitionKey, Partition::new);
+            if (partition.waiters.isEmpty() && canAcquire(partition)) {
+                acquire(partition);
+            } else if (acquireTimeout > 0) {
+                Waiter waiter = new Waiter(partition, promise);
+                partition.waiters.add(waiter);
+                waitingPartitions.add(partition);
+                waiter.timeout = nettyTimer.newTimeout(timeout -> expire(waiter), acquireTimeout, TimeUnit.MILLISECONDS);
+                return promise;
+            } else {
+                failure = failure(partition);
+                removeIfUnused(partition);
+            }
+        }
+
+        // complete outside of the lock, listeners might call back into the semaphore
+        return failure == null ? promise.setSuccess(null) : promise.setFailure(failure);
+    }
+
+    @Override
+    public void releaseChannelLock(Object partitionKey) {
+        List<Waiter> granted = new ArrayList<>(1);
+
+        synchronized (this) {
+            Partition partition = partitions.get(partitionKey);
+            if (partition == null || partition.acquired == 0) {
+                // unbalanced release, nothing to give back
+                return;
+            }
+            partition.acquired--;
+            acquired--;
+
+            // the freed slot goes to the same host first, then to the other hosts waiting on the global limit
+            grant(partition, granted);
+            if (maxConnections > 0 && partition.waiters.isEmpty()) {
+                grantToWaitingPartitions(granted);
+            }
+            removeIfUnused(partition);
+        }
+
+        complete(granted);
+    }
+
+    /**
+     * Grants permits to the requests waiting on a partition whose {@link #partitionLimit(Object)} was raised.
+     *
+     * @param partitionKey the partition
+     */
+    protected void onPartitionLimitRaised(Object partitionKey) {
+        List<Waiter> granted = new ArrayList<>(1);
+
+        synchronized (this) {
+            Partition partition = partitions.get(partitionKey);
+            if (partition == null) {
+                return;
+            }
+            grant(partition, granted);
+        }
+
+        complete(granted);
+    }
+
+    private static void complete(List<Waiter> granted) {
+        for (Waiter waiter : granted) {
+            waiter.timeout.cancel();
+            waiter.promise.setSuccess(null);
+        }
+    }
+
+    private void grant(Partition partition, List<Waiter> granted) {
+        while (!partition.waiters.isEmpty() && canAcquire(partition)) {
+            acquire(partition);
+            granted.add(partition.waiters.poll());
+        }
+        if (partition.waiters.isEmpty()) {
+            waitingPartitions.remove(partition);
+        }
+    }
+
+    private void grantToWaitingPartitions(List<Waiter> granted) {
+        Iterator<Partition> it = waitingPartitions.iterator();
+        while (acquired < maxConnections && it.hasNext()) {
+            Partition partition = it.next();
+            if (canAcquire(partition)) {
+                acquire(partition);
+                granted.add(partition.waiters.poll());
+                it.remove();
+                if (!partition.waiters.isEmpty()) {
+                    // served, go to the back of the line
+                    waitingPartitions.add(partition);
+                    break;
+                }
+            }
+        }
+    }
+
+    private void expire(Waiter waiter) {
+        IOException failure;
+        synchronized (this) {
+            Partition partition = waiter.partition;
+            if (!partition.waiters.remove(waiter)) {
+                // already granted
+                return;
+            }
+            if (partition.waiters.isEmpty()) {
+                waitingPartitions.remove(partition);
+            }
+            failure = failure(partition);
+            removeIfUnused(partition);
+        }
+        waiter.promise.setFailure(failure);
+    }
+
+    private boolean canAcquire(Partition partition) {
+        int partitionLimit = partitionLimit(partition.partitionKey);
+        return (maxConnections <= 0 || acquired < maxConnections) && (partitionLimit <= 0 || partition.acquired < partitionLimit);
+    }
+
+    /**
+     * Called while holding the lock of the semaphore.
+     *
+     * @param partitionKey the partition
+     * @return the maximum number of connections of the partition, or a non-positive value if there's none
+     */
+    protected int partitionLimit(Object partitionKey) {
+        return maxConnectionsPerHost;
+    }
+
+    /**
+     * Called while holding the lock of the semaphore.
+     *
+     * @param partitionKey the partition
+     * @return the number of permits held by the partition
+     */
+    protected int acquiredCount(Object partitionKey) {
+        Partition partition = partitions.get(partitionKey);
+        return partition != null ? partition.acquired : 0;
+    }
+
+    private void acquire(Partition partition) {
+        partition.acquired++;
+        acquired++;
+    }
+
+    private IOException failure(Partition partition) {
+        int partitionLimit = partitionLimit(partition.partitionKey);
+        return partitionLimit > 0 && partition.acquired >= partitionLimit ? tooManyConnectionsPerHost : tooManyConnections;
+    }
+
+    private void removeIfUnused(Partition partition) {
+        if (partition.acquired == 0 && partition.waiters.isEmpty()) {
+            partitions.remove(partition.partitionKey);
+        }
+    }
+
+    /**
+     * Return the number of waiting requests.
+     *
+     * @return the number of requests waiting for a permit
+     */
+    public synchronized int getWaitingCount() {
+        int count = 0;
+        for (Partition partition : waitingPartitions) {
+            count += partition.waiters.size();
+        }
+        return count;
+    }
+
+    private static final class Partition {
+        private final Object partitionKey;
+        private final ArrayDeque<Waiter> waiters = new ArrayDeque<>();
+        private int acquired;
+
+        private Partition(Object partitionKey) {
+            this.partitionKey = partitionKey;
+        }
+    }
+
+    private static final class Waiter {
+        private final Partition partition;
+        private final Promise<Void> promise;
+        private Timeout timeout;
+
+        private Waiter(Partition partition, Promise<Void> promise) {
+            this.partition = partition;
+            this.promise = promise;
+        }
+    }
+}
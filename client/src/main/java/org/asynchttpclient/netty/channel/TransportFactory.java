@@ -18,10 +18,22 @@ package org.asynchttpclient.netty.channel;
 import io.netty.channel.Channel;
 import io.netty.channel.ChannelFactory;
 import io.netty.channel.EventLoopGroup;
+import io.netty.channel.socket.DatagramChannel;
 
 import java.util.concurrent.ThreadFactory;
 
 public interface TransportFactory<C extends Channel, L extends EventLoopGroup> extends ChannelFactory<C> {
 
     L newEventLoopGroup(int ioThreadsCount, ThreadFactory threadFactory);
+
+    /**
+     * Return the factory of the datagram channels the DNS cache queries name servers with, see
+     * {@link org.asynchttpclient.AsyncHttpClientConfig#isUseDnsCache()}.
+     *
+     * @return a factory of datagram channels that can be registered on the event loops of this transport
+     * @throws UnsupportedOperationException if this transport has no datagram channels
+     */
+    default ChannelFactory<? extends DatagramChannel> datagramChannelFactory() {
+        throw new UnsupportedOperationException(getClass().getSimpleName() + " doesn't support datagram channels");
+    }
 }
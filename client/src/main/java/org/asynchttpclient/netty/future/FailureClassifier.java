@@ -0,0 +1,132 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.future;
+
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.unix.Errors;
+
+import java.io.IOException;
+import java.net.ConnectException;
+import java.net.NoRouteToHostException;
+import java.nio.channels.ClosedChannelException;
+import java.util.Arrays;
+import java.util.HashSet;
+import java.util.Set;
+
+/**
+ * Decides whether a request that failed on an I/O error can be retried, from the types of the exceptions of the cause chain.
+ * <p>
+ * Stack traces are never inspected, so classifying a failure doesn't cost more than a few type checks, even when exceptions are
+ * created without stack traces. Subclasses can recognize other failures and defer to these methods for the others.
+ */
+public class FailureClassifier {
+
+    public static final FailureClassifier DEFAULT = new FailureClassifier();
+
+    // bounds the walk of the cause chain, which could be a cycle
+    private static final int MAX_CAUSE_DEPTH = 8;
+
+    // the messages of the IOExceptions the NIO transport throws when the remote peer closed the connection
+    private static final Set<String> NIO_CONNECTION_CLOSED_MESSAGES = new HashSet<>(Arrays.asList(
+            "Connection reset by peer",
+            "Connection reset",
+            "Broken pipe",
+            "An existing connection was forcibly closed by the remote host"));
+
+    private static final boolean NATIVE_IO_EXCEPTION_AVAILABLE = isNativeIoExceptionAvailable();
+
+    private static boolean isNativeIoExceptionAvailable() {
+        try {
+            Class.forName("io.netty.channel.unix.Errors$NativeIoException", false, FailureClassifier.class.getClassLoader());
+            return true;
+        } catch (ClassNotFoundException | LinkageError e) {
+            return false;
+        }
+    }
+
+    /**
+     * Tell if a request failing on a pooled channel can be retried.
+     *
+     * @param t the failure of a read from, or a write to, a pooled channel
+     * @return true if the remote peer closed the channel, so that the request can be retried on a new one
+     */
+    public boolean isRetriableReadOrWriteFailure(Throwable t) {
+        Throwable cause = t;
+        for (int i = 0; i < MAX_CAUSE_DEPTH && cause != null; i++) {
+            if (cause instanceof ClosedChannelException) {
+                return true;
+            }
+            if (cause instanceof IOException) {
+                if (NATIVE_IO_EXCEPTION_AVAILABLE && NativeErrors.isConnectionClosed(cause)) {
+                    return true;
+                }
+                String message = cause.getMessage();
+                if (message != null && NIO_CONNECTION_CLOSED_MESSAGES.contains(message)) {
+                    return true;
+                }
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * Tell if a request whose connection failed can be retried.
+     *
+     * @param t the failure of the connection of a new channel
+     * @return true if the connection was refused, reset or closed, so that the request can be retried
+     */
+    public boolean isRetriableConnectFailure(Throwable t) {
+        Throwable cause = t;
+        for (int i = 0; i < MAX_CAUSE_DEPTH && cause != null; i++) {
+            if (cause instanceof ConnectTimeoutException) {
+                // the connect timeout is a deadline, not a reason to try again
+                return false;
+            }
+            if (cause instanceof ClosedChannelException || cause instanceof ConnectException || cause instanceof NoRouteToHostException) {
+                return true;
+            }
+            if (NATIVE_IO_EXCEPTION_AVAILABLE && cause instanceof IOException && NativeErrors.isConnectFailure(cause)) {
+                return true;
+            }
+            cause = cause.getCause();
+        }
+        return false;
+    }
+
+    /**
+     * Only loaded once a native transport is known to be available, as {@link Errors} reads its errno values from the native library.
+     */
+    private static final class NativeErrors {
+
+        static boolean isConnectionClosed(Throwable t) {
+            if (t instanceof Errors.NativeIoException) {
+                int errno = ((Errors.NativeIoException) t).expectedErr();
+                return errno == Errors.ERRNO_ECONNRESET_NEGATIVE || errno == Errors.ERRNO_EPIPE_NEGATIVE || errno == Errors.ERRNO_ENOTCONN_NEGATIVE;
+            }
+            return false;
+        }
+
+        static boolean isConnectFailure(Throwable t) {
+            if (t instanceof Errors.NativeIoException) {
+                int errno = ((Errors.NativeIoException) t).expectedErr();
+                return errno == Errors.ERROR_ECONNREFUSED_NEGATIVE || errno == Errors.ERRNO_ECONNRESET_NEGATIVE
+                        || errno == Errors.ERROR_ENETUNREACH_NEGATIVE || errno == Errors.ERROR_EHOSTUNREACH_NEGATIVE;
+            }
+            return false;
+        }
+    }
+}
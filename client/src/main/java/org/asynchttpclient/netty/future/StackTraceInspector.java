@@ -15,66 +15,29 @@
  */
 package org.asynchttpclient.netty.future;
 
-import java.io.IOException;
-import java.nio.channels.ClosedChannelException;
-
+/**
+ * @deprecated failures are classified by the types of their exceptions, use {@link FailureClassifier#DEFAULT}.
+ */
+@Deprecated
 public final class StackTraceInspector {
 
     private StackTraceInspector() {
         // Prevent outside initialization
     }
 
-    private static boolean exceptionInMethod(Throwable t, String className, String methodName) {
-        try {
-            for (StackTraceElement element : t.getStackTrace()) {
-                if (element.getClassName().equals(className) && element.getMethodName().equals(methodName)) {
-                    return true;
-                }
-            }
-        } catch (Throwable ignore) {
-        }
-        return false;
-    }
-
-    private static boolean recoverOnConnectCloseException(Throwable t) {
-        while (true) {
-            if (exceptionInMethod(t, "sun.nio.ch.SocketChannelImpl", "checkConnect")) {
-                return true;
-            }
-            if (t.getCause() == null) {
-                return false;
-            }
-            t = t.getCause();
-        }
-    }
-
+    /**
+     * @deprecated use {@link FailureClassifier#isRetriableConnectFailure(Throwable)}
+     */
+    @Deprecated
     public static boolean recoverOnNettyDisconnectException(Throwable t) {
-        return t instanceof ClosedChannelException
-                || exceptionInMethod(t, "io.netty.handler.ssl.SslHandler", "disconnect")
-                || t.getCause() != null && recoverOnConnectCloseException(t.getCause());
+        return FailureClassifier.DEFAULT.isRetriableConnectFailure(t);
     }
 
+    /**
+     * @deprecated use {@link FailureClassifier#isRetriableReadOrWriteFailure(Throwable)}
+     */
+    @Deprecated
     public static boolean recoverOnReadOrWriteException(Throwable t) {
-        while (true) {
-            if (t instanceof IOException && "Connection reset by peer".equalsIgnoreCase(t.getMessage())) {
-                return true;
-            }
-
-            try {
-                for (StackTraceElement element : t.getStackTrace()) {
-                    String className = element.getClassName();
-                    String methodName = element.getMethodName();
-                    if ("sun.nio.ch.SocketDispatcher".equals(className) && ("read".equals(methodName) || "write".equals(methodName))) {
-                        return true;
-                    }
-                }
-            } catch (Throwable ignore) {
-            }
-
-            if (t.getCause() == null) {
-                return false;
-            }
-            t = t.getCause();
-        }
+        return FailureClassifier.DEFAULT.isRetriableReadOrWriteFailure(t);
     }
 }
@@ -28,7 +28,6 @@ import org.asynchttpclient.netty.NettyResponseFuture;
 import org.asynchttpclient.netty.OnLastHttpContentCallback;
 import org.asynchttpclient.netty.channel.ChannelManager;
 import org.asynchttpclient.netty.channel.Channels;
-import org.asynchttpclient.netty.future.StackTraceInspector;
 import org.asynchttpclient.netty.handler.intercept.Interceptors;
 import org.asynchttpclient.netty.request.NettyRequestSender;
 import org.slf4j.Logger;
@@ -143,7 +142,7 @@ public abstract class AsyncHttpClientHandler extends ChannelInboundHandlerAdapte
                     }
                 }
 
-                if (StackTraceInspector.recoverOnReadOrWriteException(cause)) {
+                if (config.getFailureClassifier().isRetriableReadOrWriteFailure(cause)) {
                     logger.debug("Trying to recover from dead Channel: {}", channel);
                     future.pendingException = cause;
                     return;
@@ -178,7 +177,10 @@ public abstract class AsyncHttpClientHandler extends ChannelInboundHandlerAdapte
 
     @Override
     public void channelReadComplete(ChannelHandlerContext ctx) {
-        ctx.read();
+        // reads are driven by the consumer when auto-read has been turned off, e.g. by a StreamedResponsePublisher
+        if (ctx.channel().config().isAutoRead()) {
+            ctx.read();
+        }
     }
 
     void finishUpdate(NettyResponseFuture<?> future, Channel channel, boolean close) {
@@ -23,14 +23,19 @@ import io.netty.handler.codec.http.HttpContent;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpRequest;
 import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpStatusClass;
 import io.netty.handler.codec.http.LastHttpContent;
 import org.asynchttpclient.AsyncHandler;
 import org.asynchttpclient.AsyncHandler.State;
 import org.asynchttpclient.AsyncHttpClientConfig;
 import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.channel.KeepAliveStrategy;
+import org.asynchttpclient.handler.StreamedAsyncHandler;
+import org.asynchttpclient.metrics.RequestPhase;
 import org.asynchttpclient.netty.NettyResponseFuture;
 import org.asynchttpclient.netty.NettyResponseStatus;
 import org.asynchttpclient.netty.channel.ChannelManager;
+import org.asynchttpclient.netty.channel.Channels;
 import org.asynchttpclient.netty.request.NettyRequestSender;
 
 import java.io.IOException;
@@ -55,19 +60,40 @@ public final class HttpHandler extends AsyncHttpClientHandler {
         HttpRequest httpRequest = future.getNettyRequest().getHttpRequest();
         logger.debug("\n\nRequest {}\n\nResponse {}\n", httpRequest, response);
 
-        future.setKeepAlive(config.getKeepAliveStrategy().keepAlive((InetSocketAddress) channel.remoteAddress(), future.getTargetRequest(), httpRequest, response));
+        if (response.status().codeClass() != HttpStatusClass.INFORMATIONAL) {
+            future.recordPhase(RequestPhase.TIME_TO_FIRST_BYTE, future.getRequestSendNanos());
+        }
+
+        KeepAliveStrategy keepAliveStrategy = config.getKeepAliveStrategy();
+        InetSocketAddress remoteAddress = (InetSocketAddress) channel.remoteAddress();
+        boolean keepAlive = keepAliveStrategy.keepAlive(remoteAddress, future.getTargetRequest(), httpRequest, response);
+        future.setKeepAlive(keepAlive);
+        if (keepAlive) {
+            Channels.setIdleTimeout(channel, keepAliveStrategy.idleTimeout(remoteAddress, future.getTargetRequest(), httpRequest, response));
+        }
 
         NettyResponseStatus status = new NettyResponseStatus(future.getUri(), response, channel);
         HttpHeaders responseHeaders = response.headers();
 
         if (!interceptors.exitAfterIntercept(channel, future, handler, response, status, responseHeaders)) {
-            boolean abort = abortAfterHandlingStatus(handler, status) || abortAfterHandlingHeaders(handler, responseHeaders);
+            boolean abort = abortAfterHandlingStatus(handler, status) || abortAfterHandlingHeaders(handler, responseHeaders)
+                    || (handler instanceof StreamedAsyncHandler && abortAfterHandlingStream((StreamedAsyncHandler<?>) handler, channel, future));
             if (abort) {
                 finishUpdate(future, channel, true);
             }
         }
     }
 
+    private static boolean abortAfterHandlingStream(StreamedAsyncHandler<?> handler, Channel channel, NettyResponseFuture<?> future) throws Exception {
+        StreamedResponsePublisher publisher = new StreamedResponsePublisher(channel, future);
+        if (handler.onStream(publisher) == State.ABORT) {
+            channel.config().setAutoRead(true);
+            return true;
+        }
+        future.setStreamedResponsePublisher(publisher);
+        return false;
+    }
+
     private void handleChunk(HttpContent chunk, final Channel channel, final NettyResponseFuture<?> future, AsyncHandler<?> handler) throws Exception {
         boolean abort = false;
         boolean last = chunk instanceof LastHttpContent;
@@ -82,7 +108,16 @@ public final class HttpHandler extends AsyncHttpClientHandler {
         }
 
         ByteBuf buf = chunk.content();
-        if (!abort && (buf.isReadable() || last)) {
+        StreamedResponsePublisher publisher = future.getStreamedResponsePublisher();
+        if (publisher != null) {
+            if (buf.isReadable()) {
+                publisher.onChunk(buf);
+            }
+            if (last) {
+                future.setStreamedResponsePublisher(null);
+                publisher.onLastChunk();
+            }
+        } else if (!abort && (buf.isReadable() || last)) {
             HttpResponseBodyPart bodyPart = config.getResponseBodyPartFactory().newResponseBodyPart(buf, last);
             abort = handler.onBodyPartReceived(bodyPart) == State.ABORT;
         }
@@ -0,0 +1,216 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.handler;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.channel.Channel;
+import io.netty.util.concurrent.EventExecutor;
+import org.asynchttpclient.netty.NettyResponseFuture;
+import org.jetbrains.annotations.Nullable;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.util.ArrayDeque;
+import java.util.Queue;
+import java.util.concurrent.Flow;
+
+/**
+ * Publishes the body chunks of a response, reading from the channel on the subscriber's demand only: auto-read is disabled
+ * for the duration of the body and each {@link Flow.Subscription#request(long)} triggers a {@link Channel#read()}.
+ * <p>
+ * Everything but {@link #subscribe(Flow.Subscriber)} and the subscription methods runs on the channel's event loop, and those
+ * hop onto it, so the state doesn't need any synchronization.
+ */
+public class StreamedResponsePublisher implements Flow.Publisher<ByteBuf>, Flow.Subscription {
+
+    private static final Logger LOGGER = LoggerFactory.getLogger(StreamedResponsePublisher.class);
+
+    private final Channel channel;
+    private final EventExecutor executor;
+    private final NettyResponseFuture<?> future;
+    private final Queue<ByteBuf> chunks = new ArrayDeque<>();
+    private @Nullable Flow.Subscriber<? super ByteBuf> subscriber;
+    private @Nullable Throwable failure;
+    private long demand;
+    private boolean lastChunkReceived;
+    private boolean terminated;
+    private boolean draining;
+
+    StreamedResponsePublisher(Channel channel, NettyResponseFuture<?> future) {
+        this.channel = channel;
+        executor = channel.eventLoop();
+        this.future = future;
+        channel.config().setAutoRead(false);
+        future.toCompletableFuture().whenComplete((response, t) -> {
+            if (t != null) {
+                runOnEventLoop(() -> onError(t));
+            }
+        });
+    }
+
+    @Override
+    public void subscribe(Flow.Subscriber<? super ByteBuf> subscriber) {
+        runOnEventLoop(() -> {
+            if (this.subscriber != null) {
+                subscriber.onSubscribe(NoopSubscription.INSTANCE);
+                subscriber.onError(new IllegalStateException("This publisher only supports one subscriber"));
+                return;
+            }
+            this.subscriber = subscriber;
+            subscriber.onSubscribe(this);
+            if (failure != null) {
+                terminate(failure);
+            } else {
+                drain();
+            }
+        });
+    }
+
+    @Override
+    public void request(long n) {
+        runOnEventLoop(() -> {
+            if (terminated) {
+                return;
+            }
+            if (n <= 0) {
+                terminate(new IllegalArgumentException("Requested " + n + " chunks, demand must be positive"));
+                cancelRequest();
+                return;
+            }
+            demand += n;
+            if (demand < 0) {
+                // overflow, unbounded demand
+                demand = Long.MAX_VALUE;
+            }
+            drain();
+        });
+    }
+
+    @Override
+    public void cancel() {
+        runOnEventLoop(() -> {
+            if (!terminated) {
+                terminated = true;
+                subscriber = null;
+                releaseChunks();
+                cancelRequest();
+            }
+        });
+    }
+
+    void onChunk(ByteBuf chunk) {
+        if (terminated) {
+            return;
+        }
+        chunks.add(chunk.retain());
+        drain();
+    }
+
+    void onLastChunk() {
+        lastChunkReceived = true;
+        // the channel is about to be offered back to the pool
+        channel.config().setAutoRead(true);
+        drain();
+    }
+
+    void onError(Throwable t) {
+        if (terminated || failure != null) {
+            return;
+        }
+        failure = t;
+        releaseChunks();
+        if (subscriber != null) {
+            terminate(t);
+        }
+    }
+
+    private void drain() {
+        if (draining) {
+            // re-entrant request from the subscriber, the outer loop will deliver
+            return;
+        }
+        draining = true;
+        try {
+            Flow.Subscriber<? super ByteBuf> subscriber;
+            while ((subscriber = this.subscriber) != null && demand > 0 && !chunks.isEmpty()) {
+                demand--;
+                subscriber.onNext(chunks.poll());
+            }
+        } finally {
+            draining = false;
+        }
+
+        if (terminated || subscriber == null) {
+            return;
+        }
+        if (chunks.isEmpty() && lastChunkReceived) {
+            terminated = true;
+            Flow.Subscriber<? super ByteBuf> subscriber = this.subscriber;
+            this.subscriber = null;
+            subscriber.onComplete();
+        } else if (demand > 0 && !lastChunkReceived) {
+            channel.read();
+        }
+    }
+
+    private void terminate(Throwable t) {
+        terminated = true;
+        Flow.Subscriber<? super ByteBuf> subscriber = this.subscriber;
+        this.subscriber = null;
+        if (subscriber != null) {
+            subscriber.onError(t);
+        }
+    }
+
+    private void cancelRequest() {
+        releaseChunks();
+        if (!future.isDone()) {
+            // closes the channel, it can't be reused as the rest of the body wasn't read
+            future.cancel(true);
+        }
+    }
+
+    private void releaseChunks() {
+        ByteBuf chunk;
+        while ((chunk = chunks.poll()) != null) {
+            chunk.release();
+        }
+    }
+
+    private void runOnEventLoop(Runnable task) {
+        if (executor.inEventLoop()) {
+            task.run();
+        } else {
+            try {
+                executor.execute(task);
+            } catch (Exception e) {
+                LOGGER.debug("Failed to schedule on the event loop of {}", channel, e);
+            }
+        }
+    }
+
+    private enum NoopSubscription implements Flow.Subscription {
+        INSTANCE;
+
+        @Override
+        public void request(long n) {
+        }
+
+        @Override
+        public void cancel() {
+        }
+    }
+}
@@ -25,6 +25,7 @@ import io.netty.handler.codec.http.HttpHeaderValues;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.HttpMethod;
 import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http2.Http2StreamChannel;
 import io.netty.util.Timer;
 import io.netty.util.concurrent.Future;
 import io.netty.util.concurrent.ImmediateEventExecutor;
@@ -42,12 +43,15 @@ import org.asynchttpclient.exception.RemotelyClosedException;
 import org.asynchttpclient.filter.FilterContext;
 import org.asynchttpclient.filter.IOExceptionFilter;
 import org.asynchttpclient.handler.TransferCompletionHandler;
+import org.asynchttpclient.metrics.MetricsListener;
+import org.asynchttpclient.metrics.RequestPhase;
 import org.asynchttpclient.netty.NettyResponseFuture;
 import org.asynchttpclient.netty.OnLastHttpContentCallback;
 import org.asynchttpclient.netty.SimpleFutureListener;
 import org.asynchttpclient.netty.channel.ChannelManager;
 import org.asynchttpclient.netty.channel.ChannelState;
 import org.asynchttpclient.netty.channel.Channels;
+import org.asynchttpclient.netty.channel.ConnectionStats;
 import org.asynchttpclient.netty.channel.ConnectionSemaphore;
 import org.asynchttpclient.netty.channel.DefaultConnectionSemaphoreFactory;
 import org.asynchttpclient.netty.channel.NettyChannelConnector;
@@ -85,16 +89,18 @@ public final class NettyRequestSender {
     private final Timer nettyTimer;
     private final AsyncHttpClientState clientState;
     private final NettyRequestFactory requestFactory;
+    private final MetricsListener metricsListener;
 
     public NettyRequestSender(AsyncHttpClientConfig config, ChannelManager channelManager, Timer nettyTimer, AsyncHttpClientState clientState) {
         this.config = config;
         this.channelManager = channelManager;
         connectionSemaphore = config.getConnectionSemaphoreFactory() == null
-                ? new DefaultConnectionSemaphoreFactory().newConnectionSemaphore(config)
-                : config.getConnectionSemaphoreFactory().newConnectionSemaphore(config);
+                ? new DefaultConnectionSemaphoreFactory().newConnectionSemaphore(config, nettyTimer)
+                : config.getConnectionSemaphoreFactory().newConnectionSemaphore(config, nettyTimer);
         this.nettyTimer = nettyTimer;
         this.clientState = clientState;
         requestFactory = new NettyRequestFactory(config);
+        metricsListener = config.getMetricsListener();
     }
 
     public <T> ListenableFuture<T> sendRequest(final Request request, final AsyncHandler<T> asyncHandler, NettyResponseFuture<T> future) {
@@ -123,6 +129,31 @@ public final class NettyRequestSender {
         }
     }
 
+    /**
+     * Open a new connection to the host of a request without sending the request, and offer it to the pool once connected,
+     * after the TLS handshake for secured urls. The future completes with null once the connection is pooled.
+     * <p>
+     * Connections tunneled through an HTTP proxy aren't supported, as they would need the CONNECT request to be sent.
+     */
+    public <T> ListenableFuture<T> openConnection(final Request request, final AsyncHandler<T> asyncHandler) {
+        if (isClosed()) {
+            throw new IllegalStateException("Closed");
+        }
+
+        Uri uri = request.getUri();
+        if (uri.isWebSocket()) {
+            throw new IllegalArgumentException("Can't open a pooled connection for a WebSocket url: " + uri);
+        }
+        ProxyServer proxyServer = getProxyServer(config, request);
+        if (proxyServer != null && proxyServer.getProxyType().isHttp() && uri.isSecured()) {
+            throw new IllegalArgumentException("Can't open a pooled connection tunneled through an HTTP proxy: " + uri);
+        }
+
+        NettyResponseFuture<T> future = newNettyRequestAndResponseFuture(request, asyncHandler, null, proxyServer, false);
+        future.setConnectOnly(true);
+        return sendRequestWithNewChannel(request, proxyServer, future, asyncHandler);
+    }
+
     private static boolean isConnectAlreadyDone(Request request, NettyResponseFuture<?> future) {
         return future != null
                 && future.getNettyRequest() != null
@@ -138,6 +169,11 @@ public final class NettyRequestSender {
     private <T> ListenableFuture<T> sendRequestWithCertainForceConnect(Request request, AsyncHandler<T> asyncHandler, NettyResponseFuture<T> future,
                                                                        ProxyServer proxyServer, boolean performConnectRequest) {
         NettyResponseFuture<T> newFuture = newNettyRequestAndResponseFuture(request, asyncHandler, future, proxyServer, performConnectRequest);
+        Channel http2Connection = pollHttp2Connection(future, request, proxyServer);
+        if (http2Connection != null) {
+            return sendRequestWithHttp2Stream(request, proxyServer, newFuture, asyncHandler, http2Connection);
+        }
+
         Channel channel = getOpenChannel(future, request, proxyServer, asyncHandler);
         return Channels.isChannelActive(channel)
                 ? sendRequestWithOpenChannel(newFuture, asyncHandler, channel)
@@ -210,6 +246,41 @@ public final class NettyRequestSender {
         }
     }
 
+    private Channel pollHttp2Connection(NettyResponseFuture<?> future, Request request, ProxyServer proxyServer) {
+        Uri uri = request.getUri();
+        if (!config.isEnableHttp2() || !uri.isSecured() || uri.isWebSocket()
+                || (proxyServer != null && !proxyServer.getProxyType().isSocks())
+                || (future != null && future.isReuseChannel() && Channels.isChannelActive(future.channel()))) {
+            return null;
+        }
+        Channel connection = channelManager.pollHttp2Connection(uri, request.getVirtualHost(), proxyServer, request.getChannelPoolPartitioning());
+        if (connection != null) {
+            // on a miss, the HTTP/1.1 pool is looked up next
+            recordPoolLookup(request, proxyServer, true);
+        }
+        return connection;
+    }
+
+    private <T> ListenableFuture<T> sendRequestWithHttp2Stream(Request request, ProxyServer proxy, NettyResponseFuture<T> future, AsyncHandler<T> asyncHandler,
+                                                               Channel connection) {
+        channelManager.openHttp2Stream(connection).addListener(new SimpleFutureListener<Http2StreamChannel>() {
+            @Override
+            protected void onSuccess(Http2StreamChannel stream) {
+                LOGGER.debug("Using HTTP/2 stream '{}' for '{}' to '{}'", stream, request.getMethod(), request.getUri());
+                Channels.setActiveToken(stream);
+                sendRequestWithOpenChannel(future, asyncHandler, stream);
+            }
+
+            @Override
+            protected void onFailure(Throwable cause) {
+                // connection is going away, e.g. GOAWAY received or stream ids exhausted, open a new one
+                LOGGER.debug("Failed to open a stream on HTTP/2 connection {}", connection, cause);
+                sendRequestWithNewChannel(request, proxy, future, asyncHandler);
+            }
+        });
+        return future;
+    }
+
     private Channel getOpenChannel(NettyResponseFuture<?> future, Request request, ProxyServer proxyServer, AsyncHandler<?> asyncHandler) {
         if (future != null && future.isReuseChannel() && Channels.isChannelActive(future.channel())) {
             return future.channel();
@@ -275,31 +346,50 @@ public final class NettyRequestSender {
         future.setInAuth(realm != null && realm.isUsePreemptiveAuth() && realm.getScheme() != AuthScheme.NTLM);
         future.setInProxyAuth(proxyRealm != null && proxyRealm.isUsePreemptiveAuth() && proxyRealm.getScheme() != AuthScheme.NTLM);
 
-        try {
-            if (!channelManager.isOpen()) {
-                throw PoolAlreadyClosedException.INSTANCE;
-            }
-
-            // Do not throw an exception when we need an extra connection for a
-            // redirect.
-            future.acquirePartitionLockLazily();
-        } catch (Throwable t) {
-            abort(null, future, getCause(t));
-            // exit and don't try to resolve address
+        if (!channelManager.isOpen()) {
+            abort(null, future, PoolAlreadyClosedException.INSTANCE);
             return future;
         }
 
+        // with a non-blocking semaphore, the request might wait in line here until a connection is released
+        long poolWaitStart = System.nanoTime();
+        Future<Void> partitionLock = future.acquirePartitionLockLazilyAsync();
+        if (!partitionLock.isDone()) {
+            String host = ConnectionStats.connectionHost(request.getUri(), proxy);
+            channelManager.getConnectionStats().permitWaitStarted(host);
+            partitionLock.addListener(whenLocked -> channelManager.getConnectionStats().permitWaitDone(host));
+        }
+        partitionLock.addListener((Future<Void> whenLocked) -> {
+            if (whenLocked.isSuccess()) {
+                future.recordPhase(RequestPhase.POOL_WAIT, poolWaitStart);
+                if (!future.isDone()) {
+                    connectNewChannel(request, proxy, future, asyncHandler);
+                }
+            } else {
+                // exit and don't try to resolve address
+                abort(null, future, getCause(whenLocked.cause()));
+            }
+        });
+
+        return future;
+    }
+
+    private <T> void connectNewChannel(Request request, ProxyServer proxy, NettyResponseFuture<T> future, AsyncHandler<T> asyncHandler) {
+        long dnsStart = System.nanoTime();
         resolveAddresses(request, proxy, future, asyncHandler).addListener(new SimpleFutureListener<List<InetSocketAddress>>() {
 
             @Override
             protected void onSuccess(List<InetSocketAddress> addresses) {
+                future.recordPhase(RequestPhase.DNS, dnsStart);
                 NettyConnectListener<T> connectListener = new NettyConnectListener<>(future, NettyRequestSender.this, channelManager, connectionSemaphore);
-                NettyChannelConnector connector = new NettyChannelConnector(request.getLocalAddress(), addresses, asyncHandler, clientState);
+                NettyChannelConnector connector = new NettyChannelConnector(request.getLocalAddress(), addresses, asyncHandler, clientState,
+                        config.getConnectionAttemptDelay());
                 if (!future.isDone()) {
                     // Do not throw an exception when we need an extra connection for a redirect
                     // FIXME why? This violate the max connection per host handling, right?
-                    channelManager.getBootstrap(request.getUri(), request.getNameResolver(), proxy).addListener((Future<Bootstrap> whenBootstrap) -> {
+                    channelManager.getBootstrap(request.getUri(), channelManager.getNameResolver(request), proxy).addListener((Future<Bootstrap> whenBootstrap) -> {
                         if (whenBootstrap.isSuccess()) {
+                            connectListener.onConnectAttempt();
                             connector.connect(whenBootstrap.get(), connectListener);
                         } else {
                             abort(null, future, whenBootstrap.cause());
@@ -313,8 +403,6 @@ public final class NettyRequestSender {
                 abort(null, future, getCause(cause));
             }
         });
-
-        return future;
     }
 
     private <T> Future<List<InetSocketAddress>> resolveAddresses(Request request, ProxyServer proxy, NettyResponseFuture<T> future, AsyncHandler<T> asyncHandler) {
@@ -325,7 +413,7 @@ public final class NettyRequestSender {
             int port = uri.isSecured() ? proxy.getSecuredPort() : proxy.getPort();
             InetSocketAddress unresolvedRemoteAddress = InetSocketAddress.createUnresolved(proxy.getHost(), port);
             scheduleRequestTimeout(future, unresolvedRemoteAddress);
-            return RequestHostnameResolver.INSTANCE.resolve(request.getNameResolver(), unresolvedRemoteAddress, asyncHandler);
+            return RequestHostnameResolver.INSTANCE.resolve(channelManager.getNameResolver(request), unresolvedRemoteAddress, asyncHandler);
         } else {
             int port = uri.getExplicitPort();
 
@@ -337,7 +425,7 @@ public final class NettyRequestSender {
                 InetSocketAddress inetSocketAddress = new InetSocketAddress(request.getAddress(), port);
                 return promise.setSuccess(singletonList(inetSocketAddress));
             } else {
-                return RequestHostnameResolver.INSTANCE.resolve(request.getNameResolver(), unresolvedRemoteAddress, asyncHandler);
+                return RequestHostnameResolver.INSTANCE.resolve(channelManager.getNameResolver(request), unresolvedRemoteAddress, asyncHandler);
             }
         }
     }
@@ -350,7 +438,9 @@ public final class NettyRequestSender {
                 config.getMaxRequestRetry(),
                 request.getChannelPoolPartitioning(),
                 connectionSemaphore,
-                proxyServer);
+                proxyServer,
+                metricsListener,
+                config.getFailureClassifier());
 
         String expectHeader = request.getHeaders().get(EXPECT);
         if (HttpHeaderValues.CONTINUE.contentEqualsIgnoreCase(expectHeader)) {
@@ -385,6 +475,7 @@ public final class NettyRequestSender {
                     abort(channel, future, e);
                     return;
                 }
+                future.setRequestSendNanos(System.nanoTime());
 
                 // if the request has a body, we want to track progress
                 if (writeBody) {
@@ -475,6 +566,7 @@ public final class NettyRequestSender {
             future.setChannelState(ChannelState.RECONNECTED);
 
             LOGGER.debug("Trying to recover request {}\n", future.getNettyRequest().getHttpRequest());
+            future.recordRetry();
             try {
                 future.getAsyncHandler().onRetry();
             } catch (Exception e) {
@@ -521,7 +613,12 @@ public final class NettyRequestSender {
     }
 
     public <T> void sendNextRequest(final Request request, final NettyResponseFuture<T> future) {
-        sendRequest(request, future.getAsyncHandler(), future);
+        if (future.isConnectOnly()) {
+            // a pooled connection would be of no use, open another one
+            sendRequestWithNewChannel(request, getProxyServer(config, request), future, future.getAsyncHandler());
+        } else {
+            sendRequest(request, future.getAsyncHandler(), future);
+        }
     }
 
     private static void validateWebSocketRequest(Request request, AsyncHandler<?> asyncHandler) {
@@ -552,9 +649,21 @@ public final class NettyRequestSender {
         if (channel != null) {
             LOGGER.debug("Using pooled Channel '{}' for '{}' to '{}'", channel, request.getMethod(), uri);
         }
+        recordPoolLookup(request, proxy, channel != null);
         return channel;
     }
 
+    private void recordPoolLookup(Request request, ProxyServer proxy, boolean hit) {
+        if (metricsListener != null) {
+            Object partitionKey = request.getChannelPoolPartitioning().getPartitionKey(request.getUri(), request.getVirtualHost(), proxy);
+            if (hit) {
+                metricsListener.onPoolHit(partitionKey);
+            } else {
+                metricsListener.onPoolMiss(partitionKey);
+            }
+        }
+    }
+
     @SuppressWarnings({"rawtypes", "unchecked"})
     public void replayRequest(final NettyResponseFuture<?> future, FilterContext fc, Channel channel) {
         Request newRequest = fc.getRequest();
@@ -563,6 +672,7 @@ public final class NettyRequestSender {
         future.touch();
 
         LOGGER.debug("\n\nReplaying Request {}\n for Future {}\n", newRequest, future);
+        future.recordRetry();
         try {
             future.getAsyncHandler().onRetry();
         } catch (Exception e) {
@@ -17,10 +17,10 @@ package org.asynchttpclient.netty.request;
 
 import io.netty.channel.Channel;
 import org.asynchttpclient.handler.ProgressAsyncHandler;
+import org.asynchttpclient.metrics.RequestPhase;
 import org.asynchttpclient.netty.NettyResponseFuture;
 import org.asynchttpclient.netty.channel.ChannelState;
 import org.asynchttpclient.netty.channel.Channels;
-import org.asynchttpclient.netty.future.StackTraceInspector;
 import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 
@@ -44,7 +44,7 @@ public abstract class WriteListener {
         if (future.getChannelState() == ChannelState.POOLED && (cause instanceof IllegalStateException ||
                 cause instanceof ClosedChannelException ||
                 cause instanceof SSLException ||
-                StackTraceInspector.recoverOnReadOrWriteException(cause))) {
+                future.getFailureClassifier().isRetriableReadOrWriteFailure(cause))) {
             LOGGER.debug("Write exception on pooled channel, letting retry trigger", cause);
         } else {
             future.abort(cause);
@@ -62,6 +62,11 @@ public abstract class WriteListener {
             return;
         }
 
+        // when the request has a streamed body, it's only written once the body is
+        if (!notifyHeaders || future.getNettyRequest().getBody() == null) {
+            future.recordPhase(RequestPhase.REQUEST_WRITE, future.getRequestSendNanos());
+        }
+
         if (progressAsyncHandler != null) {
             // We need to make sure we aren't in the middle of an authorization process before publishing events as we will re-publish again the same event after the authorization,
             // causing unpredictable behavior.
@@ -26,6 +26,7 @@ import org.slf4j.LoggerFactory;
 
 import java.io.IOException;
 import java.io.InputStream;
+import java.util.concurrent.Executor;
 
 import static org.asynchttpclient.util.MiscUtils.closeSilently;
 
@@ -35,14 +36,25 @@ public class NettyInputStreamBody implements NettyBody {
 
     private final InputStream inputStream;
     private final long contentLength;
+    private final Executor executor;
 
     public NettyInputStreamBody(InputStream inputStream) {
         this(inputStream, -1L);
     }
 
     public NettyInputStreamBody(InputStream inputStream, long contentLength) {
+        this(inputStream, contentLength, null);
+    }
+
+    /**
+     * @param inputStream   the stream to send
+     * @param contentLength the length of the stream, or -1 if unknown
+     * @param executor      the executor to read the stream on, or null to read it on the event loop
+     */
+    public NettyInputStreamBody(InputStream inputStream, long contentLength, Executor executor) {
         this.inputStream = inputStream;
         this.contentLength = contentLength;
+        this.executor = executor;
     }
 
     public InputStream getInputStream() {
@@ -69,7 +81,8 @@ public class NettyInputStreamBody implements NettyBody {
             future.setStreamConsumed(true);
         }
 
-        channel.write(new ChunkedStream(is), channel.newProgressivePromise()).addListener(
+        Object msg = executor != null ? new OffloadedChunkedStream(is, contentLength, executor, channel) : new ChunkedStream(is);
+        channel.write(msg, channel.newProgressivePromise()).addListener(
                 new WriteProgressListener(future, false, getContentLength()) {
                     @Override
                     public void operationComplete(ChannelProgressiveFuture cf) {
@@ -0,0 +1,55 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.request.body;
+
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelProgressiveFuture;
+import io.netty.handler.codec.http.LastHttpContent;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import org.asynchttpclient.netty.NettyResponseFuture;
+import org.asynchttpclient.netty.request.WriteProgressListener;
+import org.asynchttpclient.request.body.generator.PublisherBody;
+import org.asynchttpclient.request.body.generator.PublisherBodyGenerator;
+
+public class NettyPublisherBody implements NettyBody {
+
+    private final PublisherBodyGenerator bodyGenerator;
+
+    public NettyPublisherBody(PublisherBodyGenerator bodyGenerator) {
+        this.bodyGenerator = bodyGenerator;
+    }
+
+    @Override
+    public long getContentLength() {
+        return bodyGenerator.getContentLength();
+    }
+
+    @Override
+    public void write(Channel channel, NettyResponseFuture<?> future) {
+        PublisherBody body = bodyGenerator.createBody();
+        ChunkedWriteHandler chunkedWriteHandler = channel.pipeline().get(ChunkedWriteHandler.class);
+
+        channel.write(new PublisherChunkedInput(body, chunkedWriteHandler), channel.newProgressivePromise())
+                .addListener(new WriteProgressListener(future, false, getContentLength()) {
+                    @Override
+                    public void operationComplete(ChannelProgressiveFuture cf) {
+                        body.close();
+                        super.operationComplete(cf);
+                    }
+                });
+        channel.writeAndFlush(LastHttpContent.EMPTY_LAST_CONTENT, channel.voidPromise());
+    }
+}
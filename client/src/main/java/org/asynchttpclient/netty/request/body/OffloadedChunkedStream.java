@@ -0,0 +1,172 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.request.body;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedWriteHandler;
+
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.ArrayDeque;
+import java.util.concurrent.Executor;
+import java.util.concurrent.RejectedExecutionException;
+
+import static org.asynchttpclient.netty.request.body.BodyChunkedInput.DEFAULT_CHUNK_SIZE;
+
+/**
+ * A {@link ChunkedInput} reading an {@link InputStream} on an executor, so that the event loop never blocks on it.
+ * <p>
+ * At most {@link #MAX_READ_AHEAD_CHUNKS} chunks are read ahead of the {@link ChunkedWriteHandler}, and as the handler only pulls chunks while
+ * the channel is writable, reading pauses once the outbound buffer is above its high watermark. The transfer is resumed when a chunk is ready.
+ */
+final class OffloadedChunkedStream implements ChunkedInput<ByteBuf> {
+
+    static final int MAX_READ_AHEAD_CHUNKS = 4;
+
+    private final InputStream inputStream;
+    private final long contentLength;
+    private final Executor executor;
+    private final ByteBufAllocator allocator;
+    private final ChunkedWriteHandler chunkedWriteHandler;
+    private final int chunkSize;
+    // guarded by this
+    private final ArrayDeque<ByteBuf> chunks = new ArrayDeque<>(MAX_READ_AHEAD_CHUNKS);
+    private boolean reading;
+    private boolean endOfStream;
+    private boolean closed;
+    private Throwable failure;
+    // only accessed from the event loop
+    private long progress;
+
+    OffloadedChunkedStream(InputStream inputStream, long contentLength, Executor executor, Channel channel) {
+        this.inputStream = inputStream;
+        this.contentLength = contentLength;
+        this.executor = executor;
+        allocator = channel.alloc();
+        chunkedWriteHandler = channel.pipeline().get(ChunkedWriteHandler.class);
+        chunkSize = contentLength > 0 ? (int) Math.min(contentLength, DEFAULT_CHUNK_SIZE) : DEFAULT_CHUNK_SIZE;
+    }
+
+    // must be called while holding the lock
+    private boolean shouldReadAhead() {
+        if (reading || endOfStream || closed || failure != null || chunks.size() >= MAX_READ_AHEAD_CHUNKS) {
+            return false;
+        }
+        reading = true;
+        return true;
+    }
+
+    private void readAhead() {
+        try {
+            executor.execute(this::readChunks);
+        } catch (RejectedExecutionException e) {
+            synchronized (this) {
+                reading = false;
+                failure = e;
+            }
+            chunkedWriteHandler.resumeTransfer();
+        }
+    }
+
+    private void readChunks() {
+        boolean more = true;
+        while (more) {
+            ByteBuf chunk = allocator.buffer(chunkSize);
+            boolean endOfStream = false;
+            Throwable cause = null;
+            try {
+                endOfStream = chunk.writeBytes(inputStream, chunkSize) < 0;
+            } catch (Throwable t) {
+                cause = t;
+            }
+
+            synchronized (this) {
+                if (closed || endOfStream || cause != null) {
+                    chunk.release();
+                    this.endOfStream = endOfStream;
+                    failure = cause;
+                    more = false;
+                } else {
+                    chunks.add(chunk);
+                    more = chunks.size() < MAX_READ_AHEAD_CHUNKS;
+                }
+                if (!more) {
+                    reading = false;
+                }
+            }
+            chunkedWriteHandler.resumeTransfer();
+        }
+    }
+
+    @Override
+    @Deprecated
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator alloc) throws Exception {
+        ByteBuf chunk;
+        boolean readAhead;
+        synchronized (this) {
+            if (failure != null) {
+                throw failure instanceof Exception ? (Exception) failure : new IOException(failure);
+            }
+            chunk = chunks.poll();
+            readAhead = shouldReadAhead();
+        }
+
+        if (readAhead) {
+            readAhead();
+        }
+
+        if (chunk != null) {
+            progress += chunk.readableBytes();
+        }
+        // null suspends the transfer until a chunk is ready
+        return chunk;
+    }
+
+    @Override
+    public synchronized boolean isEndOfInput() {
+        return endOfStream && chunks.isEmpty();
+    }
+
+    @Override
+    public void close() {
+        synchronized (this) {
+            closed = true;
+            ByteBuf chunk;
+            while ((chunk = chunks.poll()) != null) {
+                chunk.release();
+            }
+        }
+    }
+
+    @Override
+    public long length() {
+        return contentLength;
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+}
@@ -0,0 +1,78 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.request.body;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.ByteBufAllocator;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.handler.stream.ChunkedInput;
+import io.netty.handler.stream.ChunkedWriteHandler;
+import org.asynchttpclient.request.body.generator.PublisherBody;
+
+/**
+ * Adapts a {@link PublisherBody} to Netty's {@link ChunkedInput}, handing over the published chunks without copying them.
+ * <p>
+ * The {@link ChunkedWriteHandler} only pulls chunks while the channel is writable, and a new chunk is only requested from the publisher when
+ * one is pulled, so the publisher is held back while the outbound buffer is above its high watermark. The transfer is resumed when a chunk
+ * arrives.
+ */
+final class PublisherChunkedInput implements ChunkedInput<ByteBuf> {
+
+    private final PublisherBody body;
+    private long progress;
+
+    PublisherChunkedInput(PublisherBody body, ChunkedWriteHandler chunkedWriteHandler) {
+        this.body = body;
+        body.setListener(chunkedWriteHandler::resumeTransfer);
+        body.subscribe();
+    }
+
+    @Override
+    @Deprecated
+    public ByteBuf readChunk(ChannelHandlerContext ctx) throws Exception {
+        return readChunk(ctx.alloc());
+    }
+
+    @Override
+    public ByteBuf readChunk(ByteBufAllocator allocator) throws Exception {
+        // null suspends the transfer until the listener resumes it
+        ByteBuf chunk = body.poll();
+        if (chunk != null) {
+            progress += chunk.readableBytes();
+        }
+        return chunk;
+    }
+
+    @Override
+    public boolean isEndOfInput() {
+        return body.isEndOfInput();
+    }
+
+    @Override
+    public void close() {
+        body.close();
+    }
+
+    @Override
+    public long length() {
+        return body.getContentLength();
+    }
+
+    @Override
+    public long progress() {
+        return progress;
+    }
+}
@@ -16,6 +16,11 @@
 package org.asynchttpclient.netty.ssl;
 
 import io.netty.buffer.ByteBufAllocator;
+import io.netty.handler.ssl.ApplicationProtocolConfig;
+import io.netty.handler.ssl.ApplicationProtocolConfig.Protocol;
+import io.netty.handler.ssl.ApplicationProtocolConfig.SelectedListenerFailureBehavior;
+import io.netty.handler.ssl.ApplicationProtocolConfig.SelectorFailureBehavior;
+import io.netty.handler.ssl.ApplicationProtocolNames;
 import io.netty.handler.ssl.IdentityCipherSuiteFilter;
 import io.netty.handler.ssl.SslContext;
 import io.netty.handler.ssl.SslContextBuilder;
@@ -33,8 +38,9 @@ import static org.asynchttpclient.util.MiscUtils.isNonEmpty;
 public class DefaultSslEngineFactory extends SslEngineFactoryBase {
 
     private volatile SslContext sslContext;
+    private volatile SslContext http2SslContext;
 
-    private SslContext buildSslContext(AsyncHttpClientConfig config) throws SSLException {
+    private SslContext buildSslContext(AsyncHttpClientConfig config, boolean http2) throws SSLException {
         if (config.getSslContext() != null) {
             return config.getSslContext();
         }
@@ -58,26 +64,52 @@ public class DefaultSslEngineFactory extends SslEngineFactoryBase {
             sslContextBuilder.trustManager(InsecureTrustManagerFactory.INSTANCE);
         }
 
+        if (http2) {
+            // offer h2 first, servers that don't speak it will pick http/1.1 or skip ALPN altogether
+            sslContextBuilder.applicationProtocolConfig(new ApplicationProtocolConfig(Protocol.ALPN,
+                    SelectorFailureBehavior.NO_ADVERTISE,
+                    SelectedListenerFailureBehavior.ACCEPT,
+                    ApplicationProtocolNames.HTTP_2,
+                    ApplicationProtocolNames.HTTP_1_1));
+        }
+
         return configureSslContextBuilder(sslContextBuilder).build();
     }
 
     @Override
     public SSLEngine newSslEngine(AsyncHttpClientConfig config, String peerHost, int peerPort) {
-        SSLEngine sslEngine = config.isDisableHttpsEndpointIdentificationAlgorithm() ?
-                sslContext.newEngine(ByteBufAllocator.DEFAULT) :
-                sslContext.newEngine(ByteBufAllocator.DEFAULT, domain(peerHost), peerPort);
+        return newSslEngine(sslContext, config, peerHost, peerPort);
+    }
+
+    @Override
+    public SSLEngine newHttp2SslEngine(AsyncHttpClientConfig config, String peerHost, int peerPort) {
+        SslContext context = http2SslContext;
+        return newSslEngine(context != null ? context : sslContext, config, peerHost, peerPort);
+    }
+
+    private SSLEngine newSslEngine(SslContext context, AsyncHttpClientConfig config, String peerHost, int peerPort) {
+        // always pass the peer, both the JDK and OpenSSL look up the session to resume by host and port,
+        // hostname verification only depends on the endpoint identification algorithm set in configureSslEngine
+        SSLEngine sslEngine = context.newEngine(ByteBufAllocator.DEFAULT, domain(peerHost), peerPort);
         configureSslEngine(sslEngine, config);
         return sslEngine;
     }
 
     @Override
     public void init(AsyncHttpClientConfig config) throws SSLException {
-        sslContext = buildSslContext(config);
+        sslContext = buildSslContext(config, false);
+        if (config.isEnableHttp2() && config.getSslContext() == null) {
+            // a user provided context is used as is, it's up to it to negotiate h2 or not
+            http2SslContext = buildSslContext(config, true);
+        }
     }
 
     @Override
     public void destroy() {
         ReferenceCountUtil.release(sslContext);
+        if (http2SslContext != null) {
+            ReferenceCountUtil.release(http2SslContext);
+        }
     }
 
     /**
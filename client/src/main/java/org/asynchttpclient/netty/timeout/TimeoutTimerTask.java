@@ -42,6 +42,9 @@ public abstract class TimeoutTimerTask implements TimerTask {
 
     void expire(String message, long time) {
         LOGGER.debug("{} for {} after {} ms", message, nettyResponseFuture, time);
+        if (!nettyResponseFuture.isDone()) {
+            nettyResponseFuture.recordTimeout();
+        }
         requestSender.abort(nettyResponseFuture.channel(), nettyResponseFuture, new TimeoutException(message));
     }
 
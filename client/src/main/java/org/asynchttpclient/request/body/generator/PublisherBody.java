@@ -0,0 +1,191 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.request.body.generator;
+
+import io.netty.buffer.ByteBuf;
+import org.asynchttpclient.request.body.Body;
+import org.jetbrains.annotations.Nullable;
+
+import java.io.IOException;
+import java.util.Queue;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.Flow;
+
+/**
+ * A {@link Body} that subscribes to a {@link Flow.Publisher} and only requests a new chunk once a previous one has been consumed, so that
+ * at most {@link #PREFETCH} chunks are buffered, whatever the pace of the producer.
+ * <p>
+ * When there's no chunk available, reads suspend and the listener is notified once the next one arrives.
+ */
+public final class PublisherBody implements Body, Flow.Subscriber<ByteBuf> {
+
+    public static final int PREFETCH = 4;
+
+    private final Flow.Publisher<ByteBuf> publisher;
+    private final long contentLength;
+    private final Queue<ByteBuf> chunks = new ConcurrentLinkedQueue<>();
+    private volatile @Nullable Flow.Subscription subscription;
+    private volatile @Nullable Runnable listener;
+    private volatile @Nullable Throwable failure;
+    private volatile boolean completed;
+    private volatile boolean closed;
+    private boolean subscribed;
+
+    public PublisherBody(Flow.Publisher<ByteBuf> publisher, long contentLength) {
+        this.publisher = publisher;
+        this.contentLength = contentLength;
+    }
+
+    /**
+     * Set the listener notified of the progress of the publisher.
+     *
+     * @param listener notified, from any thread, when a chunk, the completion or a failure is received
+     */
+    public void setListener(Runnable listener) {
+        this.listener = listener;
+    }
+
+    /**
+     * Subscribe to the publisher, if not already done.
+     */
+    public void subscribe() {
+        if (!subscribed) {
+            subscribed = true;
+            publisher.subscribe(this);
+        }
+    }
+
+    @Override
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    /**
+     * Take the next chunk, handing over its ownership, and request another one from the publisher.
+     *
+     * @return the next chunk, or {@code null} if none is available yet
+     * @throws IOException if the publisher failed
+     */
+    public @Nullable ByteBuf poll() throws IOException {
+        ByteBuf chunk = chunks.poll();
+        if (chunk != null) {
+            Flow.Subscription subscription = this.subscription;
+            if (subscription != null && !completed) {
+                subscription.request(1);
+            }
+            return chunk;
+        }
+        Throwable t = failure;
+        if (t != null) {
+            throw t instanceof IOException ? (IOException) t : new IOException(t);
+        }
+        return null;
+    }
+
+    /**
+     * Tell if every chunk of the publisher has been taken.
+     *
+     * @return true once the publisher completed and all its chunks have been taken
+     */
+    public boolean isEndOfInput() {
+        return completed && chunks.isEmpty();
+    }
+
+    @Override
+    public BodyState transferTo(ByteBuf target) throws IOException {
+        subscribe();
+        BodyState state = BodyState.SUSPEND;
+        while (target.isWritable()) {
+            ByteBuf chunk = chunks.peek();
+            if (chunk == null) {
+                Throwable t = failure;
+                if (t != null) {
+                    throw t instanceof IOException ? (IOException) t : new IOException(t);
+                }
+                return isEndOfInput() ? BodyState.STOP : state;
+            }
+            target.writeBytes(chunk, Math.min(chunk.readableBytes(), target.writableBytes()));
+            state = BodyState.CONTINUE;
+            if (!chunk.isReadable()) {
+                ByteBuf consumed = poll();
+                if (consumed != null) {
+                    consumed.release();
+                }
+            }
+        }
+        return state;
+    }
+
+    @Override
+    public void onSubscribe(Flow.Subscription subscription) {
+        if (this.subscription != null || closed) {
+            subscription.cancel();
+            return;
+        }
+        this.subscription = subscription;
+        subscription.request(PREFETCH);
+    }
+
+    @Override
+    public void onNext(ByteBuf chunk) {
+        if (closed) {
+            chunk.release();
+            return;
+        }
+        chunks.add(chunk);
+        if (closed) {
+            // raced with close
+            releaseChunks();
+        }
+        notifyListener();
+    }
+
+    @Override
+    public void onError(Throwable t) {
+        failure = t;
+        notifyListener();
+    }
+
+    @Override
+    public void onComplete() {
+        completed = true;
+        notifyListener();
+    }
+
+    @Override
+    public void close() {
+        closed = true;
+        Flow.Subscription subscription = this.subscription;
+        if (subscription != null && !completed && failure == null) {
+            subscription.cancel();
+        }
+        releaseChunks();
+    }
+
+    private void notifyListener() {
+        Runnable listener = this.listener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
+    private void releaseChunks() {
+        ByteBuf chunk;
+        while ((chunk = chunks.poll()) != null) {
+            chunk.release();
+        }
+    }
+}
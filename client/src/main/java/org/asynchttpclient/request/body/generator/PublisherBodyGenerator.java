@@ -0,0 +1,56 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.request.body.generator;
+
+import io.netty.buffer.ByteBuf;
+import org.asynchttpclient.request.body.Body;
+
+import java.util.concurrent.Flow;
+
+/**
+ * A {@link BodyGenerator} that streams the {@link ByteBuf}s of a {@link Flow.Publisher}, requesting new ones only as fast as they can be
+ * written to the connection.
+ * <br>
+ * The body is written with a chunked transfer encoding unless a content length is given. The chunks are released once written.
+ * NOTE: Most publishers can only be subscribed to once, in which case mechanisms like authentication or redirect will not work.
+ */
+public final class PublisherBodyGenerator implements BodyGenerator {
+
+    private final Flow.Publisher<ByteBuf> publisher;
+    private final long contentLength;
+
+    public PublisherBodyGenerator(Flow.Publisher<ByteBuf> publisher) {
+        this(publisher, -1L);
+    }
+
+    public PublisherBodyGenerator(Flow.Publisher<ByteBuf> publisher, long contentLength) {
+        this.publisher = publisher;
+        this.contentLength = contentLength;
+    }
+
+    public Flow.Publisher<ByteBuf> getPublisher() {
+        return publisher;
+    }
+
+    public long getContentLength() {
+        return contentLength;
+    }
+
+    @Override
+    public PublisherBody createBody() {
+        return new PublisherBody(publisher, contentLength);
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.resolver;
+
+import io.netty.channel.ChannelFactory;
+import io.netty.channel.EventLoop;
+import io.netty.channel.socket.DatagramChannel;
+import io.netty.resolver.NameResolver;
+import io.netty.resolver.dns.DefaultDnsCache;
+import io.netty.resolver.dns.DnsNameResolver;
+import io.netty.resolver.dns.DnsNameResolverBuilder;
+import io.netty.resolver.dns.DnsServerAddressStreamProvider;
+import io.netty.resolver.dns.DnsServerAddressStreamProviders;
+import io.netty.util.concurrent.Future;
+import io.netty.util.concurrent.Promise;
+
+import java.net.InetAddress;
+import java.time.Duration;
+import java.util.List;
+
+/**
+ * An asynchronous {@link NameResolver} sending DNS queries from an event loop, instead of blocking on {@link InetAddress#getAllByName(String)}.
+ * <p>
+ * Addresses are cached for as long as their records' TTL, and failures for the negative TTL. Concurrent lookups of a name share a single query,
+ * and names that keep being used are refreshed in the background shortly before they expire, so that their users never wait for a query.
+ */
+public class CachingDnsNameResolver implements NameResolver<InetAddress> {
+
+    // max number of names with a lookup in flight that concurrent lookups can join
+    private static final int CONSOLIDATE_CACHE_SIZE = 1024;
+
+    private final RefreshingDnsCache cache;
+    private final DnsNameResolver resolver;
+    private final DnsNameResolver refresher;
+
+    /**
+     * @param eventLoop      the event loop to send queries from
+     * @param channelFactory the factory of the UDP channels, which must be compatible with the event loop
+     * @param negativeTtl    how long failed lookups are cached
+     */
+    public CachingDnsNameResolver(EventLoop eventLoop, ChannelFactory<? extends DatagramChannel> channelFactory, Duration negativeTtl) {
+        this(eventLoop, channelFactory, negativeTtl, DnsServerAddressStreamProviders.platformDefault());
+    }
+
+    /**
+     * @param eventLoop          the event loop to send queries from
+     * @param channelFactory     the factory of the UDP channels, which must be compatible with the event loop
+     * @param negativeTtl        how long failed lookups are cached
+     * @param nameServerProvider the name servers to query
+     */
+    public CachingDnsNameResolver(EventLoop eventLoop, ChannelFactory<? extends DatagramChannel> channelFactory, Duration negativeTtl,
+                                  DnsServerAddressStreamProvider nameServerProvider) {
+        int negativeTtlInSeconds = (int) Math.min(Integer.MAX_VALUE, Math.max(0, negativeTtl.getSeconds()));
+        cache = new RefreshingDnsCache(new DefaultDnsCache(0, Integer.MAX_VALUE, negativeTtlInSeconds), this::refresh);
+
+        DnsNameResolverBuilder builder = new DnsNameResolverBuilder(eventLoop)
+                .datagramChannelFactory(channelFactory)
+                .nameServerProvider(nameServerProvider)
+                .consolidateCacheSize(CONSOLIDATE_CACHE_SIZE);
+        resolver = builder.copy().resolveCache(cache).build();
+        refresher = builder.copy().resolveCache(cache.refreshView()).build();
+    }
+
+    private void refresh(String hostname) {
+        refresher.resolveAll(hostname).addListener(future -> cache.refreshed(hostname, future.isSuccess()));
+    }
+
+    @Override
+    public Future<InetAddress> resolve(String inetHost) {
+        return resolver.resolve(inetHost);
+    }
+
+    @Override
+    public Future<InetAddress> resolve(String inetHost, Promise<InetAddress> promise) {
+        return resolver.resolve(inetHost, promise);
+    }
+
+    @Override
+    public Future<List<InetAddress>> resolveAll(String inetHost) {
+        return resolver.resolveAll(inetHost);
+    }
+
+    @Override
+    public Future<List<InetAddress>> resolveAll(String inetHost, Promise<List<InetAddress>> promise) {
+        return resolver.resolveAll(inetHost, promise);
+    }
+
+    @Override
+    public void close() {
+        resolver.close();
+        refresher.close();
+    }
+}
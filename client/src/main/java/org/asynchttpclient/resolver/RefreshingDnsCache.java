@@ -0,0 +1,210 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.resolver;
+
+import io.netty.channel.EventLoop;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.resolver.dns.DnsCache;
+import io.netty.resolver.dns.DnsCacheEntry;
+import org.jetbrains.annotations.Nullable;
+
+import java.net.InetAddress;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.function.Consumer;
+
+/**
+ * A {@link DnsCache} that keeps track of when the names it holds expire, and asks for hot names to be refreshed before they do.
+ * <p>
+ * A name is refreshed when it's hit after most of its TTL has elapsed. The refresh goes through {@link #refreshView()}, which never hits,
+ * and its results replace the cached ones all at once when it completes: they're served while the cached ones are swapped for them,
+ * so that the name never misses. If it fails, the name is served until it expires as usual.
+ */
+final class RefreshingDnsCache implements DnsCache {
+
+    // refresh names once this fraction of their TTL has elapsed
+    private static final double REFRESH_THRESHOLD = 0.8;
+
+    private final DnsCache delegate;
+    private final Consumer<String> refresher;
+    private final ConcurrentHashMap<String, Expiry> expiries = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<RefreshedAddress>> refreshes = new ConcurrentHashMap<>();
+    private final ConcurrentHashMap<String, List<RefreshedAddress>> swaps = new ConcurrentHashMap<>();
+    private final DnsCache refreshView = new RefreshView();
+
+    /**
+     * @param delegate  the cache actually holding the entries, which expires them and caches failures
+     * @param refresher triggers an asynchronous lookup of a name with a resolver using {@link #refreshView()},
+     *                  that must then call {@link #refreshed(String, boolean)}
+     */
+    RefreshingDnsCache(DnsCache delegate, Consumer<String> refresher) {
+        this.delegate = delegate;
+        this.refresher = refresher;
+    }
+
+    /**
+     * Return the view of the cache the refreshing resolver writes to.
+     *
+     * @return the cache to be used by the resolver refreshing names
+     */
+    DnsCache refreshView() {
+        return refreshView;
+    }
+
+    /**
+     * Completes the refresh of a name, replacing its entries with the ones collected during the lookup if it succeeded.
+     *
+     * @param hostname the refreshed name
+     * @param success  whether the lookup succeeded
+     */
+    void refreshed(String hostname, boolean success) {
+        List<RefreshedAddress> addresses = refreshes.remove(hostname);
+        if (success && addresses != null && !addresses.isEmpty()) {
+            // the delegate can only drop all the entries of a name, so the new ones are served from here until it holds them all
+            swaps.put(hostname, addresses);
+            try {
+                clear(hostname);
+                for (RefreshedAddress address : addresses) {
+                    cache(hostname, address.additionals, address.address, address.ttl, address.loop);
+                }
+            } finally {
+                swaps.remove(hostname, addresses);
+            }
+        }
+    }
+
+    @Override
+    public void clear() {
+        expiries.clear();
+        delegate.clear();
+    }
+
+    @Override
+    public boolean clear(String hostname) {
+        expiries.remove(hostname);
+        return delegate.clear(hostname);
+    }
+
+    @Override
+    public List<? extends DnsCacheEntry> get(String hostname, DnsRecord[] additionals) {
+        List<RefreshedAddress> swapped = swaps.get(hostname);
+        if (swapped != null) {
+            return swapped;
+        }
+        List<? extends DnsCacheEntry> entries = delegate.get(hostname, additionals);
+        if (entries == null || entries.isEmpty()) {
+            // expired, the next lookup will track it again
+            expiries.remove(hostname);
+        } else if (entries.get(0).cause() == null) {
+            Expiry expiry = expiries.get(hostname);
+            if (expiry != null && System.nanoTime() - expiry.refreshAt >= 0 && expiry.refreshing.compareAndSet(false, true)) {
+                refreshes.put(hostname, Collections.synchronizedList(new ArrayList<>()));
+                refresher.accept(hostname);
+            }
+        }
+        return entries;
+    }
+
+    @Override
+    public DnsCacheEntry cache(String hostname, DnsRecord[] additionals, InetAddress address, long originalTtl, EventLoop loop) {
+        long now = System.nanoTime();
+        long ttl = TimeUnit.SECONDS.toNanos(originalTtl);
+        // a lookup caches its addresses one by one, the name expires with the shortest lived one
+        expiries.compute(hostname, (h, expiry) -> expiry == null || now - expiry.expiresAt >= 0 || now + ttl - expiry.expiresAt < 0 ? new Expiry(now, ttl) : expiry);
+        return delegate.cache(hostname, additionals, address, originalTtl, loop);
+    }
+
+    @Override
+    public DnsCacheEntry cache(String hostname, DnsRecord[] additionals, Throwable cause, EventLoop loop) {
+        expiries.remove(hostname);
+        return delegate.cache(hostname, additionals, cause, loop);
+    }
+
+    private static final class Expiry {
+        final long expiresAt;
+        final long refreshAt;
+        final AtomicBoolean refreshing = new AtomicBoolean();
+
+        Expiry(long now, long ttl) {
+            expiresAt = now + ttl;
+            refreshAt = now + (long) (ttl * REFRESH_THRESHOLD);
+        }
+    }
+
+    private static final class RefreshedAddress implements DnsCacheEntry {
+        final DnsRecord[] additionals;
+        final InetAddress address;
+        final long ttl;
+        final EventLoop loop;
+
+        RefreshedAddress(DnsRecord[] additionals, InetAddress address, long ttl, EventLoop loop) {
+            this.additionals = additionals;
+            this.address = address;
+            this.ttl = ttl;
+            this.loop = loop;
+        }
+
+        @Override
+        public InetAddress address() {
+            return address;
+        }
+
+        @Override
+        public @Nullable Throwable cause() {
+            return null;
+        }
+    }
+
+    /**
+     * Always misses so that lookups hit the name servers, and collects the addresses of the names being refreshed.
+     */
+    private final class RefreshView implements DnsCache {
+
+        @Override
+        public void clear() {
+        }
+
+        @Override
+        public boolean clear(String hostname) {
+            return false;
+        }
+
+        @Override
+        public List<? extends DnsCacheEntry> get(String hostname, DnsRecord[] additionals) {
+            return Collections.emptyList();
+        }
+
+        @Override
+        public DnsCacheEntry cache(String hostname, DnsRecord[] additionals, InetAddress address, long originalTtl, EventLoop loop) {
+            RefreshedAddress refreshedAddress = new RefreshedAddress(additionals, address, originalTtl, loop);
+            List<RefreshedAddress> addresses = refreshes.get(hostname);
+            if (addresses != null) {
+                addresses.add(refreshedAddress);
+            }
+            return refreshedAddress;
+        }
+
+        @Override
+        public @Nullable DnsCacheEntry cache(String hostname, DnsRecord[] additionals, Throwable cause, EventLoop loop) {
+            // keep serving the current addresses until they expire
+            return null;
+        }
+    }
+}
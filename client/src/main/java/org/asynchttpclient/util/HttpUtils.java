@@ -136,6 +136,25 @@ public final class HttpUtils {
         return request.getFollowRedirect() != null ? request.getFollowRedirect() : config.isFollowRedirect();
     }
 
+    /**
+     * Tell if a request has a body.
+     *
+     * @param request a request
+     * @return true if the request has a body, whatever its kind
+     */
+    public static boolean hasBody(Request request) {
+        return request.getByteData() != null
+                || request.getCompositeByteData() != null
+                || request.getStringData() != null
+                || request.getByteBufferData() != null
+                || request.getByteBufData() != null
+                || request.getStreamData() != null
+                || request.getBodyGenerator() != null
+                || request.getFile() != null
+                || !request.getFormParams().isEmpty()
+                || !request.getBodyParts().isEmpty();
+    }
+
     public static ByteBuffer urlEncodeFormParams(List<Param> params, Charset charset) {
         return StringUtils.charSequence2ByteBuffer(urlEncodeFormParams0(params, charset), US_ASCII);
     }
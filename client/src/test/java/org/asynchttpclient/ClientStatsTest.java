@@ -181,4 +181,35 @@ public class ClientStatsTest extends AbstractBasicTest {
             assertNull(idleCachedStats.getStatsPerHost().get(hostname));
         }
     }
+
+    @Test
+    public void testClientStatusPendingPermits() throws Throwable {
+        try (final AsyncHttpClient client = asyncHttpClient(config().setKeepAlive(false).setMaxConnections(1)
+                .setAcquireFreeChannelTimeout(10_000).setAsyncAcquireFreeChannel(true))) {
+            final String url = getTargetUrl();
+
+            final List<ListenableFuture<Response>> futures = Stream.generate(() -> client.prepareGet(url).setHeader("LockThread", "2").execute())
+                    .limit(3)
+                    .collect(Collectors.toList());
+
+            Thread.sleep(1000);
+
+            final ClientStats waitingStats = client.getClientStats();
+
+            assertEquals(1, waitingStats.getTotalActiveConnectionCount());
+            assertEquals(2, waitingStats.getTotalPendingPermitCount());
+            assertEquals(0, waitingStats.getTotalConnectAttemptCount());
+            assertEquals(2, waitingStats.getStatsPerHost().get(hostname).getHostPendingPermitCount());
+
+            futures.forEach(future -> future.toCompletableFuture().join());
+
+            Thread.sleep(1000);
+
+            final ClientStats doneStats = client.getClientStats();
+
+            assertEquals(0, doneStats.getTotalConnectionCount());
+            assertEquals(0, doneStats.getTotalPendingPermitCount());
+            assertNull(doneStats.getStatsPerHost().get(hostname));
+        }
+    }
 }
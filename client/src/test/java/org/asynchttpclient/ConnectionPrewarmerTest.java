@@ -0,0 +1,78 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient;
+
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.config;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class ConnectionPrewarmerTest extends AbstractBasicTest {
+
+    private static void awaitIdleConnections(AsyncHttpClient client, long expected) throws InterruptedException {
+        for (int i = 0; i < 100 && client.getClientStats().getTotalIdleConnectionCount() != expected; i++) {
+            Thread.sleep(50);
+        }
+        assertEquals(expected, client.getClientStats().getTotalIdleConnectionCount());
+    }
+
+    @Test
+    public void prewarmOpensConnections() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            client.prewarm(getTargetUrl(), 3).get(TIMEOUT, SECONDS);
+            assertEquals(3, client.getClientStats().getTotalIdleConnectionCount());
+
+            // requests lease the pre-warmed connections
+            assertEquals(200, client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, SECONDS).getStatusCode());
+            assertEquals(3, client.getClientStats().getTotalConnectionCount());
+        }
+    }
+
+    @Test
+    public void closedConnectionsAreReplaced() throws Exception {
+        AsyncHttpClientConfig config = config()
+                .setMinIdleConnectionsPerHost(2)
+                .setConnectionPoolCleanerPeriod(Duration.ofMillis(50))
+                .build();
+        try (AsyncHttpClient client = asyncHttpClient(config)) {
+            client.prewarm(getTargetUrl(), 2).get(TIMEOUT, SECONDS);
+            assertEquals(2, client.getClientStats().getTotalIdleConnectionCount());
+
+            client.flushChannelPoolPartitions(partitionKey -> true);
+            awaitIdleConnections(client, 2);
+
+            // and no more than the minimum are kept
+            Thread.sleep(300);
+            assertEquals(2, client.getClientStats().getTotalConnectionCount());
+        }
+    }
+
+    @Test
+    public void connectionsAreNotReplacedWithoutMinimum() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setConnectionPoolCleanerPeriod(Duration.ofMillis(50)))) {
+            client.prewarm(getTargetUrl(), 2).get(TIMEOUT, SECONDS);
+
+            client.flushChannelPoolPartitions(partitionKey -> true);
+            awaitIdleConnections(client, 0);
+            Thread.sleep(300);
+            assertEquals(0, client.getClientStats().getTotalConnectionCount());
+        }
+    }
+}
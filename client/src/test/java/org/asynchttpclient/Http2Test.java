@@ -0,0 +1,163 @@
+/*
+ * Copyright 2010 Ning, Inc.
+ *
+ * This program is licensed to you under the Apache License, version 2.0
+ * (the "License"); you may not use this file except in compliance with the
+ * License.  You may obtain a copy of the License at:
+ *
+ *    http://www.apache.org/licenses/LICENSE-2.0
+ *
+ * Unless required by applicable law or agreed to in writing, software
+ * distributed under the License is distributed on an "AS IS" BASIS, WITHOUT
+ * WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.  See the
+ * License for the specific language governing permissions and limitations
+ * under the License.
+ */
+package org.asynchttpclient;
+
+import io.github.artsok.RepeatedIfExceptionsTest;
+import jakarta.servlet.ServletException;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.eclipse.jetty.alpn.server.ALPNServerConnectionFactory;
+import org.eclipse.jetty.http2.server.HTTP2ServerConnectionFactory;
+import org.eclipse.jetty.server.HttpConfiguration;
+import org.eclipse.jetty.server.HttpConnectionFactory;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.SecureRequestCustomizer;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.eclipse.jetty.server.SslConnectionFactory;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.eclipse.jetty.util.IO;
+import org.eclipse.jetty.util.ssl.SslContextFactory;
+import org.junit.jupiter.api.BeforeAll;
+
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Future;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.config;
+import static org.asynchttpclient.test.TestUtils.resourceAsFile;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class Http2Test extends AbstractBasicTest {
+
+    private static final String PROTOCOL_HEADER = "X-Protocol";
+
+    @Override
+    @BeforeAll
+    public void setUpGlobal() throws Exception {
+        server = new Server();
+
+        SslContextFactory.Server sslContextFactory = new SslContextFactory.Server();
+        sslContextFactory.setKeyStorePath(resourceAsFile("ssltest-keystore.jks").getAbsolutePath());
+        sslContextFactory.setKeyStorePassword("changeit");
+
+        HttpConfiguration httpsConfig = new HttpConfiguration();
+        httpsConfig.setSecureScheme("https");
+        httpsConfig.addCustomizer(new SecureRequestCustomizer());
+
+        // h2 capable connector
+        ALPNServerConnectionFactory alpn = new ALPNServerConnectionFactory("h2", "http/1.1");
+        alpn.setDefaultProtocol("http/1.1");
+        ServerConnector connector1 = new ServerConnector(server, new SslConnectionFactory(sslContextFactory, alpn.getProtocol()), alpn,
+                new HTTP2ServerConnectionFactory(httpsConfig), new HttpConnectionFactory(httpsConfig));
+        server.addConnector(connector1);
+
+        // HTTP/1.1 only connector
+        ServerConnector connector2 = new ServerConnector(server, new SslConnectionFactory(sslContextFactory, "http/1.1"), new HttpConnectionFactory(httpsConfig));
+        server.addConnector(connector2);
+
+        server.setHandler(configureHandler());
+        server.start();
+
+        port1 = connector1.getLocalPort();
+        port2 = connector2.getLocalPort();
+        logger.info("Local HTTP/2 server started successfully");
+    }
+
+    @Override
+    protected String getTargetUrl() {
+        return String.format("https://localhost:%d/foo/test", port1);
+    }
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException, ServletException {
+                response.setStatus(HttpServletResponse.SC_OK);
+                response.setHeader(PROTOCOL_HEADER, request.getProtocol());
+                if ("HEAD".equals(request.getMethod())) {
+                    response.setContentLength(5);
+                } else {
+                    IO.copy(request.getInputStream(), response.getOutputStream());
+                }
+                baseRequest.setHandled(true);
+            }
+        };
+    }
+
+    @RepeatedIfExceptionsTest(repeats = 5)
+    public void negotiatesHttp2WithAlpn() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setEnableHttp2(true).setUseInsecureTrustManager(true))) {
+            Response response = client.preparePost(getTargetUrl()).setBody("hello").execute().get(TIMEOUT, SECONDS);
+            assertEquals(200, response.getStatusCode());
+            assertEquals("HTTP/2.0", response.getHeader(PROTOCOL_HEADER));
+            assertEquals("hello", response.getResponseBody());
+        }
+    }
+
+    @RepeatedIfExceptionsTest(repeats = 5)
+    public void handlesResponsesWithoutBody() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setEnableHttp2(true).setUseInsecureTrustManager(true))) {
+            Response response = client.prepareHead(getTargetUrl()).execute().get(TIMEOUT, SECONDS);
+            assertEquals(200, response.getStatusCode());
+            assertEquals("HTTP/2.0", response.getHeader(PROTOCOL_HEADER));
+            assertEquals("", response.getResponseBody());
+        }
+    }
+
+    @RepeatedIfExceptionsTest(repeats = 5)
+    public void multiplexesRequestsOverOneConnection() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setEnableHttp2(true).setUseInsecureTrustManager(true))) {
+            // first request opens the connection, the next ones are streams over it
+            assertEquals(200, client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, SECONDS).getStatusCode());
+
+            List<Future<Response>> responses = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                responses.add(client.preparePost(getTargetUrl()).setBody("body" + i).execute());
+            }
+            for (int i = 0; i < responses.size(); i++) {
+                Response response = responses.get(i).get(TIMEOUT, SECONDS);
+                assertEquals("HTTP/2.0", response.getHeader(PROTOCOL_HEADER));
+                assertEquals("body" + i, response.getResponseBody());
+            }
+
+            assertEquals(1, client.getClientStats().getTotalConnectionCount());
+        }
+    }
+
+    @RepeatedIfExceptionsTest(repeats = 5)
+    public void fallsBackToHttp11WhenServerDoesNotSupportHttp2() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setEnableHttp2(true).setUseInsecureTrustManager(true))) {
+            String url = String.format("https://localhost:%d/foo/test", port2);
+            Response response = client.preparePost(url).setBody("hello").execute().get(TIMEOUT, SECONDS);
+            assertEquals(200, response.getStatusCode());
+            assertEquals("HTTP/1.1", response.getHeader(PROTOCOL_HEADER));
+            assertEquals("hello", response.getResponseBody());
+        }
+    }
+
+    @RepeatedIfExceptionsTest(repeats = 5)
+    public void staysOnHttp11WhenDisabled() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setUseInsecureTrustManager(true))) {
+            Response response = client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, SECONDS);
+            assertEquals("HTTP/1.1", response.getHeader(PROTOCOL_HEADER));
+        }
+    }
+}
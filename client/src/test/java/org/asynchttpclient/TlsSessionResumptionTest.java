@@ -0,0 +1,107 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient;
+
+import org.asynchttpclient.metrics.HistogramMetricsListener;
+import org.asynchttpclient.metrics.PartitionMetrics;
+import org.asynchttpclient.testserver.HttpServer;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.ExecutionException;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.config;
+import static org.asynchttpclient.test.TestUtils.TIMEOUT;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class TlsSessionResumptionTest {
+
+    private HttpServer server;
+
+    @BeforeEach
+    public void start() throws Throwable {
+        server = new HttpServer();
+        server.start();
+    }
+
+    @AfterEach
+    public void stop() throws Throwable {
+        server.close();
+    }
+
+    private PartitionMetrics sendWithoutKeepAlive(DefaultAsyncHttpClientConfig.Builder config, int requests) throws Exception {
+        HistogramMetricsListener metrics = new HistogramMetricsListener();
+        try (AsyncHttpClient client = asyncHttpClient(config.setKeepAlive(false).setMetricsListener(metrics))) {
+            for (int i = 0; i < requests; i++) {
+                server.enqueueOk();
+                assertEquals(200, client.prepareGet(server.getHttpsUrl()).execute().get(TIMEOUT, SECONDS).getStatusCode());
+            }
+        }
+        PartitionMetrics partition = metrics.getPartitionMetrics(server.getHttpsUrl());
+        assertNotNull(partition);
+        return partition;
+    }
+
+    @Test
+    public void reconnectionsResumeTheSession() throws Exception {
+        PartitionMetrics partition = sendWithoutKeepAlive(config().setUseInsecureTrustManager(true), 3);
+
+        assertEquals(3, partition.getTlsHandshakes());
+        assertEquals(2, partition.getTlsResumptions());
+        assertEquals(2.0 / 3, partition.getTlsResumptionRatio(), 0.001);
+    }
+
+    @Test
+    public void reconnectionsResumeTheSessionWithoutEndpointIdentification() throws Exception {
+        PartitionMetrics partition = sendWithoutKeepAlive(config().setUseInsecureTrustManager(true).setDisableHttpsEndpointIdentificationAlgorithm(true), 3);
+
+        assertEquals(3, partition.getTlsHandshakes());
+        assertEquals(2, partition.getTlsResumptions());
+    }
+
+    @Test
+    public void prewarmPoolsAHandshakedConnection() throws Exception {
+        HistogramMetricsListener metrics = new HistogramMetricsListener();
+        try (AsyncHttpClient client = asyncHttpClient(config().setUseInsecureTrustManager(true).setMetricsListener(metrics))) {
+            assertNull(client.prewarm(server.getHttpsUrl() + "/ignored").get(TIMEOUT, SECONDS));
+            assertEquals(1, client.getClientStats().getTotalIdleConnectionCount());
+
+            server.enqueueOk();
+            assertEquals(200, client.prepareGet(server.getHttpsUrl()).execute().get(TIMEOUT, SECONDS).getStatusCode());
+        }
+
+        PartitionMetrics partition = metrics.getPartitionMetrics(server.getHttpsUrl());
+        assertNotNull(partition);
+        assertEquals(1, partition.getTlsHandshakes());
+        assertEquals(1, partition.getPoolHits());
+        assertEquals(0, partition.getPoolMisses());
+    }
+
+    @Test
+    public void prewarmRejectsWebSocketUrls() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            ExecutionException e = assertThrows(ExecutionException.class, () -> client.prewarm("ws://localhost:" + server.getHttpPort()).get(TIMEOUT, SECONDS));
+            assertInstanceOf(IllegalArgumentException.class, e.getCause());
+        }
+    }
+}
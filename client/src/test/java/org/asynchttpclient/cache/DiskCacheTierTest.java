@@ -0,0 +1,186 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.cache;
+
+import io.netty.buffer.Unpooled;
+import io.netty.handler.codec.http.DefaultHttpHeaders;
+import io.netty.handler.codec.http.HttpHeaders;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Collections;
+import java.util.stream.Stream;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class DiskCacheTierTest {
+
+    private static CacheEntry entry(String key, String body) {
+        HttpHeaders headers = new DefaultHttpHeaders().add("Cache-Control", "max-age=60");
+        long now = System.currentTimeMillis();
+        return new CacheEntry(key, 200, "OK", "HTTP/1.1", headers, Collections.emptyMap(), now, now,
+                Unpooled.copiedBuffer(body, StandardCharsets.UTF_8));
+    }
+
+    private static long entryFileCount(Path directory) throws IOException {
+        try (Stream<Path> files = Files.list(directory)) {
+            return files.filter(file -> file.toString().endsWith(".entry")).count();
+        }
+    }
+
+    private static void awaitDiskEntryCount(HttpCache cache, int count) throws InterruptedException {
+        long deadline = System.currentTimeMillis() + 5000;
+        while (cache.getDiskEntryCount() != count && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(count, cache.getDiskEntryCount());
+    }
+
+    @Test
+    public void writtenEntriesAreReadBack(@TempDir Path directory) throws Exception {
+        DiskCacheTier tier = new DiskCacheTier(directory, 1024 * 1024);
+        try {
+            CacheEntry written = entry("http://localhost/a", "body of a");
+            tier.put(written);
+            written.release();
+            tier.awaitPendingWrites();
+
+            assertEquals(1, tier.count());
+            assertEquals(1, entryFileCount(directory));
+            CacheEntry read = tier.get("http://localhost/a");
+            assertNotNull(read);
+            try {
+                assertEquals(200, read.statusCode);
+                assertEquals("max-age=60", read.headers.get("Cache-Control"));
+                assertEquals("body of a", read.body.toString(StandardCharsets.UTF_8));
+                assertTrue(read.isFresh(System.currentTimeMillis()));
+            } finally {
+                read.release();
+            }
+            assertNull(tier.get("http://localhost/b"));
+        } finally {
+            tier.close();
+        }
+    }
+
+    @Test
+    public void removedEntriesAreDeleted(@TempDir Path directory) throws Exception {
+        DiskCacheTier tier = new DiskCacheTier(directory, 1024 * 1024);
+        try {
+            CacheEntry written = entry("http://localhost/a", "body of a");
+            tier.put(written);
+            tier.awaitPendingWrites();
+            // removed before its write ran, or while it's written
+            tier.put(written);
+            written.release();
+            assertTrue(tier.remove("http://localhost/a"));
+            assertNull(tier.get("http://localhost/a"));
+            tier.awaitPendingWrites();
+
+            assertEquals(0, tier.count());
+            assertEquals(0, tier.size());
+            assertEquals(0, entryFileCount(directory));
+            assertFalse(tier.remove("http://localhost/a"));
+        } finally {
+            tier.close();
+        }
+    }
+
+    @Test
+    public void sizeIsBoundedByEvictingTheLeastRecentlyUsedEntries(@TempDir Path directory) throws Exception {
+        long fileSize;
+        DiskCacheTier probe = new DiskCacheTier(directory, 1024 * 1024);
+        try {
+            CacheEntry entry = entry("http://localhost/probe", "body of x");
+            probe.put(entry);
+            entry.release();
+            probe.awaitPendingWrites();
+            fileSize = probe.size();
+            probe.clear();
+        } finally {
+            probe.close();
+        }
+
+        DiskCacheTier tier = new DiskCacheTier(directory, 2 * fileSize);
+        try {
+            for (String name : new String[]{"a", "b", "c"}) {
+                CacheEntry entry = entry("http://localhost/" + name, "body of " + name);
+                tier.put(entry);
+                entry.release();
+            }
+            tier.awaitPendingWrites();
+
+            assertEquals(2, tier.count());
+            assertTrue(tier.size() <= 2 * fileSize);
+            assertEquals(2, entryFileCount(directory));
+            assertNull(tier.get("http://localhost/a"));
+        } finally {
+            tier.close();
+        }
+    }
+
+    @Test
+    public void evictedEntriesAreDemotedAndPromotedBack(@TempDir Path directory) throws Exception {
+        try (HttpCache cache = new HttpCache.Builder().setMaxMemorySize(100).setDiskDirectory(directory).build()) {
+            cache.put(entry("http://localhost/a", "body of a"));
+            cache.put(entry("http://localhost/b", "body of b"));
+            assertEquals(1, cache.getMemoryEntryCount());
+            awaitDiskEntryCount(cache, 1);
+
+            CacheEntry promoted = cache.get("http://localhost/a");
+            assertNotNull(promoted);
+            try {
+                assertEquals("body of a", promoted.body.toString(StandardCharsets.UTF_8));
+            } finally {
+                promoted.release();
+            }
+            // a is back in memory, and b was demoted in turn
+            CacheEntry inMemory = cache.get("http://localhost/a");
+            assertNotNull(inMemory);
+            inMemory.release();
+            awaitDiskEntryCount(cache, 2);
+        }
+    }
+
+    @Test
+    public void entriesAreReloadedWhenTheCacheIsBuilt(@TempDir Path directory) throws Exception {
+        try (HttpCache cache = new HttpCache.Builder().setDiskDirectory(directory).build()) {
+            cache.put(entry("http://localhost/a", "body of a"));
+            cache.put(entry("http://localhost/b", "body of b"));
+            assertEquals(0, cache.getDiskEntryCount());
+        }
+
+        try (HttpCache cache = new HttpCache.Builder().setDiskDirectory(directory).build()) {
+            assertEquals(0, cache.getMemoryEntryCount());
+            assertEquals(2, cache.getDiskEntryCount());
+            CacheEntry reloaded = cache.get("http://localhost/b");
+            assertNotNull(reloaded);
+            try {
+                assertEquals("body of b", reloaded.body.toString(StandardCharsets.UTF_8));
+            } finally {
+                reloaded.release();
+            }
+        }
+    }
+}
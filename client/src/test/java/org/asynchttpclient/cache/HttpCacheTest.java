@@ -0,0 +1,203 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.cache;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Path;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.config;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HttpCacheTest extends AbstractBasicTest {
+
+    private static final String ETAG = "\"v1\"";
+
+    private final Map<String, AtomicInteger> hitsPerTarget = new ConcurrentHashMap<>();
+    private final Map<String, String> ifNoneMatchPerTarget = new ConcurrentHashMap<>();
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+                baseRequest.setHandled(true);
+                int hits = hitsPerTarget.computeIfAbsent(request.getMethod() + ' ' + target, k -> new AtomicInteger()).incrementAndGet();
+                String ifNoneMatch = request.getHeader("If-None-Match");
+                if (ifNoneMatch != null) {
+                    ifNoneMatchPerTarget.put(target, ifNoneMatch);
+                }
+
+                if (target.startsWith("/fresh")) {
+                    response.setHeader("Cache-Control", "max-age=60");
+                } else if (target.startsWith("/etag")) {
+                    response.setHeader("Cache-Control", "no-cache");
+                    response.setHeader("ETag", ETAG);
+                } else if (target.startsWith("/swr")) {
+                    response.setHeader("Cache-Control", "max-age=0, stale-while-revalidate=60");
+                    response.setHeader("ETag", ETAG);
+                } else if (target.startsWith("/no-store")) {
+                    response.setHeader("Cache-Control", "no-store");
+                }
+
+                if (ETAG.equals(ifNoneMatch)) {
+                    response.setStatus(304);
+                    response.setHeader("X-Revalidated", "true");
+                    return;
+                }
+                byte[] body = (target + '#' + hits).getBytes(StandardCharsets.UTF_8);
+                response.setContentLength(body.length);
+                response.getOutputStream().write(body);
+            }
+        };
+    }
+
+    @BeforeEach
+    public void resetCounters() {
+        hitsPerTarget.clear();
+        ifNoneMatchPerTarget.clear();
+    }
+
+    private String url(String path) {
+        return "http://localhost:" + port1 + path;
+    }
+
+    private int hits(String target) {
+        AtomicInteger hits = hitsPerTarget.get("GET " + target);
+        return hits != null ? hits.get() : 0;
+    }
+
+    @Test
+    public void freshResponseIsServedWithoutTouchingTheNetwork() throws Exception {
+        try (HttpCache cache = new HttpCache.Builder().build();
+             AsyncHttpClient client = asyncHttpClient(config().setHttpCache(cache))) {
+            Response first = client.prepareGet(url("/fresh")).execute().get(TIMEOUT, SECONDS);
+            Response second = client.prepareGet(url("/fresh")).execute().get(TIMEOUT, SECONDS);
+
+            assertEquals(200, second.getStatusCode());
+            assertEquals(first.getResponseBody(), second.getResponseBody());
+            assertEquals("/fresh#1", second.getResponseBody());
+            assertNotNull(second.getHeader("Age"));
+            assertEquals(1, hits("/fresh"));
+            assertEquals(1, cache.getMetrics().getMisses());
+            assertEquals(1, cache.getMetrics().getHits());
+            assertEquals(1, cache.getMemoryEntryCount());
+        }
+    }
+
+    @Test
+    public void staleResponseIsRevalidatedWithItsETag() throws Exception {
+        try (HttpCache cache = new HttpCache.Builder().build();
+             AsyncHttpClient client = asyncHttpClient(config().setHttpCache(cache))) {
+            client.prepareGet(url("/etag")).execute().get(TIMEOUT, SECONDS);
+            Response revalidated = client.prepareGet(url("/etag")).execute().get(TIMEOUT, SECONDS);
+
+            assertEquals(2, hits("/etag"));
+            assertEquals(ETAG, ifNoneMatchPerTarget.get("/etag"));
+            assertEquals(200, revalidated.getStatusCode());
+            assertEquals("/etag#1", revalidated.getResponseBody());
+            // the header fields of the 304 are merged into the stored response
+            assertEquals("true", revalidated.getHeader("X-Revalidated"));
+            assertEquals(1, cache.getMetrics().getRevalidations());
+            assertEquals(1, cache.getMetrics().getNotModified());
+        }
+    }
+
+    @Test
+    public void staleWhileRevalidateServesStaleResponseAndRevalidatesInBackground() throws Exception {
+        try (HttpCache cache = new HttpCache.Builder().build();
+             AsyncHttpClient client = asyncHttpClient(config().setHttpCache(cache))) {
+            client.prepareGet(url("/swr")).execute().get(TIMEOUT, SECONDS);
+            Response stale = client.prepareGet(url("/swr")).execute().get(TIMEOUT, SECONDS);
+
+            assertEquals("/swr#1", stale.getResponseBody());
+            assertEquals(1, cache.getMetrics().getStaleHits());
+
+            long deadline = System.currentTimeMillis() + SECONDS.toMillis(TIMEOUT);
+            while (cache.getMetrics().getNotModified() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertEquals(2, hits("/swr"));
+            assertEquals(1, cache.getMetrics().getNotModified());
+        }
+    }
+
+    @Test
+    public void unsafeMethodAndNoStoreInvalidateStoredResponse() throws Exception {
+        try (HttpCache cache = new HttpCache.Builder().build();
+             AsyncHttpClient client = asyncHttpClient(config().setHttpCache(cache))) {
+            client.prepareGet(url("/fresh")).execute().get(TIMEOUT, SECONDS);
+            client.preparePost(url("/fresh")).setBody("foo").execute().get(TIMEOUT, SECONDS);
+            Response refetched = client.prepareGet(url("/fresh")).execute().get(TIMEOUT, SECONDS);
+            assertEquals("/fresh#2", refetched.getResponseBody());
+
+            client.prepareGet(url("/no-store")).execute().get(TIMEOUT, SECONDS);
+            client.prepareGet(url("/no-store")).execute().get(TIMEOUT, SECONDS);
+            assertEquals(2, hits("/no-store"));
+            assertEquals(1, cache.getMemoryEntryCount());
+        }
+    }
+
+    @Test
+    public void entriesEvictedFromMemoryAreServedFromDisk(@TempDir Path directory) throws Exception {
+        try (HttpCache cache = new HttpCache.Builder().setMaxMemorySize(256).setDiskDirectory(directory).build();
+             AsyncHttpClient client = asyncHttpClient(config().setHttpCache(cache))) {
+            client.prepareGet(url("/fresh/a")).execute().get(TIMEOUT, SECONDS);
+            client.prepareGet(url("/fresh/b")).execute().get(TIMEOUT, SECONDS);
+            assertTrue(cache.getMetrics().getEvictions() >= 1);
+            // demotions are written in the background
+            long deadline = System.currentTimeMillis() + SECONDS.toMillis(TIMEOUT);
+            while (cache.getDiskEntryCount() == 0 && System.currentTimeMillis() < deadline) {
+                Thread.sleep(10);
+            }
+            assertTrue(cache.getDiskEntryCount() >= 1);
+
+            Response promoted = client.prepareGet(url("/fresh/a")).execute().get(TIMEOUT, SECONDS);
+            assertEquals("/fresh/a#1", promoted.getResponseBody());
+            assertEquals(1, hits("/fresh/a"));
+            assertEquals(1, cache.getMetrics().getHits());
+        }
+
+        // entries are flushed to disk on close and reloaded by the next cache
+        try (HttpCache cache = new HttpCache.Builder().setDiskDirectory(directory).build();
+             AsyncHttpClient client = asyncHttpClient(config().setHttpCache(cache))) {
+            assertEquals(0, cache.getMemoryEntryCount());
+            Response reloaded = client.prepareGet(url("/fresh/b")).execute().get(TIMEOUT, SECONDS);
+            assertEquals("/fresh/b#1", reloaded.getResponseBody());
+            assertEquals(1, hits("/fresh/b"));
+            assertNull(ifNoneMatchPerTarget.get("/fresh/b"));
+        }
+    }
+}
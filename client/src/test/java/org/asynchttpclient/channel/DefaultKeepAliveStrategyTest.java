@@ -0,0 +1,61 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.channel;
+
+import io.netty.handler.codec.http.DefaultHttpRequest;
+import io.netty.handler.codec.http.DefaultHttpResponse;
+import io.netty.handler.codec.http.HttpMethod;
+import io.netty.handler.codec.http.HttpRequest;
+import io.netty.handler.codec.http.HttpResponse;
+import io.netty.handler.codec.http.HttpResponseStatus;
+import io.netty.handler.codec.http.HttpVersion;
+import org.junit.jupiter.api.Test;
+
+import java.net.InetSocketAddress;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.KEEP_ALIVE;
+import static org.asynchttpclient.Dsl.get;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+public class DefaultKeepAliveStrategyTest {
+
+    @Test
+    public void parsesKeepAliveTimeout() {
+        assertEquals(5000, DefaultKeepAliveStrategy.parseTimeout("timeout=5, max=1000"));
+        assertEquals(5000, DefaultKeepAliveStrategy.parseTimeout("max=1000, Timeout = 5"));
+        assertEquals(0, DefaultKeepAliveStrategy.parseTimeout("timeout=0"));
+    }
+
+    @Test
+    public void ignoresInvalidKeepAliveTimeout() {
+        assertEquals(-1, DefaultKeepAliveStrategy.parseTimeout("max=1000"));
+        assertEquals(-1, DefaultKeepAliveStrategy.parseTimeout("timeout=soon"));
+        assertEquals(-1, DefaultKeepAliveStrategy.parseTimeout("timeout=-1"));
+        assertEquals(-1, DefaultKeepAliveStrategy.parseTimeout(""));
+    }
+
+    @Test
+    public void readsIdleTimeoutFromResponse() {
+        DefaultKeepAliveStrategy strategy = new DefaultKeepAliveStrategy();
+        InetSocketAddress remoteAddress = InetSocketAddress.createUnresolved("localhost", 80);
+        HttpRequest request = new DefaultHttpRequest(HttpVersion.HTTP_1_1, HttpMethod.GET, "/");
+        HttpResponse response = new DefaultHttpResponse(HttpVersion.HTTP_1_1, HttpResponseStatus.OK);
+
+        assertEquals(-1, strategy.idleTimeout(remoteAddress, get("http://localhost").build(), request, response));
+        response.headers().set(KEEP_ALIVE, "timeout=15");
+        assertEquals(15000, strategy.idleTimeout(remoteAddress, get("http://localhost").build(), request, response));
+    }
+}
@@ -0,0 +1,234 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.coalescing;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.handler.codec.http.HttpHeaders;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHandler;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.AsyncHttpClientConfig.ResponseBodyPartFactory;
+import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.HttpResponseStatus;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.basicAuthRealm;
+import static org.asynchttpclient.Dsl.config;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class CoalescingRequestExecutorTest extends AbstractBasicTest {
+
+    private static final int BODY_SIZE = 256 * 1024;
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+                baseRequest.setHandled(true);
+                int hit = hits.incrementAndGet();
+                try {
+                    release.await(TIMEOUT, SECONDS);
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                byte[] body = body(hit);
+                response.setContentLength(body.length);
+                response.getOutputStream().write(body);
+            }
+        };
+    }
+
+    private static byte[] body(int hit) {
+        byte[] body = new byte[BODY_SIZE];
+        for (int i = 0; i < body.length; i++) {
+            body[i] = (byte) (hit + i);
+        }
+        return body;
+    }
+
+    @BeforeEach
+    public void resetServer() {
+        hits.set(0);
+        release = new CountDownLatch(1);
+    }
+
+    private void awaitFirstHit() throws InterruptedException {
+        long deadline = System.currentTimeMillis() + SECONDS.toMillis(TIMEOUT);
+        while (hits.get() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+    }
+
+    @Test
+    public void concurrentIdenticalRequestsShareOneExchange() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setCoalesceRequests(true))) {
+            List<ListenableFuture<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 20; i++) {
+                futures.add(client.prepareGet(getTargetUrl()).execute());
+            }
+            awaitFirstHit();
+            release.countDown();
+
+            for (ListenableFuture<Response> future : futures) {
+                Response response = future.get(TIMEOUT, SECONDS);
+                assertEquals(200, response.getStatusCode());
+                assertEquals(BODY_SIZE, response.getResponseBodyAsBytes().length);
+            }
+            assertEquals(1, hits.get());
+
+            // the exchange is over, the next request is sent
+            client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, SECONDS);
+            assertEquals(2, hits.get());
+        }
+    }
+
+    @Test
+    public void requestsWithDifferentKeyHeadersAreNotCoalesced() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setCoalesceRequests(true))) {
+            ListenableFuture<Response> alice = client.prepareGet(getTargetUrl()).setHeader("Authorization", "Bearer alice").execute();
+            ListenableFuture<Response> bob = client.prepareGet(getTargetUrl()).setHeader("Authorization", "Bearer bob").execute();
+            // not a key header by default
+            ListenableFuture<Response> bobAgain = client.prepareGet(getTargetUrl()).setHeader("Authorization", "Bearer bob")
+                    .setHeader("X-Trace", "1").execute();
+            release.countDown();
+
+            alice.get(TIMEOUT, SECONDS);
+            bob.get(TIMEOUT, SECONDS);
+            bobAgain.get(TIMEOUT, SECONDS);
+            assertEquals(2, hits.get());
+        }
+    }
+
+    @Test
+    public void requestsWithDifferentRealmsAreNotCoalesced() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setCoalesceRequests(true))) {
+            // the Authorization header of a realm is only computed once the request is sent
+            ListenableFuture<Response> alice = client.prepareGet(getTargetUrl()).setRealm(basicAuthRealm("alice", "secret")).execute();
+            ListenableFuture<Response> bob = client.prepareGet(getTargetUrl()).setRealm(basicAuthRealm("bob", "secret")).execute();
+            awaitFirstHit();
+            release.countDown();
+
+            alice.get(TIMEOUT, SECONDS);
+            bob.get(TIMEOUT, SECONDS);
+            assertEquals(2, hits.get());
+        }
+    }
+
+    @Test
+    public void requestsWithDifferentCookieHeadersAreNotCoalesced() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setCoalesceRequests(true))) {
+            ListenableFuture<Response> alice = client.prepareGet(getTargetUrl()).setHeader("Cookie", "session=alice").execute();
+            ListenableFuture<Response> bob = client.prepareGet(getTargetUrl()).setHeader("Cookie", "session=bob").execute();
+            awaitFirstHit();
+            release.countDown();
+
+            alice.get(TIMEOUT, SECONDS);
+            bob.get(TIMEOUT, SECONDS);
+            assertEquals(2, hits.get());
+        }
+    }
+
+    @Test
+    public void lazyBodyPartsAreFannedOutWithIndependentIndexes() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setCoalesceRequests(true).setResponseBodyPartFactory(ResponseBodyPartFactory.LAZY))) {
+            List<ListenableFuture<byte[]>> futures = new ArrayList<>();
+            for (int i = 0; i < 3; i++) {
+                futures.add(client.prepareGet(getTargetUrl()).execute(new ConsumingHandler()));
+            }
+            awaitFirstHit();
+            release.countDown();
+
+            for (ListenableFuture<byte[]> future : futures) {
+                assertEquals(new String(body(1), StandardCharsets.ISO_8859_1), new String(future.get(TIMEOUT, SECONDS), StandardCharsets.ISO_8859_1));
+            }
+            assertEquals(1, hits.get());
+        }
+    }
+
+    @Test
+    public void cancellingOneCallerDoesNotCancelTheOthers() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setCoalesceRequests(true))) {
+            ListenableFuture<Response> cancelled = client.prepareGet(getTargetUrl()).execute();
+            ListenableFuture<Response> kept = client.prepareGet(getTargetUrl()).execute();
+            awaitFirstHit();
+
+            assertTrue(cancelled.cancel(true));
+            release.countDown();
+
+            assertEquals(BODY_SIZE, kept.get(TIMEOUT, SECONDS).getResponseBodyAsBytes().length);
+            assertThrows(CancellationException.class, () -> cancelled.get(TIMEOUT, SECONDS));
+            assertEquals(1, hits.get());
+        }
+    }
+
+    /**
+     * Reads the parts, moving their reader index, as a handler that doesn't copy would.
+     */
+    private static class ConsumingHandler implements AsyncHandler<byte[]> {
+
+        private final ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+
+        @Override
+        public State onStatusReceived(HttpResponseStatus responseStatus) {
+            return State.CONTINUE;
+        }
+
+        @Override
+        public State onHeadersReceived(HttpHeaders headers) {
+            return State.CONTINUE;
+        }
+
+        @Override
+        public State onBodyPartReceived(HttpResponseBodyPart bodyPart) throws IOException {
+            ByteBuf buf = bodyPart.getBodyByteBuf();
+            buf.readBytes(bytes, buf.readableBytes());
+            return State.CONTINUE;
+        }
+
+        @Override
+        public void onThrowable(Throwable t) {
+        }
+
+        @Override
+        public byte[] onCompleted() {
+            return bytes.toByteArray();
+        }
+    }
+}
@@ -0,0 +1,162 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.filter;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncCompletionHandlerBase;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.exception.FilterException;
+import org.asynchttpclient.uri.Uri;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executor;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.config;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class RateLimitRequestFilterTest extends AbstractBasicTest {
+
+    @Test
+    public void requestsAreSpreadAtTheHostRate() throws Exception {
+        try (RateLimitRequestFilter filter = new RateLimitRequestFilter.Builder().setHostRate(20).build();
+             AsyncHttpClient client = asyncHttpClient(config().addRequestFilter(filter))) {
+            long start = System.nanoTime();
+            List<ListenableFuture<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 10; i++) {
+                futures.add(client.prepareGet(getTargetUrl()).execute());
+            }
+            assertEquals(9, filter.getQueueDepth());
+            assertEquals(9, filter.getQueueDepth(Uri.create(getTargetUrl())));
+
+            for (ListenableFuture<Response> future : futures) {
+                assertEquals(200, future.get(TIMEOUT, SECONDS).getStatusCode());
+            }
+            // the last request was sent 9 intervals of 50ms after the first one
+            assertTrue(System.nanoTime() - start >= Duration.ofMillis(450).toNanos());
+            assertEquals(0, filter.getQueueDepth());
+        }
+    }
+
+    @Test
+    public void delayedRequestsAreSentFromTheExecutor() throws Exception {
+        AtomicInteger executed = new AtomicInteger();
+        Executor executor = command -> {
+            executed.incrementAndGet();
+            ForkJoinPool.commonPool().execute(command);
+        };
+        try (RateLimitRequestFilter filter = new RateLimitRequestFilter.Builder().setHostRate(20).setExecutor(executor).build();
+             AsyncHttpClient client = asyncHttpClient(config().addRequestFilter(filter))) {
+            ListenableFuture<Response> first = client.prepareGet(getTargetUrl()).execute();
+            ListenableFuture<Response> second = client.prepareGet(getTargetUrl()).execute();
+
+            assertEquals(200, first.get(TIMEOUT, SECONDS).getStatusCode());
+            assertEquals(200, second.get(TIMEOUT, SECONDS).getStatusCode());
+            assertEquals(1, executed.get());
+            assertEquals(0, filter.getQueueDepth());
+        }
+    }
+
+    @Test
+    public void burstIsSentAtOnce() throws Exception {
+        try (RateLimitRequestFilter filter = new RateLimitRequestFilter.Builder().setHostRate(1).setHostBurst(5).build();
+             AsyncHttpClient client = asyncHttpClient(config().addRequestFilter(filter))) {
+            List<ListenableFuture<Response>> futures = new ArrayList<>();
+            for (int i = 0; i < 5; i++) {
+                futures.add(client.prepareGet(getTargetUrl()).execute());
+            }
+            assertEquals(0, filter.getQueueDepth());
+
+            for (ListenableFuture<Response> future : futures) {
+                assertEquals(200, future.get(TIMEOUT, SECONDS).getStatusCode());
+            }
+        }
+    }
+
+    @Test
+    public void requestsWaitingLongerThanMaxWaitAreRejected() throws Exception {
+        try (RateLimitRequestFilter filter = new RateLimitRequestFilter.Builder().setGlobalRate(1).setMaxWait(Duration.ofMillis(100)).build();
+             AsyncHttpClient client = asyncHttpClient(config().addRequestFilter(filter))) {
+            assertEquals(200, client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, SECONDS).getStatusCode());
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, SECONDS));
+            assertInstanceOf(FilterException.class, e.getCause());
+        }
+    }
+
+    @Test
+    public void cancelledRequestsLeaveTheQueue() throws Exception {
+        try (RateLimitRequestFilter filter = new RateLimitRequestFilter.Builder().setHostRate(1).build();
+             AsyncHttpClient client = asyncHttpClient(config().addRequestFilter(filter))) {
+            ListenableFuture<Response> first = client.prepareGet(getTargetUrl()).execute();
+            ListenableFuture<Response> second = client.prepareGet(getTargetUrl()).execute();
+            assertEquals(1, filter.getQueueDepth());
+
+            assertTrue(second.cancel(true));
+            assertEquals(0, filter.getQueueDepth());
+            assertTrue(second.isCancelled());
+            assertEquals(200, first.get(TIMEOUT, SECONDS).getStatusCode());
+        }
+    }
+
+    @Test
+    public void cancellingAQueuedRequestNotifiesItsHandlerOnce() throws Exception {
+        AtomicInteger onThrowableCalls = new AtomicInteger();
+        try (RateLimitRequestFilter filter = new RateLimitRequestFilter.Builder().setHostRate(1).build();
+             AsyncHttpClient client = asyncHttpClient(config().addRequestFilter(filter))) {
+            ListenableFuture<Response> first = client.prepareGet(getTargetUrl()).execute();
+            ListenableFuture<Response> second = client.prepareGet(getTargetUrl()).execute(new AsyncCompletionHandlerBase() {
+                @Override
+                public void onThrowable(Throwable t) {
+                    onThrowableCalls.incrementAndGet();
+                }
+            });
+
+            assertTrue(second.cancel(true));
+            assertEquals(1, onThrowableCalls.get());
+            assertEquals(200, first.get(TIMEOUT, SECONDS).getStatusCode());
+        }
+    }
+
+    @Test
+    public void cancelledRequestsLeaveTheQueuesOfEveryFilter() throws Exception {
+        try (RateLimitRequestFilter hostFilter = new RateLimitRequestFilter.Builder().setHostRate(1).build();
+             RateLimitRequestFilter globalFilter = new RateLimitRequestFilter.Builder().setGlobalRate(1).build();
+             AsyncHttpClient client = asyncHttpClient(config().addRequestFilter(hostFilter).addRequestFilter(globalFilter))) {
+            ListenableFuture<Response> first = client.prepareGet(getTargetUrl()).execute();
+            ListenableFuture<Response> second = client.prepareGet(getTargetUrl()).execute();
+            assertEquals(1, hostFilter.getQueueDepth());
+            assertEquals(1, globalFilter.getQueueDepth());
+
+            assertTrue(second.cancel(true));
+            assertEquals(0, hostFilter.getQueueDepth());
+            assertEquals(0, globalFilter.getQueueDepth());
+            assertEquals(200, first.get(TIMEOUT, SECONDS).getStatusCode());
+        }
+    }
+}
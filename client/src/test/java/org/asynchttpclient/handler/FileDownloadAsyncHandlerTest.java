@@ -0,0 +1,198 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.handler;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Request;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.handler.resumable.ResumableAsyncHandler;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+
+import java.io.IOException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.Arrays;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+
+import static io.netty.handler.codec.http.HttpHeaderNames.CONTENT_RANGE;
+import static io.netty.handler.codec.http.HttpHeaderNames.RANGE;
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.get;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+
+public class FileDownloadAsyncHandlerTest extends AbstractBasicTest {
+
+    private static final byte[] CONTENT = new byte[3 * 1024 * 1024];
+
+    static {
+        for (int i = 0; i < CONTENT.length; i++) {
+            CONTENT[i] = (byte) (i % 251);
+        }
+    }
+
+    @TempDir
+    Path tempDir;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void startExecutor() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            @Override
+            public void handle(String target, org.eclipse.jetty.server.Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+                baseRequest.setHandled(true);
+                if (target.endsWith("/missing")) {
+                    response.sendError(404);
+                    return;
+                }
+
+                int start = 0;
+                String range = request.getHeader(RANGE.toString());
+                if (range != null) {
+                    start = Integer.parseInt(range.substring("bytes=".length(), range.indexOf('-')));
+                    response.setStatus(206);
+                    response.setHeader(CONTENT_RANGE.toString(), "bytes " + start + '-' + (CONTENT.length - 1) + '/' + CONTENT.length);
+                }
+                response.setContentLength(CONTENT.length - start);
+                response.getOutputStream().write(CONTENT, start, CONTENT.length - start);
+            }
+        };
+    }
+
+    @Test
+    public void downloadsToFileOnExecutor() throws Exception {
+        // slow writes, so that reads get suspended while the backlog is over the high watermark
+        Path file = tempDir.resolve("download");
+        ExecutorService slowExecutor = Executors.newSingleThreadExecutor();
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            for (int i = 0; i < 2; i++) {
+                Files.deleteIfExists(file);
+                FileDownloadAsyncHandler handler = new FileDownloadAsyncHandler(file, task -> slowExecutor.execute(() -> {
+                    try {
+                        Thread.sleep(100);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                    task.run();
+                }), true);
+
+                // the second download reuses the pooled connection, which must be readable again
+                client.prepareGet(getTargetUrl()).execute(handler).get(TIMEOUT, SECONDS);
+                Response response = handler.downloaded().get(TIMEOUT, SECONDS);
+                assertEquals(200, response.getStatusCode());
+                assertFalse(response.hasResponseBody());
+                assertArrayEquals(CONTENT, Files.readAllBytes(file));
+                assertEquals(CONTENT.length, handler.getWrittenOffset());
+            }
+        } finally {
+            slowExecutor.shutdownNow();
+        }
+    }
+
+    @Test
+    public void downloadsToFileOnIoThread() throws Exception {
+        Path file = tempDir.resolve("download");
+        // a longer stale file gets truncated
+        Files.write(file, new byte[CONTENT.length + 10]);
+
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            FileDownloadAsyncHandler handler = new FileDownloadAsyncHandler(file);
+            client.prepareGet(getTargetUrl()).execute(handler).get(TIMEOUT, SECONDS);
+            Response response = handler.downloaded().get(TIMEOUT, SECONDS);
+            assertEquals(200, response.getStatusCode());
+            assertArrayEquals(CONTENT, Files.readAllBytes(file));
+        }
+    }
+
+    @Test
+    public void resumesFromPersistedOffset() throws Exception {
+        int offset = 1_000_000;
+        Path file = tempDir.resolve("download");
+        Files.write(file, Arrays.copyOf(CONTENT, offset));
+
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            FileDownloadAsyncHandler download = new FileDownloadAsyncHandler(file, executor, true);
+            ResumableAsyncHandler handler = new ResumableAsyncHandler(offset, download).setResumableListener(download.resumableListener());
+            Request request = handler.adjustRequestRange(get(getTargetUrl()).build());
+            assertEquals("bytes=" + offset + '-', request.getHeaders().get(RANGE));
+
+            client.executeRequest(request, handler).get(TIMEOUT, SECONDS);
+            download.downloaded().get(TIMEOUT, SECONDS);
+            assertArrayEquals(CONTENT, Files.readAllBytes(file));
+            assertEquals(CONTENT.length, download.getWrittenOffset());
+        }
+    }
+
+    @Test
+    public void doesNotWriteErrorResponses() throws Exception {
+        Path file = tempDir.resolve("download");
+
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            FileDownloadAsyncHandler handler = new FileDownloadAsyncHandler(file, executor, false);
+            Response response = client.prepareGet(getTargetUrl() + "/missing").execute(handler).get(TIMEOUT, SECONDS);
+            assertEquals(404, response.getStatusCode());
+            assertEquals(404, handler.downloaded().get(TIMEOUT, SECONDS).getStatusCode());
+            assertFalse(Files.exists(file));
+        }
+    }
+
+    @Test
+    public void doesNotBlockTheEventLoopOnPendingWrites() throws Exception {
+        Path file = tempDir.resolve("download");
+        CountDownLatch writesAllowed = new CountDownLatch(1);
+
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            FileDownloadAsyncHandler handler = new FileDownloadAsyncHandler(file, task -> executor.execute(() -> {
+                try {
+                    writesAllowed.await();
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                }
+                task.run();
+            }), false);
+
+            // the backlog stays under the high watermark for the last part, so the response can complete with writes still pending
+            client.prepareGet(getTargetUrl()).setHeader(RANGE, "bytes=" + (CONTENT.length - 1000) + '-').execute(handler).get(TIMEOUT, SECONDS);
+            assertFalse(handler.downloaded().isDone());
+
+            writesAllowed.countDown();
+            assertEquals(206, handler.downloaded().get(TIMEOUT, SECONDS).getStatusCode());
+            assertEquals(CONTENT.length, handler.getWrittenOffset());
+        }
+    }
+}
@@ -0,0 +1,196 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.handler;
+
+import io.netty.buffer.ByteBuf;
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.net.ConnectException;
+import java.util.concurrent.CancellationException;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.test.TestUtils.findFreePort;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class StreamedResponseAsyncHandlerTest extends AbstractBasicTest {
+
+    private static final int CHUNK_SIZE = 64 * 1024;
+    private static final int SMALL_CHUNK_COUNT = 16;
+    private static final int LARGE_CHUNK_COUNT = 1024;
+
+    private final AtomicLong bytesWrittenByServer = new AtomicLong();
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+                baseRequest.setHandled(true);
+                int chunkCount = target.endsWith("/large") ? LARGE_CHUNK_COUNT : SMALL_CHUNK_COUNT;
+                response.setContentLengthLong((long) chunkCount * CHUNK_SIZE);
+                OutputStream os = response.getOutputStream();
+                for (int i = 0; i < chunkCount; i++) {
+                    os.write(chunk(i));
+                    bytesWrittenByServer.addAndGet(CHUNK_SIZE);
+                }
+            }
+        };
+    }
+
+    private static byte[] chunk(int index) {
+        byte[] chunk = new byte[CHUNK_SIZE];
+        for (int i = 0; i < CHUNK_SIZE; i++) {
+            chunk[i] = (byte) (index + i);
+        }
+        return chunk;
+    }
+
+    private static byte[] expectedBody(int chunkCount) {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < chunkCount; i++) {
+            expected.writeBytes(chunk(i));
+        }
+        return expected.toByteArray();
+    }
+
+    @Test
+    public void streamsBodyOnDemand() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            // twice, so that the second request reuses the connection that must have been made readable again
+            for (int i = 0; i < 2; i++) {
+                StreamedResponseAsyncHandler handler = new StreamedResponseAsyncHandler();
+                ListenableFuture<Response> future = client.prepareGet(getTargetUrl()).execute(handler);
+
+                CollectingSubscriber subscriber = new CollectingSubscriber();
+                handler.getBodyPublisher().subscribe(subscriber);
+
+                assertEquals(200, handler.getResponse().get(TIMEOUT, SECONDS).getStatusCode());
+                assertArrayEquals(expectedBody(SMALL_CHUNK_COUNT), subscriber.body.get(TIMEOUT, SECONDS));
+                assertEquals(200, future.get(TIMEOUT, SECONDS).getStatusCode());
+            }
+        }
+    }
+
+    @Test
+    public void slowSubscriberAppliesBackpressure() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            bytesWrittenByServer.set(0);
+            StreamedResponseAsyncHandler handler = new StreamedResponseAsyncHandler();
+            ListenableFuture<Response> future = client.prepareGet(getTargetUrl() + "/large").execute(handler);
+
+            CompletableFuture<Flow.Subscription> subscription = new CompletableFuture<>();
+            handler.getBodyPublisher().subscribe(new Flow.Subscriber<>() {
+                @Override
+                public void onSubscribe(Flow.Subscription s) {
+                    s.request(1);
+                    subscription.complete(s);
+                }
+
+                @Override
+                public void onNext(ByteBuf item) {
+                    item.release();
+                }
+
+                @Override
+                public void onError(Throwable throwable) {
+                }
+
+                @Override
+                public void onComplete() {
+                }
+            });
+
+            subscription.get(TIMEOUT, SECONDS);
+            Thread.sleep(1000);
+            // the server is blocked once the socket buffers are full, far from writing the whole body
+            long written = bytesWrittenByServer.get();
+            assertTrue(written < (long) LARGE_CHUNK_COUNT * CHUNK_SIZE / 2, "Server wrote " + written + " bytes");
+
+            subscription.get().cancel();
+            assertThrows(CancellationException.class, () -> future.get(TIMEOUT, SECONDS));
+            assertTrue(future.isCancelled());
+        }
+    }
+
+    @Test
+    public void failureIsPublished() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            StreamedResponseAsyncHandler handler = new StreamedResponseAsyncHandler();
+            client.prepareGet("http://localhost:" + findFreePort() + "/foo/test").execute(handler);
+
+            CollectingSubscriber subscriber = new CollectingSubscriber();
+            handler.getBodyPublisher().subscribe(subscriber);
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> subscriber.body.get(TIMEOUT, SECONDS));
+            assertInstanceOf(ConnectException.class, e.getCause());
+        }
+    }
+
+    private static class CollectingSubscriber implements Flow.Subscriber<ByteBuf> {
+
+        private final ByteArrayOutputStream received = new ByteArrayOutputStream();
+        private final CompletableFuture<byte[]> body = new CompletableFuture<>();
+        private Flow.Subscription subscription;
+
+        @Override
+        public void onSubscribe(Flow.Subscription subscription) {
+            this.subscription = subscription;
+            subscription.request(1);
+        }
+
+        @Override
+        public void onNext(ByteBuf item) {
+            try {
+                item.readBytes(received, item.readableBytes());
+            } catch (IOException e) {
+                body.completeExceptionally(e);
+            } finally {
+                item.release();
+            }
+            subscription.request(1);
+        }
+
+        @Override
+        public void onError(Throwable throwable) {
+            body.completeExceptionally(throwable);
+        }
+
+        @Override
+        public void onComplete() {
+            body.complete(received.toByteArray());
+        }
+    }
+}
@@ -0,0 +1,163 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.hedging;
+
+import jakarta.servlet.http.HttpServletRequest;
+import jakarta.servlet.http.HttpServletResponse;
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncCompletionHandler;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.ListenableFuture;
+import org.asynchttpclient.Response;
+import org.eclipse.jetty.server.Request;
+import org.eclipse.jetty.server.handler.AbstractHandler;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.config;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+public class HedgingRequestExecutorTest extends AbstractBasicTest {
+
+    private final AtomicInteger hits = new AtomicInteger();
+    private volatile CountDownLatch release = new CountDownLatch(0);
+
+    @Override
+    public AbstractHandler configureHandler() throws Exception {
+        return new AbstractHandler() {
+            @Override
+            public void handle(String target, Request baseRequest, HttpServletRequest request, HttpServletResponse response) throws IOException {
+                baseRequest.setHandled(true);
+                int hit = hits.incrementAndGet();
+                if (hit == 1) {
+                    // only the first hit is slow
+                    try {
+                        release.await(TIMEOUT, SECONDS);
+                    } catch (InterruptedException e) {
+                        Thread.currentThread().interrupt();
+                    }
+                }
+                byte[] body = ("hit " + hit).getBytes(StandardCharsets.US_ASCII);
+                response.setContentLength(body.length);
+                response.getOutputStream().write(body);
+            }
+        };
+    }
+
+    @BeforeEach
+    public void resetServer() {
+        hits.set(0);
+        release = new CountDownLatch(1);
+    }
+
+    @AfterEach
+    public void releaseServer() {
+        release.countDown();
+    }
+
+    @Test
+    public void slowRequestIsHedged() throws Exception {
+        HedgingPolicy policy = HedgingPolicy.fixedDelay(Duration.ofMillis(100));
+        try (AsyncHttpClient client = asyncHttpClient(config().setHedgingPolicy(policy))) {
+            Response response = client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, SECONDS);
+
+            assertEquals(200, response.getStatusCode());
+            assertEquals("hit 2", response.getResponseBody());
+            assertEquals(1, policy.getMetrics().getRequests());
+            assertEquals(1, policy.getMetrics().getHedgesSent());
+            assertEquals(1, policy.getMetrics().getHedgesWon());
+            assertEquals(0, policy.getMetrics().getHedgesFailed());
+        }
+    }
+
+    @Test
+    public void fastRequestIsNotHedged() throws Exception {
+        release.countDown();
+        HedgingPolicy policy = HedgingPolicy.fixedDelay(Duration.ofSeconds(5));
+        try (AsyncHttpClient client = asyncHttpClient(config().setHedgingPolicy(policy))) {
+            Response response = client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, SECONDS);
+
+            assertEquals("hit 1", response.getResponseBody());
+            assertEquals(1, hits.get());
+            assertEquals(0, policy.getMetrics().getHedgesSent());
+            assertEquals(1, policy.getTimeToStatus().getCount());
+        }
+    }
+
+    @Test
+    public void requestPolicyOverridesTheConfig() throws Exception {
+        HedgingPolicy policy = HedgingPolicy.fixedDelay(Duration.ofMillis(100));
+        try (AsyncHttpClient client = asyncHttpClient(config().setHedgingPolicy(policy))) {
+            ListenableFuture<Response> future = client.prepareGet(getTargetUrl()).setHedgingPolicy(HedgingPolicy.NONE).execute();
+            Thread.sleep(500);
+            assertEquals(1, hits.get());
+            release.countDown();
+
+            assertEquals("hit 1", future.get(TIMEOUT, SECONDS).getResponseBody());
+            assertEquals(0, policy.getMetrics().getRequests());
+        }
+    }
+
+    @Test
+    public void percentilePolicyWaitsForSamples() throws Exception {
+        release.countDown();
+        HedgingPolicy policy = HedgingPolicy.percentileDelay(0.95, Duration.ZERO);
+        try (AsyncHttpClient client = asyncHttpClient(config().setHedgingPolicy(policy))) {
+            for (int i = 0; i < HedgingPolicy.MIN_SAMPLES - 1; i++) {
+                client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, SECONDS);
+            }
+            assertEquals(HedgingPolicy.MIN_SAMPLES - 1, hits.get());
+            assertEquals(0, policy.getMetrics().getHedgesSent());
+        }
+    }
+
+    @Test
+    public void handlerFailingOnCompletedFailsTheFuture() throws Exception {
+        release.countDown();
+        AtomicInteger onThrowableCalls = new AtomicInteger();
+        IllegalStateException failure = new IllegalStateException("onCompleted failed");
+        HedgingPolicy policy = HedgingPolicy.fixedDelay(Duration.ofSeconds(5));
+        try (AsyncHttpClient client = asyncHttpClient(config().setHedgingPolicy(policy))) {
+            ListenableFuture<Response> future = client.prepareGet(getTargetUrl()).execute(new AsyncCompletionHandler<Response>() {
+                @Override
+                public Response onCompleted(Response response) {
+                    throw failure;
+                }
+
+                @Override
+                public void onThrowable(Throwable t) {
+                    onThrowableCalls.incrementAndGet();
+                }
+            });
+
+            ExecutionException e = assertThrows(ExecutionException.class, () -> future.get(TIMEOUT, SECONDS));
+            assertSame(failure, e.getCause());
+            assertEquals(1, onThrowableCalls.get());
+        }
+    }
+}
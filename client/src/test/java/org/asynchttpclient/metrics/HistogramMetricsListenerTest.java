@@ -0,0 +1,88 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.metrics;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.config;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class HistogramMetricsListenerTest extends AbstractBasicTest {
+
+    private String partitionKey() {
+        return "http://localhost:" + port1;
+    }
+
+    @Test
+    public void recordsEveryPhaseOfRequests() throws Exception {
+        HistogramMetricsListener metrics = new HistogramMetricsListener();
+        try (AsyncHttpClient client = asyncHttpClient(config().setMetricsListener(metrics))) {
+            for (int i = 0; i < 2; i++) {
+                Response response = client.prepareGet(getTargetUrl()).execute().get(TIMEOUT, SECONDS);
+                assertEquals(200, response.getStatusCode());
+            }
+        }
+
+        PartitionMetrics partition = metrics.getPartitionMetrics(partitionKey());
+        assertNotNull(partition);
+        // the second request reused the connection of the first one
+        assertEquals(1, partition.getPoolMisses());
+        assertEquals(1, partition.getPoolHits());
+        assertEquals(1, partition.getHistogram(RequestPhase.POOL_WAIT).getCount());
+        assertEquals(1, partition.getHistogram(RequestPhase.DNS).getCount());
+        assertEquals(1, partition.getHistogram(RequestPhase.CONNECT).getCount());
+        assertEquals(0, partition.getHistogram(RequestPhase.TLS).getCount());
+        assertEquals(2, partition.getHistogram(RequestPhase.REQUEST_WRITE).getCount());
+        assertEquals(2, partition.getHistogram(RequestPhase.TIME_TO_FIRST_BYTE).getCount());
+        assertEquals(2, partition.getHistogram(RequestPhase.TOTAL).getCount());
+        assertEquals(0, partition.getRetries());
+        assertEquals(0, partition.getTimeouts());
+
+        LatencyHistogram total = partition.getHistogram(RequestPhase.TOTAL);
+        LatencyHistogram timeToFirstByte = partition.getHistogram(RequestPhase.TIME_TO_FIRST_BYTE);
+        assertTrue(total.getMax() > 0);
+        assertTrue(total.getMax() >= timeToFirstByte.getMax());
+    }
+
+    @Test
+    public void countsTimeouts() throws Exception {
+        HistogramMetricsListener metrics = new HistogramMetricsListener();
+        try (AsyncHttpClient client = asyncHttpClient(config().setMetricsListener(metrics).setRequestTimeout(Duration.ofMillis(200)))) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> client.prepareGet(getTargetUrl()).setHeader("LockThread", "2").execute().get(TIMEOUT, SECONDS));
+            assertInstanceOf(TimeoutException.class, e.getCause());
+        }
+
+        PartitionMetrics partition = metrics.getPartitionMetrics(partitionKey());
+        assertNotNull(partition);
+        assertEquals(1, partition.getTimeouts());
+        assertEquals(1, partition.getHistogram(RequestPhase.TOTAL).getCount());
+        assertEquals(0, partition.getHistogram(RequestPhase.TIME_TO_FIRST_BYTE).getCount());
+    }
+}
@@ -14,12 +14,15 @@ package org.asynchttpclient.netty;
 
 import io.github.artsok.RepeatedIfExceptionsTest;
 import io.netty.buffer.ByteBuf;
+import io.netty.buffer.PooledByteBufAllocator;
 import io.netty.buffer.Unpooled;
 import io.netty.handler.codec.http.DefaultHttpHeaders;
 import io.netty.handler.codec.http.HttpHeaders;
 import io.netty.handler.codec.http.cookie.Cookie;
 import org.asynchttpclient.HttpResponseBodyPart;
+import org.asynchttpclient.Response;
 
+import java.io.InputStream;
 import java.nio.charset.StandardCharsets;
 import java.text.SimpleDateFormat;
 import java.util.Date;
@@ -29,7 +32,9 @@ import java.util.Locale;
 import java.util.TimeZone;
 
 import static io.netty.handler.codec.http.HttpHeaderNames.SET_COOKIE;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
 import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
 import static org.junit.jupiter.api.Assertions.assertTrue;
 
 public class NettyAsyncResponseTest {
@@ -90,4 +95,64 @@ public class NettyAsyncResponseTest {
         assertEquals("Hello World", body.toString(StandardCharsets.UTF_8));
         body.release();
     }
+
+    @RepeatedIfExceptionsTest(repeats = 5)
+    public void testLazyBodyPartsAreRetainedInCompositeResponse() throws Exception {
+        ByteBuf hello = PooledByteBufAllocator.DEFAULT.buffer().writeBytes("Hello ".getBytes(StandardCharsets.UTF_8));
+        ByteBuf world = PooledByteBufAllocator.DEFAULT.buffer().writeBytes("World".getBytes(StandardCharsets.UTF_8));
+
+        Response.ResponseBuilder builder = new Response.ResponseBuilder();
+        builder.accumulate(new NettyResponseStatus(null, null, null));
+        builder.accumulate(new RetainedResponseBodyPart(hello, false));
+        builder.accumulate(new RetainedResponseBodyPart(world, true));
+
+        // the channel pipeline releases the chunks once they have been handled
+        hello.release();
+        world.release();
+        assertEquals(1, hello.refCnt());
+
+        NettyCompositeResponse response = assertInstanceOf(NettyCompositeResponse.class, builder.build());
+        assertTrue(response.hasResponseBody());
+        assertEquals("Hello World", response.getResponseBody());
+        try (InputStream is = response.getResponseBodyAsStream()) {
+            assertArrayEquals("Hello World".getBytes(StandardCharsets.UTF_8), is.readAllBytes());
+        }
+        assertArrayEquals("Hello World".getBytes(StandardCharsets.UTF_8), response.getResponseBodyAsBytes());
+
+        // the builder no longer owns the buffers
+        builder.reset();
+        assertEquals(1, response.refCnt());
+
+        assertTrue(response.release());
+        assertEquals(0, hello.refCnt());
+        assertEquals(0, world.refCnt());
+    }
+
+    @RepeatedIfExceptionsTest(repeats = 5)
+    public void testLazyBodyPartsAreNotRetained() {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.buffer().writeBytes("Hello".getBytes(StandardCharsets.UTF_8));
+
+        Response.ResponseBuilder builder = new Response.ResponseBuilder();
+        builder.accumulate(new NettyResponseStatus(null, null, null));
+        builder.accumulate(new LazyResponseBodyPart(buf, true));
+        assertEquals(1, buf.refCnt());
+
+        Response response = builder.build();
+        assertEquals(NettyResponse.class, response.getClass());
+        assertEquals("Hello", response.getResponseBody());
+        buf.release();
+    }
+
+    @RepeatedIfExceptionsTest(repeats = 5)
+    public void testResetReleasesRetainedBodyParts() {
+        ByteBuf buf = PooledByteBufAllocator.DEFAULT.buffer().writeBytes("Hello".getBytes(StandardCharsets.UTF_8));
+
+        Response.ResponseBuilder builder = new Response.ResponseBuilder();
+        builder.accumulate(new NettyResponseStatus(null, null, null));
+        builder.accumulate(new RetainedResponseBodyPart(buf, true));
+        buf.release();
+
+        builder.reset();
+        assertEquals(0, buf.refCnt());
+    }
 }
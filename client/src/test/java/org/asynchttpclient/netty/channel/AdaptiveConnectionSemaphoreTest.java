@@ -0,0 +1,114 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.io.IOException;
+import java.util.concurrent.TimeoutException;
+
+import static java.util.concurrent.TimeUnit.MILLISECONDS;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class AdaptiveConnectionSemaphoreTest {
+
+    private static final Object PK = new Object();
+
+    private final Timer timer = new HashedWheelTimer();
+
+    @AfterAll
+    public void tearDown() {
+        timer.stop();
+    }
+
+    private AdaptiveConnectionSemaphore newSemaphore() {
+        return new AdaptiveConnectionSemaphore(-1, 4, 1, 100, 1.5, 0.2, 0.9, 60_000, timer);
+    }
+
+    private static void acquire(AdaptiveConnectionSemaphore semaphore, int count) {
+        for (int i = 0; i < count; i++) {
+            assertTrue(semaphore.acquireChannelLockAsync(PK).isSuccess());
+        }
+    }
+
+    @Test
+    public void limitGrowsWhileLatencyIsStable() {
+        AdaptiveConnectionSemaphore semaphore = newSemaphore();
+        acquire(semaphore, 4);
+        Future<Void> queued = semaphore.acquireChannelLockAsync(PK);
+        assertFalse(queued.isDone());
+
+        for (int i = 0; i < 50; i++) {
+            semaphore.onRequestDone(PK, MILLISECONDS.toNanos(10), null);
+        }
+
+        assertTrue(semaphore.getLimit(PK) > 4);
+        // the raised limit let the queued request in
+        assertTrue(queued.isSuccess());
+    }
+
+    @Test
+    public void limitShrinksWhenLatencyRises() {
+        AdaptiveConnectionSemaphore semaphore = newSemaphore();
+        acquire(semaphore, 4);
+        for (int i = 0; i < 500; i++) {
+            semaphore.onRequestDone(PK, MILLISECONDS.toNanos(10), null);
+        }
+        int stableLimit = semaphore.getLimit(PK);
+
+        for (int i = 0; i < 30; i++) {
+            semaphore.onRequestDone(PK, MILLISECONDS.toNanos(100), null);
+        }
+
+        assertTrue(semaphore.getLimit(PK) < stableLimit, () -> semaphore.getLimit(PK) + " should be lower than " + stableLimit);
+    }
+
+    @Test
+    public void timeoutsAndIoErrorsCutTheLimit() {
+        AdaptiveConnectionSemaphore semaphore = newSemaphore();
+
+        semaphore.onRequestDone(PK, -1, new IllegalStateException());
+        assertEquals(4, semaphore.getLimit(PK));
+
+        semaphore.onRequestDone(PK, MILLISECONDS.toNanos(10), new TimeoutException());
+        assertEquals(3, semaphore.getLimit(PK));
+
+        for (int i = 0; i < 50; i++) {
+            semaphore.onRequestDone(PK, -1, new IOException());
+        }
+        assertEquals(1, semaphore.getLimit(PK));
+    }
+
+    @Test
+    public void limitDoesNotGrowWhenItIsNotReached() {
+        AdaptiveConnectionSemaphore semaphore = newSemaphore();
+        acquire(semaphore, 1);
+
+        for (int i = 0; i < 100; i++) {
+            semaphore.onRequestDone(PK, MILLISECONDS.toNanos(10), null);
+        }
+
+        assertEquals(4, semaphore.getLimit(PK));
+    }
+}
@@ -0,0 +1,347 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.bootstrap.ServerBootstrap;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelInboundHandlerAdapter;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.DefaultEventLoopGroup;
+import io.netty.channel.EventLoop;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.local.LocalAddress;
+import io.netty.channel.local.LocalChannel;
+import io.netty.channel.local.LocalServerChannel;
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import org.asynchttpclient.netty.channel.DefaultChannelPool.PoolLeaseStrategy;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.time.Duration;
+import java.util.Iterator;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNotNull;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertSame;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class DefaultChannelPoolTest {
+
+    private static final Object PK = "partition";
+
+    private final Timer timer = new HashedWheelTimer();
+    private final EventLoopGroup group = new DefaultEventLoopGroup(2);
+    private EventLoop loop1;
+    private EventLoop loop2;
+    private Channel server;
+    private LocalAddress address;
+
+    @BeforeAll
+    public void setUp() throws Exception {
+        Iterator<?> loops = group.iterator();
+        loop1 = (EventLoop) loops.next();
+        loop2 = (EventLoop) loops.next();
+        address = new LocalAddress(DefaultChannelPoolTest.class);
+        server = new ServerBootstrap()
+                .group(group)
+                .channel(LocalServerChannel.class)
+                .childHandler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        // no op
+                    }
+                })
+                .bind(address).sync().channel();
+    }
+
+    @AfterAll
+    public void tearDown() throws Exception {
+        server.close().sync();
+        group.shutdownGracefully().sync();
+        timer.stop();
+    }
+
+    private Channel connect(EventLoop loop) throws InterruptedException {
+        return new Bootstrap()
+                .group(loop)
+                .channel(LocalChannel.class)
+                .handler(new ChannelInboundHandlerAdapter())
+                .connect(address).sync().channel();
+    }
+
+    private DefaultChannelPool newPool(boolean eventLoopAffinity) {
+        return newPool(Duration.ofMinutes(1), Duration.ofMinutes(1), eventLoopAffinity);
+    }
+
+    private DefaultChannelPool newPool(Duration maxIdleTime, Duration connectionTtl, boolean eventLoopAffinity) {
+        return new DefaultChannelPool(maxIdleTime, connectionTtl, PoolLeaseStrategy.LIFO, eventLoopAffinity, timer, Duration.ofMinutes(1));
+    }
+
+    @Test
+    public void leasesChannelsFromCallerEventLoopFirst() throws Exception {
+        DefaultChannelPool pool = newPool(true);
+        Channel onLoop1 = connect(loop1);
+        Channel onLoop2 = connect(loop2);
+        try {
+            assertTrue(pool.offer(onLoop1, PK));
+            assertTrue(pool.offer(onLoop2, PK));
+
+            // LIFO would pick onLoop2, but the caller runs on loop1
+            assertSame(onLoop1, loop1.submit(() -> pool.poll(PK)).get());
+            // nothing left on loop1, steal from loop2
+            assertSame(onLoop2, loop1.submit(() -> pool.poll(PK)).get());
+            assertNull(pool.poll(PK));
+        } finally {
+            onLoop1.close().sync();
+            onLoop2.close().sync();
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void callersOutsideEventLoopsGetAnyChannel() throws Exception {
+        DefaultChannelPool pool = newPool(true);
+        Channel onLoop1 = connect(loop1);
+        Channel onLoop2 = connect(loop2);
+        try {
+            pool.offer(onLoop1, PK);
+            pool.offer(onLoop2, PK);
+
+            assertNotNull(pool.poll(PK));
+            assertNotNull(pool.poll(PK));
+            assertNull(pool.poll(PK));
+        } finally {
+            onLoop1.close().sync();
+            onLoop2.close().sync();
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void leaseStrategyAppliesWithoutAffinity() throws Exception {
+        DefaultChannelPool pool = newPool(false);
+        Channel onLoop1 = connect(loop1);
+        Channel onLoop2 = connect(loop2);
+        try {
+            pool.offer(onLoop1, PK);
+            pool.offer(onLoop2, PK);
+
+            assertSame(onLoop2, loop1.submit(() -> pool.poll(PK)).get());
+            assertSame(onLoop1, loop1.submit(() -> pool.poll(PK)).get());
+        } finally {
+            onLoop1.close().sync();
+            onLoop2.close().sync();
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void removeAllDropsChannelFromItsPartition() throws Exception {
+        // no ttl, removal used to rely on the channel creation attribute only registered when ttl is enabled
+        DefaultChannelPool pool = newPool(Duration.ofMinutes(1), Duration.ZERO, true);
+        Channel onLoop1 = connect(loop1);
+        Channel onLoop2 = connect(loop2);
+        try {
+            pool.offer(onLoop1, PK);
+            pool.offer(onLoop2, PK);
+            assertEquals(2, pool.getIdleChannelCount(PK));
+
+            assertTrue(pool.removeAll(onLoop1));
+            assertFalse(pool.removeAll(onLoop1));
+            assertEquals(1, pool.getIdleChannelCount(PK));
+
+            assertSame(onLoop2, loop1.submit(() -> pool.poll(PK)).get());
+            assertNull(pool.poll(PK));
+            assertEquals(0, pool.getIdleChannelCount(PK));
+            assertFalse(pool.removeAll(onLoop2));
+        } finally {
+            onLoop1.close().sync();
+            onLoop2.close().sync();
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void idleChannelsExpireOnTheirDeadline() throws Exception {
+        DefaultChannelPool pool = newPool(Duration.ofMillis(200), Duration.ZERO, false);
+        Channel channel = connect(loop1);
+        try {
+            // leasing cancels the expiry
+            pool.offer(channel, PK);
+            assertSame(channel, pool.poll(PK));
+            Thread.sleep(400);
+            assertTrue(channel.isActive());
+
+            pool.offer(channel, PK);
+            assertTrue(channel.closeFuture().await(2000));
+            assertNull(pool.poll(PK));
+        } finally {
+            channel.close().sync();
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void connectionTtlBoundsIdleDeadline() throws Exception {
+        DefaultChannelPool pool = newPool(Duration.ofMinutes(1), Duration.ofMillis(300), false);
+        Channel channel = connect(loop1);
+        try {
+            assertTrue(pool.offer(channel, PK));
+            assertSame(channel, pool.poll(PK));
+
+            // ttl started on first offer, the idle timeout is way longer
+            assertTrue(pool.offer(channel, PK));
+            assertTrue(channel.closeFuture().await(2000));
+            assertNull(pool.poll(PK));
+            assertFalse(pool.offer(channel, PK));
+        } finally {
+            channel.close().sync();
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void connectionTtlAppliesFromFirstOfferWithoutIdleTimeout() throws Exception {
+        DefaultChannelPool pool = newPool(Duration.ZERO, Duration.ofMillis(300), false);
+        Channel channel = connect(loop1);
+        try {
+            assertTrue(pool.offer(channel, PK));
+            assertTrue(channel.closeFuture().await(2000));
+            assertNull(pool.poll(PK));
+        } finally {
+            channel.close().sync();
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void serverIdleTimeoutBoundsIdleDeadline() throws Exception {
+        DefaultChannelPool pool = newPool(false);
+        Channel channel = connect(loop1);
+        try {
+            // expired after 300 ms rather than after the pool idle timeout, the margin being capped to half the server timeout
+            Channels.setIdleTimeout(channel, 600);
+            assertTrue(pool.offer(channel, PK));
+            assertTrue(channel.closeFuture().await(2000));
+            assertNull(pool.poll(PK));
+        } finally {
+            channel.close().sync();
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void channelsPastTheirDeadlineAreNotLeased() throws Exception {
+        // a timer that never fires, as if the wheel was late
+        Timer lateTimer = new HashedWheelTimer(1, TimeUnit.HOURS);
+        DefaultChannelPool pool = new DefaultChannelPool(Duration.ofMinutes(1), Duration.ZERO, PoolLeaseStrategy.LIFO, false, lateTimer, Duration.ofMinutes(1));
+        Channel channel = connect(loop1);
+        try {
+            Channels.setIdleTimeout(channel, 200);
+            assertTrue(pool.offer(channel, PK));
+            Thread.sleep(300);
+
+            assertNull(pool.poll(PK));
+            assertTrue(channel.closeFuture().await(2000));
+        } finally {
+            channel.close().sync();
+            pool.destroy();
+            lateTimer.stop();
+        }
+    }
+
+    @Test
+    public void serverClosingIdleChannelsRightAwayAreNotPooled() throws Exception {
+        DefaultChannelPool pool = newPool(false);
+        Channel channel = connect(loop1);
+        try {
+            Channels.setIdleTimeout(channel, 0);
+            assertFalse(pool.offer(channel, PK));
+
+            // the hint is cleared by the next response that doesn't carry one
+            Channels.setIdleTimeout(channel, -1);
+            assertTrue(pool.offer(channel, PK));
+            assertSame(channel, pool.poll(PK));
+        } finally {
+            channel.close().sync();
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void maxIdleChannelsEvictsTheEldestAcrossPartitions() throws Exception {
+        DefaultChannelPool pool = new DefaultChannelPool(Duration.ofMinutes(1), Duration.ZERO, PoolLeaseStrategy.LIFO, false, 2, timer, Duration.ofMinutes(1));
+        Channel first = connect(loop1);
+        Channel second = connect(loop1);
+        Channel third = connect(loop2);
+        try {
+            assertTrue(pool.offer(first, "a"));
+            assertTrue(pool.offer(second, "b"));
+            // leasing and offering back makes first the most recent one
+            assertSame(first, pool.poll("a"));
+            assertTrue(pool.offer(first, "a"));
+
+            assertTrue(pool.offer(third, "c"));
+            assertTrue(second.closeFuture().await(2000));
+            assertEquals(0, pool.getIdleChannelCount("b"));
+            assertEquals(1, pool.getIdleChannelCount("a"));
+            assertEquals(1, pool.getIdleChannelCount("c"));
+            assertTrue(first.isActive());
+            assertTrue(third.isActive());
+        } finally {
+            first.close().sync();
+            second.close().sync();
+            third.close().sync();
+            pool.destroy();
+        }
+    }
+
+    @Test
+    public void emptyPartitionsAreReclaimed() throws Exception {
+        DefaultChannelPool pool = newPool(Duration.ofMillis(200), Duration.ZERO, true);
+        Channel onLoop1 = connect(loop1);
+        Channel onLoop2 = connect(loop2);
+        try {
+            pool.offer(onLoop1, "a");
+            pool.offer(onLoop2, "b");
+            assertEquals(2, pool.getPartitionCount());
+
+            assertSame(onLoop1, pool.poll("a"));
+            assertEquals(1, pool.getPartitionCount());
+
+            // the partition comes back on the next offer
+            assertTrue(pool.offer(onLoop1, "a"));
+            assertEquals(2, pool.getPartitionCount());
+            assertTrue(pool.removeAll(onLoop1));
+            assertEquals(1, pool.getPartitionCount());
+
+            assertTrue(onLoop2.closeFuture().await(2000));
+            assertEquals(0, pool.getPartitionCount());
+        } finally {
+            onLoop1.close().sync();
+            onLoop2.close().sync();
+            pool.destroy();
+        }
+    }
+}
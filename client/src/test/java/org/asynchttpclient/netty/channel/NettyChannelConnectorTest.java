@@ -0,0 +1,146 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.resolver.InetNameResolver;
+import io.netty.util.concurrent.ImmediateEventExecutor;
+import io.netty.util.concurrent.Promise;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.test.EchoHandler;
+import org.eclipse.jetty.server.Server;
+import org.eclipse.jetty.server.ServerConnector;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.net.ConnectException;
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.ServerSocket;
+import java.net.Socket;
+import java.net.SocketTimeoutException;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+import static java.time.Duration.ofMillis;
+import static java.time.Duration.ofSeconds;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.config;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class NettyChannelConnectorTest {
+
+    private Server server;
+    private int port;
+    // a listening socket with a full backlog, so that connecting to it hangs like with a blackholed address
+    private ServerSocket blackhole;
+    private final List<Socket> backlog = new ArrayList<>();
+
+    @BeforeAll
+    public void setUp() throws Exception {
+        server = new Server();
+        ServerConnector connector = new ServerConnector(server);
+        connector.setHost("127.0.0.1");
+        server.addConnector(connector);
+        server.setHandler(new EchoHandler());
+        server.start();
+        port = connector.getLocalPort();
+
+        blackhole = new ServerSocket();
+        blackhole.bind(new InetSocketAddress("127.0.0.2", port), 1);
+        while (true) {
+            Socket socket = new Socket();
+            backlog.add(socket);
+            try {
+                socket.connect(blackhole.getLocalSocketAddress(), 200);
+            } catch (SocketTimeoutException e) {
+                break;
+            }
+        }
+    }
+
+    @AfterAll
+    public void tearDown() throws Exception {
+        for (Socket socket : backlog) {
+            socket.close();
+        }
+        blackhole.close();
+        server.stop();
+    }
+
+    private static InetNameResolver resolvingTo(InetAddress... addresses) {
+        return new InetNameResolver(ImmediateEventExecutor.INSTANCE) {
+            @Override
+            protected void doResolve(String inetHost, Promise<InetAddress> promise) {
+                promise.setSuccess(addresses[0]);
+            }
+
+            @Override
+            protected void doResolveAll(String inetHost, Promise<List<InetAddress>> promise) {
+                promise.setSuccess(Arrays.asList(addresses));
+            }
+        };
+    }
+
+    @Test
+    public void interleavesAddressFamiliesStartingWithPreferredOne() throws Exception {
+        InetSocketAddress v6a = new InetSocketAddress(InetAddress.getByName("::1"), 80);
+        InetSocketAddress v6b = new InetSocketAddress(InetAddress.getByName("::2"), 80);
+        InetSocketAddress v6c = new InetSocketAddress(InetAddress.getByName("::3"), 80);
+        InetSocketAddress v4a = new InetSocketAddress(InetAddress.getByName("127.0.0.1"), 80);
+        InetSocketAddress v4b = new InetSocketAddress(InetAddress.getByName("127.0.0.2"), 80);
+
+        assertEquals(Arrays.asList(v6a, v4a, v6b, v4b, v6c), NettyChannelConnector.interleaveAddressFamilies(Arrays.asList(v6a, v6b, v6c, v4a, v4b)));
+        assertEquals(Arrays.asList(v4a, v6a, v4b, v6b, v6c), NettyChannelConnector.interleaveAddressFamilies(Arrays.asList(v4a, v4b, v6a, v6b, v6c)));
+    }
+
+    @Test
+    public void racesNextAddressWhenFirstOneHangs() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setConnectTimeout(ofSeconds(10)).setConnectionAttemptDelay(ofMillis(100)))) {
+            long start = System.nanoTime();
+            Response response = client.prepareGet("http://localhost:" + port + "/foo")
+                    .setNameResolver(resolvingTo(InetAddress.getByName("127.0.0.2"), InetAddress.getByName("127.0.0.1")))
+                    .execute()
+                    .get(5, TimeUnit.SECONDS);
+            long elapsed = TimeUnit.NANOSECONDS.toMillis(System.nanoTime() - start);
+
+            assertEquals(200, response.getStatusCode());
+            assertTrue(elapsed < 5000, "took " + elapsed + " ms");
+        }
+    }
+
+    @Test
+    public void failsOnceAllAttemptsFailed() throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config().setConnectTimeout(ofMillis(500)).setConnectionAttemptDelay(ofMillis(100)).setMaxRequestRetry(0))) {
+            Throwable cause = null;
+            try {
+                client.prepareGet("http://localhost:" + port + "/foo")
+                        .setNameResolver(resolvingTo(InetAddress.getByName("127.0.0.2"), InetAddress.getByName("127.0.0.2")))
+                        .execute()
+                        .get(5, TimeUnit.SECONDS);
+            } catch (Exception e) {
+                cause = e.getCause();
+            }
+            assertTrue(cause instanceof ConnectException, String.valueOf(cause));
+        }
+    }
+}
@@ -0,0 +1,139 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.channel;
+
+import io.netty.util.HashedWheelTimer;
+import io.netty.util.Timer;
+import io.netty.util.concurrent.Future;
+import org.asynchttpclient.exception.TooManyConnectionsException;
+import org.asynchttpclient.exception.TooManyConnectionsPerHostException;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+import org.junit.jupiter.api.Timeout;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class NonBlockingConnectionSemaphoreTest {
+
+    private static final Object PK1 = new Object();
+    private static final Object PK2 = new Object();
+
+    private final Timer timer = new HashedWheelTimer();
+
+    @AfterAll
+    public void tearDown() {
+        timer.stop();
+    }
+
+    @Test
+    @Timeout(unit = TimeUnit.MILLISECONDS, value = 1000)
+    public void queuedRequestsAreGrantedInOrderOnRelease() {
+        NonBlockingConnectionSemaphore semaphore = new NonBlockingConnectionSemaphore(-1, 1, 60_000, timer);
+
+        Future<Void> first = semaphore.acquireChannelLockAsync(PK1);
+        Future<Void> second = semaphore.acquireChannelLockAsync(PK1);
+        Future<Void> third = semaphore.acquireChannelLockAsync(PK1);
+        assertTrue(first.isSuccess());
+        assertFalse(second.isDone());
+        assertFalse(third.isDone());
+        assertEquals(2, semaphore.getWaitingCount());
+
+        semaphore.releaseChannelLock(PK1);
+        assertTrue(second.isSuccess());
+        assertFalse(third.isDone());
+
+        semaphore.releaseChannelLock(PK1);
+        assertTrue(third.isSuccess());
+        assertEquals(0, semaphore.getWaitingCount());
+    }
+
+    @Test
+    @Timeout(unit = TimeUnit.MILLISECONDS, value = 2000)
+    public void queuedRequestFailsAfterAcquireTimeout() {
+        NonBlockingConnectionSemaphore semaphore = new NonBlockingConnectionSemaphore(-1, 1, 100, timer);
+
+        assertTrue(semaphore.acquireChannelLockAsync(PK1).isSuccess());
+        Future<Void> queued = semaphore.acquireChannelLockAsync(PK1);
+        assertFalse(queued.isDone());
+
+        queued.awaitUninterruptibly();
+        assertInstanceOf(TooManyConnectionsPerHostException.class, queued.cause());
+        assertEquals(0, semaphore.getWaitingCount());
+
+        // timed out requests don't get a permit later on
+        semaphore.releaseChannelLock(PK1);
+        assertTrue(semaphore.acquireChannelLockAsync(PK1).isSuccess());
+    }
+
+    @Test
+    @Timeout(unit = TimeUnit.MILLISECONDS, value = 1000)
+    public void failsRightAwayWithoutAcquireTimeout() {
+        NonBlockingConnectionSemaphore semaphore = new NonBlockingConnectionSemaphore(1, -1, 0, timer);
+
+        assertTrue(semaphore.acquireChannelLockAsync(PK1).isSuccess());
+        Future<Void> rejected = semaphore.acquireChannelLockAsync(PK2);
+        assertTrue(rejected.isDone());
+        assertInstanceOf(TooManyConnectionsException.class, rejected.cause());
+    }
+
+    @Test
+    @Timeout(unit = TimeUnit.MILLISECONDS, value = 1000)
+    public void globalSlotsAreSharedBetweenWaitingHosts() {
+        NonBlockingConnectionSemaphore semaphore = new NonBlockingConnectionSemaphore(2, 2, 60_000, timer);
+
+        assertTrue(semaphore.acquireChannelLockAsync(PK1).isSuccess());
+        assertTrue(semaphore.acquireChannelLockAsync(PK1).isSuccess());
+        Future<Void> host1 = semaphore.acquireChannelLockAsync(PK1);
+        Future<Void> host2 = semaphore.acquireChannelLockAsync(PK2);
+        Future<Void> host2Again = semaphore.acquireChannelLockAsync(PK2);
+
+        // the same host is served first when it has waiters
+        semaphore.releaseChannelLock(PK1);
+        assertTrue(host1.isSuccess());
+        assertFalse(host2.isDone());
+
+        // then the other hosts waiting on the global limit
+        semaphore.releaseChannelLock(PK1);
+        assertTrue(host2.isSuccess());
+        assertFalse(host2Again.isDone());
+
+        semaphore.releaseChannelLock(PK1);
+        assertTrue(host2Again.isSuccess());
+    }
+
+    @Test
+    @Timeout(unit = TimeUnit.MILLISECONDS, value = 1000)
+    public void blockingAcquireStillWorks() throws Exception {
+        NonBlockingConnectionSemaphore semaphore = new NonBlockingConnectionSemaphore(1, 1, 0, timer);
+        semaphore.acquireChannelLock(PK1);
+        boolean tooManyCaught = false;
+        try {
+            semaphore.acquireChannelLock(PK1);
+        } catch (TooManyConnectionsException | TooManyConnectionsPerHostException e) {
+            tooManyCaught = true;
+        }
+        assertTrue(tooManyCaught);
+        semaphore.releaseChannelLock(PK1);
+        semaphore.acquireChannelLock(PK1);
+    }
+}
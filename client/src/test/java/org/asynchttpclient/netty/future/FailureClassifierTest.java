@@ -0,0 +1,88 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.netty.future;
+
+import io.netty.channel.ConnectTimeoutException;
+import io.netty.channel.epoll.Epoll;
+import io.netty.channel.unix.Errors;
+import org.junit.jupiter.api.Test;
+
+import javax.net.ssl.SSLException;
+import java.io.IOException;
+import java.net.ConnectException;
+import java.nio.channels.ClosedChannelException;
+
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+import static org.junit.jupiter.api.Assumptions.assumeTrue;
+
+public class FailureClassifierTest {
+
+    private final FailureClassifier classifier = FailureClassifier.DEFAULT;
+
+    @Test
+    public void closedConnectionsAreRetriableOnReadOrWrite() {
+        assertTrue(classifier.isRetriableReadOrWriteFailure(new ClosedChannelException()));
+        assertTrue(classifier.isRetriableReadOrWriteFailure(new IOException("Connection reset by peer")));
+        assertTrue(classifier.isRetriableReadOrWriteFailure(new SSLException("write failed", new IOException("Broken pipe"))));
+
+        assertFalse(classifier.isRetriableReadOrWriteFailure(new IOException("Too many open files")));
+        assertFalse(classifier.isRetriableReadOrWriteFailure(new IllegalStateException()));
+    }
+
+    @Test
+    public void nativeErrnoValuesAreClassified() {
+        assumeTrue(Epoll.isAvailable());
+
+        assertTrue(classifier.isRetriableReadOrWriteFailure(Errors.newConnectionResetException("syscall:read", Errors.ERRNO_ECONNRESET_NEGATIVE)));
+        assertTrue(classifier.isRetriableReadOrWriteFailure(Errors.newIOException("syscall:writev", Errors.ERRNO_EPIPE_NEGATIVE)));
+        assertFalse(classifier.isRetriableReadOrWriteFailure(Errors.newIOException("syscall:read", Errors.ERRNO_EBADF_NEGATIVE)));
+
+        assertTrue(classifier.isRetriableConnectFailure(Errors.newIOException("syscall:connect", Errors.ERROR_EHOSTUNREACH_NEGATIVE)));
+    }
+
+    @Test
+    public void connectFailuresAreRetriableButNotTimeouts() {
+        assertTrue(classifier.isRetriableConnectFailure(new ConnectException("Connection refused")));
+        assertTrue(classifier.isRetriableConnectFailure(new SSLException("handshake failed", new ClosedChannelException())));
+
+        assertFalse(classifier.isRetriableConnectFailure(new ConnectTimeoutException("connection timed out")));
+        assertFalse(classifier.isRetriableConnectFailure(new SSLException("unknown_ca")));
+    }
+
+    @Test
+    public void causeCyclesAreNotWalkedForever() {
+        IOException first = new IOException("first");
+        IOException second = new IOException("second", first);
+        first.initCause(second);
+
+        assertFalse(classifier.isRetriableReadOrWriteFailure(first));
+        assertFalse(classifier.isRetriableConnectFailure(first));
+    }
+
+    @Test
+    public void subclassesCanRecognizeOtherFailures() {
+        FailureClassifier custom = new FailureClassifier() {
+            @Override
+            public boolean isRetriableReadOrWriteFailure(Throwable t) {
+                return t instanceof UnsupportedOperationException || super.isRetriableReadOrWriteFailure(t);
+            }
+        };
+
+        assertTrue(custom.isRetriableReadOrWriteFailure(new UnsupportedOperationException()));
+        assertTrue(custom.isRetriableReadOrWriteFailure(new ClosedChannelException()));
+    }
+}
@@ -0,0 +1,156 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.request.body;
+
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.request.body.generator.InputStreamBodyGenerator;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayInputStream;
+import java.io.IOException;
+import java.io.InputStream;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.config;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class OffloadedInputStreamBodyTest extends AbstractBasicTest {
+
+    private static final String READER_THREAD_NAME = "body-reader-";
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void startExecutor() {
+        AtomicInteger count = new AtomicInteger();
+        executor = Executors.newCachedThreadPool(r -> new Thread(r, READER_THREAD_NAME + count.incrementAndGet()));
+    }
+
+    @AfterEach
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    private static byte[] content(int length) {
+        byte[] content = new byte[length];
+        for (int i = 0; i < length; i++) {
+            content[i] = (byte) i;
+        }
+        return content;
+    }
+
+    @Test
+    public void readsStreamOnTheExecutor() throws Exception {
+        byte[] content = content(1024 * 1024);
+        SlowInputStream inputStream = new SlowInputStream(content);
+
+        try (AsyncHttpClient client = asyncHttpClient(config().setInputStreamBodyExecutor(executor))) {
+            Response response = client.preparePut(getTargetUrl()).setBody(inputStream).execute().get(TIMEOUT, SECONDS);
+            assertEquals(200, response.getStatusCode());
+            assertArrayEquals(content, response.getResponseBodyAsBytes());
+        }
+
+        assertFalse(inputStream.readerThreads.isEmpty());
+        assertTrue(inputStream.readerThreads.stream().allMatch(name -> name.startsWith(READER_THREAD_NAME)), inputStream.readerThreads::toString);
+    }
+
+    @Test
+    public void readsBodyGeneratorStreamOnTheExecutor() throws Exception {
+        byte[] content = content(100_000);
+        SlowInputStream inputStream = new SlowInputStream(content);
+
+        try (AsyncHttpClient client = asyncHttpClient(config().setInputStreamBodyExecutor(executor))) {
+            Response response = client.preparePut(getTargetUrl())
+                    .setBody(new InputStreamBodyGenerator(inputStream, content.length))
+                    .execute()
+                    .get(TIMEOUT, SECONDS);
+            assertEquals(200, response.getStatusCode());
+            assertArrayEquals(content, response.getResponseBodyAsBytes());
+        }
+
+        assertTrue(inputStream.readerThreads.stream().allMatch(name -> name.startsWith(READER_THREAD_NAME)), inputStream.readerThreads::toString);
+    }
+
+    @Test
+    public void failsRequestWhenStreamFails() throws Exception {
+        InputStream inputStream = new SlowInputStream(content(100_000)) {
+            @Override
+            public int read(byte[] b, int off, int len) throws IOException {
+                if (position() > 50_000) {
+                    throw new IOException("Broken stream");
+                }
+                return super.read(b, off, len);
+            }
+        };
+
+        try (AsyncHttpClient client = asyncHttpClient(config().setInputStreamBodyExecutor(executor))) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> client.preparePut(getTargetUrl()).setBody(inputStream).execute().get(TIMEOUT, SECONDS));
+            assertInstanceOf(IOException.class, e.getCause());
+            assertEquals("Broken stream", e.getCause().getMessage());
+        }
+    }
+
+    private static class SlowInputStream extends InputStream {
+
+        private final Set<String> readerThreads = ConcurrentHashMap.newKeySet();
+        private final ByteArrayInputStream delegate;
+        private final int length;
+
+        SlowInputStream(byte[] content) {
+            delegate = new ByteArrayInputStream(content);
+            length = content.length;
+        }
+
+        int position() {
+            return length - delegate.available();
+        }
+
+        @Override
+        public int read() throws IOException {
+            byte[] b = new byte[1];
+            return read(b, 0, 1) == -1 ? -1 : b[0] & 0xff;
+        }
+
+        @Override
+        public int read(byte[] b, int off, int len) throws IOException {
+            readerThreads.add(Thread.currentThread().getName());
+            try {
+                // simulate blocking I/O
+                Thread.sleep(1);
+            } catch (InterruptedException e) {
+                throw new IOException(e);
+            }
+            return delegate.read(b, off, len);
+        }
+    }
+}
@@ -0,0 +1,185 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.request.body;
+
+import io.netty.buffer.ByteBuf;
+import io.netty.buffer.UnpooledByteBufAllocator;
+import io.netty.buffer.UnpooledHeapByteBuf;
+import org.asynchttpclient.AbstractBasicTest;
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.Response;
+import org.asynchttpclient.request.body.generator.PublisherBody;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Flow;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.junit.jupiter.api.Assertions.assertArrayEquals;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+public class PublisherBodyTest extends AbstractBasicTest {
+
+    private static final int CHUNK_SIZE = 16 * 1024;
+    private static final int CHUNK_COUNT = 256;
+
+    private ExecutorService executor;
+
+    @BeforeEach
+    public void startExecutor() {
+        executor = Executors.newSingleThreadExecutor();
+    }
+
+    @AfterEach
+    public void stopExecutor() {
+        executor.shutdownNow();
+    }
+
+    private static byte[] expectedBody(int chunkCount) {
+        ByteArrayOutputStream expected = new ByteArrayOutputStream();
+        for (int i = 0; i < chunkCount; i++) {
+            expected.writeBytes(ChunkPublisher.chunk(i));
+        }
+        return expected.toByteArray();
+    }
+
+    @Test
+    public void streamsPublisherWithBoundedBuffering() throws Exception {
+        ChunkPublisher publisher = new ChunkPublisher(executor, CHUNK_COUNT, -1);
+
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            Response response = client.preparePut(getTargetUrl()).setBody(publisher).execute().get(TIMEOUT, SECONDS);
+            assertEquals(200, response.getStatusCode());
+            assertArrayEquals(expectedBody(CHUNK_COUNT), response.getResponseBodyAsBytes());
+        }
+
+        // chunks are only requested as they get written, so only a few of them are ever in flight
+        int maxInFlight = publisher.maxInFlight.get();
+        assertTrue(maxInFlight <= PublisherBody.PREFETCH + 4, "Max in flight chunks: " + maxInFlight);
+    }
+
+    @Test
+    public void streamsPublisherWithContentLength() throws Exception {
+        ChunkPublisher publisher = new ChunkPublisher(executor, 8, -1);
+
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            Response response = client.preparePut(getTargetUrl())
+                    .setBody(publisher, 8L * CHUNK_SIZE)
+                    .execute()
+                    .get(TIMEOUT, SECONDS);
+            assertEquals(200, response.getStatusCode());
+            assertArrayEquals(expectedBody(8), response.getResponseBodyAsBytes());
+        }
+    }
+
+    @Test
+    public void failsRequestWhenPublisherFails() throws Exception {
+        ChunkPublisher publisher = new ChunkPublisher(executor, CHUNK_COUNT, 10);
+
+        try (AsyncHttpClient client = asyncHttpClient()) {
+            ExecutionException e = assertThrows(ExecutionException.class,
+                    () -> client.preparePut(getTargetUrl()).setBody(publisher).execute().get(TIMEOUT, SECONDS));
+            assertInstanceOf(IOException.class, e.getCause());
+            assertEquals("Broken publisher", e.getCause().getMessage());
+        }
+    }
+
+    /**
+     * Emits on its own thread, as requested, and tracks how many emitted chunks haven't been released yet.
+     */
+    private static class ChunkPublisher implements Flow.Publisher<ByteBuf> {
+
+        private final ExecutorService executor;
+        private final int chunkCount;
+        private final int failAt;
+        private final AtomicInteger inFlight = new AtomicInteger();
+        private final AtomicInteger maxInFlight = new AtomicInteger();
+
+        ChunkPublisher(ExecutorService executor, int chunkCount, int failAt) {
+            this.executor = executor;
+            this.chunkCount = chunkCount;
+            this.failAt = failAt;
+        }
+
+        static byte[] chunk(int index) {
+            byte[] chunk = new byte[CHUNK_SIZE];
+            for (int i = 0; i < CHUNK_SIZE; i++) {
+                chunk[i] = (byte) (index + i);
+            }
+            return chunk;
+        }
+
+        @Override
+        public void subscribe(Flow.Subscriber<? super ByteBuf> subscriber) {
+            subscriber.onSubscribe(new Flow.Subscription() {
+                private int emitted;
+                private boolean done;
+
+                @Override
+                public void request(long n) {
+                    executor.execute(() -> {
+                        for (long i = 0; i < n && !done; i++) {
+                            if (emitted == failAt) {
+                                done = true;
+                                subscriber.onError(new IOException("Broken publisher"));
+                            } else if (emitted == chunkCount) {
+                                done = true;
+                                subscriber.onComplete();
+                            } else {
+                                ByteBuf chunk = new TrackedByteBuf(chunk(emitted++));
+                                maxInFlight.accumulateAndGet(inFlight.incrementAndGet(), Math::max);
+                                subscriber.onNext(chunk);
+                            }
+                        }
+                        if (!done && emitted == chunkCount) {
+                            done = true;
+                            subscriber.onComplete();
+                        }
+                    });
+                }
+
+                @Override
+                public void cancel() {
+                    executor.execute(() -> done = true);
+                }
+            });
+        }
+
+        private class TrackedByteBuf extends UnpooledHeapByteBuf {
+
+            TrackedByteBuf(byte[] bytes) {
+                super(UnpooledByteBufAllocator.DEFAULT, bytes, bytes.length);
+            }
+
+            @Override
+            protected void deallocate() {
+                inFlight.decrementAndGet();
+                super.deallocate();
+            }
+        }
+    }
+}
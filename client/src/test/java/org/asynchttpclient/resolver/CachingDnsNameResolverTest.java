@@ -0,0 +1,226 @@
+/*
+ *    Copyright (c) 2023 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.resolver;
+
+import io.netty.bootstrap.Bootstrap;
+import io.netty.buffer.Unpooled;
+import io.netty.channel.Channel;
+import io.netty.channel.ChannelHandlerContext;
+import io.netty.channel.ChannelInitializer;
+import io.netty.channel.EventLoopGroup;
+import io.netty.channel.SimpleChannelInboundHandler;
+import io.netty.channel.nio.NioEventLoopGroup;
+import io.netty.channel.socket.nio.NioDatagramChannel;
+import io.netty.handler.codec.dns.DatagramDnsQuery;
+import io.netty.handler.codec.dns.DatagramDnsQueryDecoder;
+import io.netty.handler.codec.dns.DatagramDnsResponse;
+import io.netty.handler.codec.dns.DatagramDnsResponseEncoder;
+import io.netty.handler.codec.dns.DefaultDnsRawRecord;
+import io.netty.handler.codec.dns.DnsQuestion;
+import io.netty.handler.codec.dns.DnsRecord;
+import io.netty.handler.codec.dns.DnsRecordType;
+import io.netty.handler.codec.dns.DnsResponseCode;
+import io.netty.handler.codec.dns.DnsSection;
+import io.netty.resolver.dns.DefaultDnsCache;
+import io.netty.resolver.dns.DnsCacheEntry;
+import io.netty.resolver.dns.SingletonDnsServerAddressStreamProvider;
+import io.netty.util.concurrent.Future;
+import org.junit.jupiter.api.AfterAll;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeAll;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.TestInstance;
+
+import java.net.InetAddress;
+import java.net.InetSocketAddress;
+import java.net.UnknownHostException;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicReference;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertInstanceOf;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+
+@TestInstance(TestInstance.Lifecycle.PER_CLASS)
+public class CachingDnsNameResolverTest {
+
+    private static final byte[] ADDRESS = {10, 0, 0, 1};
+
+    private final EventLoopGroup group = new NioEventLoopGroup(1);
+    private final Map<String, AtomicInteger> queries = new ConcurrentHashMap<>();
+    private volatile long ttl;
+    private volatile long answerDelay;
+    private Channel server;
+    private CachingDnsNameResolver resolver;
+
+    @BeforeAll
+    public void startServer() throws Exception {
+        server = new Bootstrap()
+                .group(group)
+                .channel(NioDatagramChannel.class)
+                .handler(new ChannelInitializer<Channel>() {
+                    @Override
+                    protected void initChannel(Channel ch) {
+                        ch.pipeline().addLast(new DatagramDnsQueryDecoder(), new DatagramDnsResponseEncoder(), new DnsServerHandler());
+                    }
+                })
+                .bind(new InetSocketAddress("127.0.0.1", 0)).sync().channel();
+    }
+
+    @AfterAll
+    public void stopServer() throws Exception {
+        server.close().sync();
+        group.shutdownGracefully().sync();
+    }
+
+    @BeforeEach
+    public void setUp() {
+        queries.clear();
+        ttl = 60;
+        answerDelay = 0;
+        resolver = new CachingDnsNameResolver(group.next(), NioDatagramChannel::new, Duration.ofMinutes(1),
+                new SingletonDnsServerAddressStreamProvider((InetSocketAddress) server.localAddress()));
+    }
+
+    @AfterEach
+    public void tearDown() {
+        resolver.close();
+    }
+
+    private int queries(String hostname) {
+        AtomicInteger count = queries.get(hostname + '.');
+        return count != null ? count.get() : 0;
+    }
+
+    @Test
+    public void cachesAddressesForTheirTtl() throws Exception {
+        assertEquals(InetAddress.getByAddress(ADDRESS), resolver.resolve("cached.test").get());
+        assertEquals(InetAddress.getByAddress(ADDRESS), resolver.resolve("cached.test").get());
+        assertEquals(1, queries("cached.test"));
+    }
+
+    @Test
+    public void expiresAddressesAfterTheirTtl() throws Exception {
+        ttl = 1;
+        resolver.resolveAll("short.test").get();
+        Thread.sleep(1500);
+        resolver.resolveAll("short.test").get();
+        assertEquals(2, queries("short.test"));
+    }
+
+    @Test
+    public void cachesFailures() throws Exception {
+        ExecutionException e = assertThrows(ExecutionException.class, () -> resolver.resolveAll("missing.test").get());
+        assertInstanceOf(UnknownHostException.class, e.getCause());
+        // the failure is cached right after the lookup fails, on the resolver's loop
+        Future<List<InetAddress>> cached = group.next().submit(() -> resolver.resolveAll("missing.test")).get();
+        assertThrows(ExecutionException.class, cached::get);
+        assertEquals(1, queries("missing.test"));
+    }
+
+    @Test
+    public void concurrentLookupsShareQuery() throws Exception {
+        answerDelay = 300;
+        List<Future<List<InetAddress>>> lookups = new ArrayList<>();
+        for (int i = 0; i < 10; i++) {
+            lookups.add(resolver.resolveAll("shared.test"));
+        }
+        for (Future<List<InetAddress>> lookup : lookups) {
+            assertEquals(1, lookup.get().size());
+        }
+        assertEquals(1, queries("shared.test"));
+    }
+
+    @Test
+    public void refreshesHotNamesBeforeTheyExpire() throws Exception {
+        ttl = 2;
+        resolver.resolveAll("hot.test").get();
+
+        // past the refresh threshold, served from the cache while being refreshed
+        Thread.sleep(1700);
+        resolver.resolveAll("hot.test").get();
+        long deadline = System.currentTimeMillis() + 1000;
+        while (queries("hot.test") < 2 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(2, queries("hot.test"));
+
+        // past the first TTL, still cached thanks to the refresh
+        Thread.sleep(600);
+        resolver.resolveAll("hot.test").get();
+        assertEquals(2, queries("hot.test"));
+    }
+
+    @Test
+    public void refreshedNamesNeverMiss() throws Exception {
+        InetAddress refreshed = InetAddress.getByAddress(new byte[]{10, 0, 0, 2});
+        DnsRecord[] additionals = new DnsRecord[0];
+        List<List<? extends DnsCacheEntry>> duringSwap = new ArrayList<>();
+        AtomicReference<RefreshingDnsCache> cache = new AtomicReference<>();
+        cache.set(new RefreshingDnsCache(new DefaultDnsCache() {
+            @Override
+            public boolean clear(String hostname) {
+                boolean cleared = super.clear(hostname);
+                duringSwap.add(cache.get().get(hostname, additionals));
+                return cleared;
+            }
+        }, hostname -> {
+        }));
+
+        cache.get().cache("swap.test", additionals, InetAddress.getByAddress(ADDRESS), 1, group.next());
+        Thread.sleep(900);
+        // past the refresh threshold
+        cache.get().get("swap.test", additionals);
+        cache.get().refreshView().cache("swap.test", additionals, refreshed, 60, group.next());
+        cache.get().refreshed("swap.test", true);
+
+        assertEquals(1, duringSwap.size());
+        assertEquals(1, duringSwap.get(0).size());
+        assertEquals(refreshed, duringSwap.get(0).get(0).address());
+        assertEquals(refreshed, cache.get().get("swap.test", additionals).get(0).address());
+    }
+
+    private final class DnsServerHandler extends SimpleChannelInboundHandler<DatagramDnsQuery> {
+
+        @Override
+        protected void channelRead0(ChannelHandlerContext ctx, DatagramDnsQuery query) {
+            DnsQuestion question = query.recordAt(DnsSection.QUESTION);
+            DatagramDnsResponse response = new DatagramDnsResponse(query.recipient(), query.sender(), query.id());
+            response.addRecord(DnsSection.QUESTION, question);
+
+            if (question.type() == DnsRecordType.A) {
+                queries.computeIfAbsent(question.name(), name -> new AtomicInteger()).incrementAndGet();
+                if (question.name().startsWith("missing.")) {
+                    response.setCode(DnsResponseCode.NXDOMAIN);
+                } else {
+                    response.addRecord(DnsSection.ANSWER, new DefaultDnsRawRecord(question.name(), DnsRecordType.A, ttl, Unpooled.wrappedBuffer(ADDRESS)));
+                }
+            } else if (question.name().startsWith("missing.")) {
+                response.setCode(DnsResponseCode.NXDOMAIN);
+            }
+
+            ctx.executor().schedule(() -> ctx.writeAndFlush(response), answerDelay, TimeUnit.MILLISECONDS);
+        }
+    }
+}
@@ -0,0 +1,85 @@
+/*
+ *    Copyright (c) 2014-2024 AsyncHttpClient Project. All rights reserved.
+ *
+ *    Licensed under the Apache License, Version 2.0 (the "License");
+ *    you may not use this file except in compliance with the License.
+ *    You may obtain a copy of the License at
+ *
+ *        http://www.apache.org/licenses/LICENSE-2.0
+ *
+ *    Unless required by applicable law or agreed to in writing, software
+ *    distributed under the License is distributed on an "AS IS" BASIS,
+ *    WITHOUT WARRANTIES OR CONDITIONS OF ANY KIND, either express or implied.
+ *    See the License for the specific language governing permissions and
+ *    limitations under the License.
+ */
+package org.asynchttpclient.ws;
+
+import org.asynchttpclient.AsyncHttpClient;
+import org.asynchttpclient.DefaultAsyncHttpClientConfig;
+import org.asynchttpclient.cache.HttpCache;
+import org.asynchttpclient.hedging.HedgingPolicy;
+import org.junit.jupiter.api.Test;
+
+import java.time.Duration;
+import java.util.concurrent.CompletableFuture;
+
+import static java.util.concurrent.TimeUnit.SECONDS;
+import static org.asynchttpclient.Dsl.asyncHttpClient;
+import static org.asynchttpclient.Dsl.config;
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * WebSocket upgrades must reach the request sender untouched by the executors that wrap the handler of regular requests.
+ */
+public class WebSocketBypassTest extends AbstractBasicWebSocketTest {
+
+    private void assertEchoes(DefaultAsyncHttpClientConfig.Builder config) throws Exception {
+        try (AsyncHttpClient client = asyncHttpClient(config)) {
+            CompletableFuture<String> echoed = new CompletableFuture<>();
+            WebSocket websocket = client.prepareGet(getTargetUrl()).execute(new WebSocketUpgradeHandler.Builder().addWebSocketListener(new WebSocketListener() {
+
+                @Override
+                public void onOpen(WebSocket websocket) {
+                }
+
+                @Override
+                public void onClose(WebSocket websocket, int code, String reason) {
+                }
+
+                @Override
+                public void onError(Throwable t) {
+                    echoed.completeExceptionally(t);
+                }
+
+                @Override
+                public void onTextFrame(String payload, boolean finalFragment, int rsv) {
+                    echoed.complete(payload);
+                }
+            }).build()).get(TIMEOUT, SECONDS);
+
+            websocket.sendTextFrame("ECHO");
+            assertEquals("ECHO", echoed.get(TIMEOUT, SECONDS));
+        }
+    }
+
+    @Test
+    public void webSocketBypassesTheHttpCache() throws Exception {
+        try (HttpCache cache = new HttpCache.Builder().build()) {
+            assertEchoes(config().setHttpCache(cache));
+            assertEquals(0, cache.getMetrics().getMisses());
+        }
+    }
+
+    @Test
+    public void webSocketIsNeverCoalesced() throws Exception {
+        assertEchoes(config().setCoalesceRequests(true));
+    }
+
+    @Test
+    public void webSocketIsNeverHedged() throws Exception {
+        HedgingPolicy policy = HedgingPolicy.fixedDelay(Duration.ofMillis(1));
+        assertEchoes(config().setHedgingPolicy(policy));
+        assertEquals(0, policy.getMetrics().getRequests());
+    }
+}